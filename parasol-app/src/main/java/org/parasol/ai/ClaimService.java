@@ -9,6 +9,7 @@ import dev.langchain4j.service.UserMessage;
 import io.quarkiverse.langchain4j.RegisterAiService;
 import io.quarkiverse.langchain4j.ToolBox;
 import io.quarkiverse.langchain4j.mcp.runtime.McpToolBox;
+import io.smallrye.mutiny.Multi;
 
 @RegisterAiService(modelName = "parasol-chat")
 @SessionScoped
@@ -37,6 +38,5 @@ public interface ClaimService {
     """)
 	@ToolBox({ ClaimantInfoService.class, NotificationService.class })
 	@McpToolBox
-	String chat(ClaimBotQuery query);
-//	Multi<String> chat(ClaimBotQuery query);
+	Multi<String> chat(ClaimBotQuery query);
 }
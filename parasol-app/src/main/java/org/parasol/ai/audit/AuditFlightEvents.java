@@ -0,0 +1,241 @@
+package org.parasol.ai.audit;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.parasol.ai.audit.InvocationTimings.Step;
+
+import dev.langchain4j.guardrail.GuardrailResult;
+import dev.langchain4j.model.output.TokenUsage;
+import dev.langchain4j.observability.api.event.AiServiceCompletedEvent;
+import dev.langchain4j.observability.api.event.AiServiceErrorEvent;
+import dev.langchain4j.observability.api.event.AiServiceEvent;
+import dev.langchain4j.observability.api.event.AiServiceResponseReceivedEvent;
+import dev.langchain4j.observability.api.event.AiServiceStartedEvent;
+import dev.langchain4j.observability.api.event.GuardrailExecutedEvent;
+import dev.langchain4j.observability.api.event.InputGuardrailExecutedEvent;
+import dev.langchain4j.observability.api.event.OutputGuardrailExecutedEvent;
+import dev.langchain4j.observability.api.event.ToolExecutedEvent;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JDK Flight Recorder events for the AI service events observed by the audit, emitted by {@link AuditFlightRecordingInterceptor}.
+ * <p>
+ * Each event's own duration is the time taken to audit the AI service event (the observer method), and its
+ * {@code sincePreviousEvent} and {@code sinceStart} are the step of the invocation timed by the {@link InvocationTimingInterceptor}.
+ * Nothing is recorded, and the fields aren't even filled in, unless a recording has the event enabled.
+ * </p>
+ */
+public final class AuditFlightEvents {
+	static final String PREFIX = "org.parasol.ai.";
+
+	/**
+	 * The names of all the events, for enabling them in a recording
+	 */
+	public static final List<String> NAMES = List.of(
+		ServiceStarted.NAME,
+		ServiceCompleted.NAME,
+		ServiceFailed.NAME,
+		ResponseReceived.NAME,
+		ToolExecuted.NAME,
+		InputGuardrailExecuted.NAME,
+		OutputGuardrailExecuted.NAME
+	);
+
+	private AuditFlightEvents() {
+	}
+
+	/**
+	 * A new (not yet begun) flight event for the AI service event
+	 */
+	public static AiServiceFlightEvent of(AiServiceEvent event) {
+		return switch (event) {
+			case AiServiceStartedEvent started -> new ServiceStarted();
+			case AiServiceCompletedEvent completed -> new ServiceCompleted();
+			case AiServiceErrorEvent failed -> new ServiceFailed();
+			case AiServiceResponseReceivedEvent responseReceived -> new ResponseReceived();
+			case ToolExecutedEvent toolExecuted -> new ToolExecuted();
+			case InputGuardrailExecutedEvent guardrailExecuted -> new InputGuardrailExecuted();
+			case OutputGuardrailExecutedEvent guardrailExecuted -> new OutputGuardrailExecuted();
+			default -> null;
+		};
+	}
+
+	@Category({ "Parasol", "AI Services" })
+	@StackTrace(false)
+	public abstract static class AiServiceFlightEvent extends Event {
+		@Label("Interface Name")
+		public String interfaceName;
+
+		@Label("Method Name")
+		public String methodName;
+
+		@Label("Invocation Id")
+		public String invocationId;
+
+		@Label("Since Previous Event")
+		@Description("Time since the invocation's previous event, or -1 if it isn't known")
+		@Timespan(Timespan.NANOSECONDS)
+		public long sincePreviousEvent;
+
+		@Label("Since Start")
+		@Description("Time since the invocation started, or -1 if it isn't known")
+		@Timespan(Timespan.NANOSECONDS)
+		public long sinceStart;
+
+		/**
+		 * Fills in the fields from the AI service event and its step, which is {@code null} if it wasn't timed
+		 */
+		public void set(AiServiceEvent event, Step step) {
+			var invocationContext = event.invocationContext();
+			this.interfaceName = invocationContext.interfaceName();
+			this.methodName = invocationContext.methodName();
+			this.invocationId = String.valueOf(invocationContext.invocationId());
+			this.sincePreviousEvent = (step != null) ?
+			                          step.sincePreviousEvent().toNanos() :
+			                          -1;
+			this.sinceStart = ((step != null) && (step.sinceStart() != null)) ?
+			                  step.sinceStart().toNanos() :
+			                  -1;
+
+			setDetails(event);
+		}
+
+		void setDetails(AiServiceEvent event) {
+		}
+	}
+
+	@Name(ServiceStarted.NAME)
+	@Label("AI Service Started")
+	public static final class ServiceStarted extends AiServiceFlightEvent {
+		static final String NAME = PREFIX + "ServiceStarted";
+	}
+
+	@Name(ServiceCompleted.NAME)
+	@Label("AI Service Completed")
+	public static final class ServiceCompleted extends AiServiceFlightEvent {
+		static final String NAME = PREFIX + "ServiceCompleted";
+	}
+
+	@Name(ServiceFailed.NAME)
+	@Label("AI Service Failed")
+	public static final class ServiceFailed extends AiServiceFlightEvent {
+		static final String NAME = PREFIX + "ServiceFailed";
+
+		@Label("Error Class")
+		public String errorClass;
+
+		@Label("Error Message")
+		public String errorMessage;
+
+		@Override
+		void setDetails(AiServiceEvent event) {
+			var error = ((AiServiceErrorEvent) event).error();
+
+			if (error != null) {
+				this.errorClass = error.getClass().getName();
+				this.errorMessage = error.getMessage();
+			}
+		}
+	}
+
+	@Name(ResponseReceived.NAME)
+	@Label("LLM Response Received")
+	public static final class ResponseReceived extends AiServiceFlightEvent {
+		static final String NAME = PREFIX + "ResponseReceived";
+
+		@Label("Model Name")
+		public String modelName;
+
+		@Label("Input Tokens")
+		public long inputTokens;
+
+		@Label("Output Tokens")
+		public long outputTokens;
+
+		@Label("Total Tokens")
+		public long totalTokens;
+
+		@Label("First Response")
+		@Description("Whether this is the invocation's first response from the LLM")
+		public boolean firstResponse;
+
+		@Override
+		public void set(AiServiceEvent event, Step step) {
+			super.set(event, step);
+			this.firstResponse = (step != null) && step.firstResponse();
+		}
+
+		@Override
+		void setDetails(AiServiceEvent event) {
+			var metadata = ((AiServiceResponseReceivedEvent) event).response().metadata();
+			var tokenUsage = Optional.ofNullable(metadata.tokenUsage());
+			this.modelName = metadata.modelName();
+			this.inputTokens = tokenUsage.map(TokenUsage::inputTokenCount).map(Integer::longValue).orElse(0L);
+			this.outputTokens = tokenUsage.map(TokenUsage::outputTokenCount).map(Integer::longValue).orElse(0L);
+			this.totalTokens = tokenUsage.map(TokenUsage::totalTokenCount).map(Integer::longValue).orElse(0L);
+		}
+	}
+
+	@Name(ToolExecuted.NAME)
+	@Label("Tool Executed")
+	public static final class ToolExecuted extends AiServiceFlightEvent {
+		static final String NAME = PREFIX + "ToolExecuted";
+
+		@Label("Tool Name")
+		public String toolName;
+
+		@Override
+		void setDetails(AiServiceEvent event) {
+			this.toolName = ((ToolExecutedEvent) event).request().name();
+		}
+	}
+
+	public abstract static class GuardrailFlightEvent extends AiServiceFlightEvent {
+		@Label("Guardrail Class")
+		public String guardrailClass;
+
+		@Label("Result")
+		@Description("The outcome of the guardrail (SUCCESS, SUCCESS_WITH_RESULT, FAILURE or FATAL)")
+		public String result;
+
+		@Override
+		void setDetails(AiServiceEvent event) {
+			var guardrailExecuted = (GuardrailExecutedEvent<?, ?, ?>) event;
+			this.guardrailClass = guardrailExecuted.guardrailClass().getName();
+			this.result = Optional.ofNullable(guardrailExecuted.result())
+			                      .map(GuardrailResult::result)
+			                      .map(Enum::name)
+			                      .orElse(null);
+		}
+	}
+
+	@Name(InputGuardrailExecuted.NAME)
+	@Label("Input Guardrail Executed")
+	public static final class InputGuardrailExecuted extends GuardrailFlightEvent {
+		static final String NAME = PREFIX + "InputGuardrailExecuted";
+	}
+
+	@Name(OutputGuardrailExecuted.NAME)
+	@Label("Output Guardrail Executed")
+	public static final class OutputGuardrailExecuted extends GuardrailFlightEvent {
+		static final String NAME = PREFIX + "OutputGuardrailExecuted";
+
+		@Label("Reprompt")
+		@Description("Whether the guardrail asked for the LLM to be reprompted")
+		public boolean reprompt;
+
+		@Override
+		void setDetails(AiServiceEvent event) {
+			super.setDetails(event);
+			var result = ((OutputGuardrailExecutedEvent) event).result();
+			this.reprompt = (result != null) && result.isReprompt();
+		}
+	}
+}
@@ -0,0 +1,180 @@
+package org.parasol.ai.audit;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+import org.parasol.ai.audit.AuditFlightEvents.InputGuardrailExecuted;
+import org.parasol.ai.audit.AuditFlightEvents.OutputGuardrailExecuted;
+import org.parasol.ai.audit.AuditFlightEvents.ResponseReceived;
+import org.parasol.ai.audit.AuditFlightEvents.ServiceFailed;
+import org.parasol.ai.audit.AuditFlightEvents.ToolExecuted;
+import org.parasol.config.AuditConfig;
+import org.parasol.model.audit.HotSpots;
+import org.parasol.model.audit.HotSpots.HotSpot;
+
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Streams the {@link AuditFlightEvents} in-process with a {@link RecordingStream}, keeping where the time went
+ * for each kind of event of each AI service method over the live stats' {@link SlidingWindow}.
+ * <p>
+ * Only runs when {@link AuditConfig.FlightRecorder#enabled()}. The stream is flushed by JFR about once a second,
+ * so the stats lag behind the events by about that much.
+ * </p>
+ */
+@ApplicationScoped
+public class AuditFlightRecorderStats {
+	private static final int COUNT = 0;
+	private static final int FAILURES = 1;
+	private static final int STEP_NANOS = 2;
+	private static final int AUDIT_NANOS = 3;
+	private static final int INPUT_TOKENS = 4;
+	private static final int OUTPUT_TOKENS = 5;
+	private static final int COUNTER_COUNT = 6;
+
+	private static final Map<String, String> SUBJECT_FIELDS = Map.of(
+		ServiceFailed.NAME, "errorClass",
+		ResponseReceived.NAME, "modelName",
+		ToolExecuted.NAME, "toolName",
+		InputGuardrailExecuted.NAME, "guardrailClass",
+		OutputGuardrailExecuted.NAME, "guardrailClass"
+	);
+
+	private static final Set<String> FAILED_GUARDRAIL_RESULTS = Set.of("FAILURE", "FATAL");
+
+	private final AuditConfig auditConfig;
+	private final Clock clock;
+	private final Map<HotSpotKey, SlidingWindow> windows = new ConcurrentHashMap<>();
+	private RecordingStream recordingStream;
+
+	@Inject
+	public AuditFlightRecorderStats(AuditConfig auditConfig) {
+		this(auditConfig, Clock.systemUTC());
+	}
+
+	AuditFlightRecorderStats(AuditConfig auditConfig, Clock clock) {
+		this.auditConfig = auditConfig;
+		this.clock = clock;
+	}
+
+	void onStart(@Observes StartupEvent startupEvent) {
+		if (this.auditConfig.flightRecorder().enabled()) {
+			start();
+		}
+	}
+
+	void onStop(@Observes ShutdownEvent shutdownEvent) {
+		stop();
+	}
+
+	synchronized void start() {
+		if (this.recordingStream == null) {
+			this.recordingStream = new RecordingStream();
+			this.recordingStream.setMaxAge(this.auditConfig.live().window());
+			this.recordingStream.setReuse(true);
+			this.recordingStream.setOrdered(false);
+
+			AuditFlightEvents.NAMES.forEach(name -> {
+				this.recordingStream.enable(name);
+				this.recordingStream.onEvent(name, this::accept);
+			});
+
+			this.recordingStream.startAsync();
+			Log.infof("Streaming the audit's flight recorder events %s", AuditFlightEvents.NAMES);
+		}
+	}
+
+	synchronized void stop() {
+		if (this.recordingStream != null) {
+			this.recordingStream.close();
+			this.recordingStream = null;
+		}
+	}
+
+	/**
+	 * The hot spots over the window, the most time first
+	 */
+	public HotSpots getHotSpots() {
+		var hotSpots = new ArrayList<HotSpot>();
+		this.windows.forEach((key, window) -> {
+			var totals = window.sum();
+
+			if (totals[COUNT] > 0) {
+				hotSpots.add(toHotSpot(key, totals));
+			}
+		});
+		hotSpots.sort(Comparator.comparingDouble(HotSpot::totalMillis).reversed());
+
+		return new HotSpots(this.clock.instant(), this.auditConfig.live().window(), hotSpots);
+	}
+
+	void accept(RecordedEvent event) {
+		var name = event.getEventType().getName();
+		var subjectField = SUBJECT_FIELDS.get(name);
+		var key = new HotSpotKey(
+			name,
+			event.getString("interfaceName"),
+			event.getString("methodName"),
+			(subjectField != null) ? event.getString(subjectField) : null
+		);
+		var window = this.windows.computeIfAbsent(
+			key,
+			k -> new SlidingWindow(this.clock, this.auditConfig.live().window(), this.auditConfig.live().resolution(), COUNTER_COUNT)
+		);
+
+		window.add(COUNT, 1);
+		// -1 when the step wasn't timed
+		window.add(STEP_NANOS, Math.max(0, event.getLong("sincePreviousEvent")));
+		window.add(AUDIT_NANOS, event.getDuration().toNanos());
+
+		if (isFailure(name, event)) {
+			window.add(FAILURES, 1);
+		}
+
+		if (ResponseReceived.NAME.equals(name)) {
+			window.add(INPUT_TOKENS, event.getLong("inputTokens"));
+			window.add(OUTPUT_TOKENS, event.getLong("outputTokens"));
+		}
+	}
+
+	private static boolean isFailure(String name, RecordedEvent event) {
+		return switch (name) {
+			case ServiceFailed.NAME -> true;
+			case InputGuardrailExecuted.NAME, OutputGuardrailExecuted.NAME -> FAILED_GUARDRAIL_RESULTS.contains(event.getString("result"));
+			default -> false;
+		};
+	}
+
+	private static HotSpot toHotSpot(HotSpotKey key, long[] totals) {
+		var totalMillis = totals[STEP_NANOS] / 1_000_000.0;
+
+		return new HotSpot(
+			key.eventType(),
+			key.interfaceName(),
+			key.methodName(),
+			key.subject(),
+			totals[COUNT],
+			totals[FAILURES],
+			totalMillis,
+			totalMillis / totals[COUNT],
+			totals[AUDIT_NANOS] / 1_000_000.0,
+			totals[INPUT_TOKENS],
+			totals[OUTPUT_TOKENS]
+		);
+	}
+
+	private record HotSpotKey(String eventType, String interfaceName, String methodName, String subject) {}
+}
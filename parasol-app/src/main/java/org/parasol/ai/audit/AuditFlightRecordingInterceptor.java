@@ -0,0 +1,58 @@
+package org.parasol.ai.audit;
+
+import jakarta.annotation.Priority;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+import io.quarkus.logging.Log;
+
+import dev.langchain4j.observability.api.event.AiServiceEvent;
+
+/**
+ * Emits one of the {@link AuditFlightEvents} for each method bound to {@link AuditObserved}, timing the method itself.
+ * <p>
+ * This runs inside the {@link AuditingObservabilityInterceptor} (so the flight event's duration doesn't include the span)
+ * and, unlike it, whether or not OpenTelemetry is enabled. When no recording has the event enabled, all it costs is creating
+ * and checking the event. Failing to fill in or commit the flight event is logged, and never fails the intercepted method.
+ * </p>
+ */
+@AuditObserved
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION + 300)
+public class AuditFlightRecordingInterceptor {
+	@AroundInvoke
+	public Object invoke(InvocationContext context) throws Exception {
+		var event = InvocationTimingInterceptor.event(context.getParameters());
+		var flightEvent = (event != null) ?
+		                  AuditFlightEvents.of(event) :
+		                  null;
+
+		if ((flightEvent == null) || !flightEvent.isEnabled()) {
+			return context.proceed();
+		}
+
+		flightEvent.begin();
+
+		try {
+			return context.proceed();
+		}
+		finally {
+			commit(context, event, flightEvent);
+		}
+	}
+
+	private static void commit(InvocationContext context, AiServiceEvent event, AuditFlightEvents.AiServiceFlightEvent flightEvent) {
+		try {
+			flightEvent.end();
+
+			if (flightEvent.shouldCommit()) {
+				flightEvent.set(event, InvocationTimings.stepOf(context));
+				flightEvent.commit();
+			}
+		}
+		catch (RuntimeException e) {
+			Log.warnf(e, "Unable to record the %s flight event", flightEvent.getClass().getSimpleName());
+		}
+	}
+}
@@ -0,0 +1,258 @@
+package org.parasol.ai.audit;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Any;
+import jakarta.enterprise.inject.spi.Bean;
+import jakarta.enterprise.inject.spi.BeanManager;
+import jakarta.inject.Inject;
+import jakarta.interceptor.InvocationContext;
+
+import io.quarkus.logging.Log;
+import io.quarkus.opentelemetry.runtime.config.build.OTelBuildConfig;
+import io.quarkus.runtime.StartupEvent;
+
+import dev.langchain4j.model.chat.response.ChatResponseMetadata;
+import dev.langchain4j.observability.api.event.AiServiceEvent;
+import dev.langchain4j.observability.api.event.ToolExecutedEvent;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+
+/**
+ * The instruments the {@link AuditingObservabilityInterceptor} records to, resolved once rather than on every intercepted call.
+ * <p>
+ * The {@link AuditObserved} methods of the beans, their counters and where the {@link AiServiceEvent} is in their parameters
+ * are resolved at startup, so intercepting a call only looks its method up. The attribute sets are built the first time
+ * each AI service method and tool is seen (the tools are only known from the events), then looked up by name.
+ * After that, the only allocations on each call are those of the span itself.
+ * </p>
+ */
+@ApplicationScoped
+public class AuditInstruments {
+	private static final AttributeKey<String> MODEL_NAME = AttributeKey.stringKey("modelName");
+
+	private final boolean metricsEnabled;
+	private final Meter meter;
+	private final Tracer tracer;
+	private final LongCounter inputTokenCounter;
+	private final LongCounter outputTokenCounter;
+	private final LongCounter totalTokenCounter;
+	private final Map<String, Attributes> modelNameAttributes = new ConcurrentHashMap<>();
+	private final Map<Method, Optional<MethodInstruments>> methods;
+
+	@Inject
+	public AuditInstruments(OTelBuildConfig otelConfig, Meter meter, Tracer tracer, BeanManager beanManager) {
+		this(
+			otelConfig.enabled(),
+			otelConfig.enabled() && otelConfig.metrics().enabled().orElse(false),
+			meter,
+			tracer,
+			beanManager.getBeans(Object.class, Any.Literal.INSTANCE).stream().<Class<?>>map(Bean::getBeanClass).toList()
+		);
+	}
+
+	AuditInstruments(boolean tracingEnabled, boolean metricsEnabled, Meter meter, Tracer tracer, Collection<Class<?>> beanClasses) {
+		this.metricsEnabled = metricsEnabled;
+		this.meter = meter;
+		this.tracer = tracer;
+
+		this.inputTokenCounter = meter.counterBuilder("parasol.llm.token.input.count")
+		                              .setDescription("Total input token count")
+		                              .setUnit("tokens")
+		                              .build();
+
+		this.outputTokenCounter = meter.counterBuilder("parasol.llm.token.output.count")
+		                               .setDescription("Total output token count")
+		                               .setUnit("tokens")
+		                               .build();
+
+		this.totalTokenCounter = meter.counterBuilder("parasol.llm.token.total.count")
+		                              .setDescription("Total token count")
+		                              .setUnit("tokens")
+		                              .build();
+
+		this.methods = tracingEnabled ?
+		               resolve(beanClasses) :
+		               Map.of();
+	}
+
+	// Observing startup creates the bean, so that the methods are resolved then rather than on the first intercepted call
+	void onStart(@Observes StartupEvent startupEvent) {
+		Log.debugf("Observing %d audit methods", this.methods.size());
+	}
+
+	/**
+	 * The instruments for the intercepted method, or empty if it isn't observed (or OpenTelemetry is disabled)
+	 */
+	public Optional<MethodInstruments> forMethod(InvocationContext context) {
+		return this.methods.getOrDefault(context.getMethod(), Optional.empty());
+	}
+
+	/**
+	 * Adds the token usage of a response to the token counters, both in total and by model
+	 */
+	public void addTokenUsage(ChatResponseMetadata metadata) {
+		var tokenUsage = metadata.tokenUsage();
+
+		if (tokenUsage == null) {
+			return;
+		}
+
+		var attributes = (metadata.modelName() != null) ?
+		                 this.modelNameAttributes.computeIfAbsent(metadata.modelName(), modelName -> Attributes.of(MODEL_NAME, modelName)) :
+		                 Attributes.empty();
+
+		add(this.inputTokenCounter, tokenUsage.inputTokenCount(), attributes);
+		add(this.outputTokenCounter, tokenUsage.outputTokenCount(), attributes);
+		add(this.totalTokenCounter, tokenUsage.totalTokenCount(), attributes);
+	}
+
+	// The named AuditObserved methods declared by the bean classes and their superclasses, bound on the method or the class
+	private Map<Method, Optional<MethodInstruments>> resolve(Collection<Class<?>> beanClasses) {
+		var methods = new HashMap<Method, Optional<MethodInstruments>>();
+
+		for (var beanClass : beanClasses) {
+			var classBinding = beanClass.getAnnotation(AuditObserved.class);
+
+			for (var type = beanClass; (type != null) && (type != Object.class); type = type.getSuperclass()) {
+				for (var method : type.getDeclaredMethods()) {
+					var auditObserved = method.isAnnotationPresent(AuditObserved.class) ?
+					                    method.getAnnotation(AuditObserved.class) :
+					                    classBinding;
+
+					if (!method.isSynthetic() && (auditObserved != null) && !auditObserved.name().strip().isBlank()) {
+						methods.computeIfAbsent(method, m -> Optional.of(new MethodInstruments(auditObserved, eventParameter(m))));
+					}
+				}
+			}
+		}
+
+		return Map.copyOf(methods);
+	}
+
+	// The index of the parameter declared as an AiServiceEvent, or -1 to look for one among the arguments on each call
+	private static int eventParameter(Method method) {
+		var parameterTypes = method.getParameterTypes();
+
+		for (var i = 0; i < parameterTypes.length; i++) {
+			if (AiServiceEvent.class.isAssignableFrom(parameterTypes[i])) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	private static void add(LongCounter counter, Integer value, Attributes attributes) {
+		if (value != null) {
+			counter.add(value, attributes);
+			counter.add(value);
+		}
+	}
+
+	/**
+	 * The instruments of one intercepted method
+	 */
+	public final class MethodInstruments {
+		private final String name;
+		private final int eventParameter;
+		private final LongCounter counter;
+		private final InvocationAttributes<EventAttributes> attributes = new InvocationAttributes<>(AuditInstruments::eventAttributes);
+
+		private MethodInstruments(AuditObserved auditObserved, int eventParameter) {
+			this.name = auditObserved.name();
+			this.eventParameter = eventParameter;
+			this.counter = metricsEnabled ?
+			               meter.counterBuilder(auditObserved.name())
+			                    .setDescription(auditObserved.description())
+			                    .setUnit(auditObserved.unit())
+			                    .build() :
+			               null;
+		}
+
+		/**
+		 * The name of the span and counter
+		 */
+		public String name() {
+			return this.name;
+		}
+
+		/**
+		 * The event passed to the intercepted method
+		 */
+		public AiServiceEvent event(Object[] parameters) {
+			if (this.eventParameter >= 0) {
+				return (AiServiceEvent) parameters[this.eventParameter];
+			}
+
+			for (var parameter : parameters) {
+				if (parameter instanceof AiServiceEvent event) {
+					return event;
+				}
+			}
+
+			throw new NoSuchElementException("No AiServiceEvent passed to %s".formatted(this.name));
+		}
+
+		/**
+		 * The span and metric attributes for the event's AI service method (and tool, if it is a tool execution)
+		 */
+		public EventAttributes attributesFor(AiServiceEvent event) {
+			var invocationContext = event.invocationContext();
+			var toolName = (event instanceof ToolExecutedEvent toolExecuted) ?
+			               toolExecuted.request().name() :
+			               null;
+
+			return this.attributes.get(invocationContext.interfaceName(), invocationContext.methodName(), toolName);
+		}
+
+		public Span startSpan(EventAttributes eventAttributes) {
+			return tracer.spanBuilder(this.name)
+			             .setSpanKind(SpanKind.INTERNAL)
+			             .setAllAttributes(eventAttributes.span())
+			             .startSpan();
+		}
+
+		/**
+		 * Whether the calls are counted, which they aren't when metrics are disabled
+		 */
+		public boolean isCounted() {
+			return this.counter != null;
+		}
+
+		public void count(EventAttributes eventAttributes) {
+			this.counter.add(1, eventAttributes.metric());
+		}
+	}
+
+	public record EventAttributes(Attributes span, Attributes metric) {}
+
+	private static EventAttributes eventAttributes(String interfaceName, String methodName, String toolName) {
+		var span = Attributes.builder()
+		                     .put("arg.interfaceName", interfaceName)
+		                     .put("arg.methodName", methodName);
+		var metric = Attributes.builder()
+		                       .put("interfaceName", interfaceName)
+		                       .put("methodName", methodName);
+
+		if (toolName != null) {
+			span.put("arg.toolName", toolName);
+			metric.put("toolName", toolName);
+		}
+
+		return new EventAttributes(span.build(), metric.build());
+	}
+}
@@ -0,0 +1,166 @@
+package org.parasol.ai.audit;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import org.parasol.ai.audit.InvocationTimings.Step;
+
+import dev.langchain4j.invocation.InvocationContext;
+import dev.langchain4j.observability.api.event.AiServiceCompletedEvent;
+import dev.langchain4j.observability.api.event.AiServiceErrorEvent;
+import dev.langchain4j.observability.api.event.AiServiceEvent;
+import dev.langchain4j.observability.api.event.AiServiceResponseReceivedEvent;
+import dev.langchain4j.observability.api.event.OutputGuardrailExecutedEvent;
+import dev.langchain4j.observability.api.event.ToolExecutedEvent;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.context.Context;
+import io.smallrye.mutiny.Multi;
+
+/**
+ * Latency histograms of the AI services, recorded by the {@link AuditingObservabilityInterceptor} as each event arrives.
+ * <p>
+ * The latencies are the steps timed by {@link InvocationTimings}: the end-to-end latency and the time to the first response
+ * are from the invocation's timestamp, and the LLM round trip, tool execution and output guardrail latencies are from
+ * the invocation's previous event. Each measurement is recorded in the context of the interceptor's span, so the SDK
+ * attaches it as an exemplar and an outlier in a histogram leads straight to its trace.
+ * </p>
+ * <p>
+ * An AI service method which streams its answer as a {@link Multi} only has its response event once the whole answer has
+ * arrived, so its time to the first token is {@link #timeFirstToken timed} from the stream instead, up to its first item.
+ * Those aren't by model, as the model isn't known until the response event.
+ * </p>
+ */
+@ApplicationScoped
+public class AuditLatencyHistograms {
+	// Seconds, from a fast guardrail up to a slow multi-step interaction
+	private static final List<Double> BOUNDARIES = List.of(0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5, 5.0, 10.0, 30.0, 60.0, 120.0);
+
+	private static final AttributeKey<String> INTERFACE_NAME = AttributeKey.stringKey("interfaceName");
+	private static final AttributeKey<String> METHOD_NAME = AttributeKey.stringKey("methodName");
+	private static final AttributeKey<String> MODEL_NAME = AttributeKey.stringKey("modelName");
+	private static final AttributeKey<String> TOOL_NAME = AttributeKey.stringKey("toolName");
+	private static final AttributeKey<String> GUARDRAIL_CLASS = AttributeKey.stringKey("guardrailClass");
+
+	private final DoubleHistogram serviceDuration;
+	private final DoubleHistogram responseDuration;
+	private final DoubleHistogram firstResponseDuration;
+	private final DoubleHistogram toolDuration;
+	private final DoubleHistogram outputGuardrailDuration;
+	private final InvocationAttributes<Attributes> serviceAttributes = new InvocationAttributes<>((interfaceName, methodName, name) -> attributes(interfaceName, methodName, null, null));
+	private final InvocationAttributes<Attributes> modelAttributes = new InvocationAttributes<>((interfaceName, methodName, name) -> attributes(interfaceName, methodName, MODEL_NAME, name));
+	private final InvocationAttributes<Attributes> toolAttributes = new InvocationAttributes<>((interfaceName, methodName, name) -> attributes(interfaceName, methodName, TOOL_NAME, name));
+	private final InvocationAttributes<Boolean> streamingMethods = new InvocationAttributes<>((interfaceName, methodName, name) -> isStreaming(interfaceName, methodName));
+	private final InvocationAttributes<Attributes> guardrailAttributes = new InvocationAttributes<>((interfaceName, methodName, name) -> attributes(interfaceName, methodName, GUARDRAIL_CLASS, name));
+
+	@Inject
+	public AuditLatencyHistograms(Meter meter) {
+		this.serviceDuration = histogram(meter, "parasol.llm.interaction.duration", "End-to-end latency of AI service interactions");
+		this.responseDuration = histogram(meter, "parasol.llm.response.duration", "Round-trip latency of LLM requests, by model");
+		this.firstResponseDuration = histogram(meter, "parasol.llm.response.first.duration", "Latency from an AI service being invoked to the first token of its answer, by model unless the answer is streamed");
+		this.toolDuration = histogram(meter, "parasol.llm.tool.duration", "Execution latency of tools, by tool name");
+		this.outputGuardrailDuration = histogram(meter, "parasol.llm.guardrail.output.duration", "Execution latency of output guardrails, by guardrail class");
+	}
+
+	/**
+	 * Records the latencies of the step the event ends, in the given context
+	 */
+	public void record(AiServiceEvent event, Step step, Context context) {
+		var invocationContext = event.invocationContext();
+
+		switch (event) {
+			case AiServiceResponseReceivedEvent responseReceived -> {
+				var attributes = attributes(this.modelAttributes, invocationContext, responseReceived.response().metadata().modelName());
+				record(this.responseDuration, step.sincePreviousEvent(), attributes, context);
+
+				if (step.firstResponse() && !this.streamingMethods.get(invocationContext.interfaceName(), invocationContext.methodName(), null)) {
+					record(this.firstResponseDuration, step.sinceStart(), attributes, context);
+				}
+			}
+			case ToolExecutedEvent toolExecuted -> record(
+				this.toolDuration,
+				step.sincePreviousEvent(),
+				attributes(this.toolAttributes, invocationContext, toolExecuted.request().name()),
+				context
+			);
+			case OutputGuardrailExecutedEvent guardrailExecuted -> record(
+				this.outputGuardrailDuration,
+				step.sincePreviousEvent(),
+				attributes(this.guardrailAttributes, invocationContext, guardrailExecuted.guardrailClass().getName()),
+				context
+			);
+			case AiServiceCompletedEvent completed -> record(this.serviceDuration, step.sinceStart(), attributes(this.serviceAttributes, invocationContext, null), context);
+			case AiServiceErrorEvent failed -> record(this.serviceDuration, step.sinceStart(), attributes(this.serviceAttributes, invocationContext, null), context);
+			default -> {
+			}
+		}
+	}
+
+	/**
+	 * Invokes an AI service method which streams its answer, recording the time to the stream's first item in the current context
+	 */
+	public <T> Multi<T> timeFirstToken(Class<?> aiService, String methodName, Supplier<Multi<T>> invocation) {
+		var attributes = this.serviceAttributes.get(aiService.getName(), methodName, null);
+		var context = Context.current();
+		var first = new AtomicBoolean(true);
+		var startedOn = System.nanoTime();
+
+		return invocation.get()
+		                 .invoke(token -> {
+			                 if (first.compareAndSet(true, false)) {
+				                 record(this.firstResponseDuration, Duration.ofNanos(System.nanoTime() - startedOn), attributes, context);
+			                 }
+		                 });
+	}
+
+	// Whether the AI service method returns a stream, which is only known if its interface can be loaded
+	private static boolean isStreaming(String interfaceName, String methodName) {
+		try {
+			var aiService = Class.forName(interfaceName, false, Thread.currentThread().getContextClassLoader());
+
+			return Arrays.stream(aiService.getMethods())
+			             .anyMatch(method -> method.getName().equals(methodName) && Multi.class.isAssignableFrom(method.getReturnType()));
+		}
+		catch (ClassNotFoundException | RuntimeException e) {
+			return false;
+		}
+	}
+
+	private static Attributes attributes(InvocationAttributes<Attributes> attributes, InvocationContext invocationContext, String name) {
+		return attributes.get(invocationContext.interfaceName(), invocationContext.methodName(), name);
+	}
+
+	private static void record(DoubleHistogram histogram, Duration duration, Attributes attributes, Context context) {
+		if ((duration != null) && !duration.isNegative()) {
+			histogram.record(duration.toNanos() / 1_000_000_000.0, attributes, context);
+		}
+	}
+
+	private static DoubleHistogram histogram(Meter meter, String name, String description) {
+		return meter.histogramBuilder(name)
+		            .setDescription(description)
+		            .setUnit("s")
+		            .setExplicitBucketBoundariesAdvice(BOUNDARIES)
+		            .build();
+	}
+
+	private static Attributes attributes(String interfaceName, String methodName, AttributeKey<String> key, String value) {
+		var attributes = Attributes.builder()
+		                           .put(INTERFACE_NAME, interfaceName)
+		                           .put(METHOD_NAME, methodName);
+
+		if ((key != null) && (value != null)) {
+			attributes.put(key, value);
+		}
+
+		return attributes.build();
+	}
+}
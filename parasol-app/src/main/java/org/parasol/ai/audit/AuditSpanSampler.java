@@ -0,0 +1,333 @@
+package org.parasol.ai.audit;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+import org.parasol.config.AuditConfig;
+
+import io.quarkus.opentelemetry.runtime.config.build.OTelBuildConfig;
+import io.quarkus.opentelemetry.runtime.config.build.SamplerType;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import io.quarkus.scheduler.Scheduled.ConcurrentExecution;
+
+import dev.langchain4j.guardrail.GuardrailResult;
+import dev.langchain4j.observability.api.event.AiServiceCompletedEvent;
+import dev.langchain4j.observability.api.event.AiServiceErrorEvent;
+import dev.langchain4j.observability.api.event.AiServiceEvent;
+import dev.langchain4j.observability.api.event.GuardrailExecutedEvent;
+import dev.langchain4j.observability.api.event.OutputGuardrailExecutedEvent;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+
+/**
+ * Tail samples the spans of the {@link AuditingObservabilityInterceptor}, deciding which interactions to trace once they end.
+ * <p>
+ * The spans of every interaction are kept if it
+ * <ul>
+ *   <li>failed, or had a guardrail fail</li>
+ *   <li>was reprompted by an output guardrail</li>
+ *   <li>took longer than {@link AuditConfig.TailSampling#latencyThreshold()}</li>
+ *   <li>was sampled, at {@link AuditConfig.TailSampling#sampleRate()}</li>
+ * </ul>
+ * Like the {@link org.parasol.repository.AuditCapturePolicy}, the sampling decision is made from the interaction id,
+ * and the spans of interactions which weren't sampled are held (as their names, attributes and times, rather than as spans)
+ * until the interaction ends. The spans of a kept interaction are then started and ended together, with their original times,
+ * each tagged with why it was kept and all under the parent of the interaction's first span, so they make up one consistent
+ * part of a trace.
+ * </p>
+ * <p>
+ * The spans are re-created long after their parent was decided on, so the head sampler has to keep every trace
+ * ({@code always_on} or {@code parentbased_always_on}), which is checked on startup. A parent which was left unsampled anyway
+ * (by an incoming {@code traceparent}) would have the parent based sampler drop the spans, so the first span of an interaction
+ * is started as a new root, linked to the parent, instead. The tail sampled span isn't current while its method runs, so any
+ * spans started by the method itself (JDBC, HTTP) are children of the parent, and are exported however the interaction turns out.
+ * </p>
+ * <p>
+ * The memory held is bounded by {@link AuditConfig.TailSampling#maxPendingInteractions()} and
+ * {@link AuditConfig.TailSampling#maxSpansPerInteraction()}. Once too many interactions are pending, the spans of any others
+ * are only kept if they are a failure themselves. The spans of a kept interaction are exported early once it holds as many
+ * as it can. Interactions which never end are released after the {@link AuditConfig#maxInteractionDuration()}, and kept as slow.
+ * </p>
+ */
+@ApplicationScoped
+public class AuditSpanSampler {
+	static final AttributeKey<String> SAMPLING_REASON = AttributeKey.stringKey("parasol.sampling.reason");
+
+	// Head samplers which keep every trace which isn't already unsampled
+	private static final Set<String> ALWAYS_ON_SAMPLERS = Set.of(SamplerType.ALWAYS_ON.getValue(), SamplerType.PARENT_BASED_ALWAYS_ON.getValue());
+
+	/**
+	 * Why the spans of an interaction were kept
+	 */
+	public enum Reason {
+		FAILED,
+		REPROMPTED,
+		SLOW,
+		SAMPLED;
+
+		private final String value = name().toLowerCase();
+	}
+
+	private final AuditConfig auditConfig;
+	private final AuditConfig.TailSampling config;
+	private final String headSampler;
+	private final Tracer tracer;
+	private final Clock clock;
+	private final Map<UUID, PendingInteraction> pendingInteractions = new ConcurrentHashMap<>();
+
+	@Inject
+	public AuditSpanSampler(AuditConfig auditConfig, OTelBuildConfig otelConfig, Tracer tracer) {
+		this(auditConfig, otelConfig.traces().sampler(), tracer, Clock.systemUTC());
+	}
+
+	AuditSpanSampler(AuditConfig auditConfig, String headSampler, Tracer tracer, Clock clock) {
+		this.auditConfig = auditConfig;
+		this.config = auditConfig.tailSampling();
+		this.headSampler = headSampler;
+		this.tracer = tracer;
+		this.clock = clock;
+	}
+
+	void onStart(@Observes StartupEvent startupEvent) {
+		checkHeadSampler();
+	}
+
+	/**
+	 * Fails if tail sampling is enabled with a head sampler which could drop the spans once they are kept
+	 */
+	void checkHeadSampler() {
+		if (isEnabled() && !ALWAYS_ON_SAMPLERS.contains(this.headSampler)) {
+			throw new IllegalStateException(
+				"Tail sampling (parasol.audit.tail-sampling.enabled) needs quarkus.otel.traces.sampler to be one of %s, but it is %s"
+					.formatted(ALWAYS_ON_SAMPLERS, this.headSampler)
+			);
+		}
+	}
+
+	/**
+	 * Whether the spans are tail sampled, rather than each started and ended as its method is intercepted
+	 */
+	public boolean isEnabled() {
+		return this.config.enabled();
+	}
+
+	/**
+	 * The time to start a span which will be {@link #record recorded} later
+	 */
+	public Instant now() {
+		return this.clock.instant();
+	}
+
+	/**
+	 * Records the span of an intercepted method, which ends now, either straight away or once its interaction is known to be kept
+	 */
+	public void record(String name, AiServiceEvent event, Attributes attributes, Context parent, Instant startedOn) {
+		var span = new PendingSpan(name, attributes, startedOn, this.clock.instant());
+		var interactionId = event.invocationContext().invocationId();
+
+		if ((interactionId == null) || isSampled(interactionId)) {
+			export(List.of(span), Reason.SAMPLED, parent);
+			return;
+		}
+
+		var pending = this.pendingInteractions.get(interactionId);
+
+		if ((pending == null) && (this.pendingInteractions.size() >= this.config.maxPendingInteractions())) {
+			// Too many interactions in flight to hold on to them all
+			var reason = reasonToKeep(event);
+
+			if (reason != null) {
+				export(List.of(span), reason, parent);
+			}
+
+			return;
+		}
+
+		if (pending == null) {
+			pending = this.pendingInteractions.computeIfAbsent(interactionId, id -> new PendingInteraction(this.clock.instant(), parent));
+		}
+
+		synchronized (pending) {
+			if (pending.reason == null) {
+				pending.reason = reasonToKeep(event);
+			}
+
+			if (pending.released) {
+				// Raced with the interaction being released, so follow the decision that was made for the rest of its spans
+				if (pending.reason != null) {
+					export(pending, List.of(span));
+				}
+
+				return;
+			}
+
+			var full = !pending.add(span, this.config.maxSpansPerInteraction());
+
+			if (isEnd(event)) {
+				pending.released = true;
+				this.pendingInteractions.remove(interactionId, pending);
+
+				if ((pending.reason == null) && isSlow(event, pending)) {
+					pending.reason = Reason.SLOW;
+				}
+			}
+			else if (!full || (pending.reason == null)) {
+				// Hold on to it until the interaction ends, or until there is no room to hold any more of a kept one
+				return;
+			}
+
+			if (pending.reason != null) {
+				export(pending, pending.drain());
+			}
+		}
+	}
+
+	/**
+	 * The number of interactions whose spans are being held until it is known whether to keep them
+	 */
+	public int getPendingInteractionCount() {
+		return this.pendingInteractions.size();
+	}
+
+	/**
+	 * Whether the spans of the given interaction are kept regardless of how it turns out.
+	 * Uses the random bits of the (type 4) interaction id, so every instance of the application makes the same decision.
+	 */
+	boolean isSampled(UUID interactionId) {
+		var random = ((interactionId.getMostSignificantBits() ^ interactionId.getLeastSignificantBits()) >>> 11) * 0x1.0p-53;
+		return random < this.config.sampleRate();
+	}
+
+	@Scheduled(every = "${parasol.audit.tail-sampling.release-interval}", delayed = "${parasol.audit.tail-sampling.release-interval}", concurrentExecution = ConcurrentExecution.SKIP)
+	void releaseExpiredInteractions() {
+		var expiry = this.clock.instant().minus(this.auditConfig.maxInteractionDuration());
+
+		this.pendingInteractions.forEach((interactionId, pending) -> {
+			if (pending.started.isBefore(expiry)) {
+				release(interactionId, pending);
+			}
+		});
+	}
+
+	// Still going after the max interaction duration, so certainly slow
+	private void release(UUID interactionId, PendingInteraction pending) {
+		synchronized (pending) {
+			pending.released = true;
+			this.pendingInteractions.remove(interactionId, pending);
+
+			if (pending.reason == null) {
+				pending.reason = Reason.SLOW;
+			}
+
+			export(pending, pending.drain());
+		}
+	}
+
+	// Called holding the lock on the interaction, so that its spans are exported in order under the same parent
+	private void export(PendingInteraction pending, List<PendingSpan> spans) {
+		pending.parent = export(spans, pending.reason, pending.parent);
+	}
+
+	/**
+	 * Exports the spans under the given parent, returning the parent to export any more spans of the interaction under
+	 */
+	private Context export(List<PendingSpan> spans, Reason reason, Context parent) {
+		for (var span : spans) {
+			var builder = this.tracer.spanBuilder(span.name())
+			                         .setParent(parent)
+			                         .setSpanKind(SpanKind.INTERNAL)
+			                         .setAllAttributes(span.attributes())
+			                         .setAttribute(SAMPLING_REASON, reason.value)
+			                         .setStartTimestamp(span.startedOn());
+
+			var parentSpanContext = Span.fromContext(parent).getSpanContext();
+
+			if (parentSpanContext.isValid() && !parentSpanContext.isSampled()) {
+				// The parent based sampler would drop it, so start a new trace which the rest of the interaction's spans go under
+				var root = builder.setNoParent()
+				                  .addLink(parentSpanContext)
+				                  .startSpan();
+
+				root.end(span.endedOn());
+				parent = parent.with(root);
+			}
+			else {
+				builder.startSpan().end(span.endedOn());
+			}
+		}
+
+		return parent;
+	}
+
+	private boolean isSlow(AiServiceEvent event, PendingInteraction pending) {
+		var started = (event.invocationContext().timestamp() != null) ?
+		              event.invocationContext().timestamp() :
+		              pending.started;
+
+		return Duration.between(started, this.clock.instant()).compareTo(this.config.latencyThreshold()) > 0;
+	}
+
+	private static boolean isEnd(AiServiceEvent event) {
+		return (event instanceof AiServiceCompletedEvent) || (event instanceof AiServiceErrorEvent);
+	}
+
+	private static Reason reasonToKeep(AiServiceEvent event) {
+		return switch (event) {
+			case AiServiceErrorEvent e -> Reason.FAILED;
+			case OutputGuardrailExecutedEvent e when (e.result() != null) && e.result().isReprompt() -> Reason.REPROMPTED;
+			case GuardrailExecutedEvent<?, ?, ?> e when isGuardrailFailure(e.result()) -> Reason.FAILED;
+			default -> null;
+		};
+	}
+
+	private static boolean isGuardrailFailure(GuardrailResult<?> result) {
+		return (result != null) && ((result.result() == GuardrailResult.Result.FAILURE) || (result.result() == GuardrailResult.Result.FATAL));
+	}
+
+	private record PendingSpan(String name, Attributes attributes, Instant startedOn, Instant endedOn) {}
+
+	private static final class PendingInteraction {
+		private final Instant started;
+		private Context parent;
+		private List<PendingSpan> spans = new ArrayList<>();
+		private Reason reason;
+		private boolean released;
+
+		private PendingInteraction(Instant started, Context parent) {
+			this.started = started;
+			this.parent = parent;
+		}
+
+		// False once it holds as many spans as it can, in which case any more are dropped
+		boolean add(PendingSpan span, int maxSpans) {
+			if (this.spans.size() < maxSpans) {
+				this.spans.add(span);
+			}
+
+			return this.spans.size() < maxSpans;
+		}
+
+		List<PendingSpan> drain() {
+			var drained = this.spans;
+			this.spans = new ArrayList<>();
+
+			return drained;
+		}
+	}
+}
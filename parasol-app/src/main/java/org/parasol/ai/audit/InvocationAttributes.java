@@ -0,0 +1,49 @@
+package org.parasol.ai.audit;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Attributes (or anything else about an AI service method) built once for each AI service method and name (a tool, model
+ * or guardrail), then looked up by the strings of the event, so that nothing is allocated on each call once they have been
+ * seen. The name may be {@code null}.
+ */
+final class InvocationAttributes<V> {
+	@FunctionalInterface
+	interface Factory<V> {
+		V create(String interfaceName, String methodName, String name);
+	}
+
+	private final Factory<V> factory;
+	private final Map<String, Map<String, Map<String, V>>> values = new ConcurrentHashMap<>();
+
+	InvocationAttributes(Factory<V> factory) {
+		this.factory = factory;
+	}
+
+	V get(String interfaceName, String methodName, String name) {
+		var byMethod = this.values.get(keyOf(interfaceName));
+		var byName = (byMethod != null) ?
+		             byMethod.get(keyOf(methodName)) :
+		             null;
+		var value = (byName != null) ?
+		            byName.get(keyOf(name)) :
+		            null;
+
+		return (value != null) ?
+		       value :
+		       create(interfaceName, methodName, name);
+	}
+
+	// Only on the first call for each method and name
+	private V create(String interfaceName, String methodName, String name) {
+		return this.values.computeIfAbsent(keyOf(interfaceName), i -> new ConcurrentHashMap<>())
+		                  .computeIfAbsent(keyOf(methodName), m -> new ConcurrentHashMap<>())
+		                  .computeIfAbsent(keyOf(name), n -> this.factory.create(interfaceName, methodName, name));
+	}
+
+	private static String keyOf(String value) {
+		return Objects.requireNonNullElse(value, "");
+	}
+}
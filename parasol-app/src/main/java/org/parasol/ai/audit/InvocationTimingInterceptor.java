@@ -0,0 +1,59 @@
+package org.parasol.ai.audit;
+
+import jakarta.annotation.Priority;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+import io.quarkus.logging.Log;
+
+import dev.langchain4j.observability.api.event.AiServiceEvent;
+
+/**
+ * Times the step that the event of each method bound to {@link AuditObserved} ends, using {@link InvocationTimings}.
+ * <p>
+ * This runs before the other audit interceptors, and before the method proceeds, so that the
+ * {@link AuditingObservabilityInterceptor} and the {@link AuditFlightRecordingInterceptor} see the same step,
+ * timed once, whichever of them are enabled. They read it with {@link InvocationTimings#stepOf(InvocationContext)}.
+ * Failing to time the step is logged, and never fails the intercepted method.
+ * </p>
+ */
+@AuditObserved
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION + 100)
+public class InvocationTimingInterceptor {
+	private final InvocationTimings invocationTimings;
+
+	public InvocationTimingInterceptor(InvocationTimings invocationTimings) {
+		this.invocationTimings = invocationTimings;
+	}
+
+	@AroundInvoke
+	public Object invoke(InvocationContext context) throws Exception {
+		var event = event(context.getParameters());
+
+		if (event != null) {
+			try {
+				this.invocationTimings.time(context, event);
+			}
+			catch (RuntimeException e) {
+				Log.warnf(e, "Unable to time the %s event", event.getClass().getSimpleName());
+			}
+		}
+
+		return context.proceed();
+	}
+
+	/**
+	 * The AI service event passed to an intercepted method, or {@code null} if there isn't one
+	 */
+	static AiServiceEvent event(Object[] parameters) {
+		for (var parameter : parameters) {
+			if (parameter instanceof AiServiceEvent event) {
+				return event;
+			}
+		}
+
+		return null;
+	}
+}
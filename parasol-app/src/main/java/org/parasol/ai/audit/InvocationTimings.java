@@ -0,0 +1,157 @@
+package org.parasol.ai.audit;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import org.parasol.config.AuditConfig;
+
+import io.quarkus.scheduler.Scheduled;
+
+import dev.langchain4j.invocation.InvocationContext;
+import dev.langchain4j.observability.api.event.AiServiceCompletedEvent;
+import dev.langchain4j.observability.api.event.AiServiceErrorEvent;
+import dev.langchain4j.observability.api.event.AiServiceEvent;
+import dev.langchain4j.observability.api.event.AiServiceResponseReceivedEvent;
+import dev.langchain4j.observability.api.event.AiServiceStartedEvent;
+
+/**
+ * Times each step of the AI service invocations from when their events arrive, as the events don't say how long anything took.
+ * <p>
+ * Each event's step is timed from the invocation's previous event (the request, or the response asking for the tool or being
+ * checked), and from the invocation's timestamp. The time of each invocation's latest event is kept until the invocation ends.
+ * Invocations which never end are forgotten after the {@link AuditConfig#maxInteractionDuration()}.
+ * </p>
+ * <p>
+ * The {@link InvocationTimingInterceptor} times each intercepted event before it is observed, and keeps the step with
+ * the interception for the other audit interceptors.
+ * </p>
+ */
+@ApplicationScoped
+public class InvocationTimings {
+	private static final String STEP = InvocationTimings.class.getName() + ".step";
+
+	private final Duration maxInteractionDuration;
+	private final Clock clock;
+	private final Map<UUID, Invocation> invocations = new ConcurrentHashMap<>();
+
+	@Inject
+	public InvocationTimings(AuditConfig auditConfig) {
+		this(auditConfig, Clock.systemUTC());
+	}
+
+	InvocationTimings(AuditConfig auditConfig, Clock clock) {
+		this.maxInteractionDuration = auditConfig.maxInteractionDuration();
+		this.clock = clock;
+	}
+
+	/**
+	 * Times the step the intercepted event ends, keeping it with the interception
+	 */
+	public void time(jakarta.interceptor.InvocationContext interception, AiServiceEvent event) {
+		interception.getContextData().put(STEP, step(event));
+	}
+
+	/**
+	 * The step the intercepted event ends, or {@code null} if it wasn't {@link #time timed}
+	 */
+	public static Step stepOf(jakarta.interceptor.InvocationContext interception) {
+		return (Step) interception.getContextData().get(STEP);
+	}
+
+	/**
+	 * Times the step the event ends. Each event should only be timed once, as it moves the invocation on to the next step.
+	 */
+	Step step(AiServiceEvent event) {
+		var now = this.clock.instant();
+		var invocationContext = event.invocationContext();
+		var sinceStart = (invocationContext.timestamp() != null) ?
+		                 Duration.between(invocationContext.timestamp(), now) :
+		                 null;
+
+		var invocation = switch (event) {
+			case AiServiceStartedEvent started -> {
+				var startedInvocation = new Invocation(startOf(invocationContext, now));
+				this.invocations.put(invocationContext.invocationId(), startedInvocation);
+				yield startedInvocation;
+			}
+			case AiServiceCompletedEvent completed -> ended(invocationContext, now);
+			case AiServiceErrorEvent failed -> ended(invocationContext, now);
+			default -> invocation(invocationContext, now);
+		};
+
+		return new Step(
+			sinceStart,
+			invocation.sinceLatestEvent(now),
+			(event instanceof AiServiceResponseReceivedEvent) && invocation.firstResponse()
+		);
+	}
+
+	@Scheduled(every = "${parasol.audit.max-interaction-duration}", delayed = "${parasol.audit.max-interaction-duration}")
+	void forgetStaleInvocations() {
+		var cutoff = this.clock.instant().minus(this.maxInteractionDuration);
+		this.invocations.values().removeIf(invocation -> invocation.isOlderThan(cutoff));
+	}
+
+	private Invocation ended(InvocationContext invocationContext, Instant now) {
+		var invocation = this.invocations.remove(invocationContext.invocationId());
+
+		return (invocation != null) ?
+		       invocation :
+		       new Invocation(startOf(invocationContext, now));
+	}
+
+	// An invocation which started before this instance did (or was forgotten) is timed from its timestamp
+	private Invocation invocation(InvocationContext invocationContext, Instant now) {
+		return this.invocations.computeIfAbsent(
+			invocationContext.invocationId(),
+			invocationId -> new Invocation(startOf(invocationContext, now))
+		);
+	}
+
+	private static Instant startOf(InvocationContext invocationContext, Instant now) {
+		return (invocationContext.timestamp() != null) ?
+		       invocationContext.timestamp() :
+		       now;
+	}
+
+	/**
+	 * The timing of one step of an invocation
+	 *
+	 * @param sinceStart         Since the invocation's timestamp, or {@code null} if it has none
+	 * @param sincePreviousEvent Since the invocation's previous event
+	 * @param firstResponse      Whether this is the invocation's first response from the LLM
+	 */
+	public record Step(Duration sinceStart, Duration sincePreviousEvent, boolean firstResponse) {}
+
+	private static final class Invocation {
+		private Instant latestEventOn;
+		private boolean responded;
+
+		private Invocation(Instant startedOn) {
+			this.latestEventOn = startedOn;
+		}
+
+		synchronized Duration sinceLatestEvent(Instant now) {
+			var since = Duration.between(this.latestEventOn, now);
+			this.latestEventOn = now;
+			return since;
+		}
+
+		synchronized boolean firstResponse() {
+			var first = !this.responded;
+			this.responded = true;
+			return first;
+		}
+
+		synchronized boolean isOlderThan(Instant cutoff) {
+			return this.latestEventOn.isBefore(cutoff);
+		}
+	}
+}
@@ -0,0 +1,205 @@
+package org.parasol.ai.audit;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+import org.parasol.config.AuditConfig;
+import org.parasol.model.audit.LiveStats;
+import org.parasol.model.audit.LiveStats.LatencyBucket;
+import org.parasol.model.audit.LiveStats.LatencyHistogram;
+import org.parasol.model.audit.LiveStats.MethodStats;
+
+import dev.langchain4j.invocation.InvocationContext;
+import dev.langchain4j.observability.api.event.AiServiceCompletedEvent;
+import dev.langchain4j.observability.api.event.AiServiceErrorEvent;
+import dev.langchain4j.observability.api.event.AiServiceEvent;
+import dev.langchain4j.observability.api.event.AiServiceResponseReceivedEvent;
+import dev.langchain4j.observability.api.event.AiServiceStartedEvent;
+import dev.langchain4j.observability.api.event.OutputGuardrailExecutedEvent;
+
+/**
+ * Keeps live stats for each AI service method over a {@link SlidingWindow}, straight from the AI service events.
+ * <p>
+ * Nothing here touches the database, so the stats are cheap enough to poll every second. They are only for this instance
+ * of the application and are lost on restart. Use the audit events for anything historical.
+ * </p>
+ */
+@ApplicationScoped
+public class LiveAuditStats {
+	private static final int STARTED = 0;
+	private static final int COMPLETED = 1;
+	private static final int FAILED = 2;
+	private static final int GUARDRAIL_EXECUTIONS = 3;
+	private static final int GUARDRAIL_REPROMPTS = 4;
+	private static final int INPUT_TOKENS = 5;
+	private static final int OUTPUT_TOKENS = 6;
+	private static final int LATENCY_BUCKETS = 7;
+
+	private static final long[] LATENCY_BOUNDS_MILLIS = { 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 30_000, 60_000, 120_000 };
+
+	// One extra latency bucket for anything above the highest bound
+	private static final int COUNTER_COUNT = LATENCY_BUCKETS + LATENCY_BOUNDS_MILLIS.length + 1;
+
+	private final AuditConfig.Live config;
+	private final Clock clock;
+	private final Map<MethodKey, SlidingWindow> windows = new ConcurrentHashMap<>();
+
+	@Inject
+	public LiveAuditStats(AuditConfig auditConfig) {
+		this(auditConfig, Clock.systemUTC());
+	}
+
+	LiveAuditStats(AuditConfig auditConfig, Clock clock) {
+		this.config = auditConfig.live();
+		this.clock = clock;
+	}
+
+	void serviceStarted(@Observes AiServiceStartedEvent e) {
+		windowFor(e).add(STARTED, 1);
+	}
+
+	void serviceCompleted(@Observes AiServiceCompletedEvent e) {
+		var window = windowFor(e);
+		window.add(COMPLETED, 1);
+		recordLatency(window, e.invocationContext());
+	}
+
+	void serviceFailed(@Observes AiServiceErrorEvent e) {
+		var window = windowFor(e);
+		window.add(FAILED, 1);
+		recordLatency(window, e.invocationContext());
+	}
+
+	void responseReceived(@Observes AiServiceResponseReceivedEvent e) {
+		Optional.ofNullable(e.response().tokenUsage())
+		        .ifPresent(tokenUsage -> {
+			        var window = windowFor(e);
+			        window.add(INPUT_TOKENS, toLong(tokenUsage.inputTokenCount()));
+			        window.add(OUTPUT_TOKENS, toLong(tokenUsage.outputTokenCount()));
+		        });
+	}
+
+	void outputGuardrailExecuted(@Observes OutputGuardrailExecutedEvent e) {
+		var window = windowFor(e);
+		window.add(GUARDRAIL_EXECUTIONS, 1);
+
+		if (e.result().isReprompt()) {
+			window.add(GUARDRAIL_REPROMPTS, 1);
+		}
+	}
+
+	/**
+	 * The stats of each AI service method over the window
+	 */
+	public LiveStats getStats() {
+		var methods = new ArrayList<MethodStats>();
+		this.windows.forEach((key, window) -> methods.add(toMethodStats(key, window.sum())));
+		methods.sort(Comparator.comparing(MethodStats::interfaceName).thenComparing(MethodStats::methodName));
+
+		return new LiveStats(this.clock.instant(), this.config.window(), methods);
+	}
+
+	private SlidingWindow windowFor(AiServiceEvent event) {
+		var invocationContext = event.invocationContext();
+
+		return this.windows.computeIfAbsent(
+			new MethodKey(invocationContext.interfaceName(), invocationContext.methodName()),
+			key -> new SlidingWindow(this.clock, this.config.window(), this.config.resolution(), COUNTER_COUNT)
+		);
+	}
+
+	private void recordLatency(SlidingWindow window, InvocationContext invocationContext) {
+		Optional.ofNullable(invocationContext.timestamp())
+		        .map(started -> Duration.between(started, this.clock.instant()).toMillis())
+		        .ifPresent(latencyMillis -> window.add(LATENCY_BUCKETS + latencyBucket(latencyMillis), 1));
+	}
+
+	private static int latencyBucket(long latencyMillis) {
+		var bucket = 0;
+
+		while ((bucket < LATENCY_BOUNDS_MILLIS.length) && (latencyMillis > LATENCY_BOUNDS_MILLIS[bucket])) {
+			bucket++;
+		}
+
+		return bucket;
+	}
+
+	private MethodStats toMethodStats(MethodKey key, long[] totals) {
+		var ended = totals[COMPLETED] + totals[FAILED];
+		var windowSeconds = this.config.window().toMillis() / 1000.0;
+
+		return new MethodStats(
+			key.interfaceName(),
+			key.methodName(),
+			totals[STARTED],
+			totals[COMPLETED],
+			totals[FAILED],
+			ratio(totals[FAILED], ended),
+			totals[GUARDRAIL_EXECUTIONS],
+			totals[GUARDRAIL_REPROMPTS],
+			ratio(totals[GUARDRAIL_REPROMPTS], totals[GUARDRAIL_EXECUTIONS]),
+			totals[INPUT_TOKENS],
+			totals[OUTPUT_TOKENS],
+			(totals[INPUT_TOKENS] + totals[OUTPUT_TOKENS]) / windowSeconds,
+			toLatencyHistogram(totals)
+		);
+	}
+
+	private static LatencyHistogram toLatencyHistogram(long[] totals) {
+		var buckets = new ArrayList<LatencyBucket>();
+		var count = 0L;
+
+		for (var bucket = 0; bucket <= LATENCY_BOUNDS_MILLIS.length; bucket++) {
+			var upperBound = (bucket < LATENCY_BOUNDS_MILLIS.length) ? LATENCY_BOUNDS_MILLIS[bucket] : null;
+			buckets.add(new LatencyBucket(upperBound, totals[LATENCY_BUCKETS + bucket]));
+			count += totals[LATENCY_BUCKETS + bucket];
+		}
+
+		return new LatencyHistogram(
+			buckets,
+			percentile(buckets, count, 0.5),
+			percentile(buckets, count, 0.95),
+			percentile(buckets, count, 0.99)
+		);
+	}
+
+	private static Long percentile(Iterable<LatencyBucket> buckets, long count, double percentile) {
+		if (count == 0) {
+			return null;
+		}
+
+		var rank = (long) Math.ceil(percentile * count);
+		var cumulative = 0L;
+
+		for (var bucket : buckets) {
+			cumulative += bucket.count();
+
+			if (cumulative >= rank) {
+				return bucket.upperBoundMillis();
+			}
+		}
+
+		return null;
+	}
+
+	private static double ratio(long numerator, long denominator) {
+		return (denominator > 0) ?
+		       (double) numerator / denominator :
+		       0;
+	}
+
+	private static long toLong(Integer value) {
+		return (value != null) ? value : 0;
+	}
+
+	private record MethodKey(String interfaceName, String methodName) {}
+}
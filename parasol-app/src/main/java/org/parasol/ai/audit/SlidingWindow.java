@@ -0,0 +1,94 @@
+package org.parasol.ai.audit;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free sliding window of a fixed number of counters.
+ * <p>
+ * The window is made up of a ring of slots, each covering {@code resolution} of time. Adding to a counter adds to the slot
+ * for the current time, replacing the slot (with a compare-and-set) if it is left over from a previous trip around the ring.
+ * Summing the window adds up the slots which are still within it. An add racing with the slot being replaced may be lost,
+ * which is fine for live stats.
+ * </p>
+ */
+final class SlidingWindow {
+	private final Clock clock;
+	private final long resolutionMillis;
+	private final int counterCount;
+	private final AtomicReferenceArray<Slot> slots;
+
+	SlidingWindow(Clock clock, Duration window, Duration resolution, int counterCount) {
+		if (resolution.isZero() || resolution.isNegative() || (window.compareTo(resolution) < 0)) {
+			throw new IllegalArgumentException("The window (%s) must be at least as long as the resolution (%s), which must be positive".formatted(window, resolution));
+		}
+
+		this.clock = clock;
+		this.resolutionMillis = resolution.toMillis();
+		this.counterCount = counterCount;
+		this.slots = new AtomicReferenceArray<>((int) (window.toMillis() / this.resolutionMillis));
+	}
+
+	/**
+	 * Adds to one of the counters
+	 */
+	void add(int counter, long amount) {
+		currentSlot().counters.getAndAdd(counter, amount);
+	}
+
+	/**
+	 * The total of each counter over the window
+	 */
+	long[] sum() {
+		var totals = new long[this.counterCount];
+		var oldestTick = currentTick() - this.slots.length() + 1;
+
+		for (var i = 0; i < this.slots.length(); i++) {
+			var slot = this.slots.get(i);
+
+			if ((slot != null) && (slot.tick >= oldestTick)) {
+				for (var counter = 0; counter < this.counterCount; counter++) {
+					totals[counter] += slot.counters.get(counter);
+				}
+			}
+		}
+
+		return totals;
+	}
+
+	private long currentTick() {
+		return this.clock.millis() / this.resolutionMillis;
+	}
+
+	private Slot currentSlot() {
+		var tick = currentTick();
+		var index = (int) Math.floorMod(tick, this.slots.length());
+
+		while (true) {
+			var slot = this.slots.get(index);
+
+			// A newer slot means another thread's clock is slightly ahead, so just count it there
+			if ((slot != null) && (slot.tick >= tick)) {
+				return slot;
+			}
+
+			var newSlot = new Slot(tick, this.counterCount);
+
+			if (this.slots.compareAndSet(index, slot, newSlot)) {
+				return newSlot;
+			}
+		}
+	}
+
+	private static final class Slot {
+		private final long tick;
+		private final AtomicLongArray counters;
+
+		private Slot(long tick, int counterCount) {
+			this.tick = tick;
+			this.counters = new AtomicLongArray(counterCount);
+		}
+	}
+}
@@ -0,0 +1,507 @@
+package org.parasol.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import org.parasol.model.audit.TextCompression;
+import org.parasol.repository.AuditCapturePolicy;
+import org.parasol.repository.sink.AuditSink;
+
+import io.quarkus.runtime.configuration.MemorySize;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+/**
+ * Configuration for how AI audit events are captured and stored.
+ */
+@ConfigMapping(prefix = "parasol.audit")
+public interface AuditConfig {
+	/**
+	 * Configuration for how much of each audit event is kept
+	 */
+	Capture capture();
+
+	/**
+	 * Configuration for where audit events are sent
+	 */
+	Sink sink();
+
+	/**
+	 * Configuration for the asynchronous audit event writer used by the database sinks
+	 */
+	Writer writer();
+
+	/**
+	 * Configuration for the time-range partitioning of the audit events table
+	 */
+	Partitioning partitioning();
+
+	/**
+	 * Configuration for the local write-ahead journal of audit events
+	 */
+	Journal journal();
+
+	/**
+	 * Configuration for the compression of audit text
+	 */
+	Compression compression();
+
+	/**
+	 * Configuration for the hourly and daily aggregates of audit events
+	 */
+	Aggregates aggregates();
+
+	/**
+	 * Configuration for the live (in-memory) stats
+	 */
+	Live live();
+
+	/**
+	 * Configuration for the live feed of audit events
+	 */
+	Feed feed();
+
+	/**
+	 * Configuration for the streaming and file exports of audit events
+	 */
+	Export export();
+
+	/**
+	 * Configuration for paging through audit events, interactions and stats
+	 */
+	Paging paging();
+
+	/**
+	 * Configuration for caching the responses of the stats and interactions endpoints
+	 */
+	ResponseCache responseCache();
+
+	/**
+	 * Configuration for archiving old audit events to local files
+	 */
+	Archive archive();
+
+	/**
+	 * Configuration for running the stats and interactions queries over slices of their range in parallel
+	 */
+	Query query();
+
+	/**
+	 * Configuration for the live stats streamed from the audit's JDK Flight Recorder events
+	 */
+	FlightRecorder flightRecorder();
+
+	/**
+	 * Configuration for tail sampling the spans of the AI service events
+	 */
+	TailSampling tailSampling();
+
+	/**
+	 * The longest an interaction with the LLM is expected to take.
+	 * <p>
+	 * Events held back by the tiered capture policy are released once their interaction has been going this long.
+	 * </p>
+	 */
+	@WithDefault("1h")
+	Duration maxInteractionDuration();
+
+	interface Capture {
+		/**
+		 * Whether every event keeps its payloads, or only those of failed and sampled interactions
+		 */
+		@WithDefault("full")
+		AuditCapturePolicy.Mode mode();
+
+		/**
+		 * The fraction (between 0 and 1) of interactions which keep their payloads even though they succeeded.
+		 * Only used by the tiered mode.
+		 */
+		@WithDefault("0.1")
+		double sampleRate();
+
+		/**
+		 * The maximum number of unsampled interactions whose events are held until they end.
+		 * Events of any other interactions are captured without their payloads straight away.
+		 */
+		@WithDefault("10000")
+		int maxPendingInteractions();
+
+		/**
+		 * How often held interactions which have gone on longer than the {@link AuditConfig#maxInteractionDuration()} are released
+		 */
+		@WithDefault("1m")
+		Duration releaseInterval();
+	}
+
+	interface Sink {
+		/**
+		 * The sink audit events are sent to
+		 */
+		@WithDefault("jpa")
+		AuditSink.Type type();
+
+		/**
+		 * Configuration for the in-memory ring buffer sink
+		 */
+		RingBuffer ringBuffer();
+
+		interface RingBuffer {
+			/**
+			 * The number of events held in memory. Must be a power of 2.
+			 */
+			@WithDefault("65536")
+			int capacity();
+		}
+	}
+
+	interface Writer {
+		/**
+		 * The maximum number of audit events that can be waiting to be written
+		 */
+		@WithDefault("10000")
+		int queueCapacity();
+
+		/**
+		 * The maximum number of audit events written in a single transaction
+		 */
+		@WithDefault("100")
+		int batchSize();
+
+		/**
+		 * How long the writer waits for new events before checking whether it should stop
+		 */
+		@WithDefault("250ms")
+		Duration pollInterval();
+
+		/**
+		 * How long a caller will wait for space in a full queue before the event is written on the caller's thread
+		 */
+		@WithDefault("5s")
+		Duration enqueueTimeout();
+
+		/**
+		 * How long to wait for queued events to be written when the application shuts down
+		 */
+		@WithDefault("30s")
+		Duration shutdownTimeout();
+	}
+
+	interface Partitioning {
+		/**
+		 * Whether the audit events table should be partitioned by month
+		 */
+		@WithDefault("true")
+		boolean enabled();
+
+		/**
+		 * The number of months ahead of the current month to create partitions for
+		 */
+		@WithDefault("3")
+		int premakeMonths();
+
+		/**
+		 * How often upcoming partitions are created and expired partitions are dropped
+		 */
+		@WithDefault("1h")
+		Duration maintenanceInterval();
+
+		/**
+		 * How long audit events are kept. Partitions that end before this are dropped.
+		 * If not set, audit events are kept forever.
+		 */
+		Optional<Duration> retention();
+	}
+
+	interface Journal {
+		/**
+		 * Whether audit events are written to a local journal (and replayed into the database from there)
+		 * rather than being queued in memory
+		 */
+		@WithDefault("false")
+		boolean enabled();
+
+		/**
+		 * The directory holding the journal segments
+		 */
+		@WithDefault("audit-journal")
+		Path directory();
+
+		/**
+		 * The size of each memory-mapped journal segment
+		 */
+		@WithDefault("64M")
+		MemorySize segmentSize();
+
+		/**
+		 * Whether every append is forced to disk.
+		 * Without this the journal survives the application crashing, but not the operating system crashing.
+		 */
+		@WithDefault("false")
+		boolean forceOnAppend();
+
+		/**
+		 * How long to wait before retrying when events can't be replayed into the database
+		 */
+		@WithDefault("5s")
+		Duration retryInterval();
+	}
+
+	interface Compression {
+		/**
+		 * The algorithm used to compress audit text. Text already stored with a different algorithm can still be read.
+		 */
+		@WithDefault("zstd")
+		TextCompression algorithm();
+
+		/**
+		 * Text smaller than this is stored uncompressed
+		 */
+		@WithDefault("512")
+		MemorySize threshold();
+
+		/**
+		 * The compression level. Higher levels compress better but are slower.
+		 */
+		@WithDefault("3")
+		int level();
+	}
+
+	interface Aggregates {
+		/**
+		 * How often the buckets which are still open are refreshed
+		 */
+		@WithDefault("1m")
+		Duration refreshInterval();
+
+		/**
+		 * How long after it happened an event is usually written. Buckets stay open until this has passed since they ended.
+		 * The hours of any events committed later than that are re-aggregated by the next refresh.
+		 */
+		@WithDefault("5m")
+		Duration lateness();
+	}
+
+	interface Live {
+		/**
+		 * How far back the live stats look
+		 */
+		@WithDefault("60s")
+		Duration window();
+
+		/**
+		 * How finely the window slides. Each step of this size holds its own counters.
+		 */
+		@WithDefault("1s")
+		Duration resolution();
+	}
+
+	interface Feed {
+		/**
+		 * The number of events buffered for each subscriber. When a subscriber falls this far behind, its oldest events are dropped.
+		 */
+		@WithDefault("256")
+		int bufferSize();
+	}
+
+	interface Export {
+		/**
+		 * The number of rows fetched from the database at a time
+		 */
+		@WithDefault("500")
+		int fetchSize();
+
+		/**
+		 * How long an export may take before it is aborted
+		 */
+		@WithDefault("30m")
+		Duration timeout();
+
+		/**
+		 * The directory the file exports are written to
+		 */
+		@WithDefault("audit-export")
+		Path directory();
+
+		/**
+		 * How many events are exported to files between checkpoints. An interrupted file export resumes from the last checkpoint.
+		 */
+		@WithDefault("10000")
+		int checkpointInterval();
+
+		/**
+		 * The largest number of export files open at once. Each open file buffers up to a row group in memory.
+		 */
+		@WithDefault("32")
+		int maxOpenFiles();
+
+		/**
+		 * The size a row group of an export file is buffered up to in memory before it is written out
+		 */
+		@WithDefault("8M")
+		MemorySize rowGroupSize();
+
+		/**
+		 * How long a file export waits for the transactions which could still be writing the events it exports to end
+		 */
+		@WithDefault("1m")
+		Duration settleTimeout();
+
+		/**
+		 * The number of finished file export jobs whose status is kept
+		 */
+		@WithDefault("100")
+		int retainedJobs();
+	}
+
+	interface Paging {
+		/**
+		 * The number of items in a page when the client doesn't ask for a limit
+		 */
+		@WithDefault("100")
+		int defaultLimit();
+
+		/**
+		 * The largest number of items a client can ask for in a page
+		 */
+		@WithDefault("1000")
+		int maxLimit();
+	}
+
+	interface ResponseCache {
+		/**
+		 * Whether responses are cached. When disabled, the endpoints still support conditional requests.
+		 */
+		@WithDefault("true")
+		boolean enabled();
+
+		/**
+		 * The largest number of responses kept. The least recently used are evicted first.
+		 */
+		@WithDefault("1000")
+		int maxEntries();
+
+		/**
+		 * The most memory taken up by the (serialized) responses kept. The least recently used are evicted first.
+		 */
+		@WithDefault("64M")
+		MemorySize maxSize();
+
+		/**
+		 * How long after its end a window can no longer change, so its responses are cached without checking for new events.
+		 * Must cover the max interaction duration, since the stats of an interaction change until it ends, plus how late events may be written.
+		 */
+		@WithDefault("2h")
+		Duration sealAfter();
+	}
+
+	interface Archive {
+		/**
+		 * Whether old audit events are moved out of the database into the archive
+		 */
+		@WithDefault("false")
+		boolean enabled();
+
+		/**
+		 * The directory holding the archive segments
+		 */
+		@WithDefault("audit-archive")
+		Path directory();
+
+		/**
+		 * How old an interaction has to be (since its latest event) before it is archived.
+		 * Should be well within the partition retention, if there is one.
+		 */
+		@WithDefault("90d")
+		Duration age();
+
+		/**
+		 * How often interactions which have become old enough are archived
+		 */
+		@WithDefault("1h")
+		Duration interval();
+
+		/**
+		 * The most interactions written to a single archive segment
+		 */
+		@WithDefault("1000")
+		int batchSize();
+
+		/**
+		 * The number of events in each compressed block of a segment, which is the unit the archive reads
+		 */
+		@WithDefault("500")
+		int blockSize();
+	}
+
+	interface Query {
+		/**
+		 * The most slices a range is split into, each queried concurrently on its own connection.
+		 * Defaults to the number of processors.
+		 */
+		Optional<Integer> parallelism();
+
+		/**
+		 * The most slices queried at once across all requests, which is also the number of threads querying them.
+		 * Slices beyond this are queried one after another by the request. Defaults to half the datasource's max pool size.
+		 */
+		Optional<Integer> maxConcurrentSlices();
+
+		/**
+		 * The shortest slice worth a connection of its own. Ranges shorter than twice this aren't split.
+		 */
+		@WithDefault("1h")
+		Duration minSliceDuration();
+	}
+
+	interface FlightRecorder {
+		/**
+		 * Whether to stream the audit's flight recorder events in-process, over the live stats' window, to find the hot spots.
+		 * The events can be recorded with JFR whether or not this is enabled.
+		 */
+		@WithDefault("false")
+		boolean enabled();
+	}
+
+	interface TailSampling {
+		/**
+		 * Whether the spans of each interaction are held until it is known whether to keep them,
+		 * rather than all being exported as they end. Needs {@code quarkus.otel.traces.sampler} to be {@code always_on}
+		 * or {@code parentbased_always_on}, so that the head sampler doesn't drop the spans which are kept.
+		 */
+		@WithDefault("false")
+		boolean enabled();
+
+		/**
+		 * The fraction (between 0 and 1) of interactions whose spans are kept even though they succeeded quickly
+		 */
+		@WithDefault("0.1")
+		double sampleRate();
+
+		/**
+		 * Interactions which take longer than this always keep their spans
+		 */
+		@WithDefault("10s")
+		Duration latencyThreshold();
+
+		/**
+		 * The maximum number of unsampled interactions whose spans are held until they end.
+		 * The spans of any other interactions are dropped, unless they are a failure.
+		 */
+		@WithDefault("1000")
+		int maxPendingInteractions();
+
+		/**
+		 * The maximum number of spans held for one interaction. Any more are dropped.
+		 */
+		@WithDefault("64")
+		int maxSpansPerInteraction();
+
+		/**
+		 * How often held interactions which have gone on longer than the {@link AuditConfig#maxInteractionDuration()} are released
+		 */
+		@WithDefault("1m")
+		Duration releaseInterval();
+	}
+}
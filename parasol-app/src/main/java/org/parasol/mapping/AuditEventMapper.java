@@ -6,6 +6,7 @@ import java.util.stream.Stream;
 
 import jakarta.enterprise.context.ApplicationScoped;
 
+import org.parasol.model.audit.AuditEvent;
 import org.parasol.model.audit.InputGuardrailExecutedAuditEvent;
 import org.parasol.model.audit.InvocationContext;
 import org.parasol.model.audit.OutputGuardrailExecutedAuditEvent;
@@ -97,6 +98,37 @@ public class AuditEventMapper {
 			.build();
 	}
 
+	/**
+	 * Copies an audit event, leaving out its payloads (prompts, responses, tool arguments and results)
+	 * but keeping its metadata (event type, timings, token counts, guardrail results and errors)
+	 */
+	public AuditEvent withoutPayloads(AuditEvent auditEvent) {
+		return switch (auditEvent) {
+			case ServiceStartedAuditEvent e -> e.toBuilder()
+			                                    .systemMessage(null)
+			                                    .userMessage(null)
+			                                    .build();
+			case ServiceCompleteAuditEvent e -> e.toBuilder()
+			                                     .result(null)
+			                                     .build();
+			case ResponseReceivedAuditEvent e -> e.toBuilder()
+			                                      .response(null)
+			                                      .build();
+			case ToolExecutedAuditEvent e -> e.toBuilder()
+			                                  .toolArgs(null)
+			                                  .result(null)
+			                                  .build();
+			case InputGuardrailExecutedAuditEvent e -> e.toBuilder()
+			                                            .userMessage(null)
+			                                            .rewrittenUserMessage(null)
+			                                            .build();
+			case OutputGuardrailExecutedAuditEvent e -> e.toBuilder()
+			                                             .response(null)
+			                                             .build();
+			default -> auditEvent;
+		};
+	}
+
 	private InvocationContext toInvocationContext(dev.langchain4j.invocation.InvocationContext invocationContext) {
 		return InvocationContext.builder()
 		                        .interfaceName(invocationContext.interfaceName())
@@ -0,0 +1,35 @@
+package org.parasol.model.audit;
+
+import java.util.List;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Approximate stats for a range, read from the {@link AuditSketch sketches} rather than the interactions themselves.
+ * The range is widened to whole hours.
+ */
+@RegisterForReflection
+public record ApproximateAuditStats(
+	AuditDates auditDates,
+	Estimate distinctInteractions,
+	Distribution inputTokens,
+	Distribution outputTokens,
+	Distribution outputGuardrailExecutions,
+	Distribution outputGuardrailFailures
+) {
+	/**
+	 * An estimated count, with bounds of two standard errors either side (about 95% confidence)
+	 */
+	public record Estimate(long value, long lowerBound, long upperBound) {}
+
+	/**
+	 * The distribution of a value over the interactions which started within the range.
+	 * The count, mean, min and max are exact, the quantiles are estimated.
+	 */
+	public record Distribution(long count, Double mean, Double min, Double max, List<Quantile> quantiles) {}
+
+	/**
+	 * An estimated quantile, along with the range of values the true quantile is expected to be within
+	 */
+	public record Quantile(double quantile, double value, double lowerBound, double upperBound) {}
+}
@@ -1,7 +1,10 @@
 package org.parasol.model.audit;
 
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.Objects;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.DiscriminatorColumn;
@@ -11,21 +14,31 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Inheritance;
 import jakarta.persistence.InheritanceType;
+import jakarta.persistence.PrePersist;
 import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
-import org.hibernate.annotations.CreationTimestamp;
-import org.hibernate.annotations.SourceType;
-
 /**
  * Entity to store AI audit events.
  *
  * This model is intentionally generic to accommodate all event types.
  */
 @Entity
-@Table(name = "audit_events")
+@Table(
+	name = "audit_events",
+	indexes = {
+		@Index(name = "audit_events_created_on_id_idx", columnList = "created_on, id"),
+		@Index(name = "audit_events_interaction_id_idx", columnList = "interaction_id"),
+		@Index(name = "audit_events_event_key_created_on_idx", columnList = "event_key, created_on", unique = true),
+		@Index(name = "audit_events_event_type_created_on_id_idx", columnList = "event_type, created_on, id"),
+		@Index(name = "audit_events_interface_method_created_on_id_idx", columnList = "interface_name, method_name, created_on, id"),
+		@Index(name = "audit_events_model_name_created_on_id_idx", columnList = "model_name, created_on, id"),
+		@Index(name = "audit_events_guardrail_class_created_on_id_idx", columnList = "guardrail_class, created_on, id")
+	}
+)
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "event_type", discriminatorType = DiscriminatorType.STRING)
 public abstract class AuditEvent {
@@ -40,7 +53,17 @@ public abstract class AuditEvent {
 	@Embedded
 	private InvocationContext invocationContext;
 
-	@CreationTimestamp(source = SourceType.DB)
+	/**
+	 * Uniquely identifies the event before it has been given an id by the database.
+	 * Used to make sure an event isn't written more than once.
+	 */
+	@Column(updatable = false)
+	private UUID eventKey;
+
+	/**
+	 * When the event happened. Captured when the event is created rather than when it is written,
+	 * since writes are asynchronous and may happen well after the event.
+	 */
 	@Column(updatable = false, nullable = false)
 	private Instant createdOn;
 
@@ -51,6 +74,20 @@ public abstract class AuditEvent {
 	protected AuditEvent(Builder builder) {
 		this.id = builder.id;
 		this.invocationContext = builder.invocationContext;
+		this.eventKey = Objects.requireNonNullElseGet(builder.eventKey, UUID::randomUUID);
+		this.createdOn = Objects.requireNonNullElseGet(builder.createdOn, AuditEvent::now);
+	}
+
+	@PrePersist
+	void prePersist() {
+		if (this.createdOn == null) {
+			this.createdOn = now();
+		}
+	}
+
+	// Postgres stores timestamps with microsecond precision
+	private static Instant now() {
+		return Instant.now().truncatedTo(ChronoUnit.MICROS);
 	}
 
 	public Long getId() {
@@ -71,6 +108,14 @@ public abstract class AuditEvent {
 		this.invocationContext = sourceInfo;
 	}
 
+	public UUID getEventKey() {
+		return eventKey;
+	}
+
+	public void setEventKey(UUID eventKey) {
+		this.eventKey = eventKey;
+	}
+
 	public Instant getCreatedOn() {
 		return createdOn;
 	}
@@ -79,6 +124,13 @@ public abstract class AuditEvent {
 		this.createdOn = createdOn;
 	}
 
+	/**
+	 * Replaces each of this event's {@link AuditText texts} with the instance returned by the interner,
+	 * so that each distinct text is only stored once. Events without any texts don't need to do anything.
+	 */
+	public void internTexts(UnaryOperator<AuditText> interner) {
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (!(o instanceof AuditEvent that)) {
@@ -97,6 +149,8 @@ public abstract class AuditEvent {
 		private Long id;
 		private AuditEventType eventType;
 		private InvocationContext invocationContext;
+		private UUID eventKey;
+		private Instant createdOn;
 
 		protected Builder() {
 		}
@@ -105,6 +159,8 @@ public abstract class AuditEvent {
 		protected Builder(AuditEvent source) {
 			this.id = source.id;
 			this.invocationContext = source.invocationContext;
+			this.eventKey = source.eventKey;
+			this.createdOn = source.createdOn;
 		}
 
 		public T id(Long id) {
@@ -117,6 +173,16 @@ public abstract class AuditEvent {
 			return (T) this;
 		}
 
+		public T eventKey(UUID eventKey) {
+			this.eventKey = eventKey;
+			return (T) this;
+		}
+
+		public T createdOn(Instant createdOn) {
+			this.createdOn = createdOn;
+			return (T) this;
+		}
+
 		public abstract A build();
 	}
 }
@@ -0,0 +1,16 @@
+package org.parasol.model.audit;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Narrows down a listing of audit events, or of the interactions having at least one matching event.
+ * Each {@code null} criterion matches everything.
+ */
+@RegisterForReflection
+public record AuditEventFilter(AuditEventType eventType, String interfaceName, String methodName, String modelName, String guardrailClass) {
+	public static final AuditEventFilter NONE = new AuditEventFilter(null, null, null, null, null);
+
+	public boolean isEmpty() {
+		return equals(NONE);
+	}
+}
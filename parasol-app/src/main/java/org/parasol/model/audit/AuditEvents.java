@@ -0,0 +1,11 @@
+package org.parasol.model.audit;
+
+import java.util.List;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * A page of audit events. {@code nextCursor} is {@code null} on the last page.
+ */
+@RegisterForReflection
+public record AuditEvents(List<AuditEvent> auditEvents, String nextCursor) {}
@@ -0,0 +1,29 @@
+package org.parasol.model.audit;
+
+import java.util.List;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * The latency percentiles of each AI service method, over the interactions which started within the range
+ */
+@RegisterForReflection
+public record AuditLatency(AuditDates auditDates, List<MethodLatency> methods) {
+	/**
+	 * Each set of percentiles is only over the interactions it applies to (for example, those which executed a tool)
+	 */
+	public record MethodLatency(
+		String interfaceName,
+		String methodName,
+		long interactions,
+		Percentiles timeToFirstResponse,
+		Percentiles toolExecution,
+		Percentiles guardrailExecution,
+		Percentiles total
+	) {}
+
+	/**
+	 * Percentiles in milliseconds, each {@code null} if there were no interactions to compute it from
+	 */
+	public record Percentiles(Double p50, Double p95, Double p99) {}
+}
@@ -0,0 +1,61 @@
+package org.parasol.model.audit;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.MappedSuperclass;
+
+/**
+ * Pre-aggregated counts of audit events for a time bucket, broken down by interface, method, model, event type and guardrail class.
+ * <p>
+ * Rows are written by {@code AuditMetricsAggregator} so that long-range trends can be read without scanning the audit events.
+ * </p>
+ */
+@MappedSuperclass
+public abstract class AuditMetric {
+	@EmbeddedId
+	private AuditMetricKey key;
+
+	private long eventCount;
+
+	/**
+	 * The number of service errors and failed (or fatal) guardrail executions
+	 */
+	private long failureCount;
+
+	private long inputTokenCount;
+	private long outputTokenCount;
+
+	// JPA requires a no-arg constructor with at least protected visibility
+	protected AuditMetric() {
+	}
+
+	public AuditMetricKey getKey() {
+		return key;
+	}
+
+	public long getEventCount() {
+		return eventCount;
+	}
+
+	public long getFailureCount() {
+		return failureCount;
+	}
+
+	public long getInputTokenCount() {
+		return inputTokenCount;
+	}
+
+	public long getOutputTokenCount() {
+		return outputTokenCount;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{" +
+			"key=" + key +
+			", eventCount=" + eventCount +
+			", failureCount=" + failureCount +
+			", inputTokenCount=" + inputTokenCount +
+			", outputTokenCount=" + outputTokenCount +
+			'}';
+	}
+}
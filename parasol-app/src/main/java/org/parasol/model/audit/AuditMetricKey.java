@@ -0,0 +1,97 @@
+package org.parasol.model.audit;
+
+import java.time.Instant;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+
+/**
+ * Identifies a bucket of an {@link AuditMetric}: the start of the time bucket along with the dimensions it is broken down by.
+ * <p>
+ * Dimensions which don't apply to an event (e.g. the model name of a tool execution) are stored as empty strings,
+ * since they are part of the primary key.
+ * </p>
+ */
+@Embeddable
+public class AuditMetricKey {
+	@Column(nullable = false)
+	private Instant bucketStart;
+
+	@Column(nullable = false)
+	private String interfaceName;
+
+	@Column(nullable = false)
+	private String methodName;
+
+	@Column(nullable = false)
+	private String modelName;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false)
+	private AuditEventType eventType;
+
+	@Column(nullable = false)
+	private String guardrailClass;
+
+	// JPA requires a no-arg constructor with at least protected visibility
+	protected AuditMetricKey() {
+	}
+
+	public Instant getBucketStart() {
+		return bucketStart;
+	}
+
+	public String getInterfaceName() {
+		return interfaceName;
+	}
+
+	public String getMethodName() {
+		return methodName;
+	}
+
+	public String getModelName() {
+		return modelName;
+	}
+
+	public AuditEventType getEventType() {
+		return eventType;
+	}
+
+	public String getGuardrailClass() {
+		return guardrailClass;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof AuditMetricKey that)) {
+			return false;
+		}
+
+		return Objects.equals(bucketStart, that.bucketStart) &&
+			Objects.equals(interfaceName, that.interfaceName) &&
+			Objects.equals(methodName, that.methodName) &&
+			Objects.equals(modelName, that.modelName) &&
+			eventType == that.eventType &&
+			Objects.equals(guardrailClass, that.guardrailClass);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(bucketStart, interfaceName, methodName, modelName, eventType, guardrailClass);
+	}
+
+	@Override
+	public String toString() {
+		return "AuditMetricKey{" +
+			"bucketStart=" + bucketStart +
+			", interfaceName='" + interfaceName + '\'' +
+			", methodName='" + methodName + '\'' +
+			", modelName='" + modelName + '\'' +
+			", eventType=" + eventType +
+			", guardrailClass='" + guardrailClass + '\'' +
+			'}';
+	}
+}
@@ -0,0 +1,65 @@
+package org.parasol.model.audit;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Id;
+import jakarta.persistence.MappedSuperclass;
+
+/**
+ * Mergeable sketches of the audit events for a time bucket, so that approximate stats for long ranges can be read
+ * by merging a few buckets rather than aggregating all of the interactions.
+ * <p>
+ * Rows are written by {@code AuditMetricsAggregator}. {@code interactions} is a HyperLogLog sketch of the interactions
+ * having events within the bucket. The others are t-digests of the token counts and output guardrail executions and failures
+ * of each interaction which started within the bucket.
+ * </p>
+ */
+@MappedSuperclass
+public abstract class AuditSketch {
+	@Id
+	private Instant bucketStart;
+
+	@Column(nullable = false)
+	private byte[] interactions;
+
+	@Column(nullable = false)
+	private byte[] inputTokens;
+
+	@Column(nullable = false)
+	private byte[] outputTokens;
+
+	@Column(nullable = false)
+	private byte[] outputGuardrailExecutions;
+
+	@Column(nullable = false)
+	private byte[] outputGuardrailFailures;
+
+	// JPA requires a no-arg constructor with at least protected visibility
+	protected AuditSketch() {
+	}
+
+	public Instant getBucketStart() {
+		return bucketStart;
+	}
+
+	public byte[] getInteractions() {
+		return interactions;
+	}
+
+	public byte[] getInputTokens() {
+		return inputTokens;
+	}
+
+	public byte[] getOutputTokens() {
+		return outputTokens;
+	}
+
+	public byte[] getOutputGuardrailExecutions() {
+		return outputGuardrailExecutions;
+	}
+
+	public byte[] getOutputGuardrailFailures() {
+		return outputGuardrailFailures;
+	}
+}
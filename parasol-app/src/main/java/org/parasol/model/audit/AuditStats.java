@@ -8,9 +8,9 @@ import java.util.UUID;
 import io.quarkus.runtime.annotations.RegisterForReflection;
 
 @RegisterForReflection
-public record AuditStats(AuditDates auditDates, List<InteractionStats> stats) {
+public record AuditStats(AuditDates auditDates, List<InteractionStats> stats, String nextCursor) {
 	public static AuditStats empty(AuditDates auditDates) {
-		return new AuditStats(auditDates, List.of());
+		return new AuditStats(auditDates, List.of(), null);
 	}
 
 	public record InteractionStats(
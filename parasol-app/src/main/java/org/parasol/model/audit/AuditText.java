@@ -0,0 +1,116 @@
+package org.parasol.model.audit;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Large text (prompts, responses, etc) referenced by audit events, keyed by the SHA-256 hash of its content.
+ * <p>
+ * The same system message, claim body, or response is often repeated across many events. Storing it once here
+ * means the audit events only hold the hash. Since the content for a given hash never changes, it is kept
+ * in the second-level cache, which acts as an intern cache for both reads and writes.
+ * </p>
+ * <p>
+ * The content is compressed by the {@link CompressedTextConverter}.
+ * </p>
+ * <p>
+ * Events reference their texts lazily, so reading events only for their metadata never touches this table.
+ * When texts are needed, the uncached ones are loaded {@value #BATCH_SIZE} at a time.
+ * </p>
+ */
+@Entity
+@Table(name = "audit_texts")
+@Immutable
+@Cacheable
+@BatchSize(size = AuditText.BATCH_SIZE)
+public class AuditText {
+	static final int BATCH_SIZE = 100;
+
+	@Id
+	@Column(length = 64)
+	private String hash;
+
+	@Column(updatable = false, nullable = false)
+	@Convert(converter = CompressedTextConverter.class)
+	private String content;
+
+	// JPA requires a no-arg constructor with at least protected visibility
+	protected AuditText() {
+	}
+
+	private AuditText(String hash, String content) {
+		this.hash = hash;
+		this.content = content;
+	}
+
+	/**
+	 * Creates an {@link AuditText} for the given content, or {@code null} if there isn't any content
+	 */
+	public static AuditText of(String content) {
+		return (content != null) ?
+		       new AuditText(hashOf(content), content) :
+		       null;
+	}
+
+	/**
+	 * Gets the content of the given text, falling back to the content stored inline on events written before texts were moved here
+	 */
+	public static String contentOf(AuditText auditText, String inlineContent) {
+		return (auditText != null) ?
+		       auditText.getContent() :
+		       inlineContent;
+	}
+
+	public static String hashOf(String content) {
+		try {
+			var digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(digest);
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public String getHash() {
+		return hash;
+	}
+
+	public String getContent() {
+		return content;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof AuditText that)) {
+			return false;
+		}
+
+		return Objects.equals(getHash(), that.getHash());
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hashCode(getHash());
+	}
+
+	@Override
+	public String toString() {
+		return "AuditText{" +
+			"hash='" + hash + '\'' +
+			", content='" + content + '\'' +
+			'}';
+	}
+}
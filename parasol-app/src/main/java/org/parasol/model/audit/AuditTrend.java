@@ -0,0 +1,24 @@
+package org.parasol.model.audit;
+
+import java.time.Instant;
+import java.util.List;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+@RegisterForReflection
+public record AuditTrend(AuditDates auditDates, Granularity granularity, List<TrendPoint> points) {
+	public enum Granularity { HOUR, DAY }
+
+	public record TrendPoint(
+		Instant bucketStart,
+		String interfaceName,
+		String methodName,
+		String modelName,
+		String eventType,
+		String guardrailClass,
+		Long eventCount,
+		Long failureCount,
+		Long inputTokenCount,
+		Long outputTokenCount
+	) {}
+}
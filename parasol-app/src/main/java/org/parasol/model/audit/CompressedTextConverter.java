@@ -0,0 +1,79 @@
+package org.parasol.model.audit;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import org.parasol.config.AuditConfig;
+
+/**
+ * Compresses text before it is written to the database.
+ * <p>
+ * Text smaller than {@link AuditConfig.Compression#threshold()} (or which doesn't get any smaller when compressed)
+ * is stored uncompressed, since it isn't worth the CPU. The stored value starts with the {@link TextCompression#id()}
+ * of the algorithm that was used, followed by the size of the original text if it was compressed:
+ * </p>
+ * <pre>
+ * [byte algorithm][int original size][compressed UTF-8 bytes]
+ * [byte 0][UTF-8 bytes]
+ * </pre>
+ */
+@Converter
+@ApplicationScoped
+public class CompressedTextConverter implements AttributeConverter<String, byte[]> {
+	private static final int HEADER_SIZE = Byte.BYTES + Integer.BYTES;
+
+	private final AuditConfig.Compression config;
+
+	public CompressedTextConverter(AuditConfig auditConfig) {
+		this.config = auditConfig.compression();
+	}
+
+	@Override
+	public byte[] convertToDatabaseColumn(String text) {
+		if (text == null) {
+			return null;
+		}
+
+		var data = text.getBytes(StandardCharsets.UTF_8);
+		var algorithm = this.config.algorithm();
+
+		if ((algorithm != TextCompression.NONE) && (data.length >= this.config.threshold().asLongValue())) {
+			var compressed = algorithm.compress(data, this.config.level());
+
+			if (compressed.length + HEADER_SIZE < data.length) {
+				return ByteBuffer.allocate(HEADER_SIZE + compressed.length)
+				                 .put(algorithm.id())
+				                 .putInt(data.length)
+				                 .put(compressed)
+				                 .array();
+			}
+		}
+
+		return ByteBuffer.allocate(Byte.BYTES + data.length)
+		                 .put(TextCompression.NONE.id())
+		                 .put(data)
+		                 .array();
+	}
+
+	@Override
+	public String convertToEntityAttribute(byte[] value) {
+		if (value == null) {
+			return null;
+		}
+
+		var algorithm = TextCompression.fromId(value[0]);
+
+		if (algorithm == TextCompression.NONE) {
+			return new String(value, Byte.BYTES, value.length - Byte.BYTES, StandardCharsets.UTF_8);
+		}
+
+		var data = new byte[ByteBuffer.wrap(value, Byte.BYTES, Integer.BYTES).getInt()];
+		algorithm.decompress(value, HEADER_SIZE, data);
+
+		return new String(data, StandardCharsets.UTF_8);
+	}
+}
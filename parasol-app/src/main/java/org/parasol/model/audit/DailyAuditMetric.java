@@ -0,0 +1,18 @@
+package org.parasol.model.audit;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+
+import org.hibernate.annotations.Immutable;
+
+/**
+ * {@link AuditMetric} bucketed by day (UTC)
+ */
+@Entity
+@Immutable
+@Table(name = "audit_metrics_daily")
+public class DailyAuditMetric extends AuditMetric {
+	// JPA requires a no-arg constructor with at least protected visibility
+	protected DailyAuditMetric() {
+	}
+}
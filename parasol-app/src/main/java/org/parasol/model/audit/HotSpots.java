@@ -0,0 +1,36 @@
+package org.parasol.model.audit;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Where the time of the AI services went over the window, from the audit's flight recorder events, the most time first
+ */
+@RegisterForReflection
+public record HotSpots(Instant asOf, Duration window, List<HotSpot> hotSpots) {
+	/**
+	 * One kind of event of one AI service method
+	 *
+	 * @param eventType      The flight recorder event's name
+	 * @param subject        The model, tool, guardrail class or error class, if the event has one
+	 * @param failures       Failed interactions, or guardrails which failed
+	 * @param totalMillis    The total time of the steps ended by these events (since each invocation's previous event)
+	 * @param auditMillis    The total time taken to audit these events
+	 */
+	public record HotSpot(
+		String eventType,
+		String interfaceName,
+		String methodName,
+		String subject,
+		long count,
+		long failures,
+		double totalMillis,
+		double meanMillis,
+		double auditMillis,
+		long inputTokens,
+		long outputTokens
+	) {}
+}
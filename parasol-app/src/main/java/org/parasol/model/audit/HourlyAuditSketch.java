@@ -0,0 +1,18 @@
+package org.parasol.model.audit;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+
+import org.hibernate.annotations.Immutable;
+
+/**
+ * {@link AuditSketch} bucketed by hour (UTC)
+ */
+@Entity
+@Immutable
+@Table(name = "audit_sketches_hourly")
+public class HourlyAuditSketch extends AuditSketch {
+	// JPA requires a no-arg constructor with at least protected visibility
+	protected HourlyAuditSketch() {
+	}
+}
@@ -2,9 +2,16 @@ package org.parasol.model.audit;
 
 import static org.parasol.model.audit.InputGuardrailExecutedAuditEvent.EVENT_TYPE;
 
+import java.util.function.UnaryOperator;
+
 import jakarta.persistence.Column;
+import jakarta.persistence.ConstraintMode;
 import jakarta.persistence.DiscriminatorValue;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
 
 @Entity
 @DiscriminatorValue(EVENT_TYPE)
@@ -14,9 +21,17 @@ public class InputGuardrailExecutedAuditEvent extends AuditEvent {
 	@Column(updatable = false, columnDefinition = "TEXT")
 	private String userMessage;
 
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "user_message_hash", updatable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+	private AuditText userMessageText;
+
 	@Column(updatable = false, columnDefinition = "TEXT")
 	private String rewrittenUserMessage;
 
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "rewritten_user_message_hash", updatable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+	private AuditText rewrittenUserMessageText;
+
 	@Column(updatable = false, columnDefinition = "TEXT")
 	private String result;
 
@@ -31,8 +46,8 @@ public class InputGuardrailExecutedAuditEvent extends AuditEvent {
 	// Private constructor used by the builder
 	private InputGuardrailExecutedAuditEvent(Builder builder) {
 		super(builder);
-		this.userMessage = builder.userMessage;
-		this.rewrittenUserMessage = builder.rewrittenUserMessage;
+		this.userMessageText = AuditText.of(builder.userMessage);
+		this.rewrittenUserMessageText = AuditText.of(builder.rewrittenUserMessage);
 		this.result = builder.result;
 		this.guardrailClass = builder.guardrailClass;
 	}
@@ -67,19 +82,27 @@ public class InputGuardrailExecutedAuditEvent extends AuditEvent {
 	}
 
 	public String getRewrittenUserMessage() {
-		return rewrittenUserMessage;
+		return AuditText.contentOf(rewrittenUserMessageText, rewrittenUserMessage);
 	}
 
 	public void setRewrittenUserMessage(String rewrittenUserMessage) {
-		this.rewrittenUserMessage = rewrittenUserMessage;
+		this.rewrittenUserMessageText = AuditText.of(rewrittenUserMessage);
+		this.rewrittenUserMessage = null;
 	}
 
 	public String getUserMessage() {
-		return userMessage;
+		return AuditText.contentOf(userMessageText, userMessage);
 	}
 
 	public void setUserMessage(String userMessage) {
-		this.userMessage = userMessage;
+		this.userMessageText = AuditText.of(userMessage);
+		this.userMessage = null;
+	}
+
+	@Override
+	public void internTexts(UnaryOperator<AuditText> interner) {
+		this.userMessageText = interner.apply(this.userMessageText);
+		this.rewrittenUserMessageText = interner.apply(this.rewrittenUserMessageText);
 	}
 
 	@Override
@@ -107,8 +130,8 @@ public class InputGuardrailExecutedAuditEvent extends AuditEvent {
 
 		private Builder(InputGuardrailExecutedAuditEvent source) {
 			super(source);
-			this.userMessage = source.userMessage;
-			this.rewrittenUserMessage = source.rewrittenUserMessage;
+			this.userMessage = source.getUserMessage();
+			this.rewrittenUserMessage = source.getRewrittenUserMessage();
 			this.result = source.result;
 			this.guardrailClass = source.guardrailClass;
 		}
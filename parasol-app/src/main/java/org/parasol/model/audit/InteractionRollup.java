@@ -0,0 +1,227 @@
+package org.parasol.model.audit;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import org.hibernate.annotations.Immutable;
+import org.parasol.model.audit.Interactions.Interaction.InteractionStatus;
+
+/**
+ * A summary of all the audit events for a single interaction with the LLM.
+ * <p>
+ * Rows are maintained by the database as audit events are inserted (see {@code InteractionRollupManager}),
+ * so reading the stats for a date range doesn't need to aggregate all of the audit events.
+ * The texts are either inline (for events written before texts were moved to the {@code audit_texts} table)
+ * or the hash of an {@link AuditText}.
+ * </p>
+ */
+@Entity
+@Table(name = "interaction_rollup")
+@Immutable
+public class InteractionRollup {
+	@Id
+	private UUID interactionId;
+
+	/**
+	 * When the first event of the interaction happened
+	 */
+	@Column(nullable = false)
+	private Instant interactionDate;
+
+	/**
+	 * When the latest event of the interaction happened
+	 */
+	@Column(nullable = false)
+	private Instant lastEventOn;
+
+	private long numLlmFailures;
+	private long totalOutputGuardrailExecutions;
+	private long totalOutputGuardrailFailures;
+	private long inputTokenCount;
+	private long outputTokenCount;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false)
+	private InteractionStatus status;
+
+	@Column(columnDefinition = "TEXT")
+	private String systemMessage;
+
+	@Column(length = 64)
+	private String systemMessageHash;
+
+	@Column(columnDefinition = "TEXT")
+	private String userMessage;
+
+	@Column(length = 64)
+	private String userMessageHash;
+
+	@Column(columnDefinition = "TEXT")
+	private String result;
+
+	@Column(length = 64)
+	private String resultHash;
+
+	@Column(columnDefinition = "TEXT")
+	private String errorMessage;
+
+	@Column(columnDefinition = "TEXT")
+	private String causeErrorMessage;
+
+	private String interfaceName;
+	private String methodName;
+
+	/**
+	 * When the AI service was invoked, if its {@code SERVICE_STARTED} event was recorded
+	 */
+	private Instant startedOn;
+
+	/**
+	 * When the first response from the LLM was received
+	 */
+	private Instant firstResponseOn;
+
+	/**
+	 * When the AI service completed or failed
+	 */
+	private Instant endedOn;
+
+	/**
+	 * The total time spent executing tools, or {@code null} if no tools were executed
+	 */
+	private Long toolExecutionMillis;
+
+	/**
+	 * The total time spent executing input and output guardrails, or {@code null} if no guardrails were executed
+	 */
+	private Long guardrailExecutionMillis;
+
+	// JPA requires a no-arg constructor with at least protected visibility
+	protected InteractionRollup() {
+	}
+
+	public UUID getInteractionId() {
+		return interactionId;
+	}
+
+	public Instant getInteractionDate() {
+		return interactionDate;
+	}
+
+	public Instant getLastEventOn() {
+		return lastEventOn;
+	}
+
+	public long getNumLlmFailures() {
+		return numLlmFailures;
+	}
+
+	public long getTotalOutputGuardrailExecutions() {
+		return totalOutputGuardrailExecutions;
+	}
+
+	public long getTotalOutputGuardrailFailures() {
+		return totalOutputGuardrailFailures;
+	}
+
+	public long getInputTokenCount() {
+		return inputTokenCount;
+	}
+
+	public long getOutputTokenCount() {
+		return outputTokenCount;
+	}
+
+	public InteractionStatus getStatus() {
+		return status;
+	}
+
+	public String getSystemMessage() {
+		return systemMessage;
+	}
+
+	public String getSystemMessageHash() {
+		return systemMessageHash;
+	}
+
+	public String getUserMessage() {
+		return userMessage;
+	}
+
+	public String getUserMessageHash() {
+		return userMessageHash;
+	}
+
+	public String getResult() {
+		return result;
+	}
+
+	public String getResultHash() {
+		return resultHash;
+	}
+
+	public String getErrorMessage() {
+		return errorMessage;
+	}
+
+	public String getCauseErrorMessage() {
+		return causeErrorMessage;
+	}
+
+	public String getInterfaceName() {
+		return interfaceName;
+	}
+
+	public String getMethodName() {
+		return methodName;
+	}
+
+	public Instant getStartedOn() {
+		return startedOn;
+	}
+
+	public Instant getFirstResponseOn() {
+		return firstResponseOn;
+	}
+
+	public Instant getEndedOn() {
+		return endedOn;
+	}
+
+	public Long getToolExecutionMillis() {
+		return toolExecutionMillis;
+	}
+
+	public Long getGuardrailExecutionMillis() {
+		return guardrailExecutionMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "InteractionRollup{" +
+			"interactionId=" + interactionId +
+			", interactionDate=" + interactionDate +
+			", lastEventOn=" + lastEventOn +
+			", numLlmFailures=" + numLlmFailures +
+			", totalOutputGuardrailExecutions=" + totalOutputGuardrailExecutions +
+			", totalOutputGuardrailFailures=" + totalOutputGuardrailFailures +
+			", inputTokenCount=" + inputTokenCount +
+			", outputTokenCount=" + outputTokenCount +
+			", status=" + status +
+			", interfaceName='" + interfaceName + '\'' +
+			", methodName='" + methodName + '\'' +
+			", startedOn=" + startedOn +
+			", firstResponseOn=" + firstResponseOn +
+			", endedOn=" + endedOn +
+			", toolExecutionMillis=" + toolExecutionMillis +
+			", guardrailExecutionMillis=" + guardrailExecutionMillis +
+			'}';
+	}
+}
@@ -11,9 +11,9 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonProperty.Access;
 
 @RegisterForReflection
-public record Interactions(AuditDates auditDates, List<Interaction> interactions) {
+public record Interactions(AuditDates auditDates, List<Interaction> interactions, String nextCursor) {
 	public static Interactions empty(AuditDates auditDates) {
-		return new Interactions(auditDates, List.of());
+		return new Interactions(auditDates, List.of(), null);
 	}
 
 	public record Interaction(
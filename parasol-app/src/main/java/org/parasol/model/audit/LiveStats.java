@@ -0,0 +1,38 @@
+package org.parasol.model.audit;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+@RegisterForReflection
+public record LiveStats(Instant asOf, Duration window, List<MethodStats> methods) {
+	public record MethodStats(
+		String interfaceName,
+		String methodName,
+		long interactionsStarted,
+		long interactionsCompleted,
+		long interactionsFailed,
+		double failureRate,
+		long outputGuardrailExecutions,
+		long outputGuardrailReprompts,
+		double repromptRate,
+		long inputTokens,
+		long outputTokens,
+		double tokensPerSecond,
+		LatencyHistogram latency
+	) {}
+
+	/**
+	 * Latencies of the interactions which ended within the window.
+	 * The percentiles are the upper bound of the bucket they fall in, or {@code null} if they are above the highest bound.
+	 */
+	public record LatencyHistogram(List<LatencyBucket> buckets, Long p50Millis, Long p95Millis, Long p99Millis) {}
+
+	/**
+	 * The number of latencies up to (and including) the upper bound, and above the previous bucket's bound.
+	 * The last bucket has no upper bound.
+	 */
+	public record LatencyBucket(Long upperBoundMillis, long count) {}
+}
@@ -2,9 +2,16 @@ package org.parasol.model.audit;
 
 import static org.parasol.model.audit.OutputGuardrailExecutedAuditEvent.EVENT_TYPE;
 
+import java.util.function.UnaryOperator;
+
 import jakarta.persistence.Column;
+import jakarta.persistence.ConstraintMode;
 import jakarta.persistence.DiscriminatorValue;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
 
 @Entity
 @DiscriminatorValue(EVENT_TYPE)
@@ -14,6 +21,10 @@ public class OutputGuardrailExecutedAuditEvent extends AuditEvent {
 	@Column(updatable = false, columnDefinition = "TEXT")
 	private String response;
 
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "response_hash", updatable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+	private AuditText responseText;
+
 	@Column(updatable = false, columnDefinition = "TEXT")
 	private String guardrailResult;
 
@@ -28,7 +39,7 @@ public class OutputGuardrailExecutedAuditEvent extends AuditEvent {
 	// Private constructor used by the builder
 	private OutputGuardrailExecutedAuditEvent(Builder builder) {
 		super(builder);
-		this.response = builder.response;
+		this.responseText = AuditText.of(builder.response);
 		this.guardrailResult = builder.result;
 		this.guardrailClass = builder.guardrailClass;
 	}
@@ -55,11 +66,12 @@ public class OutputGuardrailExecutedAuditEvent extends AuditEvent {
 	}
 
 	public String getResponse() {
-		return response;
+		return AuditText.contentOf(responseText, response);
 	}
 
 	public void setResponse(String response) {
-		this.response = response;
+		this.responseText = AuditText.of(response);
+		this.response = null;
 	}
 
 	public String getGuardrailResult() {
@@ -70,6 +82,11 @@ public class OutputGuardrailExecutedAuditEvent extends AuditEvent {
 		this.guardrailResult = result;
 	}
 
+	@Override
+	public void internTexts(UnaryOperator<AuditText> interner) {
+		this.responseText = interner.apply(this.responseText);
+	}
+
 	@Override
 	public String toString() {
 		return "OutputGuardrailExecutedAuditEvent{" +
@@ -93,7 +110,7 @@ public class OutputGuardrailExecutedAuditEvent extends AuditEvent {
 
 		private Builder(OutputGuardrailExecutedAuditEvent source) {
 			super(source);
-			this.response = source.response;
+			this.response = source.getResponse();
 			this.result = source.guardrailResult;
 			this.guardrailClass = source.guardrailClass;
 		}
@@ -0,0 +1,51 @@
+package org.parasol.model.audit;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Where the next page of a listing starts: just after the row with the given position (a timestamp) and id.
+ * <p>
+ * Listings are ordered by {@code (position, id)}, so a page is read with an index seek to the cursor
+ * rather than by skipping over all the previous pages. Clients get the cursor as an opaque string.
+ * </p>
+ */
+public record PageCursor<T>(Instant position, T id) {
+	/**
+	 * The order Postgres sorts UUIDs in: by their bytes, which is as unsigned numbers
+	 */
+	public static final Comparator<UUID> UUID_ORDER = Comparator.comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+	                                                            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+	private static final char SEPARATOR = '|';
+
+	/**
+	 * The opaque form of the cursor handed to clients
+	 */
+	public String encode() {
+		return Base64.getUrlEncoder()
+		             .withoutPadding()
+		             .encodeToString((this.position.toString() + SEPARATOR + this.id).getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Decodes a cursor previously returned by {@link #encode()}
+	 *
+	 * @throws IllegalArgumentException If the cursor isn't valid
+	 */
+	public static <T> PageCursor<T> decode(String cursor, Function<String, T> idParser) {
+		try {
+			var decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			var separator = decoded.indexOf(SEPARATOR);
+
+			return new PageCursor<>(Instant.parse(decoded.substring(0, separator)), idParser.apply(decoded.substring(separator + 1)));
+		}
+		catch (RuntimeException e) {
+			throw new IllegalArgumentException("Invalid cursor: %s".formatted(cursor), e);
+		}
+	}
+}
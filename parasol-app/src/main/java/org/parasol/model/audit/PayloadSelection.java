@@ -0,0 +1,56 @@
+package org.parasol.model.audit;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Which fields of audit events (or interactions) a client wants, and whether it only wants a preview of the large texts.
+ * <p>
+ * A {@code null} set of fields means all of them, and a {@code null} preview length means the full texts.
+ * </p>
+ */
+public record PayloadSelection(Set<String> fields, Integer previewLength) {
+	public static final PayloadSelection ALL = new PayloadSelection(null, null);
+
+	public PayloadSelection {
+		if ((previewLength != null) && (previewLength < 0)) {
+			throw new IllegalArgumentException("The preview length must not be negative, but was %d".formatted(previewLength));
+		}
+	}
+
+	/**
+	 * Parses a comma-separated list of fields, as given in a {@code fields} query parameter
+	 */
+	public static PayloadSelection of(String fields, Integer previewLength) {
+		var fieldSet = Optional.ofNullable(fields)
+		                       .filter(f -> !f.isBlank())
+		                       .map(f ->
+			                       Arrays.stream(f.split(","))
+			                             .map(String::strip)
+			                             .filter(field -> !field.isEmpty())
+			                             .collect(Collectors.toUnmodifiableSet())
+		                       )
+		                       .orElse(null);
+
+		return new PayloadSelection(fieldSet, previewLength);
+	}
+
+	public boolean includes(String field) {
+		return (this.fields == null) || this.fields.contains(field);
+	}
+
+	public boolean isPreview() {
+		return this.previewLength != null;
+	}
+
+	/**
+	 * The text, cut down to the preview length if this is a preview
+	 */
+	public String preview(String text) {
+		return ((text != null) && isPreview() && (text.codePointCount(0, text.length()) > this.previewLength)) ?
+		       text.substring(0, text.offsetByCodePoints(0, this.previewLength)) :
+		       text;
+	}
+}
@@ -2,9 +2,16 @@ package org.parasol.model.audit;
 
 import static org.parasol.model.audit.ResponseReceivedAuditEvent.EVENT_TYPE;
 
+import java.util.function.UnaryOperator;
+
 import jakarta.persistence.Column;
+import jakarta.persistence.ConstraintMode;
 import jakarta.persistence.DiscriminatorValue;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
 
 @Entity
 @DiscriminatorValue(EVENT_TYPE)
@@ -14,6 +21,10 @@ public class ResponseReceivedAuditEvent extends AuditEvent {
 	@Column(updatable = false, columnDefinition = "TEXT")
 	private String response;
 
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "response_hash", updatable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+	private AuditText responseText;
+
 	@Column(updatable = false)
 	private String modelName;
 
@@ -30,7 +41,7 @@ public class ResponseReceivedAuditEvent extends AuditEvent {
 
 	private ResponseReceivedAuditEvent(Builder builder) {
 		super(builder);
-		this.response = builder.response;
+		this.responseText = AuditText.of(builder.response);
 		this.modelName = builder.modelName;
 		this.inputTokenCount = builder.inputTokenCount;
 		this.outputTokenCount = builder.outputTokenCount;
@@ -78,11 +89,17 @@ public class ResponseReceivedAuditEvent extends AuditEvent {
 	}
 
 	public String getResponse() {
-		return response;
+		return AuditText.contentOf(responseText, response);
 	}
 
 	public void setResponse(String response) {
-		this.response = response;
+		this.responseText = AuditText.of(response);
+		this.response = null;
+	}
+
+	@Override
+	public void internTexts(UnaryOperator<AuditText> interner) {
+		this.responseText = interner.apply(this.responseText);
 	}
 
 	@Override
@@ -110,7 +127,7 @@ public class ResponseReceivedAuditEvent extends AuditEvent {
 
 		private Builder(ResponseReceivedAuditEvent source) {
 			super(source);
-			this.response = source.response;
+			this.response = source.getResponse();
 			this.modelName = source.modelName;
 			this.inputTokenCount = source.inputTokenCount;
 			this.outputTokenCount = source.outputTokenCount;
@@ -3,9 +3,16 @@ package org.parasol.model.audit;
 
 import static org.parasol.model.audit.ServiceCompleteAuditEvent.EVENT_TYPE;
 
+import java.util.function.UnaryOperator;
+
 import jakarta.persistence.Column;
+import jakarta.persistence.ConstraintMode;
 import jakarta.persistence.DiscriminatorValue;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
 
 @Entity
 @DiscriminatorValue(EVENT_TYPE)
@@ -15,13 +22,17 @@ public class ServiceCompleteAuditEvent extends AuditEvent {
 	@Column(updatable = false, columnDefinition = "TEXT")
 	private String result;
 
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "result_hash", updatable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+	private AuditText resultText;
+
 	protected ServiceCompleteAuditEvent() {
 		super();
 	}
 
 	private ServiceCompleteAuditEvent(Builder builder) {
 		super(builder);
-		this.result = builder.result;
+		this.resultText = AuditText.of(builder.result);
 	}
 
 	@Override
@@ -30,11 +41,12 @@ public class ServiceCompleteAuditEvent extends AuditEvent {
 	}
 
 	public String getResult() {
-		return result;
+		return AuditText.contentOf(resultText, result);
 	}
 
 	public void setResult(String result) {
-		this.result = result;
+		this.resultText = AuditText.of(result);
+		this.result = null;
 	}
 
 	public Builder toBuilder() {
@@ -45,6 +57,11 @@ public class ServiceCompleteAuditEvent extends AuditEvent {
 		return new Builder();
 	}
 
+	@Override
+	public void internTexts(UnaryOperator<AuditText> interner) {
+		this.resultText = interner.apply(this.resultText);
+	}
+
 	@Override
 	public String toString() {
 		return "ServiceCompleteAuditEvent{" +
@@ -63,7 +80,7 @@ public class ServiceCompleteAuditEvent extends AuditEvent {
 
 		private Builder(ServiceCompleteAuditEvent source) {
 			super(source);
-			this.result = source.result;
+			this.result = source.getResult();
 		}
 
 		public Builder result(String result) {
@@ -2,9 +2,16 @@ package org.parasol.model.audit;
 
 import static org.parasol.model.audit.ServiceStartedAuditEvent.EVENT_TYPE;
 
+import java.util.function.UnaryOperator;
+
 import jakarta.persistence.Column;
+import jakarta.persistence.ConstraintMode;
 import jakarta.persistence.DiscriminatorValue;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
 
 @Entity
 @DiscriminatorValue(EVENT_TYPE)
@@ -13,10 +20,18 @@ public class ServiceStartedAuditEvent extends AuditEvent {
 
 	@Column(updatable = false, columnDefinition = "TEXT")
 	private String systemMessage;
+
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "system_message_hash", updatable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+	private AuditText systemMessageText;
 	
 	@Column(updatable = false, columnDefinition = "TEXT")
 	private String userMessage;
 
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "user_message_hash", updatable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+	private AuditText userMessageText;
+
 	// JPA requires a no-arg constructor with at least protected visibility
 	protected ServiceStartedAuditEvent() {
 		super();
@@ -25,8 +40,8 @@ public class ServiceStartedAuditEvent extends AuditEvent {
 	// Private constructor used by the builder
 	private ServiceStartedAuditEvent(Builder builder) {
 		super(builder);
-		this.systemMessage = builder.systemMessage;
-		this.userMessage = builder.userMessage;
+		this.systemMessageText = AuditText.of(builder.systemMessage);
+		this.userMessageText = AuditText.of(builder.userMessage);
 	}
 	
 	@Override
@@ -35,19 +50,21 @@ public class ServiceStartedAuditEvent extends AuditEvent {
 	}
 
 	public String getSystemMessage() {
-		return systemMessage;
+		return AuditText.contentOf(systemMessageText, systemMessage);
 	}
 
 	public void setSystemMessage(String systemMessage) {
-		this.systemMessage = systemMessage;
+		this.systemMessageText = AuditText.of(systemMessage);
+		this.systemMessage = null;
 	}
 
 	public String getUserMessage() {
-		return userMessage;
+		return AuditText.contentOf(userMessageText, userMessage);
 	}
 
 	public void setUserMessage(String userMessage) {
-		this.userMessage = userMessage;
+		this.userMessageText = AuditText.of(userMessage);
+		this.userMessage = null;
 	}
 
 	public static Builder builder() {
@@ -58,6 +75,12 @@ public class ServiceStartedAuditEvent extends AuditEvent {
 		return new Builder(this);
 	}
 
+	@Override
+	public void internTexts(UnaryOperator<AuditText> interner) {
+		this.systemMessageText = interner.apply(this.systemMessageText);
+		this.userMessageText = interner.apply(this.userMessageText);
+	}
+
 	@Override
 	public String toString() {
 		return "ServiceStartedAuditEvent{" +
@@ -79,8 +102,8 @@ public class ServiceStartedAuditEvent extends AuditEvent {
 
 		private Builder(ServiceStartedAuditEvent source) {
 			super(source);
-			this.systemMessage = source.systemMessage;
-			this.userMessage = source.userMessage;
+			this.systemMessage = source.getSystemMessage();
+			this.userMessage = source.getUserMessage();
 		}
 
 		public Builder systemMessage(String systemMessage) {
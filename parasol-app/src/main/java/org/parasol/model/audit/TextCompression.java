@@ -0,0 +1,125 @@
+package org.parasol.model.audit;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import com.github.luben.zstd.Zstd;
+
+/**
+ * The algorithms which can be used to compress audit text.
+ * <p>
+ * Each algorithm is identified in the stored value by its {@link #id()}, so values written with one algorithm
+ * can still be read after switching to another.
+ * </p>
+ */
+public enum TextCompression {
+	/**
+	 * Stores the text as-is
+	 */
+	NONE(0) {
+		@Override
+		public byte[] compress(byte[] data, int level) {
+			return data;
+		}
+
+		@Override
+		public void decompress(byte[] source, int offset, byte[] destination) {
+			System.arraycopy(source, offset, destination, 0, destination.length);
+		}
+	},
+
+	/**
+	 * DEFLATE, from the JDK. Slower than {@link #ZSTD} but doesn't need any native code.
+	 */
+	DEFLATE(1) {
+		@Override
+		public byte[] compress(byte[] data, int level) {
+			var deflater = new Deflater(Math.clamp(level, Deflater.BEST_SPEED, Deflater.BEST_COMPRESSION));
+
+			try {
+				deflater.setInput(data);
+				deflater.finish();
+
+				var output = new ByteArrayOutputStream(data.length);
+				var buffer = new byte[4096];
+
+				while (!deflater.finished()) {
+					output.write(buffer, 0, deflater.deflate(buffer));
+				}
+
+				return output.toByteArray();
+			}
+			finally {
+				deflater.end();
+			}
+		}
+
+		@Override
+		public void decompress(byte[] source, int offset, byte[] destination) {
+			var inflater = new Inflater();
+
+			try {
+				inflater.setInput(source, offset, source.length - offset);
+
+				if (inflater.inflate(destination) != destination.length) {
+					throw new IllegalArgumentException("Compressed text is truncated");
+				}
+			}
+			catch (DataFormatException e) {
+				throw new IllegalArgumentException("Compressed text is corrupt", e);
+			}
+			finally {
+				inflater.end();
+			}
+		}
+	},
+
+	/**
+	 * Zstandard
+	 */
+	ZSTD(2) {
+		@Override
+		public byte[] compress(byte[] data, int level) {
+			return Zstd.compress(data, level);
+		}
+
+		@Override
+		public void decompress(byte[] source, int offset, byte[] destination) {
+			var size = Zstd.decompressByteArray(destination, 0, destination.length, source, offset, source.length - offset);
+
+			if (Zstd.isError(size) || (size != destination.length)) {
+				throw new IllegalArgumentException("Compressed text is corrupt: %s".formatted(Zstd.getErrorName(size)));
+			}
+		}
+	};
+
+	private final byte id;
+
+	TextCompression(int id) {
+		this.id = (byte) id;
+	}
+
+	public byte id() {
+		return this.id;
+	}
+
+	/**
+	 * Compresses the given data at the given level. Levels outside of those supported by the algorithm are clamped.
+	 */
+	public abstract byte[] compress(byte[] data, int level);
+
+	/**
+	 * Decompresses {@code source}, starting at {@code offset}, filling {@code destination}, which must be the size of the original data
+	 */
+	public abstract void decompress(byte[] source, int offset, byte[] destination);
+
+	public static TextCompression fromId(byte id) {
+		return Arrays.stream(values())
+		             .filter(compression -> compression.id == id)
+		             .findFirst()
+		             .orElseThrow(() -> new IllegalArgumentException("Unknown text compression id %d".formatted(id)));
+	}
+}
@@ -2,9 +2,16 @@ package org.parasol.model.audit;
 
 import static org.parasol.model.audit.ToolExecutedAuditEvent.EVENT_TYPE;
 
+import java.util.function.UnaryOperator;
+
 import jakarta.persistence.Column;
+import jakarta.persistence.ConstraintMode;
 import jakarta.persistence.DiscriminatorValue;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
 
 @Entity
 @DiscriminatorValue(EVENT_TYPE)
@@ -20,6 +27,10 @@ public class ToolExecutedAuditEvent extends AuditEvent {
 	@Column(updatable = false, columnDefinition = "TEXT")
 	private String toolResult;
 
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "tool_result_hash", updatable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+	private AuditText toolResultText;
+
 	protected ToolExecutedAuditEvent() {
 		super();
 	}
@@ -28,7 +39,7 @@ public class ToolExecutedAuditEvent extends AuditEvent {
 		super(builder);
 		this.toolName = builder.toolName;
 		this.toolArgs = builder.toolArgs;
-		this.toolResult = builder.result;
+		this.toolResultText = AuditText.of(builder.result);
 	}
 
 	@Override
@@ -45,11 +56,12 @@ public class ToolExecutedAuditEvent extends AuditEvent {
 	}
 
 	public String getToolResult() {
-		return toolResult;
+		return AuditText.contentOf(toolResultText, toolResult);
 	}
 
 	public void setToolResult(String result) {
-		this.toolResult = result;
+		this.toolResultText = AuditText.of(result);
+		this.toolResult = null;
 	}
 
 	public String getToolArgs() {
@@ -68,6 +80,11 @@ public class ToolExecutedAuditEvent extends AuditEvent {
 		this.toolName = toolName;
 	}
 
+	@Override
+	public void internTexts(UnaryOperator<AuditText> interner) {
+		this.toolResultText = interner.apply(this.toolResultText);
+	}
+
 	@Override
 	public String toString() {
 		return "ToolExecutedAuditEvent{" +
@@ -91,7 +108,7 @@ public class ToolExecutedAuditEvent extends AuditEvent {
 			super(source);
 			this.toolName = source.toolName;
 			this.toolArgs = source.toolArgs;
-			this.result = source.toolResult;
+			this.result = source.getToolResult();
 		}
 
 		public Builder toolName(String toolName) {
@@ -0,0 +1,190 @@
+package org.parasol.repository;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.Session;
+import org.parasol.config.AuditConfig;
+import org.parasol.model.audit.AuditEvent;
+import org.parasol.model.audit.InteractionRollup;
+import org.parasol.repository.archive.ArchivedInteraction;
+import org.parasol.repository.archive.ArchivedInteraction.Facet;
+import org.parasol.repository.archive.AuditArchive;
+
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.scheduler.Scheduled;
+import io.quarkus.scheduler.Scheduled.ConcurrentExecution;
+
+/**
+ * Moves interactions whose latest event is older than {@link AuditConfig.Archive#age()} out of the database and into the {@link AuditArchive}.
+ * <p>
+ * Whole interactions are archived at a time, oldest first, {@link AuditConfig.Archive#batchSize()} to a segment, so each interaction
+ * is either entirely in the database or entirely in the archive. Each batch runs in its own transaction: the segment is written,
+ * then the events and the rollup of its interactions are deleted. If the transaction fails after the segment was written, the
+ * interactions are in both tiers until the next run archives them again, which the readers allow for by ignoring the copies.
+ * </p>
+ */
+@ApplicationScoped
+public class AuditArchiver {
+	// Arbitrary key so that multiple instances of the app don't try to archive the same interactions at the same time
+	private static final long ADVISORY_LOCK_KEY = 0x61726368697665L;
+
+	private final AuditConfig.Archive config;
+	private final EntityManager entityManager;
+	private final AuditArchive auditArchive;
+	private final AuditTextStore auditTextStore;
+	private final Clock clock;
+
+	@Inject
+	public AuditArchiver(AuditConfig auditConfig, EntityManager entityManager, AuditArchive auditArchive, AuditTextStore auditTextStore) {
+		this(auditConfig, entityManager, auditArchive, auditTextStore, Clock.systemUTC());
+	}
+
+	AuditArchiver(AuditConfig auditConfig, EntityManager entityManager, AuditArchive auditArchive, AuditTextStore auditTextStore, Clock clock) {
+		this.config = auditConfig.archive();
+		this.entityManager = entityManager;
+		this.auditArchive = auditArchive;
+		this.auditTextStore = auditTextStore;
+		this.clock = clock;
+	}
+
+	@Scheduled(every = "${parasol.audit.archive.interval}", delayed = "${parasol.audit.archive.interval}", concurrentExecution = ConcurrentExecution.SKIP)
+	void scheduledArchive() {
+		if (this.config.enabled()) {
+			archiveBefore(this.clock.instant().minus(this.config.age()));
+		}
+	}
+
+	/**
+	 * Archives all the interactions whose latest event happened before the cutoff, returning how many were archived
+	 */
+	public int archiveBefore(Instant cutoff) {
+		var archived = 0;
+		int batch;
+
+		do {
+			batch = QuarkusTransaction.requiringNew().call(() -> archiveBatch(cutoff));
+			archived += batch;
+		} while (batch >= this.config.batchSize());
+
+		if (archived > 0) {
+			Log.infof("Archived %d interactions older than %s", archived, cutoff);
+		}
+
+		return archived;
+	}
+
+	private int archiveBatch(Instant cutoff) {
+		this.entityManager.createNativeQuery("SELECT 1 FROM pg_advisory_xact_lock(:key)")
+		                  .setParameter("key", ADVISORY_LOCK_KEY)
+		                  .getSingleResult();
+
+		// An interaction can't have ended before it started, so the index on interaction_date narrows this down
+		var rollups = this.entityManager.createQuery("FROM InteractionRollup WHERE interactionDate < :cutoff AND lastEventOn < :cutoff ORDER BY interactionDate, interactionId", InteractionRollup.class)
+		                                .setParameter("cutoff", cutoff)
+		                                .setMaxResults(this.config.batchSize())
+		                                .getResultList();
+
+		if (rollups.isEmpty()) {
+			return 0;
+		}
+
+		var interactionIds = rollups.stream().map(InteractionRollup::getInteractionId).toList();
+		var facets = new HashMap<UUID, Set<Facet>>();
+
+		try (var segment = this.auditArchive.startSegment()) {
+			eachEvent(interactionIds, auditEvent -> {
+				segment.append(auditEvent);
+				facets.computeIfAbsent(auditEvent.getInvocationContext().getInteractionId(), interactionId -> new HashSet<>())
+				      .add(Facet.of(auditEvent));
+			});
+
+			var texts = this.auditTextStore.findAll(
+				rollups.stream()
+				       .flatMap(rollup -> Stream.of(rollup.getSystemMessageHash(), rollup.getUserMessageHash(), rollup.getResultHash()))
+				       .toList()
+			);
+
+			segment.complete(
+				rollups.stream()
+				       .map(rollup -> toArchivedInteraction(rollup, texts, facets.getOrDefault(rollup.getInteractionId(), Set.of())))
+				       .toList()
+			);
+		}
+
+		this.entityManager.createNativeQuery("DELETE FROM %s WHERE interaction_id IN (:interaction_ids)".formatted(AuditPartitionManager.TABLE_NAME))
+		                  .setParameter("interaction_ids", interactionIds)
+		                  .executeUpdate();
+
+		this.entityManager.createNativeQuery("DELETE FROM %s WHERE interaction_id IN (:interaction_ids)".formatted(InteractionRollupManager.TABLE_NAME))
+		                  .setParameter("interaction_ids", interactionIds)
+		                  .executeUpdate();
+
+		return rollups.size();
+	}
+
+	/**
+	 * Passes the events of the interactions, oldest first, to the consumer a block at a time, clearing the persistence context
+	 * after each block so that the batch never has to fit in memory
+	 */
+	private void eachEvent(List<UUID> interactionIds, Consumer<AuditEvent> consumer) {
+		var session = this.entityManager.unwrap(Session.class);
+
+		try (var auditEvents = session.createSelectionQuery("FROM AuditEvent WHERE invocationContext.interactionId IN :interactionIds ORDER BY createdOn, id", AuditEvent.class)
+		                              .setParameter("interactionIds", interactionIds)
+		                              .setFetchSize(this.config.blockSize())
+		                              .setReadOnly(true)
+		                              .scroll(ScrollMode.FORWARD_ONLY)) {
+			var count = 0L;
+
+			while (auditEvents.next()) {
+				consumer.accept(auditEvents.get());
+
+				if (++count % this.config.blockSize() == 0) {
+					session.clear();
+				}
+			}
+		}
+	}
+
+	private static ArchivedInteraction toArchivedInteraction(InteractionRollup rollup, Map<String, String> texts, Set<Facet> facets) {
+		return new ArchivedInteraction(
+			rollup.getInteractionId(),
+			rollup.getInteractionDate(),
+			rollup.getLastEventOn(),
+			rollup.getNumLlmFailures(),
+			rollup.getTotalOutputGuardrailExecutions(),
+			rollup.getTotalOutputGuardrailFailures(),
+			rollup.getInputTokenCount(),
+			rollup.getOutputTokenCount(),
+			rollup.getStatus(),
+			textOf(texts, rollup.getSystemMessageHash(), rollup.getSystemMessage()),
+			textOf(texts, rollup.getUserMessageHash(), rollup.getUserMessage()),
+			textOf(texts, rollup.getResultHash(), rollup.getResult()),
+			rollup.getErrorMessage(),
+			rollup.getCauseErrorMessage(),
+			facets
+		);
+	}
+
+	// Interactions written before texts were moved to the audit_texts table still have them inline
+	private static String textOf(Map<String, String> texts, String hash, String inlineText) {
+		return (hash != null) ?
+		       texts.getOrDefault(hash, inlineText) :
+		       inlineText;
+	}
+}
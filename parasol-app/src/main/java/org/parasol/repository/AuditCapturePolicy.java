@@ -0,0 +1,230 @@
+package org.parasol.repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.interceptor.Interceptor;
+
+import org.parasol.config.AuditConfig;
+import org.parasol.mapping.AuditEventMapper;
+import org.parasol.model.audit.AuditEvent;
+import org.parasol.model.audit.InputGuardrailExecutedAuditEvent;
+import org.parasol.model.audit.InvocationContext;
+import org.parasol.model.audit.OutputGuardrailExecutedAuditEvent;
+import org.parasol.model.audit.ServiceCompleteAuditEvent;
+import org.parasol.model.audit.ServiceErrorAuditEvent;
+import org.parasol.repository.sink.AuditSink;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.scheduler.Scheduled;
+import io.quarkus.scheduler.Scheduled.ConcurrentExecution;
+
+import dev.langchain4j.guardrail.GuardrailResult;
+
+/**
+ * Decides how much of each audit event is kept before it is sent to the {@link AuditSink}.
+ * <p>
+ * With {@link Mode#FULL} every event is kept as-is. With {@link Mode#TIERED} the metadata of every event is kept,
+ * but the payloads (prompts, responses, tool arguments and results) are only kept for interactions which
+ * <ul>
+ *   <li>failed</li>
+ *   <li>had a guardrail fail (and so reprompt or retry)</li>
+ *   <li>were sampled, at {@link AuditConfig.Capture#sampleRate()}</li>
+ * </ul>
+ * The sampling decision is made from the interaction id, so all the events of an interaction are treated the same.
+ * Since whether an interaction fails isn't known until it ends, the events of interactions which weren't sampled
+ * are held until the interaction ends (or {@link AuditConfig#maxInteractionDuration()} passes).
+ * </p>
+ * <p>
+ * Whatever is kept is also pushed to the live {@link AuditEventFeed}.
+ * </p>
+ */
+@ApplicationScoped
+public class AuditCapturePolicy {
+	public enum Mode {
+		/**
+		 * Keep the payloads of every event
+		 */
+		FULL,
+
+		/**
+		 * Keep the payloads of failed and sampled interactions only
+		 */
+		TIERED
+	}
+
+	private final AuditConfig auditConfig;
+	private final AuditSink auditSink;
+	private final AuditEventMapper auditEventMapper;
+	private final AuditEventFeed auditEventFeed;
+	private final Map<UUID, PendingInteraction> pendingInteractions = new ConcurrentHashMap<>();
+
+	public AuditCapturePolicy(AuditConfig auditConfig, AuditSink auditSink, AuditEventMapper auditEventMapper, AuditEventFeed auditEventFeed) {
+		this.auditConfig = auditConfig;
+		this.auditSink = auditSink;
+		this.auditEventMapper = auditEventMapper;
+		this.auditEventFeed = auditEventFeed;
+	}
+
+	/**
+	 * Captures an audit event according to the policy
+	 */
+	public void capture(AuditEvent auditEvent) {
+		if (this.auditConfig.capture().mode() == Mode.FULL) {
+			record(auditEvent);
+			return;
+		}
+
+		var interactionId = Optional.ofNullable(auditEvent.getInvocationContext())
+		                            .map(InvocationContext::getInteractionId);
+
+		if (interactionId.isEmpty()) {
+			publish(List.of(auditEvent), false);
+		}
+		else if (isSampled(interactionId.get())) {
+			record(auditEvent);
+		}
+		else {
+			captureUnsampled(interactionId.get(), auditEvent);
+		}
+	}
+
+	/**
+	 * The number of interactions whose events are being held until it is known whether to keep their payloads
+	 */
+	public int getPendingInteractionCount() {
+		return this.pendingInteractions.size();
+	}
+
+	/**
+	 * Whether the payloads of the given interaction are kept regardless of how it turns out.
+	 * Uses the random bits of the (type 4) interaction id, so every instance of the application makes the same decision.
+	 */
+	boolean isSampled(UUID interactionId) {
+		var random = ((interactionId.getMostSignificantBits() ^ interactionId.getLeastSignificantBits()) >>> 11) * 0x1.0p-53;
+		return random < this.auditConfig.capture().sampleRate();
+	}
+
+	@Scheduled(every = "${parasol.audit.capture.release-interval}", delayed = "${parasol.audit.capture.release-interval}", concurrentExecution = ConcurrentExecution.SKIP)
+	void releaseExpiredInteractions() {
+		var expiry = Instant.now().minus(this.auditConfig.maxInteractionDuration());
+
+		this.pendingInteractions.forEach((interactionId, pending) -> {
+			if (pending.getStarted().isBefore(expiry)) {
+				release(interactionId, pending);
+			}
+		});
+	}
+
+	// Release what's being held before the sinks stop
+	void onStop(@Observes @Priority(Interceptor.Priority.APPLICATION) ShutdownEvent shutdownEvent) {
+		this.pendingInteractions.forEach(this::release);
+	}
+
+	private void captureUnsampled(UUID interactionId, AuditEvent auditEvent) {
+		var pending = this.pendingInteractions.get(interactionId);
+
+		if ((pending == null) && (this.pendingInteractions.size() >= this.auditConfig.capture().maxPendingInteractions())) {
+			// Too many interactions in flight to hold on to them all
+			publish(List.of(auditEvent), isFailure(auditEvent));
+			return;
+		}
+
+		if (pending == null) {
+			pending = this.pendingInteractions.computeIfAbsent(interactionId, id -> new PendingInteraction());
+		}
+
+		List<AuditEvent> ready;
+		boolean keepPayloads;
+
+		synchronized (pending) {
+			if (isFailure(auditEvent)) {
+				pending.keepPayloads = true;
+			}
+
+			pending.events.add(auditEvent);
+			keepPayloads = pending.keepPayloads;
+
+			if (isEnd(auditEvent) || pending.released) {
+				pending.released = true;
+				this.pendingInteractions.remove(interactionId, pending);
+			}
+			else if (!keepPayloads) {
+				// Hold on to it until we know how the interaction turns out
+				return;
+			}
+
+			ready = pending.drain();
+		}
+
+		publish(ready, keepPayloads);
+	}
+
+	private void release(UUID interactionId, PendingInteraction pending) {
+		List<AuditEvent> ready;
+		boolean keepPayloads;
+
+		synchronized (pending) {
+			pending.released = true;
+			this.pendingInteractions.remove(interactionId, pending);
+			keepPayloads = pending.keepPayloads;
+			ready = pending.drain();
+		}
+
+		publish(ready, keepPayloads);
+	}
+
+	private void publish(List<AuditEvent> auditEvents, boolean keepPayloads) {
+		auditEvents.stream()
+		           .map(auditEvent -> keepPayloads ? auditEvent : this.auditEventMapper.withoutPayloads(auditEvent))
+		           .forEach(this::record);
+	}
+
+	private void record(AuditEvent auditEvent) {
+		this.auditSink.publish(auditEvent);
+		this.auditEventFeed.publish(auditEvent);
+	}
+
+	private static boolean isEnd(AuditEvent auditEvent) {
+		return (auditEvent instanceof ServiceCompleteAuditEvent) || (auditEvent instanceof ServiceErrorAuditEvent);
+	}
+
+	private static boolean isFailure(AuditEvent auditEvent) {
+		return switch (auditEvent) {
+			case ServiceErrorAuditEvent e -> true;
+			case InputGuardrailExecutedAuditEvent e -> isGuardrailFailure(e.getResult());
+			case OutputGuardrailExecutedAuditEvent e -> isGuardrailFailure(e.getGuardrailResult());
+			default -> false;
+		};
+	}
+
+	private static boolean isGuardrailFailure(String result) {
+		return GuardrailResult.Result.FAILURE.name().equals(result) || GuardrailResult.Result.FATAL.name().equals(result);
+	}
+
+	private static final class PendingInteraction {
+		private final Instant started = Instant.now();
+		private List<AuditEvent> events = new ArrayList<>();
+		private boolean keepPayloads;
+		private boolean released;
+
+		Instant getStarted() {
+			return this.started;
+		}
+
+		List<AuditEvent> drain() {
+			var drained = this.events;
+			this.events = new ArrayList<>();
+
+			return drained;
+		}
+	}
+}
@@ -0,0 +1,191 @@
+package org.parasol.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.interceptor.Interceptor;
+import jakarta.persistence.EntityManager;
+
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+
+/**
+ * Keeps track of the audit events being written, however they are written, using triggers.
+ * <p>
+ * A statement-level trigger on {@code audit_events} records the hours that the events inserted by each statement were
+ * created in, in the {@code audit_event_changes} table. A deferred trigger on that table then bumps the single row of
+ * {@code audit_events_version} once per transaction, as it commits. Transactions bumping the version wait for each other,
+ * so the versions go up in the order the events were committed, unlike the event ids (which are handed out before the events
+ * are committed) or their creation times (which can be long before they are written, when the journal is replayed).
+ * Whoever sees a version also sees every event committed with it.
+ * </p>
+ * <p>
+ * The hours recorded are {@link #takeChangedHours() taken} by the {@link AuditMetricsAggregator}, so that it re-aggregates the
+ * hours of events which were committed late, however late that is.
+ * </p>
+ * <p>
+ * The trigger on {@code audit_events} is lost whenever the table is re-created, so it is re-created on startup if it's missing.
+ * </p>
+ */
+@ApplicationScoped
+public class AuditEventChanges {
+	static final String CHANGES_TABLE_NAME = "audit_event_changes";
+	static final String VERSION_TABLE_NAME = "audit_events_version";
+
+	private static final String CHANGES_TRIGGER_NAME = CHANGES_TABLE_NAME + "_on_insert";
+	private static final String VERSION_TRIGGER_NAME = VERSION_TABLE_NAME + "_on_commit";
+
+	// Set for the rest of the transaction once it has bumped the version
+	private static final String BUMPED_SETTING = "parasol.audit_events_version_bumped";
+
+	// Arbitrary key so that multiple instances of the app don't try to create the triggers at the same time
+	private static final long ADVISORY_LOCK_KEY = 0x76657273696fL;
+
+	private static final String CREATE_VERSION_TABLE_SQL = """
+		CREATE TABLE IF NOT EXISTS %s (
+			singleton BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (singleton),
+			version BIGINT NOT NULL
+		)
+		""".formatted(VERSION_TABLE_NAME);
+
+	private static final String CREATE_CHANGES_TABLE_SQL = """
+		CREATE TABLE IF NOT EXISTS %s (
+			id BIGSERIAL PRIMARY KEY,
+			bucket_start TIMESTAMPTZ NOT NULL
+		)
+		""".formatted(CHANGES_TABLE_NAME);
+
+	private static final String CREATE_CHANGES_FUNCTION_SQL = """
+		CREATE OR REPLACE FUNCTION %s() RETURNS trigger LANGUAGE plpgsql AS $$
+		BEGIN
+			INSERT INTO %s (bucket_start)
+			SELECT DISTINCT date_trunc('hour', created_on, 'UTC')
+			FROM new_events;
+
+			RETURN NULL;
+		END
+		$$
+		""".formatted(CHANGES_TRIGGER_NAME, CHANGES_TABLE_NAME);
+
+	private static final String CREATE_CHANGES_TRIGGER_SQL = """
+		CREATE TRIGGER %s
+		AFTER INSERT ON %s
+		REFERENCING NEW TABLE AS new_events
+		FOR EACH STATEMENT
+		EXECUTE FUNCTION %s()
+		""".formatted(CHANGES_TRIGGER_NAME, AuditPartitionManager.TABLE_NAME, CHANGES_TRIGGER_NAME);
+
+	private static final String CREATE_VERSION_FUNCTION_SQL = """
+		CREATE OR REPLACE FUNCTION %1$s() RETURNS trigger LANGUAGE plpgsql AS $$
+		BEGIN
+			IF current_setting('%3$s', TRUE) IS DISTINCT FROM 'true' THEN
+				UPDATE %2$s SET version = version + 1;
+				PERFORM set_config('%3$s', 'true', TRUE);
+			END IF;
+
+			RETURN NULL;
+		END
+		$$
+		""".formatted(VERSION_TRIGGER_NAME, VERSION_TABLE_NAME, BUMPED_SETTING);
+
+	// Constraint triggers are the only ones which can be deferred until the transaction commits
+	private static final String CREATE_VERSION_TRIGGER_SQL = """
+		CREATE CONSTRAINT TRIGGER %s
+		AFTER INSERT ON %s
+		DEFERRABLE INITIALLY DEFERRED
+		FOR EACH ROW
+		EXECUTE FUNCTION %s()
+		""".formatted(VERSION_TRIGGER_NAME, CHANGES_TABLE_NAME, VERSION_TRIGGER_NAME);
+
+	private static final String TAKE_CHANGED_HOURS_QUERY = """
+		WITH taken AS (
+			DELETE FROM %s
+			RETURNING bucket_start
+		)
+		SELECT DISTINCT bucket_start
+		FROM taken
+		ORDER BY bucket_start
+		""".formatted(CHANGES_TABLE_NAME);
+
+	private static final String TRIGGER_EXISTS_QUERY = """
+		SELECT EXISTS (
+			SELECT 1
+			FROM pg_trigger t
+			JOIN pg_class c ON c.oid = t.tgrelid
+			WHERE c.relname = :table_name
+			AND t.tgname = :trigger_name
+			AND pg_table_is_visible(c.oid)
+		)
+		""";
+
+	private final EntityManager entityManager;
+
+	public AuditEventChanges(EntityManager entityManager) {
+		this.entityManager = entityManager;
+	}
+
+	// After the partition manager, which may re-create audit_events, and before the aggregator takes the changes
+	void onStart(@Observes @Priority(Interceptor.Priority.APPLICATION + 900) StartupEvent startupEvent) {
+		installTriggers();
+	}
+
+	/**
+	 * Makes sure the tables and the triggers keeping track of the changes exist
+	 */
+	public void installTriggers() {
+		QuarkusTransaction.requiringNew().run(() -> {
+			this.entityManager.createNativeQuery("SELECT 1 FROM pg_advisory_xact_lock(:key)")
+			                  .setParameter("key", ADVISORY_LOCK_KEY)
+			                  .getSingleResult();
+
+			execute(CREATE_VERSION_TABLE_SQL);
+			execute("INSERT INTO %s (version) VALUES (0) ON CONFLICT DO NOTHING".formatted(VERSION_TABLE_NAME));
+			execute(CREATE_CHANGES_TABLE_SQL);
+			execute(CREATE_VERSION_FUNCTION_SQL);
+			execute(CREATE_CHANGES_FUNCTION_SQL);
+
+			if (!triggerExists(CHANGES_TABLE_NAME, VERSION_TRIGGER_NAME)) {
+				execute(CREATE_VERSION_TRIGGER_SQL);
+			}
+
+			if (!triggerExists(AuditPartitionManager.TABLE_NAME, CHANGES_TRIGGER_NAME)) {
+				Log.infof("Creating the %s trigger on %s", CHANGES_TRIGGER_NAME, AuditPartitionManager.TABLE_NAME);
+				execute(CREATE_CHANGES_TRIGGER_SQL);
+			}
+		});
+	}
+
+	/**
+	 * The version of the audit events, which goes up every time a transaction writing any commits
+	 */
+	public long version() {
+		return ((Number) this.entityManager.createNativeQuery("SELECT version FROM %s".formatted(VERSION_TABLE_NAME))
+		                                   .getSingleResult()).longValue();
+	}
+
+	/**
+	 * Takes the (distinct) hours which events committed since the last time were created in, in order.
+	 * The hours are only taken once the caller's transaction commits, and any committed after it started are left for next time.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Instant> takeChangedHours() {
+		return (List<Instant>) this.entityManager.createNativeQuery(TAKE_CHANGED_HOURS_QUERY, Instant.class)
+		                                         .getResultList();
+	}
+
+	private boolean triggerExists(String tableName, String triggerName) {
+		return (Boolean) this.entityManager.createNativeQuery(TRIGGER_EXISTS_QUERY, Boolean.class)
+		                                   .setParameter("table_name", tableName)
+		                                   .setParameter("trigger_name", triggerName)
+		                                   .getSingleResult();
+	}
+
+	private void execute(String sql) {
+		Log.debugf("Executing: %s", sql);
+		this.entityManager.createNativeQuery(sql).executeUpdate();
+	}
+}
@@ -0,0 +1,156 @@
+package org.parasol.repository;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import org.parasol.config.AuditConfig;
+import org.parasol.model.audit.AuditEvent;
+import org.parasol.model.audit.AuditEventType;
+import org.parasol.model.audit.InvocationContext;
+
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.smallrye.mutiny.subscription.BackPressureStrategy;
+import io.smallrye.mutiny.subscription.MultiEmitter;
+
+/**
+ * Pushes audit events to live subscribers as they are recorded.
+ * <p>
+ * Each subscriber has its own buffer of {@link AuditConfig.Feed#bufferSize()} events. Publishing only ever adds to the buffers
+ * (dropping the oldest event when a buffer is full) and events are delivered to the subscribers on another thread,
+ * so a slow subscriber can never hold up the audit pipeline. It just misses events.
+ * </p>
+ */
+@ApplicationScoped
+public class AuditEventFeed {
+	private final AuditConfig.Feed config;
+	private final Executor executor;
+	private final LongCounter droppedEvents;
+	private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+	@Inject
+	public AuditEventFeed(AuditConfig auditConfig, Meter meter) {
+		this(auditConfig, meter, Infrastructure.getDefaultExecutor());
+	}
+
+	AuditEventFeed(AuditConfig auditConfig, Meter meter, Executor executor) {
+		this.config = auditConfig.feed();
+		this.executor = executor;
+
+		meter.gaugeBuilder("parasol.audit.feed.subscribers")
+		     .ofLongs()
+		     .setDescription("The number of subscribers to the live feed of audit events")
+		     .setUnit("subscribers")
+		     .buildWithCallback(measurement -> measurement.record(this.subscribers.size()));
+
+		this.droppedEvents = meter.counterBuilder("parasol.audit.feed.dropped")
+		                          .setDescription("A count of audit events dropped because a live feed subscriber couldn't keep up")
+		                          .setUnit("events")
+		                          .build();
+	}
+
+	/**
+	 * Offers the event to every subscriber whose filter matches it. Never blocks.
+	 */
+	public void publish(AuditEvent auditEvent) {
+		this.subscribers.forEach(subscriber -> subscriber.offer(auditEvent));
+	}
+
+	/**
+	 * Subscribes to the events matching the filter which are recorded from now on
+	 */
+	public Multi<AuditEvent> subscribe(Filter filter) {
+		return Multi.createFrom().emitter(emitter -> {
+			var subscriber = new Subscriber(filter, emitter);
+			emitter.onRequest(requested -> subscriber.scheduleDrain());
+			emitter.onTermination(() -> this.subscribers.remove(subscriber));
+			this.subscribers.add(subscriber);
+		}, BackPressureStrategy.ERROR);
+	}
+
+	/**
+	 * The number of current subscribers
+	 */
+	public int getSubscriberCount() {
+		return this.subscribers.size();
+	}
+
+	/**
+	 * Which events a subscriber wants. Each {@code null} criterion matches everything.
+	 */
+	public record Filter(AuditEventType eventType, String interfaceName, UUID interactionId) {
+		boolean matches(AuditEvent auditEvent) {
+			var invocationContext = Optional.ofNullable(auditEvent.getInvocationContext());
+
+			return ((this.eventType == null) || (this.eventType == auditEvent.getEventType())) &&
+				((this.interfaceName == null) || this.interfaceName.equals(invocationContext.map(InvocationContext::getInterfaceName).orElse(null))) &&
+				((this.interactionId == null) || this.interactionId.equals(invocationContext.map(InvocationContext::getInteractionId).orElse(null)));
+		}
+	}
+
+	private final class Subscriber {
+		private final Filter filter;
+		private final MultiEmitter<? super AuditEvent> emitter;
+		private final Deque<AuditEvent> buffer = new ArrayDeque<>();
+
+		// Makes sure only one thread at a time delivers events to the emitter
+		private final AtomicInteger pendingDrains = new AtomicInteger();
+
+		private Subscriber(Filter filter, MultiEmitter<? super AuditEvent> emitter) {
+			this.filter = filter;
+			this.emitter = emitter;
+		}
+
+		void offer(AuditEvent auditEvent) {
+			if (!this.filter.matches(auditEvent)) {
+				return;
+			}
+
+			synchronized (this.buffer) {
+				if (this.buffer.size() >= config.bufferSize()) {
+					this.buffer.pollFirst();
+					droppedEvents.add(1);
+				}
+
+				this.buffer.addLast(auditEvent);
+			}
+
+			scheduleDrain();
+		}
+
+		void scheduleDrain() {
+			if (this.pendingDrains.getAndIncrement() == 0) {
+				executor.execute(this::drain);
+			}
+		}
+
+		private void drain() {
+			do {
+				while ((this.emitter.requested() > 0) && !this.emitter.isCancelled()) {
+					AuditEvent next;
+
+					synchronized (this.buffer) {
+						next = this.buffer.pollFirst();
+					}
+
+					if (next == null) {
+						break;
+					}
+
+					this.emitter.emit(next);
+				}
+			} while (this.pendingDrains.decrementAndGet() != 0);
+		}
+	}
+}
@@ -1,26 +1,62 @@
 package org.parasol.repository;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.event.Observes;
-import jakarta.transaction.Transactional;
+import jakarta.persistence.Query;
 
+import org.hibernate.ScrollMode;
+import org.hibernate.Session;
 import org.parasol.ai.audit.AuditObserved;
+import org.parasol.config.AuditConfig;
 import org.parasol.mapping.AuditEventMapper;
+import org.parasol.model.audit.ApproximateAuditStats;
+import org.parasol.model.audit.ApproximateAuditStats.Distribution;
+import org.parasol.model.audit.ApproximateAuditStats.Estimate;
+import org.parasol.model.audit.ApproximateAuditStats.Quantile;
 import org.parasol.model.audit.AuditDates;
 import org.parasol.model.audit.AuditEvent;
+import org.parasol.model.audit.AuditEventFilter;
+import org.parasol.model.audit.AuditEvents;
+import org.parasol.model.audit.AuditLatency;
+import org.parasol.model.audit.AuditLatency.MethodLatency;
+import org.parasol.model.audit.AuditLatency.Percentiles;
 import org.parasol.model.audit.AuditStats;
 import org.parasol.model.audit.AuditStats.InteractionStats;
+import org.parasol.model.audit.AuditTrend;
+import org.parasol.model.audit.AuditTrend.Granularity;
+import org.parasol.model.audit.AuditTrend.TrendPoint;
 import org.parasol.model.audit.Interactions;
 import org.parasol.model.audit.Interactions.Interaction;
+import org.parasol.model.audit.PageCursor;
+import org.parasol.model.audit.PayloadSelection;
+import org.parasol.repository.AuditMetricsAggregator.SketchRow;
+import org.parasol.repository.archive.ArchivedInteraction;
+import org.parasol.repository.archive.ArchivedTotals;
+import org.parasol.repository.archive.AuditArchive;
+import org.parasol.repository.sketch.AuditSketches;
+import org.parasol.repository.sketch.HyperLogLog;
+import org.parasol.repository.sketch.TDigest;
 
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import io.quarkus.logging.Log;
 import io.quarkus.panache.common.Sort;
+import io.quarkus.runtime.annotations.RegisterForReflection;
 
 import dev.langchain4j.data.message.SystemMessage;
 import dev.langchain4j.observability.api.event.AiServiceCompletedEvent;
@@ -33,95 +69,674 @@ import dev.langchain4j.observability.api.event.ToolExecutedEvent;
 
 @ApplicationScoped
 public class AuditEventRepository implements PanacheRepository<AuditEvent> {
-	private static final String STATS_NATIVE_QUERY = """
-		WITH per_interaction AS (
-      SELECT
-        interaction_id,
-        MIN(created_on) AS interaction_date,
-        COUNT(*) FILTER (WHERE event_type = 'SERVICE_ERROR') AS num_llm_failures,
-        COUNT(*) FILTER (WHERE event_type = 'OUTPUT_GUARDRAIL_EXECUTED') AS total_output_guardrail_executions,
-        COUNT(*) FILTER (WHERE event_type = 'OUTPUT_GUARDRAIL_EXECUTED' AND guardrail_result IN ('FATAL', 'FAILURE')) AS total_output_guardrail_failures
-      FROM audit_events 
-      GROUP BY interaction_id
+	private static final String EVENTS_NATIVE_QUERY_TEMPLATE = """
+		SELECT *
+		FROM %s e
+		WHERE TRUE
+		%s
+		ORDER BY e.created_on, e.id
+		LIMIT :limit
+		""";
+
+	// The averages are over the whole range rather than the page, so they are computed from the totals instead
+	private static final String STATS_NATIVE_QUERY_TEMPLATE = """
+		SELECT
+			r.interaction_id,
+			r.interaction_date,
+			r.num_llm_failures,
+			r.total_output_guardrail_executions,
+			r.total_output_guardrail_failures
+		FROM interaction_rollup r
+		WHERE r.interaction_date BETWEEN :start_date AND :end_date
+		%s
+		ORDER BY r.interaction_date, r.interaction_id
+		LIMIT :limit
+		""";
+
+	// The text columns are only selected for the texts the client asked for
+	private static final String INTERACTIONS_NATIVE_QUERY_TEMPLATE = """
+		SELECT
+			r.interaction_id,
+			r.interaction_date,
+			%s,
+			%s,
+			%s,
+			r.error_message,
+			r.cause_error_message
+		FROM interaction_rollup r
+		WHERE r.interaction_date BETWEEN :start_date AND :end_date
+		%s
+		ORDER BY r.interaction_date, r.interaction_id
+		LIMIT :limit
+		""";
+
+	// Restricts the interactions to those having at least one event matching the filter
+	private static final String INTERACTION_FILTER_TEMPLATE = """
+		EXISTS (
+			SELECT 1
+			FROM %s e
+			WHERE e.interaction_id = r.interaction_id
+			%s
 		)
+		""";
+
+	// The totals the stats averages are computed from, so they can be combined across slices and with those of the archived interactions.
+	// Read from the covering index on interaction_date.
+	private static final String STATS_TOTALS_NATIVE_QUERY_TEMPLATE = """
 		SELECT
-      interaction_id,
-      interaction_date,
-		  num_llm_failures,
-		  total_output_guardrail_executions,
-		  total_output_guardrail_failures,
-		  CASE
-		    WHEN total_output_guardrail_executions > 0
-		      THEN AVG(total_output_guardrail_executions) FILTER (WHERE total_output_guardrail_failures > 0) OVER ()
-		    ELSE 0
-		  END AS avg_output_guardrail_executions,
-			CASE
-		    WHEN total_output_guardrail_failures > 0
-		      THEN AVG(total_output_guardrail_failures) FILTER (WHERE total_output_guardrail_failures > 0) OVER ()
-		    ELSE 0
-		  END AS avg_output_guardrail_failures
-		FROM per_interaction
-		WHERE interaction_date BETWEEN :start_date AND :end_date
-		ORDER BY interaction_date
+			COUNT(*) AS interactions,
+			COALESCE(SUM(r.total_output_guardrail_executions), 0) AS output_guardrail_executions,
+			COALESCE(SUM(r.total_output_guardrail_failures), 0) AS output_guardrail_failures
+		FROM interaction_rollup r
+		WHERE r.interaction_date BETWEEN :start_date AND :end_date
+		AND r.total_output_guardrail_failures > 0
+		%s
 		""";
 
-	private static final String INTERACTIONS_NATIVE_QUERY = """
-		WITH per_interaction AS (
+	private static final String TREND_NATIVE_QUERY_TEMPLATE = """
+		SELECT
+			bucket_start,
+			NULLIF(interface_name, '') AS interface_name,
+			NULLIF(method_name, '') AS method_name,
+			NULLIF(model_name, '') AS model_name,
+			event_type,
+			NULLIF(guardrail_class, '') AS guardrail_class,
+			event_count,
+			failure_count,
+			input_token_count,
+			output_token_count
+		FROM %s
+		WHERE bucket_start BETWEEN :start_date AND :end_date
+		ORDER BY bucket_start, interface_name, method_name, event_type
+		""";
+
+	// The whole days in the range come from the daily sketches and the hours either side of them from the hourly ones
+	private static final String SKETCHES_NATIVE_QUERY_TEMPLATE = """
+		SELECT %1$s
+		FROM %2$s
+		WHERE bucket_start BETWEEN :start_date AND :end_date
+		AND NOT (bucket_start >= :day_from AND bucket_start < :day_to)
+		UNION ALL
+		SELECT %1$s
+		FROM %3$s
+		WHERE bucket_start >= :day_from AND bucket_start < :day_to
+		""".formatted(AuditMetricsAggregator.SKETCH_COLUMNS, AuditMetricsAggregator.HOURLY_SKETCH_TABLE_NAME, AuditMetricsAggregator.DAILY_SKETCH_TABLE_NAME);
+
+	// percentile_cont skips nulls, so each set of percentiles is only over the interactions which have that latency
+	private static final String LATENCY_NATIVE_QUERY = """
+		WITH latencies AS (
 			SELECT
-				interaction_id,
-				MIN(created_on) AS interaction_date,
-				MAX(system_message) FILTER (WHERE event_type = 'SERVICE_STARTED') AS system_message,
-				MAX(user_message) FILTER (WHERE event_type = 'SERVICE_STARTED') AS user_message,
-				MAX(result) FILTER (WHERE event_type = 'SERVICE_COMPLETED') AS result,
-				MAX(error_message) FILTER (WHERE event_type = 'SERVICE_ERROR') AS error_message,
-				MAX(cause_error_message) FILTER (WHERE event_type = 'SERVICE_ERROR') AS cause_error_message
-			FROM audit_events
-			GROUP BY interaction_id
+				r.interface_name,
+				r.method_name,
+				EXTRACT(EPOCH FROM r.first_response_on - r.started_on)::double precision * 1000 AS time_to_first_response,
+				r.tool_execution_millis::double precision AS tool_execution,
+				r.guardrail_execution_millis::double precision AS guardrail_execution,
+				EXTRACT(EPOCH FROM r.ended_on - r.started_on)::double precision * 1000 AS total
+			FROM interaction_rollup r
+			WHERE r.interaction_date BETWEEN :start_date AND :end_date
 		)
 		SELECT
-			interaction_id,
-			interaction_date,
-			system_message,
-			user_message,
-			result,
-			error_message,
-			cause_error_message
-		FROM per_interaction
-		WHERE interaction_date BETWEEN :start_date AND :end_date
-		ORDER BY interaction_date
+			interface_name,
+			method_name,
+			COUNT(*) AS interactions,
+			percentile_cont(0.50) WITHIN GROUP (ORDER BY time_to_first_response),
+			percentile_cont(0.95) WITHIN GROUP (ORDER BY time_to_first_response),
+			percentile_cont(0.99) WITHIN GROUP (ORDER BY time_to_first_response),
+			percentile_cont(0.50) WITHIN GROUP (ORDER BY tool_execution),
+			percentile_cont(0.95) WITHIN GROUP (ORDER BY tool_execution),
+			percentile_cont(0.99) WITHIN GROUP (ORDER BY tool_execution),
+			percentile_cont(0.50) WITHIN GROUP (ORDER BY guardrail_execution),
+			percentile_cont(0.95) WITHIN GROUP (ORDER BY guardrail_execution),
+			percentile_cont(0.99) WITHIN GROUP (ORDER BY guardrail_execution),
+			percentile_cont(0.50) WITHIN GROUP (ORDER BY total),
+			percentile_cont(0.95) WITHIN GROUP (ORDER BY total),
+			percentile_cont(0.99) WITHIN GROUP (ORDER BY total)
+		FROM latencies
+		GROUP BY interface_name, method_name
+		ORDER BY interface_name, method_name
 		""";
 
+	private static final double[] APPROXIMATE_QUANTILES = { 0.5, 0.9, 0.95, 0.99 };
+
 	private final AuditEventMapper auditEventMapper;
+	private final AuditCapturePolicy auditCapturePolicy;
+	private final AuditTextStore auditTextStore;
+	private final AuditConfig auditConfig;
+	private final AuditArchive auditArchive;
+	private final SlicedQueryExecutor slicedQueryExecutor;
 
-	public AuditEventRepository(AuditEventMapper auditEventMapper) {
+	public AuditEventRepository(AuditEventMapper auditEventMapper, AuditCapturePolicy auditCapturePolicy, AuditTextStore auditTextStore, AuditConfig auditConfig, AuditArchive auditArchive, SlicedQueryExecutor slicedQueryExecutor) {
 		this.auditEventMapper = auditEventMapper;
+		this.auditCapturePolicy = auditCapturePolicy;
+		this.auditTextStore = auditTextStore;
+		this.auditConfig = auditConfig;
+		this.auditArchive = auditArchive;
+		this.slicedQueryExecutor = slicedQueryExecutor;
 	}
 
+	/**
+	 * Persists the event along with any of its texts which haven't been stored yet
+	 */
+	@Override
+	public void persist(AuditEvent auditEvent) {
+		this.auditTextStore.intern(auditEvent);
+		getEntityManager().persist(auditEvent);
+	}
+
+	/**
+	 * All the events of the interaction, whether in the database or the {@link AuditArchive archive}.
+	 * The texts of the events in the database are loaded lazily, only if they are read.
+	 */
 	public List<AuditEvent> getAllForInteractionId(UUID interactionId) {
-		return find("invocationContext.interactionId", Sort.by("createdOn"), interactionId).list();
+		var auditEvents = find("invocationContext.interactionId", Sort.by("createdOn"), interactionId).list();
+
+		if (this.auditArchive.isEmpty()) {
+			return auditEvents;
+		}
+
+		return merge(auditEvents, this.auditArchive.findEvents(interactionId), AuditEvent::getId, Comparator.comparing(AuditEvent::getCreatedOn), Integer.MAX_VALUE);
+	}
+
+	/**
+	 * The event with the given id, whether in the database or the {@link AuditArchive archive}
+	 */
+	public Optional<AuditEvent> getAuditEvent(Long id) {
+		return findByIdOptional(id).or(() -> this.auditArchive.findEvent(id));
+	}
+
+	/**
+	 * Passes every event, oldest first, to the consumer without holding them all in memory.
+	 * <p>
+	 * The events are read through a forward-only cursor, {@link AuditConfig.Export#fetchSize()} rows at a time,
+	 * and the persistence context is cleared after each fetch so that the events already passed along can be garbage collected.
+	 * Must be called within a transaction, since Postgres only uses a server-side cursor when auto-commit is off.
+	 * </p>
+	 */
+	public void exportAll(Consumer<AuditEvent> consumer) {
+		var fetchSize = this.auditConfig.export().fetchSize();
+		var session = getEntityManager().unwrap(Session.class);
+
+		try (var auditEvents = session.createSelectionQuery("FROM AuditEvent ORDER BY createdOn, id", AuditEvent.class)
+		                              .setFetchSize(fetchSize)
+		                              .setReadOnly(true)
+		                              .scroll(ScrollMode.FORWARD_ONLY)) {
+			var count = 0L;
+
+			while (auditEvents.next()) {
+				consumer.accept(auditEvents.get());
+
+				if (++count % fetchSize == 0) {
+					session.clear();
+				}
+			}
+		}
+	}
+
+	/**
+	 * A page of the audit events matching the filter, oldest first, starting just after the cursor
+	 */
+	public AuditEvents getAuditEvents(AuditEventFilter filter, Optional<PageCursor<Long>> cursor, Optional<Integer> limit) {
+		var pageSize = pageSize(limit);
+		var conditions = eventConditions(filter);
+		cursor.ifPresent(c -> conditions.add("(e.created_on, e.id) > (:cursor_position, :cursor_id)", Map.of("cursor_position", c.position(), "cursor_id", c.id())));
+
+		List<AuditEvent> auditEvents = conditions.bind(getEntityManager().createNativeQuery(EVENTS_NATIVE_QUERY_TEMPLATE.formatted(AuditPartitionManager.TABLE_NAME, conditions), AuditEvent.class))
+			.setParameter("limit", pageSize + 1)
+			.getResultList();
+
+		return new AuditEvents(
+			auditEvents.stream().limit(pageSize).toList(),
+			nextCursor(auditEvents, pageSize, auditEvent -> new PageCursor<>(auditEvent.getCreatedOn(), auditEvent.getId()))
+		);
+	}
+
+	/**
+	 * A page of the stats of the interactions matching the filter, whether in the database or the {@link AuditArchive archive}.
+	 * The range is queried in slices by the {@link SlicedQueryExecutor}: each slice reads its page and the totals the averages
+	 * are computed from, and the pages are concatenated in order while the totals are added up.
+	 */
+	public AuditStats getAuditStats(Optional<Instant> start, Optional<Instant> end, AuditEventFilter filter, Optional<PageCursor<UUID>> cursor, Optional<Integer> limit) {
+		var auditDates = AuditDates.from(start, end);
+		var pageSize = pageSize(limit);
+		var filterConditions = interactionConditions(filter);
+		var pageConditions = interactionConditions(filter).add(keysetCondition(cursor));
+		var slices = this.slicedQueryExecutor.execute(auditDates, slice -> {
+			var totalsQuery = getEntityManager().createNativeQuery(STATS_TOTALS_NATIVE_QUERY_TEMPLATE.formatted(filterConditions), GuardrailTotals.class);
+			var rowsQuery = getEntityManager().createNativeQuery(STATS_NATIVE_QUERY_TEMPLATE.formatted(pageConditions), StatsRow.class);
+
+			return new StatsSlice(
+				(GuardrailTotals) filterConditions.bind(withDateRange(totalsQuery, slice)).getSingleResult(),
+				pageConditions.bind(withDateRange(rowsQuery, slice))
+					.setParameter("limit", pageSize + 1)
+					.getResultList()
+			);
+		});
+
+		var totals = slices.stream()
+		                   .map(StatsSlice::totals)
+		                   .reduce(GuardrailTotals.NONE, GuardrailTotals::add);
+
+		var rows = slices.stream()
+		                 .flatMap(slice -> slice.rows().stream())
+		                 .limit(pageSize + 1)
+		                 .toList();
+
+		if (!this.auditArchive.isEmpty()) {
+			var archivedRows = this.auditArchive.findInteractions(auditDates, filter, cursor, pageSize + 1, false)
+			                                    .stream()
+			                                    .map(StatsRow::of)
+			                                    .toList();
+
+			totals = totals.add(GuardrailTotals.of(this.auditArchive.findTotals(auditDates, filter)));
+			rows = merge(rows, archivedRows, StatsRow::interactionId, keysetOrder(StatsRow::interactionDate, StatsRow::interactionId), pageSize + 1);
+		}
+
+		var avgOutputGuardrailExecutions = totals.average(totals.outputGuardrailExecutions());
+		var avgOutputGuardrailFailures = totals.average(totals.outputGuardrailFailures());
+		var stats = rows.stream()
+		                .map(row -> row.toInteractionStats(avgOutputGuardrailExecutions, avgOutputGuardrailFailures))
+		                .toList();
+
+		return new AuditStats(
+			auditDates,
+			stats.stream().limit(pageSize).toList(),
+			nextCursor(stats, pageSize, stat -> new PageCursor<>(stat.interactionDate(), stat.interactionId()))
+		);
+	}
+
+	/**
+	 * Approximate stats for the range, merged from the sketches maintained by {@link AuditMetricsAggregator}, so it is cheap
+	 * no matter how long the range is. The range is widened to the start of the hour containing the start date.
+	 */
+	public ApproximateAuditStats getApproximateAuditStats(Optional<Instant> start, Optional<Instant> end) {
+		var auditDates = AuditDates.from(start, end);
+		var hourFrom = auditDates.start().truncatedTo(ChronoUnit.HOURS);
+		var dayFrom = hourFrom.truncatedTo(ChronoUnit.DAYS);
+		var sketches = new AuditSketches();
+
+		if (dayFrom.isBefore(hourFrom)) {
+			dayFrom = dayFrom.plus(1, ChronoUnit.DAYS);
+		}
+
+		try (Stream<SketchRow> rows = getEntityManager().createNativeQuery(SKETCHES_NATIVE_QUERY_TEMPLATE, SketchRow.class)
+			.setParameter("start_date", hourFrom)
+			.setParameter("end_date", auditDates.end())
+			.setParameter("day_from", dayFrom)
+			.setParameter("day_to", auditDates.end().truncatedTo(ChronoUnit.DAYS))
+			.getResultStream()) {
+			rows.forEach(row -> sketches.merge(row.toSketches()));
+		}
+
+		return new ApproximateAuditStats(
+			auditDates,
+			toEstimate(sketches.interactions()),
+			toDistribution(sketches.inputTokens()),
+			toDistribution(sketches.outputTokens()),
+			toDistribution(sketches.outputGuardrailExecutions()),
+			toDistribution(sketches.outputGuardrailFailures())
+		);
 	}
 
-	public AuditStats getAuditStats(Optional<Instant> start, Optional<Instant> end) {
+	/**
+	 * A page of the interactions matching the filter, whether in the database or the {@link AuditArchive archive}.
+	 * Only the texts included in the selection are read (and cut down to previews if asked for), the others are left {@code null}.
+	 * The range is queried in slices by the {@link SlicedQueryExecutor}, whose pages are concatenated in order.
+	 */
+	public Interactions getLLMInteractions(Optional<Instant> start, Optional<Instant> end, AuditEventFilter filter, Optional<PageCursor<UUID>> cursor, Optional<Integer> limit, PayloadSelection selection) {
 		var auditDates = AuditDates.from(start, end);
-		var stats = getEntityManager().createNativeQuery(STATS_NATIVE_QUERY, InteractionStats.class)
-			                  .setParameter("start_date", auditDates.start())
-			                  .setParameter("end_date", auditDates.end())
-			                  .getResultList();
+		var pageSize = pageSize(limit);
+		var conditions = interactionConditions(filter).add(keysetCondition(cursor));
+		var sql = INTERACTIONS_NATIVE_QUERY_TEMPLATE.formatted(
+			textColumns(selection, "systemMessage", "system_message"),
+			textColumns(selection, "userMessage", "user_message"),
+			textColumns(selection, "result", "result"),
+			conditions
+		);
+		List<InteractionRow> rows = this.slicedQueryExecutor.execute(auditDates, slice -> {
+				var query = getEntityManager().createNativeQuery(sql, InteractionRow.class);
+
+				return conditions.bind(withDateRange(query, slice))
+					.setParameter("limit", pageSize + 1)
+					.<InteractionRow>getResultList();
+			})
+			.stream()
+			.flatMap(List::stream)
+			.limit(pageSize + 1)
+			.toList();
+
+		var texts = this.auditTextStore.findAll(
+			rows.stream()
+			    .flatMap(row -> Stream.of(row.systemMessageHash(), row.userMessageHash(), row.resultHash()))
+			    .toList()
+		);
 
-		return new AuditStats(auditDates, stats);
+		var interactions = rows.stream()
+		                       .map(row -> row.toInteraction(texts, selection))
+		                       .toList();
+
+		if (!this.auditArchive.isEmpty()) {
+			var withTexts = selection.includes("systemMessage") || selection.includes("userMessage") || selection.includes("result");
+			var archivedInteractions = this.auditArchive.findInteractions(auditDates, filter, cursor, pageSize + 1, withTexts)
+			                                            .stream()
+			                                            .map(interaction -> toInteraction(interaction, selection))
+			                                            .toList();
+
+			interactions = merge(interactions, archivedInteractions, Interaction::interactionId, keysetOrder(Interaction::interactionDate, Interaction::interactionId), pageSize + 1);
+		}
+
+		return new Interactions(
+			auditDates,
+			interactions.stream().limit(pageSize).toList(),
+			nextCursor(interactions, pageSize, interaction -> new PageCursor<>(interaction.interactionDate(), interaction.interactionId()))
+		);
 	}
 
-	public Interactions getLLMInteractions(Optional<Instant> start, Optional<Instant> end) {
+	/**
+	 * The latency percentiles of each AI service method, from the durations kept in the rollup (see {@link InteractionRollupManager}).
+	 * Only covers the interactions still in the database, not those which have been {@link AuditArchiver archived}.
+	 */
+	public AuditLatency getAuditLatency(Optional<Instant> start, Optional<Instant> end) {
 		var auditDates = AuditDates.from(start, end);
-		var interactions = getEntityManager().createNativeQuery(INTERACTIONS_NATIVE_QUERY, Interaction.class)
-			.setParameter("start_date", auditDates.start())
-			                  .setParameter("end_date", auditDates.end())
-			                  .getResultList();
+		var query = getEntityManager().createNativeQuery(LATENCY_NATIVE_QUERY, LatencyRow.class);
+
+		List<LatencyRow> rows = withDateRange(query, auditDates).getResultList();
+
+		return new AuditLatency(
+			auditDates,
+			rows.stream()
+			    .map(LatencyRow::toMethodLatency)
+			    .toList()
+		);
+	}
+
+	/**
+	 * Reads the trend of the audit events from the hourly or daily aggregates (maintained by {@link AuditMetricsAggregator}),
+	 * so it is cheap no matter how long the range is. The range is widened to the start of the bucket containing the start date.
+	 */
+	public AuditTrend getAuditTrend(Optional<Instant> start, Optional<Instant> end, Granularity granularity) {
+		var auditDates = AuditDates.from(start, end);
+		var table = switch (granularity) {
+			case HOUR -> AuditMetricsAggregator.HOURLY_TABLE_NAME;
+			case DAY -> AuditMetricsAggregator.DAILY_TABLE_NAME;
+		};
+		var bucketStart = auditDates.start().truncatedTo((granularity == Granularity.HOUR) ? ChronoUnit.HOURS : ChronoUnit.DAYS);
+
+		List<TrendPoint> points = getEntityManager().createNativeQuery(TREND_NATIVE_QUERY_TEMPLATE.formatted(table), TrendPoint.class)
+			.setParameter("start_date", bucketStart)
+			.setParameter("end_date", auditDates.end())
+			.getResultList();
+
+		return new AuditTrend(auditDates, granularity, points);
+	}
+
+	@RegisterForReflection
+	private record InteractionRow(
+		UUID interactionId,
+		Instant interactionDate,
+		String systemMessage,
+		String systemMessageHash,
+		String userMessage,
+		String userMessageHash,
+		String result,
+		String resultHash,
+		String errorMessage,
+		String causeErrorMessage
+	) {
+		Interaction toInteraction(Map<String, String> texts, PayloadSelection selection) {
+			return new Interaction(
+				interactionId,
+				interactionDate,
+				selection.preview(textOf(texts, systemMessageHash, systemMessage)),
+				selection.preview(textOf(texts, userMessageHash, userMessage)),
+				selection.preview(textOf(texts, resultHash, result)),
+				errorMessage,
+				causeErrorMessage
+			);
+		}
+
+		// Events written before texts were moved to the audit_texts table still have them inline
+		private static String textOf(Map<String, String> texts, String hash, String inlineText) {
+			return (hash != null) ?
+			       texts.getOrDefault(hash, inlineText) :
+			       inlineText;
+		}
+	}
+
+	private static Estimate toEstimate(HyperLogLog hyperLogLog) {
+		var value = hyperLogLog.estimate();
+		var margin = Math.round(2 * HyperLogLog.RELATIVE_STANDARD_ERROR * value);
+
+		return new Estimate(value, Math.max(0, value - margin), value + margin);
+	}
+
+	private static Distribution toDistribution(TDigest digest) {
+		if (digest.count() == 0) {
+			return new Distribution(0, null, null, null, List.of());
+		}
+
+		var quantiles = new ArrayList<Quantile>(APPROXIMATE_QUANTILES.length);
+
+		for (var quantile : APPROXIMATE_QUANTILES) {
+			var bounds = digest.quantileBounds(quantile);
+			quantiles.add(new Quantile(quantile, digest.quantile(quantile), bounds[0], bounds[1]));
+		}
+
+		return new Distribution(digest.count(), digest.sum() / digest.count(), digest.min(), digest.max(), quantiles);
+	}
+
+	private static Interaction toInteraction(ArchivedInteraction interaction, PayloadSelection selection) {
+		return new Interaction(
+			interaction.interactionId(),
+			interaction.interactionDate(),
+			selection.includes("systemMessage") ? selection.preview(interaction.systemMessage()) : null,
+			selection.includes("userMessage") ? selection.preview(interaction.userMessage()) : null,
+			selection.includes("result") ? selection.preview(interaction.result()) : null,
+			interaction.errorMessage(),
+			interaction.causeErrorMessage()
+		);
+	}
+
+	/**
+	 * Merges rows from the database with rows from the archive, in order and up to the given size. A row which is in both
+	 * (because the transaction archiving it failed) is only kept from the database.
+	 */
+	private static <T, K> List<T> merge(List<T> rows, List<T> archivedRows, Function<T, K> keyOf, Comparator<T> order, int size) {
+		var keys = rows.stream().map(keyOf).collect(Collectors.toSet());
+
+		return Stream.concat(rows.stream(), archivedRows.stream().filter(row -> !keys.contains(keyOf.apply(row))))
+		             .sorted(order)
+		             .limit(size)
+		             .toList();
+	}
+
+	private static <T> Comparator<T> keysetOrder(Function<T, Instant> positionOf, Function<T, UUID> idOf) {
+		return Comparator.comparing(positionOf).thenComparing(idOf, PageCursor.UUID_ORDER);
+	}
+
+	@RegisterForReflection
+	private record StatsRow(UUID interactionId, Instant interactionDate, Long numLlmFailures, Long totalOutputGuardrailExecutions, Long totalOutputGuardrailFailures) {
+		static StatsRow of(ArchivedInteraction interaction) {
+			return new StatsRow(
+				interaction.interactionId(),
+				interaction.interactionDate(),
+				interaction.numLlmFailures(),
+				interaction.totalOutputGuardrailExecutions(),
+				interaction.totalOutputGuardrailFailures()
+			);
+		}
+
+		InteractionStats toInteractionStats(BigDecimal avgOutputGuardrailExecutions, BigDecimal avgOutputGuardrailFailures) {
+			return new InteractionStats(
+				this.interactionId,
+				this.interactionDate,
+				this.numLlmFailures,
+				this.totalOutputGuardrailExecutions,
+				this.totalOutputGuardrailFailures,
+				(this.totalOutputGuardrailExecutions > 0) ? avgOutputGuardrailExecutions : BigDecimal.ZERO,
+				(this.totalOutputGuardrailFailures > 0) ? avgOutputGuardrailFailures : BigDecimal.ZERO
+			);
+		}
+	}
+
+	@RegisterForReflection
+	private record LatencyRow(
+		String interfaceName,
+		String methodName,
+		Long interactions,
+		Double timeToFirstResponseP50,
+		Double timeToFirstResponseP95,
+		Double timeToFirstResponseP99,
+		Double toolExecutionP50,
+		Double toolExecutionP95,
+		Double toolExecutionP99,
+		Double guardrailExecutionP50,
+		Double guardrailExecutionP95,
+		Double guardrailExecutionP99,
+		Double totalP50,
+		Double totalP95,
+		Double totalP99
+	) {
+		MethodLatency toMethodLatency() {
+			return new MethodLatency(
+				this.interfaceName,
+				this.methodName,
+				this.interactions,
+				new Percentiles(this.timeToFirstResponseP50, this.timeToFirstResponseP95, this.timeToFirstResponseP99),
+				new Percentiles(this.toolExecutionP50, this.toolExecutionP95, this.toolExecutionP99),
+				new Percentiles(this.guardrailExecutionP50, this.guardrailExecutionP95, this.guardrailExecutionP99),
+				new Percentiles(this.totalP50, this.totalP95, this.totalP99)
+			);
+		}
+	}
+
+	private record StatsSlice(GuardrailTotals totals, List<StatsRow> rows) {}
+
+	/**
+	 * The totals of the interactions with at least one output guardrail failure, which the stats averages are over
+	 */
+	@RegisterForReflection
+	private record GuardrailTotals(Long interactions, BigDecimal outputGuardrailExecutions, BigDecimal outputGuardrailFailures) {
+		static final GuardrailTotals NONE = new GuardrailTotals(0L, BigDecimal.ZERO, BigDecimal.ZERO);
+
+		static GuardrailTotals of(ArchivedTotals archived) {
+			return new GuardrailTotals(
+				archived.interactions(),
+				BigDecimal.valueOf(archived.outputGuardrailExecutions()),
+				BigDecimal.valueOf(archived.outputGuardrailFailures())
+			);
+		}
+
+		GuardrailTotals add(GuardrailTotals other) {
+			return new GuardrailTotals(
+				this.interactions + other.interactions,
+				this.outputGuardrailExecutions.add(other.outputGuardrailExecutions),
+				this.outputGuardrailFailures.add(other.outputGuardrailFailures)
+			);
+		}
+
+		// Matches the scale Postgres gives the average of integers
+		BigDecimal average(BigDecimal total) {
+			return (this.interactions > 0) ?
+			       total.divide(BigDecimal.valueOf(this.interactions), 16, RoundingMode.HALF_EVEN) :
+			       null;
+		}
+	}
+
+	private static String textColumns(PayloadSelection selection, String field, String column) {
+		return selection.includes(field) ?
+		       "r.%1$s, r.%1$s_hash".formatted(column) :
+		       "NULL AS %1$s, NULL AS %1$s_hash".formatted(column);
+	}
+
+	private int pageSize(Optional<Integer> limit) {
+		var paging = this.auditConfig.paging();
+
+		return Math.clamp(limit.orElse(paging.defaultLimit()), 1, paging.maxLimit());
+	}
+
+	/**
+	 * The cursor for the page after this one, if there is one. The rows include one more than the page size
+	 * so that the last page can be told apart without another query.
+	 */
+	private static <T> String nextCursor(List<T> rows, int pageSize, Function<T, PageCursor<?>> cursorOf) {
+		return (rows.size() > pageSize) ?
+		       cursorOf.apply(rows.get(pageSize - 1)).encode() :
+		       null;
+	}
+
+	private static Conditions eventConditions(AuditEventFilter filter) {
+		var conditions = new Conditions();
+		Optional.ofNullable(filter.eventType()).ifPresent(eventType -> conditions.add("e.event_type = :event_type", Map.of("event_type", eventType.name())));
+		Optional.ofNullable(filter.interfaceName()).ifPresent(interfaceName -> conditions.add("e.interface_name = :interface_name", Map.of("interface_name", interfaceName)));
+		Optional.ofNullable(filter.methodName()).ifPresent(methodName -> conditions.add("e.method_name = :method_name", Map.of("method_name", methodName)));
+		Optional.ofNullable(filter.modelName()).ifPresent(modelName -> conditions.add("e.model_name = :model_name", Map.of("model_name", modelName)));
+		Optional.ofNullable(filter.guardrailClass()).ifPresent(guardrailClass -> conditions.add("e.guardrail_class = :guardrail_class", Map.of("guardrail_class", guardrailClass)));
+
+		return conditions;
+	}
+
+	private static Conditions interactionConditions(AuditEventFilter filter) {
+		var conditions = new Conditions();
+
+		if (!filter.isEmpty()) {
+			var eventConditions = eventConditions(filter);
+			conditions.add(INTERACTION_FILTER_TEMPLATE.formatted(AuditPartitionManager.TABLE_NAME, eventConditions).strip(), eventConditions.parameters);
+		}
+
+		return conditions;
+	}
+
+	private static Conditions keysetCondition(Optional<PageCursor<UUID>> cursor) {
+		var conditions = new Conditions();
+		cursor.ifPresent(c -> conditions.add("(r.interaction_date, r.interaction_id) > (:cursor_position, :cursor_id)", Map.of("cursor_position", c.position(), "cursor_id", c.id())));
+
+		return conditions;
+	}
+
+	/**
+	 * SQL conditions (each starting with {@code AND}) along with the parameters they use,
+	 * so that the queries only contain the conditions for the filters which are actually set
+	 */
+	private static final class Conditions {
+		private final List<String> conditions = new ArrayList<>();
+		private final Map<String, Object> parameters = new HashMap<>();
+
+		Conditions add(String condition, Map<String, Object> parameters) {
+			this.conditions.add(condition);
+			this.parameters.putAll(parameters);
+			return this;
+		}
+
+		Conditions add(Conditions other) {
+			this.conditions.addAll(other.conditions);
+			this.parameters.putAll(other.parameters);
+			return this;
+		}
+
+		Query bind(Query query) {
+			this.parameters.forEach(query::setParameter);
+			return query;
+		}
+
+		@Override
+		public String toString() {
+			return this.conditions.stream()
+			                      .map(condition -> "AND " + condition)
+			                      .collect(Collectors.joining("\n"));
+		}
+	}
 
-		return new Interactions(auditDates, interactions);
+	/**
+	 * Binds the date range parameters used by the native queries, which select the interactions that started within the range.
+	 * Both queries read from the {@code interaction_rollup} table (maintained by {@link InteractionRollupManager}),
+	 * a page at a time from the index on {@code (interaction_date, interaction_id)}, so their cost depends on the page size
+	 * rather than the number of events overall or how deep into the range the page is.
+	 */
+	private static Query withDateRange(Query query, AuditDates auditDates) {
+		return query.setParameter("start_date", auditDates.start())
+		            .setParameter("end_date", auditDates.end());
 	}
 
-	@Transactional
 	@AuditObserved(
 		name = "parasol.llm.interaction.started",
 		description = "A count of LLM services started",
@@ -135,10 +750,9 @@ public class AuditEventRepository implements PanacheRepository<AuditEvent> {
 			e.userMessage().singleText()
 		);
 
-		persist(this.auditEventMapper.toAuditEvent(e));
+		this.auditCapturePolicy.capture(this.auditEventMapper.toAuditEvent(e));
 	}
 
-	@Transactional
 	@AuditObserved(
 		name = "parasol.llm.interaction.completed",
 		description = "A count of LLM interactions completed",
@@ -151,10 +765,9 @@ public class AuditEventRepository implements PanacheRepository<AuditEvent> {
 			e.result()
 		);
 
-		persist(this.auditEventMapper.toAuditEvent(e));
+		this.auditCapturePolicy.capture(this.auditEventMapper.toAuditEvent(e));
 	}
 
-	@Transactional
 	@AuditObserved(
 		name = "parasol.llm.interaction.failed",
 		description = "A count of LLM interactions failed",
@@ -167,10 +780,9 @@ public class AuditEventRepository implements PanacheRepository<AuditEvent> {
 			e.error().getMessage()
 		);
 
-		persist(this.auditEventMapper.toAuditEvent(e));
+		this.auditCapturePolicy.capture(this.auditEventMapper.toAuditEvent(e));
 	}
 
-	@Transactional
 	@AuditObserved(
 		name = "parasol.llm.response.received",
 		description = "A count of LLM responses received",
@@ -183,10 +795,9 @@ public class AuditEventRepository implements PanacheRepository<AuditEvent> {
 			e.response().aiMessage().text()
 		);
 
-		persist(this.auditEventMapper.toAuditEvent(e));
+		this.auditCapturePolicy.capture(this.auditEventMapper.toAuditEvent(e));
 	}
 
-	@Transactional
 	@AuditObserved(
 		name = "parasol.llm.tool.executed",
 		description = "A count of tools executed",
@@ -201,10 +812,9 @@ public class AuditEventRepository implements PanacheRepository<AuditEvent> {
 			e.resultText()
 		);
 
-		persist(this.auditEventMapper.toAuditEvent(e));
+		this.auditCapturePolicy.capture(this.auditEventMapper.toAuditEvent(e));
 	}
 
-	@Transactional
 	@AuditObserved(
 		name = "parasol.llm.guardrail.input.executed",
 		description = "A count of input guardrails executed",
@@ -217,10 +827,9 @@ public class AuditEventRepository implements PanacheRepository<AuditEvent> {
 			e.result().result()
 		);
 
-		persist(this.auditEventMapper.toAuditEvent(e));
+		this.auditCapturePolicy.capture(this.auditEventMapper.toAuditEvent(e));
 	}
 
-	@Transactional
 	@AuditObserved(
 		name = "parasol.llm.guardrail.output.executed",
 		description = "A count of output guardrails executed",
@@ -232,6 +841,6 @@ public class AuditEventRepository implements PanacheRepository<AuditEvent> {
 			e.result().result()
 		);
 
-		persist(this.auditEventMapper.toAuditEvent(e));
+		this.auditCapturePolicy.capture(this.auditEventMapper.toAuditEvent(e));
 	}
 }
@@ -0,0 +1,399 @@
+package org.parasol.repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.interceptor.Interceptor;
+import jakarta.persistence.EntityManager;
+
+import org.parasol.config.AuditConfig;
+import org.parasol.model.audit.AuditDates;
+import org.parasol.model.audit.AuditSketch;
+import org.parasol.model.audit.DailyAuditMetric;
+import org.parasol.model.audit.HourlyAuditMetric;
+import org.parasol.repository.sketch.AuditSketches;
+
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import io.quarkus.scheduler.Scheduled;
+import io.quarkus.scheduler.Scheduled.ConcurrentExecution;
+
+/**
+ * Keeps the hourly ({@link HourlyAuditMetric}) and daily ({@link DailyAuditMetric}) aggregates of the audit events up to date,
+ * along with the hourly and daily {@link AuditSketch sketches}.
+ * <p>
+ * Buckets which are still open are refreshed: the current ones, plus any which ended less than
+ * {@link AuditConfig.Aggregates#lateness()} before the previous refresh (since events are written asynchronously).
+ * The sketches of an interaction's totals go in the bucket it started in, so their buckets stay open for the
+ * {@link AuditConfig#maxInteractionDuration()} as well.
+ * On startup, refreshing picks up from the latest bucket already aggregated, so any time the application was down is caught up on.
+ * Hourly buckets are recomputed from the audit events, and daily buckets are recomputed from the hourly ones.
+ * </p>
+ * <p>
+ * Events can be committed long after they were created, later than any lateness (such as when the journal is replayed),
+ * so each refresh also recomputes the closed hours which events have been committed in since the previous refresh, as
+ * recorded by {@link AuditEventChanges}, along with the sketches of the interactions which could have started before them.
+ * </p>
+ */
+@ApplicationScoped
+public class AuditMetricsAggregator {
+	static final String HOURLY_TABLE_NAME = "audit_metrics_hourly";
+	static final String DAILY_TABLE_NAME = "audit_metrics_daily";
+	static final String HOURLY_SKETCH_TABLE_NAME = "audit_sketches_hourly";
+	static final String DAILY_SKETCH_TABLE_NAME = "audit_sketches_daily";
+
+	// Arbitrary key so that multiple instances of the app don't try to refresh the aggregates at the same time
+	private static final long ADVISORY_LOCK_KEY = 0x6d6574726963L;
+
+	private static final String COLUMNS = """
+		bucket_start,
+		interface_name,
+		method_name,
+		model_name,
+		event_type,
+		guardrail_class,
+		event_count,
+		failure_count,
+		input_token_count,
+		output_token_count
+		""";
+
+	private static final String REFRESH_HOURLY_SQL = """
+		INSERT INTO %s (%s)
+		SELECT
+			date_trunc('hour', created_on, 'UTC'),
+			COALESCE(interface_name, ''),
+			COALESCE(method_name, ''),
+			COALESCE(model_name, ''),
+			event_type,
+			COALESCE(guardrail_class, ''),
+			COUNT(*),
+			COUNT(*) FILTER (WHERE
+				event_type = 'SERVICE_ERROR'
+				OR (event_type = 'INPUT_GUARDRAIL_EXECUTED' AND result IN ('FATAL', 'FAILURE'))
+				OR (event_type = 'OUTPUT_GUARDRAIL_EXECUTED' AND guardrail_result IN ('FATAL', 'FAILURE'))
+			),
+			COALESCE(SUM(input_token_count), 0),
+			COALESCE(SUM(output_token_count), 0)
+		FROM %s
+		WHERE created_on >= :from AND created_on < :to
+		GROUP BY 1, 2, 3, 4, 5, 6
+		""".formatted(HOURLY_TABLE_NAME, COLUMNS, AuditPartitionManager.TABLE_NAME);
+
+	private static final String REFRESH_DAILY_SQL = """
+		INSERT INTO %s (%s)
+		SELECT
+			date_trunc('day', bucket_start, 'UTC'),
+			interface_name,
+			method_name,
+			model_name,
+			event_type,
+			guardrail_class,
+			SUM(event_count),
+			SUM(failure_count),
+			SUM(input_token_count),
+			SUM(output_token_count)
+		FROM %s
+		WHERE bucket_start >= :from AND bucket_start < :to
+		GROUP BY 1, 2, 3, 4, 5, 6
+		""".formatted(DAILY_TABLE_NAME, COLUMNS, HOURLY_TABLE_NAME);
+
+	static final String SKETCH_COLUMNS = """
+		bucket_start,
+		interactions,
+		input_tokens,
+		output_tokens,
+		output_guardrail_executions,
+		output_guardrail_failures
+		""";
+
+	// The interactions with events in each hour, then the totals of the interactions started in each hour, so each hour is read in one go
+	private static final String HOURLY_SKETCH_SOURCE_SQL = """
+		SELECT
+			date_trunc('hour', created_on, 'UTC') AS bucket_start,
+			interaction_id,
+			0 AS input_token_count,
+			0 AS output_token_count,
+			0 AS output_guardrail_executions,
+			0 AS output_guardrail_failures,
+			FALSE AS started
+		FROM %s
+		WHERE created_on >= :from AND created_on < :to
+		AND interaction_id IS NOT NULL
+		GROUP BY 1, 2
+		UNION ALL
+		SELECT
+			date_trunc('hour', interaction_date, 'UTC'),
+			interaction_id,
+			input_token_count,
+			output_token_count,
+			total_output_guardrail_executions,
+			total_output_guardrail_failures,
+			TRUE
+		FROM %s
+		WHERE interaction_date >= :from AND interaction_date < :to
+		ORDER BY 1
+		""".formatted(AuditPartitionManager.TABLE_NAME, InteractionRollupManager.TABLE_NAME);
+
+	private static final String INSERT_SKETCH_SQL = """
+		INSERT INTO %s (%s)
+		VALUES (:bucket_start, :interactions, :input_tokens, :output_tokens, :output_guardrail_executions, :output_guardrail_failures)
+		""";
+
+	// Later than any event, for refreshing every bucket from a given one onwards
+	private static final Instant END_OF_TIME = Instant.parse("9999-01-01T00:00:00Z");
+
+	private final AuditConfig.Aggregates config;
+	private final Duration maxInteractionDuration;
+	private final EntityManager entityManager;
+	private final AuditEventChanges auditEventChanges;
+	private volatile Instant lastRefresh;
+
+	public AuditMetricsAggregator(AuditConfig auditConfig, EntityManager entityManager, AuditEventChanges auditEventChanges) {
+		this.config = auditConfig.aggregates();
+		this.maxInteractionDuration = auditConfig.maxInteractionDuration();
+		this.entityManager = entityManager;
+		this.auditEventChanges = auditEventChanges;
+	}
+
+	// After the partition manager, which may re-create audit_events
+	void onStart(@Observes @Priority(Interceptor.Priority.APPLICATION + 1000) StartupEvent startupEvent) {
+		refresh();
+	}
+
+	@Scheduled(every = "${parasol.audit.aggregates.refresh-interval}", delayed = "${parasol.audit.aggregates.refresh-interval}", concurrentExecution = ConcurrentExecution.SKIP)
+	void scheduledRefresh() {
+		refresh();
+	}
+
+	/**
+	 * Refreshes the buckets which are still open, and the closed hours which events have been committed in since the last refresh
+	 */
+	public void refresh() {
+		var now = Instant.now();
+
+		QuarkusTransaction.requiringNew().run(() -> {
+			this.entityManager.createNativeQuery("SELECT 1 FROM pg_advisory_xact_lock(:key)")
+			                  .setParameter("key", ADVISORY_LOCK_KEY)
+			                  .getSingleResult();
+
+			var metricsFrom = oldestOpenBucket(HOURLY_TABLE_NAME).truncatedTo(ChronoUnit.HOURS);
+			var sketchesFrom = oldestOpenBucket(HOURLY_SKETCH_TABLE_NAME).minus(this.maxInteractionDuration).truncatedTo(ChronoUnit.HOURS);
+
+			for (var hours : closedHours(this.auditEventChanges.takeChangedHours(), metricsFrom)) {
+				Log.debugf("Refreshing audit metrics and sketches for events committed late, from %s to %s", hours.start(), hours.end());
+				refreshMetrics(hours.start(), hours.end());
+				refreshSketches(hours.start().minus(this.maxInteractionDuration), min(hours.end(), sketchesFrom));
+			}
+
+			refreshMetrics(metricsFrom, END_OF_TIME);
+			refreshSketches(sketchesFrom, END_OF_TIME);
+		});
+
+		this.lastRefresh = now;
+	}
+
+	/**
+	 * Recomputes all the buckets from the one containing the given time onwards, in the current transaction
+	 */
+	void refreshFrom(Instant from) {
+		refreshMetrics(from, END_OF_TIME);
+		refreshSketches(from, END_OF_TIME);
+	}
+
+	/**
+	 * The runs of consecutive hours, out of the given (ordered) hours, which are before the given open hour
+	 */
+	static List<AuditDates> closedHours(List<Instant> hours, Instant openFrom) {
+		var runs = new ArrayList<AuditDates>();
+
+		for (var hour : hours) {
+			if (!hour.isBefore(openFrom)) {
+				break;
+			}
+
+			var end = hour.plus(1, ChronoUnit.HOURS);
+
+			if (!runs.isEmpty() && runs.getLast().end().equals(hour)) {
+				runs.set(runs.size() - 1, new AuditDates(runs.getLast().start(), end));
+			}
+			else {
+				runs.add(new AuditDates(hour, end));
+			}
+		}
+
+		return runs;
+	}
+
+	private void refreshMetrics(Instant from, Instant to) {
+		var hourlyFrom = from.truncatedTo(ChronoUnit.HOURS);
+		var dailyFrom = from.truncatedTo(ChronoUnit.DAYS);
+		var dailyTo = endOfDay(to);
+		Log.debugf("Refreshing audit metrics from %s to %s", hourlyFrom, to);
+
+		execute("DELETE FROM %s WHERE bucket_start >= :from AND bucket_start < :to".formatted(HOURLY_TABLE_NAME), hourlyFrom, to);
+		execute(REFRESH_HOURLY_SQL, hourlyFrom, to);
+		execute("DELETE FROM %s WHERE bucket_start >= :from AND bucket_start < :to".formatted(DAILY_TABLE_NAME), dailyFrom, dailyTo);
+		execute(REFRESH_DAILY_SQL, dailyFrom, dailyTo);
+	}
+
+	/**
+	 * Rebuilds the sketches of the buckets containing the given range. The sources are streamed in bucket order
+	 * and each bucket is written as soon as it is complete, so only one bucket's sketches are held at a time.
+	 */
+	private void refreshSketches(Instant from, Instant to) {
+		var hourlyFrom = from.truncatedTo(ChronoUnit.HOURS);
+		var dailyFrom = from.truncatedTo(ChronoUnit.DAYS);
+		var dailyTo = endOfDay(to);
+
+		if (!hourlyFrom.isBefore(to)) {
+			return;
+		}
+
+		Log.debugf("Refreshing audit sketches from %s to %s", hourlyFrom, to);
+
+		execute("DELETE FROM %s WHERE bucket_start >= :from AND bucket_start < :to".formatted(HOURLY_SKETCH_TABLE_NAME), hourlyFrom, to);
+
+		try (Stream<SketchSourceRow> rows = this.entityManager.createNativeQuery(HOURLY_SKETCH_SOURCE_SQL, SketchSourceRow.class)
+		                                                      .setParameter("from", hourlyFrom)
+		                                                      .setParameter("to", to)
+		                                                      .getResultStream()) {
+			var bucket = new SketchBucket(HOURLY_SKETCH_TABLE_NAME);
+
+			rows.forEach(row -> {
+				var sketches = bucket.sketchesFor(row.bucketStart());
+
+				if (row.started()) {
+					sketches.addStartedInteraction(row.inputTokenCount(), row.outputTokenCount(), row.outputGuardrailExecutions(), row.outputGuardrailFailures());
+				}
+				else {
+					sketches.addActiveInteraction(row.interactionId());
+				}
+			});
+
+			bucket.flush();
+		}
+
+		execute("DELETE FROM %s WHERE bucket_start >= :from AND bucket_start < :to".formatted(DAILY_SKETCH_TABLE_NAME), dailyFrom, dailyTo);
+
+		try (Stream<SketchRow> rows = this.entityManager.createNativeQuery("SELECT %s FROM %s WHERE bucket_start >= :from AND bucket_start < :to ORDER BY bucket_start".formatted(SKETCH_COLUMNS, HOURLY_SKETCH_TABLE_NAME), SketchRow.class)
+		                                                .setParameter("from", dailyFrom)
+		                                                .setParameter("to", dailyTo)
+		                                                .getResultStream()) {
+			var bucket = new SketchBucket(DAILY_SKETCH_TABLE_NAME);
+			rows.forEach(row -> bucket.sketchesFor(row.bucketStart().truncatedTo(ChronoUnit.DAYS)).merge(row.toSketches()));
+			bucket.flush();
+		}
+	}
+
+	private Instant oldestOpenBucket(String hourlyTable) {
+		var lastRefresh = this.lastRefresh;
+
+		if (lastRefresh != null) {
+			return lastRefresh.minus(this.config.lateness());
+		}
+
+		// Pick up from where the aggregates left off, or aggregate everything if they are empty
+		var lateBoundary = Instant.now().minus(this.config.lateness());
+
+		return instant("SELECT MAX(bucket_start) FROM %s".formatted(hourlyTable))
+			.or(() -> instant("SELECT MIN(created_on) FROM %s".formatted(AuditPartitionManager.TABLE_NAME)))
+			.filter(start -> start.isBefore(lateBoundary))
+			.orElse(lateBoundary);
+	}
+
+	private Optional<Instant> instant(String query) {
+		return Optional.ofNullable((Instant) this.entityManager.createNativeQuery(query, Instant.class).getSingleResult());
+	}
+
+	private void execute(String sql, Instant from, Instant to) {
+		this.entityManager.createNativeQuery(sql)
+		                  .setParameter("from", from)
+		                  .setParameter("to", to)
+		                  .executeUpdate();
+	}
+
+	// The end of the day containing the last instant before the given one, so that the whole day is recomputed
+	private static Instant endOfDay(Instant to) {
+		var day = to.truncatedTo(ChronoUnit.DAYS);
+
+		return day.equals(to) ?
+		       to :
+		       day.plus(1, ChronoUnit.DAYS);
+	}
+
+	private static Instant min(Instant first, Instant second) {
+		return first.isBefore(second) ?
+		       first :
+		       second;
+	}
+
+	@RegisterForReflection
+	record SketchRow(Instant bucketStart, byte[] interactions, byte[] inputTokens, byte[] outputTokens, byte[] outputGuardrailExecutions, byte[] outputGuardrailFailures) {
+		AuditSketches toSketches() {
+			return AuditSketches.fromBytes(this.interactions, this.inputTokens, this.outputTokens, this.outputGuardrailExecutions, this.outputGuardrailFailures);
+		}
+	}
+
+	@RegisterForReflection
+	private record SketchSourceRow(
+		Instant bucketStart,
+		UUID interactionId,
+		long inputTokenCount,
+		long outputTokenCount,
+		long outputGuardrailExecutions,
+		long outputGuardrailFailures,
+		boolean started
+	) {}
+
+	/**
+	 * The sketches of the bucket currently being built, written out when the rows move on to the next bucket
+	 */
+	private final class SketchBucket {
+		private final String table;
+		private Instant bucketStart;
+		private AuditSketches sketches;
+
+		private SketchBucket(String table) {
+			this.table = table;
+		}
+
+		AuditSketches sketchesFor(Instant bucketStart) {
+			if (!bucketStart.equals(this.bucketStart)) {
+				flush();
+				this.bucketStart = bucketStart;
+				this.sketches = new AuditSketches();
+			}
+
+			return this.sketches;
+		}
+
+		void flush() {
+			if (this.sketches == null) {
+				return;
+			}
+
+			entityManager.createNativeQuery(INSERT_SKETCH_SQL.formatted(this.table, SKETCH_COLUMNS))
+			             .setParameter("bucket_start", this.bucketStart)
+			             .setParameter("interactions", this.sketches.interactions().toBytes())
+			             .setParameter("input_tokens", this.sketches.inputTokens().toBytes())
+			             .setParameter("output_tokens", this.sketches.outputTokens().toBytes())
+			             .setParameter("output_guardrail_executions", this.sketches.outputGuardrailExecutions().toBytes())
+			             .setParameter("output_guardrail_failures", this.sketches.outputGuardrailFailures().toBytes())
+			             .executeUpdate();
+
+			this.sketches = null;
+		}
+	}
+}
@@ -0,0 +1,323 @@
+package org.parasol.repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.persistence.EntityManager;
+
+import org.parasol.config.AuditConfig;
+
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import io.quarkus.scheduler.Scheduled.ConcurrentExecution;
+
+/**
+ * Keeps the {@code audit_events} table range partitioned by month on {@code created_on}.
+ * <p>
+ * Hibernate creates {@code audit_events} as a regular table, so on startup the table is converted to a partitioned table.
+ * Any rows already in it aren't copied: the table itself is attached as a single partition, holding everything up to the end of
+ * the month of its newest row. After that partitions are created ahead of time for upcoming months, and when a retention period
+ * is configured, partitions which are entirely older than that are dropped rather than deleting rows.
+ * </p>
+ * <p>
+ * Rows outside of every partition go to the default partition. Postgres won't create a partition for a month the default
+ * partition has rows for, so those rows are moved into the month's partition as it is created. Each partition is created
+ * in its own transaction, so that one which can't be created doesn't hold up the others, or the retention.
+ * </p>
+ */
+@ApplicationScoped
+public class AuditPartitionManager {
+	static final String TABLE_NAME = "audit_events";
+	static final String DEFAULT_PARTITION_NAME = TABLE_NAME + "_default";
+
+	private static final Pattern PARTITION_NAME_PATTERN = Pattern.compile("^" + TABLE_NAME + "_p(\\d{4})_(\\d{2})$");
+	private static final Pattern BEFORE_PARTITION_NAME_PATTERN = Pattern.compile("^" + TABLE_NAME + "_before_p(\\d{4})_(\\d{2})$");
+	private static final DateTimeFormatter PARTITION_SUFFIX_FORMATTER = DateTimeFormatter.ofPattern("'p'yyyy_MM");
+
+	// Arbitrary key so that multiple instances of the app don't try to maintain the partitions at the same time
+	private static final long ADVISORY_LOCK_KEY = 0x706172617375L;
+
+	// The (created_on, id) indexes are for keyset paging, optionally filtered down by the leading columns
+	private static final Map<String, String> INDEXES = Map.of(
+		TABLE_NAME + "_created_on_id_idx", "created_on, id",
+		TABLE_NAME + "_interaction_id_idx", "interaction_id",
+		TABLE_NAME + "_event_type_created_on_id_idx", "event_type, created_on, id",
+		TABLE_NAME + "_interface_method_created_on_id_idx", "interface_name, method_name, created_on, id",
+		TABLE_NAME + "_model_name_created_on_id_idx", "model_name, created_on, id",
+		TABLE_NAME + "_guardrail_class_created_on_id_idx", "guardrail_class, created_on, id"
+	);
+
+	// The partition key has to be part of a unique index, which is fine as an event's key and creation time never change
+	private static final Map<String, String> UNIQUE_INDEXES = Map.of(
+		TABLE_NAME + "_event_key_created_on_idx", "event_key, created_on"
+	);
+
+	private static final String IS_PARTITIONED_QUERY = """
+		SELECT EXISTS (
+			SELECT 1
+			FROM pg_partitioned_table pt
+			JOIN pg_class c ON c.oid = pt.partrelid
+			WHERE c.relname = :table_name
+			AND pg_table_is_visible(c.oid)
+		)
+		""";
+
+	private static final String PARTITION_NAMES_QUERY = """
+		SELECT c.relname
+		FROM pg_inherits i
+		JOIN pg_class c ON c.oid = i.inhrelid
+		JOIN pg_class p ON p.oid = i.inhparent
+		WHERE p.relname = :table_name
+		AND pg_table_is_visible(p.oid)
+		""";
+
+	private final AuditConfig.Partitioning config;
+	private final EntityManager entityManager;
+	private final InteractionRollupManager interactionRollupManager;
+	private final AuditResponseCache auditResponseCache;
+
+	public AuditPartitionManager(AuditConfig auditConfig, EntityManager entityManager, InteractionRollupManager interactionRollupManager, AuditResponseCache auditResponseCache) {
+		this.config = auditConfig.partitioning();
+		this.entityManager = entityManager;
+		this.interactionRollupManager = interactionRollupManager;
+		this.auditResponseCache = auditResponseCache;
+	}
+
+	void onStart(@Observes StartupEvent startupEvent) {
+		maintainPartitions();
+	}
+
+	@Scheduled(every = "${parasol.audit.partitioning.maintenance-interval}", delayed = "${parasol.audit.partitioning.maintenance-interval}", concurrentExecution = ConcurrentExecution.SKIP)
+	void scheduledMaintenance() {
+		maintainPartitions();
+	}
+
+	/**
+	 * Converts the table to a partitioned table if needed, creates upcoming partitions, and drops expired ones
+	 */
+	public void maintainPartitions() {
+		if (!this.config.enabled()) {
+			return;
+		}
+
+		var partitionNames = inLockedTransaction(() -> {
+			if (!isPartitioned()) {
+				convertToPartitionedTable();
+			}
+
+			createIndexes();
+			return getPartitionNames();
+		});
+
+		createUpcomingPartitions(partitionNames);
+		this.config.retention().ifPresent(retention -> inLockedTransaction(() -> dropExpiredPartitions(retention)));
+	}
+
+	/**
+	 * The name of the partition holding events for the given month
+	 */
+	static String partitionName(YearMonth month) {
+		return TABLE_NAME + "_" + PARTITION_SUFFIX_FORMATTER.format(month);
+	}
+
+	/**
+	 * The month whose partition has the given name, or empty if it isn't a monthly partition
+	 */
+	static Optional<YearMonth> partitionMonth(String partitionName) {
+		return month(PARTITION_NAME_PATTERN, partitionName);
+	}
+
+	/**
+	 * The name of the partition holding the events which were already there when the table was partitioned,
+	 * which are all before the given month
+	 */
+	static String beforePartitionName(YearMonth end) {
+		return TABLE_NAME + "_before_" + PARTITION_SUFFIX_FORMATTER.format(end);
+	}
+
+	/**
+	 * The month the events of the partition with the given name are all before, or empty if it is a monthly or the default partition
+	 */
+	static Optional<YearMonth> beforePartitionEnd(String partitionName) {
+		return month(BEFORE_PARTITION_NAME_PATTERN, partitionName);
+	}
+
+	private static Optional<YearMonth> month(Pattern pattern, String partitionName) {
+		var matcher = pattern.matcher(partitionName);
+
+		return matcher.matches() ?
+		       Optional.of(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)))) :
+		       Optional.empty();
+	}
+
+	private boolean isPartitioned() {
+		return (Boolean) this.entityManager.createNativeQuery(IS_PARTITIONED_QUERY, Boolean.class)
+		                                   .setParameter("table_name", TABLE_NAME)
+		                                   .getSingleResult();
+	}
+
+	private void convertToPartitionedTable() {
+		var newest = (Instant) this.entityManager.createNativeQuery("SELECT MAX(created_on) FROM %s".formatted(TABLE_NAME), Instant.class)
+		                                         .getSingleResult();
+		var existing = (newest != null) ?
+		               beforePartitionName(YearMonth.from(newest.atOffset(ZoneOffset.UTC)).plusMonths(1)) :
+		               TABLE_NAME + "_unpartitioned";
+
+		Log.infof("Converting %s to a partitioned table", TABLE_NAME);
+
+		// The existing table's indexes are renamed after it, freeing their names for the partitioned table's indexes
+		execute("ALTER TABLE %s RENAME TO %s".formatted(TABLE_NAME, existing));
+		execute("ALTER TABLE %s DROP CONSTRAINT %s_pkey".formatted(existing, TABLE_NAME));
+		Stream.concat(INDEXES.keySet().stream(), UNIQUE_INDEXES.keySet().stream())
+		      .forEach(name -> execute("ALTER INDEX IF EXISTS %s RENAME TO %s".formatted(name, existing + name.substring(TABLE_NAME.length()))));
+
+		// A partition can't have a trigger with transition tables. The rollup's trigger is re-created on the partitioned table.
+		execute("DROP TRIGGER IF EXISTS %s ON %s".formatted(InteractionRollupManager.TRIGGER_NAME, existing));
+
+		execute("CREATE TABLE %s (LIKE %s INCLUDING DEFAULTS INCLUDING CONSTRAINTS INCLUDING STORAGE) PARTITION BY RANGE (created_on)".formatted(TABLE_NAME, existing));
+
+		// The partition key has to be part of the primary key
+		execute("ALTER TABLE %s ADD PRIMARY KEY (id, created_on)".formatted(TABLE_NAME));
+
+		// Safety net for any rows outside of the monthly partitions
+		execute("CREATE TABLE IF NOT EXISTS %s PARTITION OF %s DEFAULT".formatted(DEFAULT_PARTITION_NAME, TABLE_NAME));
+		createIndexes();
+
+		if (newest == null) {
+			execute("DROP TABLE %s".formatted(existing));
+			return;
+		}
+
+		// Attached as it is rather than copied, so the lock is only held while it is checked against the range and its
+		// primary key index is built. Its other indexes are the same as the partitioned table's, so they are attached as they are.
+		Log.infof("Attaching the existing audit events as the partition %s", existing);
+		var end = beforePartitionEnd(existing).orElseThrow().atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+		execute("ALTER TABLE %s ATTACH PARTITION %s FOR VALUES FROM (MINVALUE) TO ('%s')".formatted(TABLE_NAME, existing, end));
+	}
+
+	/**
+	 * Creates the indexes of the partitioned table, which are created on every partition.
+	 * Kept in line with the indexes on {@link org.parasol.model.audit.AuditEvent}, which Hibernate creates on the regular table.
+	 */
+	private void createIndexes() {
+		// Superseded by the (created_on, id) index
+		execute("DROP INDEX IF EXISTS %s_created_on_idx".formatted(TABLE_NAME));
+
+		INDEXES.forEach((name, columns) -> execute("CREATE INDEX IF NOT EXISTS %s ON %s (%s)".formatted(name, TABLE_NAME, columns)));
+		UNIQUE_INDEXES.forEach((name, columns) -> execute("CREATE UNIQUE INDEX IF NOT EXISTS %s ON %s (%s)".formatted(name, TABLE_NAME, columns)));
+	}
+
+	// Months held by the partition of the events from before the table was partitioned are skipped
+	private void createUpcomingPartitions(List<String> partitionNames) {
+		var currentMonth = YearMonth.now(ZoneOffset.UTC);
+		var firstMonth = partitionNames.stream()
+		                               .flatMap(partitionName -> beforePartitionEnd(partitionName).stream())
+		                               .max(Comparator.naturalOrder())
+		                               .filter(end -> end.isAfter(currentMonth))
+		                               .orElse(currentMonth);
+
+		for (var month = firstMonth; !month.isAfter(currentMonth.plusMonths(this.config.premakeMonths())); month = month.plusMonths(1)) {
+			var partitionMonth = month;
+
+			if (!partitionNames.contains(partitionName(month))) {
+				try {
+					inLockedTransaction(() -> createPartition(partitionMonth));
+				}
+				catch (RuntimeException e) {
+					Log.errorf(e, "Unable to create the audit event partition %s. Will try again at the next maintenance", partitionName(month));
+				}
+			}
+		}
+	}
+
+	private void createPartition(YearMonth month) {
+		var partitionName = partitionName(month);
+		var from = month.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+		var to = month.plusMonths(1).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+		var range = "created_on >= '%s' AND created_on < '%s'".formatted(from, to);
+
+		var inDefaultPartition = (Boolean) this.entityManager.createNativeQuery("SELECT EXISTS (SELECT 1 FROM %s WHERE %s)".formatted(DEFAULT_PARTITION_NAME, range), Boolean.class)
+		                                                     .getSingleResult();
+
+		if (!inDefaultPartition) {
+			execute("CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')".formatted(partitionName, TABLE_NAME, from, to));
+			return;
+		}
+
+		// Moved into the new table before it is attached, which then only has to check that the default partition no longer has them.
+		// They don't go through the partitioned table, so they aren't rolled up again.
+		Log.infof("Moving the audit events for %s out of %s into the new partition %s", month, DEFAULT_PARTITION_NAME, partitionName);
+		execute("CREATE TABLE %s (LIKE %s INCLUDING DEFAULTS INCLUDING CONSTRAINTS INCLUDING STORAGE)".formatted(partitionName, TABLE_NAME));
+		execute("INSERT INTO %s SELECT * FROM %s WHERE %s".formatted(partitionName, DEFAULT_PARTITION_NAME, range));
+		execute("DELETE FROM %s WHERE %s".formatted(DEFAULT_PARTITION_NAME, range));
+		execute("ALTER TABLE %s ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')".formatted(TABLE_NAME, partitionName, from, to));
+	}
+
+	private void dropExpiredPartitions(Duration retention) {
+		var cutoff = Instant.now().minus(retention);
+
+		getPartitionNames().stream()
+			.flatMap(partitionName ->
+				partitionMonth(partitionName)
+					.map(month -> month.plusMonths(1))
+					.or(() -> beforePartitionEnd(partitionName))
+					.map(end -> end.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC))
+					.filter(monthEnd -> !monthEnd.isAfter(cutoff))
+					.map(monthEnd -> {
+						Log.infof("Dropping audit event partition %s (older than %s)", partitionName, cutoff);
+						execute("DROP TABLE IF EXISTS %s".formatted(partitionName));
+						return monthEnd;
+					})
+					.stream()
+			)
+			.max(Comparator.naturalOrder())
+			// The rollup of the interactions in the dropped partitions goes with them, as do any responses computed from them
+			.ifPresent(droppedBefore -> {
+				this.interactionRollupManager.deleteBefore(droppedBefore);
+				this.auditResponseCache.invalidateAll();
+			});
+	}
+
+	private List<String> getPartitionNames() {
+		return this.entityManager.createNativeQuery(PARTITION_NAMES_QUERY, String.class)
+		                         .setParameter("table_name", TABLE_NAME)
+		                         .getResultList();
+	}
+
+	// In a transaction of its own, holding the lock which keeps other instances from maintaining the partitions at the same time
+	private <T> T inLockedTransaction(Supplier<T> work) {
+		return QuarkusTransaction.requiringNew().call(() -> {
+			this.entityManager.createNativeQuery("SELECT 1 FROM pg_advisory_xact_lock(:key)")
+			                  .setParameter("key", ADVISORY_LOCK_KEY)
+			                  .getSingleResult();
+
+			return work.get();
+		});
+	}
+
+	private void inLockedTransaction(Runnable work) {
+		inLockedTransaction(() -> {
+			work.run();
+			return null;
+		});
+	}
+
+	private void execute(String sql) {
+		Log.debugf("Executing: %s", sql);
+		this.entityManager.createNativeQuery(sql).executeUpdate();
+	}
+}
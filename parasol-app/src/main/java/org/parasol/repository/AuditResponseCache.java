@@ -0,0 +1,137 @@
+package org.parasol.repository;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import org.parasol.config.AuditConfig;
+import org.parasol.model.audit.AuditDates;
+
+/**
+ * Caches the (JSON) responses of the audit analytics endpoints, which dashboards ask for over and over with the same windows.
+ * <p>
+ * Each response is versioned by the {@link AuditEventChanges#version() version of the audit events} when it was computed,
+ * which goes up as events are committed, even late ones. Responses for windows which ended more than
+ * {@link AuditConfig.ResponseCache#sealAfter()} ago can no longer change, so they are served from the cache as is.
+ * Responses for other windows are only served while no new events have been committed since they were computed.
+ * The version also serves as the ETag, so clients can tell when a response hasn't changed.
+ * </p>
+ * <p>
+ * The cache holds at most {@link AuditConfig.ResponseCache#maxEntries()} responses, taking up at most
+ * {@link AuditConfig.ResponseCache#maxSize()} between them, evicting the least recently used first.
+ * </p>
+ */
+@ApplicationScoped
+public class AuditResponseCache {
+	private final AuditConfig.ResponseCache config;
+	private final long maxSize;
+	private final Clock clock;
+	private final LongSupplier latestVersion;
+	private final Map<Object, CachedResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long size;
+
+	@Inject
+	public AuditResponseCache(AuditConfig auditConfig, AuditEventChanges auditEventChanges) {
+		this(auditConfig, Clock.systemUTC(), auditEventChanges::version);
+	}
+
+	AuditResponseCache(AuditConfig auditConfig, Clock clock, LongSupplier latestVersion) {
+		this.config = auditConfig.responseCache();
+		this.maxSize = this.config.maxSize().asLongValue();
+		this.clock = clock;
+		this.latestVersion = latestVersion;
+	}
+
+	/**
+	 * Widens the window to whole minutes, so that requests for windows ending "now" share a response for up to a minute
+	 */
+	public static AuditDates normalize(Optional<Instant> start, Optional<Instant> end) {
+		var auditDates = AuditDates.from(start, end);
+		var normalizedEnd = auditDates.end().truncatedTo(ChronoUnit.MINUTES);
+
+		return new AuditDates(
+			auditDates.start().truncatedTo(ChronoUnit.MINUTES),
+			normalizedEnd.equals(auditDates.end()) ? normalizedEnd : normalizedEnd.plus(1, ChronoUnit.MINUTES)
+		);
+	}
+
+	/**
+	 * Gets the response for the key (which must include the normalized window), computing it if there isn't an up to date one
+	 */
+	public CachedResponse get(Object key, AuditDates window, Supplier<byte[]> loader) {
+		var cached = this.config.enabled() ?
+		             lookup(key) :
+		             null;
+
+		if ((cached != null) && isSealed(window)) {
+			return cached;
+		}
+
+		// Read before loading so a response is never newer than its version, only older (which just means it is recomputed sooner)
+		var version = this.latestVersion.getAsLong();
+
+		if ((cached != null) && (cached.version() == version)) {
+			return cached;
+		}
+
+		var response = new CachedResponse(loader.get(), version);
+
+		if (this.config.enabled()) {
+			put(key, response);
+		}
+
+		return response;
+	}
+
+	/**
+	 * Drops all the cached responses. Used when events are deleted, which can change even sealed windows.
+	 */
+	public void invalidateAll() {
+		synchronized (this.entries) {
+			this.entries.clear();
+			this.size = 0;
+		}
+	}
+
+	private CachedResponse lookup(Object key) {
+		synchronized (this.entries) {
+			return this.entries.get(key);
+		}
+	}
+
+	private void put(Object key, CachedResponse response) {
+		// Too big to cache without evicting most of the others
+		if (response.body().length > this.maxSize) {
+			return;
+		}
+
+		synchronized (this.entries) {
+			var replaced = this.entries.put(key, response);
+			this.size += response.body().length - ((replaced != null) ? replaced.body().length : 0);
+
+			var eldest = this.entries.values().iterator();
+
+			while ((this.size > this.maxSize) || (this.entries.size() > this.config.maxEntries())) {
+				this.size -= eldest.next().body().length;
+				eldest.remove();
+			}
+		}
+	}
+
+	private boolean isSealed(AuditDates window) {
+		return window.end().isBefore(this.clock.instant().minus(this.config.sealAfter()));
+	}
+
+	/**
+	 * A response body along with the version of the audit events when it was computed
+	 */
+	public record CachedResponse(byte[] body, long version) {}
+}
@@ -0,0 +1,91 @@
+package org.parasol.repository;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.parasol.model.audit.AuditEvent;
+import org.parasol.model.audit.AuditText;
+import org.parasol.model.audit.CompressedTextConverter;
+
+/**
+ * Stores the {@link AuditText texts} referenced by audit events so that each distinct text is only written once.
+ * <p>
+ * Lookups go through the second-level cache first, so texts which are seen over and over (system messages, for example)
+ * don't cost a round trip to the database.
+ * </p>
+ * <p>
+ * New texts are inserted with {@code ON CONFLICT DO NOTHING}, so two transactions storing the same new text at the
+ * same time don't fail on the primary key: since the hash is of the content, whichever row wins is the same text.
+ * </p>
+ */
+@ApplicationScoped
+public class AuditTextStore {
+	private static final String INSERT_TEXT_SQL = "INSERT INTO audit_texts (hash, content) VALUES (:hash, :content) ON CONFLICT (hash) DO NOTHING";
+
+	// Inserting a text never changes a cached one, so nothing needs invalidating. Without a query space Hibernate would clear every cache region.
+	private static final String NO_QUERY_SPACE = "audit_texts_insert";
+
+	private final EntityManager entityManager;
+	private final CompressedTextConverter textConverter;
+
+	public AuditTextStore(EntityManager entityManager, CompressedTextConverter textConverter) {
+		this.entityManager = entityManager;
+		this.textConverter = textConverter;
+	}
+
+	/**
+	 * Points the texts of the given event at their stored copies, storing any that haven't been seen before.
+	 * Must be called within the transaction that persists the event.
+	 */
+	public void intern(AuditEvent auditEvent) {
+		auditEvent.internTexts(this::intern);
+	}
+
+	/**
+	 * Finds the texts with the given hashes, keyed by hash
+	 */
+	public Map<String, String> findAll(Collection<String> hashes) {
+		var distinctHashes = hashes.stream()
+		                           .filter(Objects::nonNull)
+		                           .distinct()
+		                           .toList();
+
+		if (distinctHashes.isEmpty()) {
+			return Map.of();
+		}
+
+		return this.entityManager.unwrap(Session.class)
+		                         .findMultiple(AuditText.class, distinctHashes)
+		                         .stream()
+		                         .filter(Objects::nonNull)
+		                         .collect(Collectors.toMap(AuditText::getHash, AuditText::getContent));
+	}
+
+	private AuditText intern(AuditText auditText) {
+		if (auditText == null) {
+			return null;
+		}
+
+		var existing = this.entityManager.find(AuditText.class, auditText.getHash());
+
+		if (existing != null) {
+			return existing;
+		}
+
+		this.entityManager.createNativeQuery(INSERT_TEXT_SQL)
+		                  .unwrap(NativeQuery.class)
+		                  .addSynchronizedQuerySpace(NO_QUERY_SPACE)
+		                  .setParameter("hash", auditText.getHash())
+		                  .setParameter("content", this.textConverter.convertToDatabaseColumn(auditText.getContent()))
+		                  .executeUpdate();
+
+		return this.entityManager.getReference(AuditText.class, auditText.getHash());
+	}
+}
@@ -0,0 +1,261 @@
+package org.parasol.repository;
+
+import java.time.Instant;
+
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.interceptor.Interceptor;
+import jakarta.persistence.EntityManager;
+
+import org.parasol.config.AuditConfig;
+import org.parasol.model.audit.InteractionRollup;
+
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+
+/**
+ * Keeps the {@code interaction_rollup} table ({@link InteractionRollup}) in line with the {@code audit_events} table.
+ * <p>
+ * A statement-level trigger on {@code audit_events} aggregates the inserted rows by interaction and upserts them into the rollup,
+ * so it doesn't matter which sink wrote the events. Aggregating per statement means a {@code COPY} of many events
+ * only touches each interaction's rollup row once.
+ * </p>
+ * <p>
+ * The latencies are derived from when the events were written. Tool and guardrail execution times are the time between each
+ * of those events and the event before it in the interaction (the response asking for the tool, or the request or response
+ * being checked), so they assume an interaction's events are written in order. The event before is only looked for within
+ * the {@link AuditConfig#maxInteractionDuration()} before each event, so that finding it only reads the partitions which can
+ * hold it, rather than every partition of the interaction's events.
+ * </p>
+ * <p>
+ * The trigger is lost whenever {@code audit_events} is re-created (by Hibernate or when it is converted to a partitioned table),
+ * so on startup, if the trigger is missing, the rollup is rebuilt from the events already there before the trigger is re-created.
+ * </p>
+ */
+@ApplicationScoped
+public class InteractionRollupManager {
+	static final String TABLE_NAME = "interaction_rollup";
+	static final String TRIGGER_NAME = TABLE_NAME + "_on_insert";
+
+	// Arbitrary key so that multiple instances of the app don't try to rebuild the rollup at the same time
+	private static final long ADVISORY_LOCK_KEY = 0x726f6c6c7570L;
+
+	private static final String COLUMNS = """
+		interaction_id,
+		interaction_date,
+		last_event_on,
+		num_llm_failures,
+		total_output_guardrail_executions,
+		total_output_guardrail_failures,
+		input_token_count,
+		output_token_count,
+		status,
+		system_message,
+		system_message_hash,
+		user_message,
+		user_message_hash,
+		result,
+		result_hash,
+		error_message,
+		cause_error_message,
+		interface_name,
+		method_name,
+		started_on,
+		first_response_on,
+		ended_on,
+		tool_execution_millis,
+		guardrail_execution_millis
+		""";
+
+	private static final String AGGREGATE_QUERY_TEMPLATE = """
+		SELECT
+			interaction_id,
+			MIN(created_on),
+			MAX(created_on),
+			COUNT(*) FILTER (WHERE event_type = 'SERVICE_ERROR'),
+			COUNT(*) FILTER (WHERE event_type = 'OUTPUT_GUARDRAIL_EXECUTED'),
+			COUNT(*) FILTER (WHERE event_type = 'OUTPUT_GUARDRAIL_EXECUTED' AND guardrail_result IN ('FATAL', 'FAILURE')),
+			COALESCE(SUM(input_token_count), 0),
+			COALESCE(SUM(output_token_count), 0),
+			CASE
+				WHEN BOOL_OR(event_type = 'SERVICE_ERROR') THEN 'FAILURE'
+				WHEN BOOL_OR(event_type = 'SERVICE_COMPLETED') THEN 'SUCCESS'
+				ELSE 'UNKNOWN'
+			END,
+			MAX(system_message) FILTER (WHERE event_type = 'SERVICE_STARTED'),
+			MAX(system_message_hash) FILTER (WHERE event_type = 'SERVICE_STARTED'),
+			MAX(user_message) FILTER (WHERE event_type = 'SERVICE_STARTED'),
+			MAX(user_message_hash) FILTER (WHERE event_type = 'SERVICE_STARTED'),
+			MAX(result) FILTER (WHERE event_type = 'SERVICE_COMPLETED'),
+			MAX(result_hash) FILTER (WHERE event_type = 'SERVICE_COMPLETED'),
+			MAX(error_message) FILTER (WHERE event_type = 'SERVICE_ERROR'),
+			MAX(cause_error_message) FILTER (WHERE event_type = 'SERVICE_ERROR'),
+			MAX(interface_name),
+			MAX(method_name),
+			MIN(created_on) FILTER (WHERE event_type = 'SERVICE_STARTED'),
+			MIN(created_on) FILTER (WHERE event_type = 'RESPONSE_RECEIVED'),
+			MAX(created_on) FILTER (WHERE event_type IN ('SERVICE_COMPLETED', 'SERVICE_ERROR')),
+			SUM(step_millis) FILTER (WHERE event_type = 'TOOL_EXECUTED'),
+			SUM(step_millis) FILTER (WHERE event_type IN ('INPUT_GUARDRAIL_EXECUTED', 'OUTPUT_GUARDRAIL_EXECUTED'))
+		FROM (
+			SELECT
+				e.*,
+				CASE
+					WHEN e.event_type IN ('TOOL_EXECUTED', 'INPUT_GUARDRAIL_EXECUTED', 'OUTPUT_GUARDRAIL_EXECUTED') THEN (
+						SELECT (EXTRACT(EPOCH FROM e.created_on - MAX(p.created_on)) * 1000)::bigint
+						FROM %2$s p
+						WHERE p.interaction_id = e.interaction_id
+						AND p.created_on < e.created_on
+						AND p.created_on >= e.created_on - INTERVAL '%3$d seconds'
+					)
+				END AS step_millis
+			FROM %1$s e
+		) e
+		WHERE interaction_id IS NOT NULL
+		GROUP BY interaction_id
+		""";
+
+	private static final String REBUILD_SQL_TEMPLATE = "INSERT INTO %s (%s) %s";
+
+	private static final String UPSERT_SQL_TEMPLATE = """
+		INSERT INTO %s AS r (%s)
+		%s
+		ON CONFLICT (interaction_id) DO UPDATE SET
+			interaction_date = LEAST(r.interaction_date, EXCLUDED.interaction_date),
+			last_event_on = GREATEST(r.last_event_on, EXCLUDED.last_event_on),
+			num_llm_failures = r.num_llm_failures + EXCLUDED.num_llm_failures,
+			total_output_guardrail_executions = r.total_output_guardrail_executions + EXCLUDED.total_output_guardrail_executions,
+			total_output_guardrail_failures = r.total_output_guardrail_failures + EXCLUDED.total_output_guardrail_failures,
+			input_token_count = r.input_token_count + EXCLUDED.input_token_count,
+			output_token_count = r.output_token_count + EXCLUDED.output_token_count,
+			status = CASE
+				WHEN 'FAILURE' IN (r.status, EXCLUDED.status) THEN 'FAILURE'
+				WHEN 'SUCCESS' IN (r.status, EXCLUDED.status) THEN 'SUCCESS'
+				ELSE 'UNKNOWN'
+			END,
+			system_message = COALESCE(r.system_message, EXCLUDED.system_message),
+			system_message_hash = COALESCE(r.system_message_hash, EXCLUDED.system_message_hash),
+			user_message = COALESCE(r.user_message, EXCLUDED.user_message),
+			user_message_hash = COALESCE(r.user_message_hash, EXCLUDED.user_message_hash),
+			result = COALESCE(r.result, EXCLUDED.result),
+			result_hash = COALESCE(r.result_hash, EXCLUDED.result_hash),
+			error_message = COALESCE(r.error_message, EXCLUDED.error_message),
+			cause_error_message = COALESCE(r.cause_error_message, EXCLUDED.cause_error_message),
+			interface_name = COALESCE(r.interface_name, EXCLUDED.interface_name),
+			method_name = COALESCE(r.method_name, EXCLUDED.method_name),
+			started_on = LEAST(r.started_on, EXCLUDED.started_on),
+			first_response_on = LEAST(r.first_response_on, EXCLUDED.first_response_on),
+			ended_on = GREATEST(r.ended_on, EXCLUDED.ended_on),
+			tool_execution_millis = COALESCE(r.tool_execution_millis + EXCLUDED.tool_execution_millis, r.tool_execution_millis, EXCLUDED.tool_execution_millis),
+			guardrail_execution_millis = COALESCE(r.guardrail_execution_millis + EXCLUDED.guardrail_execution_millis, r.guardrail_execution_millis, EXCLUDED.guardrail_execution_millis)
+		""";
+
+	private static final String CREATE_FUNCTION_SQL_TEMPLATE = """
+		CREATE OR REPLACE FUNCTION %s() RETURNS trigger LANGUAGE plpgsql AS $$
+		BEGIN
+			%s;
+			RETURN NULL;
+		END
+		$$
+		""";
+
+	private static final String CREATE_TRIGGER_SQL = """
+		CREATE TRIGGER %s
+		AFTER INSERT ON %s
+		REFERENCING NEW TABLE AS new_events
+		FOR EACH STATEMENT
+		EXECUTE FUNCTION %s()
+		""".formatted(TRIGGER_NAME, AuditPartitionManager.TABLE_NAME, TRIGGER_NAME);
+
+	private static final String TRIGGER_EXISTS_QUERY = """
+		SELECT EXISTS (
+			SELECT 1
+			FROM pg_trigger t
+			JOIN pg_class c ON c.oid = t.tgrelid
+			WHERE c.relname = :table_name
+			AND t.tgname = :trigger_name
+			AND pg_table_is_visible(c.oid)
+		)
+		""";
+
+	private final EntityManager entityManager;
+	private final String rebuildSql;
+	private final String createFunctionSql;
+
+	public InteractionRollupManager(AuditConfig auditConfig, EntityManager entityManager) {
+		this.entityManager = entityManager;
+
+		var maxStepSeconds = auditConfig.maxInteractionDuration().toSeconds();
+		this.rebuildSql = REBUILD_SQL_TEMPLATE.formatted(
+			TABLE_NAME,
+			COLUMNS,
+			AGGREGATE_QUERY_TEMPLATE.formatted(AuditPartitionManager.TABLE_NAME, AuditPartitionManager.TABLE_NAME, maxStepSeconds)
+		);
+		this.createFunctionSql = CREATE_FUNCTION_SQL_TEMPLATE.formatted(
+			TRIGGER_NAME,
+			UPSERT_SQL_TEMPLATE.formatted(
+				TABLE_NAME,
+				COLUMNS,
+				AGGREGATE_QUERY_TEMPLATE.formatted("new_events", AuditPartitionManager.TABLE_NAME, maxStepSeconds)
+			)
+		);
+	}
+
+	// After the partition manager, which may re-create audit_events
+	void onStart(@Observes @Priority(Interceptor.Priority.APPLICATION + 1000) StartupEvent startupEvent) {
+		installTrigger();
+	}
+
+	/**
+	 * Makes sure the trigger maintaining the rollup exists, rebuilding the rollup if it didn't
+	 */
+	public void installTrigger() {
+		QuarkusTransaction.requiringNew().run(() -> {
+			this.entityManager.createNativeQuery("SELECT 1 FROM pg_advisory_xact_lock(:key)")
+			                  .setParameter("key", ADVISORY_LOCK_KEY)
+			                  .getSingleResult();
+
+			// Keyset paging reads pages straight off this index, and the stats averages are read from it alone
+			execute("DROP INDEX IF EXISTS %s_interaction_date_idx".formatted(TABLE_NAME));
+			execute("CREATE INDEX IF NOT EXISTS %s_interaction_date_id_idx ON %s (interaction_date, interaction_id) INCLUDE (total_output_guardrail_executions, total_output_guardrail_failures)".formatted(TABLE_NAME, TABLE_NAME));
+			// Replaced every time, so that it picks up a change to the max interaction duration
+			execute(this.createFunctionSql);
+
+			if (!triggerExists()) {
+				Log.infof("Rebuilding %s from %s", TABLE_NAME, AuditPartitionManager.TABLE_NAME);
+
+				// Hold off writers so no events are missed between the rebuild and the trigger being created
+				execute("LOCK TABLE %s IN SHARE ROW EXCLUSIVE MODE".formatted(AuditPartitionManager.TABLE_NAME));
+				execute("DELETE FROM %s".formatted(TABLE_NAME));
+				execute(this.rebuildSql);
+				execute(CREATE_TRIGGER_SQL);
+			}
+		});
+	}
+
+	/**
+	 * Deletes the rollup of interactions which started before the given time.
+	 * Used when the events themselves have been dropped.
+	 */
+	public void deleteBefore(Instant cutoff) {
+		var deleted = this.entityManager.createNativeQuery("DELETE FROM %s WHERE interaction_date < :cutoff".formatted(TABLE_NAME))
+		                                .setParameter("cutoff", cutoff)
+		                                .executeUpdate();
+
+		Log.infof("Deleted %d rows from %s (older than %s)", deleted, TABLE_NAME, cutoff);
+	}
+
+	private boolean triggerExists() {
+		return (Boolean) this.entityManager.createNativeQuery(TRIGGER_EXISTS_QUERY, Boolean.class)
+		                                   .setParameter("table_name", AuditPartitionManager.TABLE_NAME)
+		                                   .setParameter("trigger_name", TRIGGER_NAME)
+		                                   .getSingleResult();
+	}
+
+	private void execute(String sql) {
+		Log.debugf("Executing: %s", sql);
+		this.entityManager.createNativeQuery(sql).executeUpdate();
+	}
+}
@@ -0,0 +1,181 @@
+package org.parasol.repository;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+
+import org.parasol.config.AuditConfig;
+import org.parasol.model.audit.AuditDates;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+
+import io.agroal.api.AgroalDataSource;
+
+/**
+ * Runs a query over a range of {@link AuditDates} as consecutive slices of the range, concurrently, each in its own transaction
+ * (and so on its own connection). The results come back in the order of the slices for the caller to merge.
+ * <p>
+ * A range is split into at most {@link AuditConfig.Query#parallelism()} slices, none shorter than {@link AuditConfig.Query#minSliceDuration()}.
+ * Slices don't overlap: Postgres timestamps have microsecond precision, so each slice ends a microsecond before the next one starts
+ * and the queries can keep using {@code BETWEEN}.
+ * </p>
+ * <p>
+ * The slices after the first run on a dedicated pool of {@link AuditConfig.Query#maxConcurrentSlices()} threads, which is
+ * also the most slices running at once across all the requests, so that they can't use up the datasource's connections
+ * (or the worker threads the requests themselves run on). Slices which can't get a thread straight away run on the calling
+ * thread after the first, one after another.
+ * </p>
+ * <p>
+ * When the caller is already in a transaction, the slices run one after another in that transaction instead,
+ * since it may hold writes which other connections can't see.
+ * </p>
+ */
+@ApplicationScoped
+public class SlicedQueryExecutor {
+	private final AuditConfig.Query config;
+	private final Semaphore permits;
+	private final ExecutorService executor;
+
+	@Inject
+	public SlicedQueryExecutor(AuditConfig auditConfig, AgroalDataSource dataSource) {
+		this(auditConfig, maxConcurrentSlices(auditConfig.query().maxConcurrentSlices(), dataSource.getConfiguration().connectionPoolConfiguration().maxSize()));
+	}
+
+	SlicedQueryExecutor(AuditConfig auditConfig, int maxConcurrentSlices) {
+		this.config = auditConfig.query();
+		this.permits = new Semaphore(maxConcurrentSlices);
+		this.executor = Executors.newFixedThreadPool(
+			Math.max(1, maxConcurrentSlices),
+			Thread.ofPlatform()
+			      .name("audit-query-slice-", 0)
+			      .daemon()
+			      .factory()
+		);
+	}
+
+	@PreDestroy
+	void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+	/**
+	 * Runs the query for each slice of the range, returning the results in slice order
+	 */
+	public <T> List<T> execute(AuditDates auditDates, Function<AuditDates, T> query) {
+		var slices = slices(auditDates, this.config.parallelism().orElseGet(Runtime.getRuntime()::availableProcessors), this.config.minSliceDuration());
+
+		if ((slices.size() == 1) || (QuarkusTransaction.getStatus() != Status.STATUS_NO_TRANSACTION)) {
+			return slices.stream()
+			             .map(query)
+			             .toList();
+		}
+
+		// The first slice, and any that there's no capacity for, run on the calling thread, which would otherwise just be waiting
+		var futures = new ArrayList<CompletableFuture<T>>(slices.size());
+
+		for (var slice : slices.subList(1, slices.size())) {
+			futures.add(this.permits.tryAcquire() ? submit(slice, query) : null);
+		}
+
+		try {
+			var results = new ArrayList<T>(slices.size());
+			results.add(call(query, slices.getFirst()));
+
+			for (var i = 0; i < futures.size(); i++) {
+				if (futures.get(i) == null) {
+					futures.set(i, CompletableFuture.completedFuture(call(query, slices.get(i + 1))));
+				}
+			}
+
+			futures.forEach(future -> results.add(future.join()));
+
+			return results;
+		}
+		catch (CompletionException e) {
+			throw (e.getCause() instanceof RuntimeException cause) ? cause : e;
+		}
+		finally {
+			// Doesn't interrupt the queries already running, but stops those not started yet if one failed
+			futures.stream()
+			       .filter(Objects::nonNull)
+			       .forEach(future -> future.cancel(false));
+		}
+	}
+
+	/**
+	 * The most slices running at once across all the requests: the configured number,
+	 * or else half the datasource's connections, leaving the rest for everything else
+	 */
+	static int maxConcurrentSlices(Optional<Integer> configured, int maxPoolSize) {
+		return configured.orElse(maxPoolSize / 2);
+	}
+
+	// The permit is released once the task has run, even if the future was cancelled before it started
+	private <T> CompletableFuture<T> submit(AuditDates slice, Function<AuditDates, T> query) {
+		var future = new CompletableFuture<T>();
+
+		try {
+			this.executor.execute(() -> {
+				try {
+					if (!future.isDone()) {
+						future.complete(call(query, slice));
+					}
+				}
+				catch (RuntimeException e) {
+					future.completeExceptionally(e);
+				}
+				finally {
+					this.permits.release();
+				}
+			});
+		}
+		catch (RuntimeException e) {
+			this.permits.release();
+			throw e;
+		}
+
+		return future;
+	}
+
+	private static <T> T call(Function<AuditDates, T> query, AuditDates slice) {
+		return QuarkusTransaction.requiringNew().call(() -> query.apply(slice));
+	}
+
+	static List<AuditDates> slices(AuditDates auditDates, int parallelism, Duration minSliceDuration) {
+		var start = auditDates.start().truncatedTo(ChronoUnit.MICROS);
+		var length = Duration.between(start, auditDates.end());
+		var count = Math.clamp(length.dividedBy(minSliceDuration), 1, Math.max(1, parallelism));
+
+		if (count == 1) {
+			return List.of(auditDates);
+		}
+
+		var sliceLength = length.dividedBy(count).truncatedTo(ChronoUnit.MICROS);
+		var slices = new ArrayList<AuditDates>(count);
+
+		for (var i = 0; i < count; i++) {
+			var sliceStart = start.plus(sliceLength.multipliedBy(i));
+
+			slices.add(new AuditDates(
+				(i == 0) ? auditDates.start() : sliceStart,
+				(i == count - 1) ? auditDates.end() : sliceStart.plus(sliceLength).minus(1, ChronoUnit.MICROS)
+			));
+		}
+
+		return slices;
+	}
+}
@@ -0,0 +1,240 @@
+package org.parasol.repository.archive;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import org.parasol.model.audit.AuditEvent;
+import org.parasol.model.audit.AuditEventFilter;
+import org.parasol.model.audit.AuditEventType;
+import org.parasol.model.audit.InputGuardrailExecutedAuditEvent;
+import org.parasol.model.audit.Interactions.Interaction.InteractionStatus;
+import org.parasol.model.audit.OutputGuardrailExecutedAuditEvent;
+import org.parasol.model.audit.PageCursor;
+import org.parasol.model.audit.ResponseReceivedAuditEvent;
+import org.parasol.repository.journal.AuditEventCodec;
+
+/**
+ * The summary of an archived interaction: its {@link org.parasol.model.audit.InteractionRollup rollup} with the texts inline,
+ * plus the distinct {@link Facet facets} of its events so that the interaction can still be matched against an {@link AuditEventFilter}.
+ * The texts are {@code null} when they weren't asked for, as they are stored apart from the rest.
+ */
+public record ArchivedInteraction(
+	UUID interactionId,
+	Instant interactionDate,
+	Instant lastEventOn,
+	long numLlmFailures,
+	long totalOutputGuardrailExecutions,
+	long totalOutputGuardrailFailures,
+	long inputTokenCount,
+	long outputTokenCount,
+	InteractionStatus status,
+	String systemMessage,
+	String userMessage,
+	String result,
+	String errorMessage,
+	String causeErrorMessage,
+	Set<Facet> facets
+) {
+	/**
+	 * Whether at least one of the interaction's events matches the filter
+	 */
+	public boolean matches(AuditEventFilter filter) {
+		return filter.isEmpty() || this.facets.stream().anyMatch(facet -> facet.matches(filter));
+	}
+
+	/**
+	 * The values of an event which the filters can match on
+	 */
+	public record Facet(AuditEventType eventType, String interfaceName, String methodName, String modelName, String guardrailClass) {
+		public static Facet of(AuditEvent auditEvent) {
+			var invocationContext = auditEvent.getInvocationContext();
+
+			return new Facet(
+				auditEvent.getEventType(),
+				(invocationContext != null) ? invocationContext.getInterfaceName() : null,
+				(invocationContext != null) ? invocationContext.getMethodName() : null,
+				(auditEvent instanceof ResponseReceivedAuditEvent e) ? e.getModelName() : null,
+				switch (auditEvent) {
+					case InputGuardrailExecutedAuditEvent e -> e.getGuardrailClass();
+					case OutputGuardrailExecutedAuditEvent e -> e.getGuardrailClass();
+					default -> null;
+				}
+			);
+		}
+
+		boolean matches(AuditEventFilter filter) {
+			return ((filter.eventType() == null) || (filter.eventType() == this.eventType)) &&
+				((filter.interfaceName() == null) || filter.interfaceName().equals(this.interfaceName)) &&
+				((filter.methodName() == null) || filter.methodName().equals(this.methodName)) &&
+				((filter.modelName() == null) || filter.modelName().equals(this.modelName)) &&
+				((filter.guardrailClass() == null) || filter.guardrailClass().equals(this.guardrailClass));
+		}
+	}
+
+	/**
+	 * The order the interactions are kept in within a segment, which is the order they are listed in
+	 */
+	static final Comparator<ArchivedInteraction> ORDER = Comparator.comparing(ArchivedInteraction::interactionDate)
+	                                                               .thenComparing(ArchivedInteraction::interactionId, PageCursor.UUID_ORDER);
+
+	/**
+	 * Whether the interaction comes after the cursor, in {@link #ORDER}
+	 */
+	boolean isAfter(PageCursor<UUID> cursor) {
+		var position = this.interactionDate.compareTo(cursor.position());
+
+		return (position > 0) || ((position == 0) && (PageCursor.UUID_ORDER.compare(this.interactionId, cursor.id()) > 0));
+	}
+
+	/**
+	 * The interaction with its texts, which are stored apart from the rest of it
+	 */
+	ArchivedInteraction withTexts(Texts texts) {
+		return new ArchivedInteraction(
+			this.interactionId,
+			this.interactionDate,
+			this.lastEventOn,
+			this.numLlmFailures,
+			this.totalOutputGuardrailExecutions,
+			this.totalOutputGuardrailFailures,
+			this.inputTokenCount,
+			this.outputTokenCount,
+			this.status,
+			texts.systemMessage(),
+			texts.userMessage(),
+			texts.result(),
+			this.errorMessage,
+			this.causeErrorMessage,
+			this.facets
+		);
+	}
+
+	/**
+	 * The (potentially long) texts of an interaction
+	 */
+	record Texts(String systemMessage, String userMessage, String result) {
+		static Texts readFrom(DataInput in) throws IOException {
+			return new Texts(AuditEventCodec.readString(in), AuditEventCodec.readString(in), AuditEventCodec.readString(in));
+		}
+	}
+
+	/**
+	 * Writes everything but the texts, which are written by {@link #writeTextsTo(DataOutput)}
+	 */
+	void writeSummaryTo(DataOutput out) throws IOException {
+		AuditEventCodec.writeUuid(out, this.interactionId);
+		AuditEventCodec.writeInstant(out, this.interactionDate);
+		AuditEventCodec.writeInstant(out, this.lastEventOn);
+		out.writeLong(this.numLlmFailures);
+		out.writeLong(this.totalOutputGuardrailExecutions);
+		out.writeLong(this.totalOutputGuardrailFailures);
+		out.writeLong(this.inputTokenCount);
+		out.writeLong(this.outputTokenCount);
+		out.writeByte(this.status.ordinal());
+		AuditEventCodec.writeString(out, this.errorMessage);
+		AuditEventCodec.writeString(out, this.causeErrorMessage);
+		writeFacets(out, this.facets);
+	}
+
+	void writeTextsTo(DataOutput out) throws IOException {
+		AuditEventCodec.writeString(out, this.systemMessage);
+		AuditEventCodec.writeString(out, this.userMessage);
+		AuditEventCodec.writeString(out, this.result);
+	}
+
+	/**
+	 * Reads what was written by {@link #writeSummaryTo(DataOutput)}, leaving the texts {@code null}
+	 */
+	static ArchivedInteraction readSummaryFrom(DataInput in) throws IOException {
+		return new ArchivedInteraction(
+			AuditEventCodec.readUuid(in),
+			AuditEventCodec.readInstant(in),
+			AuditEventCodec.readInstant(in),
+			in.readLong(),
+			in.readLong(),
+			in.readLong(),
+			in.readLong(),
+			in.readLong(),
+			InteractionStatus.values()[in.readByte()],
+			null,
+			null,
+			null,
+			AuditEventCodec.readString(in),
+			AuditEventCodec.readString(in),
+			readFacets(in)
+		);
+	}
+
+	/**
+	 * Reads an interaction as it was written in the segments of the first version of the archive, with its texts inline
+	 */
+	static ArchivedInteraction readVersion1From(DataInput in) throws IOException {
+		var interactionId = AuditEventCodec.readUuid(in);
+		var interactionDate = AuditEventCodec.readInstant(in);
+		var lastEventOn = AuditEventCodec.readInstant(in);
+		var numLlmFailures = in.readLong();
+		var totalOutputGuardrailExecutions = in.readLong();
+		var totalOutputGuardrailFailures = in.readLong();
+		var inputTokenCount = in.readLong();
+		var outputTokenCount = in.readLong();
+		var status = InteractionStatus.values()[in.readByte()];
+		var systemMessage = AuditEventCodec.readString(in);
+		var userMessage = AuditEventCodec.readString(in);
+		var result = AuditEventCodec.readString(in);
+		var errorMessage = AuditEventCodec.readString(in);
+		var causeErrorMessage = AuditEventCodec.readString(in);
+
+		return new ArchivedInteraction(
+			interactionId,
+			interactionDate,
+			lastEventOn,
+			numLlmFailures,
+			totalOutputGuardrailExecutions,
+			totalOutputGuardrailFailures,
+			inputTokenCount,
+			outputTokenCount,
+			status,
+			systemMessage,
+			userMessage,
+			result,
+			errorMessage,
+			causeErrorMessage,
+			readFacets(in)
+		);
+	}
+
+	private static void writeFacets(DataOutput out, Set<Facet> facets) throws IOException {
+		out.writeInt(facets.size());
+
+		for (var facet : facets) {
+			out.writeByte(facet.eventType().ordinal());
+			AuditEventCodec.writeString(out, facet.interfaceName());
+			AuditEventCodec.writeString(out, facet.methodName());
+			AuditEventCodec.writeString(out, facet.modelName());
+			AuditEventCodec.writeString(out, facet.guardrailClass());
+		}
+	}
+
+	private static Set<Facet> readFacets(DataInput in) throws IOException {
+		var facetCount = in.readInt();
+		var facets = new HashSet<Facet>(facetCount);
+
+		for (var i = 0; i < facetCount; i++) {
+			facets.add(new Facet(
+				AuditEventType.values()[in.readByte()],
+				AuditEventCodec.readString(in),
+				AuditEventCodec.readString(in),
+				AuditEventCodec.readString(in),
+				AuditEventCodec.readString(in)
+			));
+		}
+
+		return Set.copyOf(facets);
+	}
+}
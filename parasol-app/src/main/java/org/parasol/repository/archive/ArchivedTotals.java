@@ -0,0 +1,37 @@
+package org.parasol.repository.archive;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The totals of the archived interactions with at least one output guardrail failure, which the stats averages are over.
+ * They are kept in the index for each block of interactions, so that they don't have to be read to be added up.
+ */
+public record ArchivedTotals(long interactions, long outputGuardrailExecutions, long outputGuardrailFailures) {
+	public static final ArchivedTotals NONE = new ArchivedTotals(0, 0, 0);
+
+	static ArchivedTotals of(ArchivedInteraction interaction) {
+		return (interaction.totalOutputGuardrailFailures() > 0) ?
+		       new ArchivedTotals(1, interaction.totalOutputGuardrailExecutions(), interaction.totalOutputGuardrailFailures()) :
+		       NONE;
+	}
+
+	public ArchivedTotals add(ArchivedTotals other) {
+		return new ArchivedTotals(
+			this.interactions + other.interactions,
+			this.outputGuardrailExecutions + other.outputGuardrailExecutions,
+			this.outputGuardrailFailures + other.outputGuardrailFailures
+		);
+	}
+
+	void writeTo(DataOutput out) throws IOException {
+		out.writeLong(this.interactions);
+		out.writeLong(this.outputGuardrailExecutions);
+		out.writeLong(this.outputGuardrailFailures);
+	}
+
+	static ArchivedTotals readFrom(DataInput in) throws IOException {
+		return new ArchivedTotals(in.readLong(), in.readLong(), in.readLong());
+	}
+}
@@ -0,0 +1,779 @@
+package org.parasol.repository.archive;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import org.parasol.config.AuditConfig;
+import org.parasol.model.audit.AuditDates;
+import org.parasol.model.audit.AuditEvent;
+import org.parasol.model.audit.AuditEventFilter;
+import org.parasol.model.audit.InvocationContext;
+import org.parasol.model.audit.PageCursor;
+import org.parasol.repository.archive.ArchivedInteraction.Texts;
+import org.parasol.repository.journal.AuditEventCodec;
+
+import io.quarkus.logging.Log;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+
+/**
+ * The cold tier of the audit events: immutable, compressed segment files in a local directory.
+ * <p>
+ * Each segment is made up of three files:
+ * </p>
+ * <ul>
+ *     <li>{@code .events}: the events, oldest first, in blocks of {@link AuditConfig.Archive#blockSize()} events. Each block is
+ *     compressed on its own, so reading an event only decompresses its block. Events are encoded by {@link AuditEventCodec}.</li>
+ *     <li>{@code .summaries}: an {@link ArchivedInteraction} without its texts for each interaction in the segment, sorted by
+ *     interaction date and id, in blocks of {@link AuditConfig.Archive#blockSize()} interactions compressed on their own</li>
+ *     <li>{@code .texts}: the texts of the interactions, in blocks matching those of the summaries</li>
+ *     <li>{@code .index}: a sparse index, with the range of interaction dates in the segment and, for each block of events, its
+ *     position in the file, its range of ids, and a Bloom filter of its interaction ids. For each block of summaries, it has
+ *     the positions of the block and its texts, its range of interaction dates, and the {@link ArchivedTotals totals} of its
+ *     interactions.</li>
+ * </ul>
+ * <p>
+ * The indexes of all the segments are held in memory, so a lookup only reads the blocks which can match. A page of
+ * interactions seeks to the cursor in each segment and merges the segments' summaries until the page is full, only then
+ * reading the texts of the interactions on the page. Totals are added up from the index, only reading the summaries of
+ * the blocks straddling the range (or all of them when filtering).
+ * </p>
+ * <p>
+ * An interaction is only ever in the summaries of one segment: if archiving it is retried, it is left out of the summaries
+ * of the later segment. Files are written under a temporary name and the index is moved into place last, so a segment is
+ * only ever seen complete. Segments written by the first version of the archive are upgraded when the archive is opened.
+ * </p>
+ */
+@ApplicationScoped
+public class AuditArchive {
+	private static final byte FORMAT_VERSION = 2;
+	private static final String SEGMENT_PREFIX = "segment-";
+	private static final String EVENTS_SUFFIX = ".events";
+	private static final String SUMMARIES_SUFFIX = ".summaries";
+	private static final String TEXTS_SUFFIX = ".texts";
+	// Where the first version of the archive kept all of a segment's interactions, texts included
+	private static final String VERSION_1_INTERACTIONS_SUFFIX = ".interactions";
+	private static final String INDEX_SUFFIX = ".index";
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	private final AuditConfig.Archive config;
+	private final int compressionLevel;
+	private final List<Segment> segments = new CopyOnWriteArrayList<>();
+	private long nextSegment;
+
+	public AuditArchive(AuditConfig auditConfig) {
+		this.config = auditConfig.archive();
+		this.compressionLevel = auditConfig.compression().level();
+	}
+
+	@PostConstruct
+	void open() {
+		var directory = this.config.directory();
+
+		if (!Files.isDirectory(directory)) {
+			return;
+		}
+
+		try (var files = Files.list(directory)) {
+			var names = files.map(path -> path.getFileName().toString()).sorted().toList();
+
+			for (var name : names) {
+				if (name.endsWith(TEMP_SUFFIX) || (!name.endsWith(INDEX_SUFFIX) && !names.contains(indexNameFor(name)))) {
+					// Left over from a segment which was never completed
+					Log.infof("Deleting incomplete audit archive file %s", name);
+					Files.delete(directory.resolve(name));
+				}
+				else if (name.endsWith(INDEX_SUFFIX)) {
+					this.segments.add(readIndex(directory.resolve(name)));
+				}
+			}
+
+			this.nextSegment = this.segments.stream().mapToLong(Segment::number).max().orElse(-1) + 1;
+			Log.infof("Audit archive opened in %s with %d segments", directory.toAbsolutePath(), this.segments.size());
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Unable to open audit archive in %s".formatted(directory), e);
+		}
+	}
+
+	public boolean isEmpty() {
+		return this.segments.isEmpty();
+	}
+
+	/**
+	 * Starts writing a new segment. The segment is only added to the archive once it is {@link SegmentWriter#complete(Collection) completed}.
+	 */
+	public synchronized SegmentWriter startSegment() {
+		try {
+			Files.createDirectories(this.config.directory());
+			return new SegmentWriter(this.nextSegment++);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * All the archived events of the interaction, oldest first
+	 */
+	public List<AuditEvent> findEvents(UUID interactionId) {
+		return findEvents(
+			block -> block.interactionIds().mightContain(interactionId),
+			auditEvent -> interactionId.equals(Optional.ofNullable(auditEvent.getInvocationContext()).map(InvocationContext::getInteractionId).orElse(null))
+		);
+	}
+
+	/**
+	 * The archived event with the given id
+	 */
+	public Optional<AuditEvent> findEvent(long id) {
+		return findEvents(block -> (id >= block.minId()) && (id <= block.maxId()), auditEvent -> auditEvent.getId() == id)
+			.stream()
+			.findFirst();
+	}
+
+	/**
+	 * A page of the archived interactions which started within the range and have at least one event matching the filter,
+	 * ordered by interaction date and id, starting just after the cursor. The texts are only read if asked for.
+	 */
+	public List<ArchivedInteraction> findInteractions(AuditDates auditDates, AuditEventFilter filter, Optional<PageCursor<UUID>> cursor, int limit, boolean withTexts) {
+		var summaries = new PriorityQueue<SummaryCursor>(Comparator.comparing(summaryCursor -> summaryCursor.current().interaction(), ArchivedInteraction.ORDER));
+
+		for (var segment : this.segments) {
+			if (overlaps(segment, auditDates)) {
+				var summaryCursor = new SummaryCursor(segment, auditDates, filter, cursor);
+
+				if (summaryCursor.current() != null) {
+					summaries.add(summaryCursor);
+				}
+			}
+		}
+
+		var page = new ArrayList<Summary>(limit);
+
+		while ((page.size() < limit) && !summaries.isEmpty()) {
+			var summaryCursor = summaries.poll();
+			page.add(summaryCursor.current());
+
+			if (summaryCursor.next() != null) {
+				summaries.add(summaryCursor);
+			}
+		}
+
+		if (!withTexts) {
+			return page.stream().map(Summary::interaction).toList();
+		}
+
+		// The page's interactions are mostly in the same few blocks, so each block of texts is only read once
+		var texts = new IdentityHashMap<SummaryBlock, List<Texts>>();
+
+		return page.stream()
+		           .map(summary -> summary.interaction().withTexts(texts.computeIfAbsent(summary.block(), block -> readTexts(summary.segment(), block)).get(summary.position())))
+		           .toList();
+	}
+
+	/**
+	 * The totals of the archived interactions which started within the range and have at least one event matching the filter
+	 */
+	public ArchivedTotals findTotals(AuditDates auditDates, AuditEventFilter filter) {
+		var totals = ArchivedTotals.NONE;
+
+		for (var segment : this.segments) {
+			if (!overlaps(segment, auditDates)) {
+				continue;
+			}
+
+			for (var block : segment.summaryBlocks()) {
+				if (!overlaps(block, auditDates)) {
+					continue;
+				}
+
+				if (filter.isEmpty() && !block.firstInteractionDate().isBefore(auditDates.start()) && !block.lastInteractionDate().isAfter(auditDates.end())) {
+					totals = totals.add(block.totals());
+				}
+				else {
+					totals = readSummaries(segment, block).stream()
+					                                      .filter(interaction -> isWithin(interaction, auditDates) && interaction.matches(filter))
+					                                      .map(ArchivedTotals::of)
+					                                      .reduce(totals, ArchivedTotals::add);
+				}
+			}
+		}
+
+		return totals;
+	}
+
+	private List<AuditEvent> findEvents(Predicate<Block> blockFilter, Predicate<AuditEvent> eventFilter) {
+		Map<Long, AuditEvent> auditEvents = new LinkedHashMap<>();
+
+		for (var segment : this.segments) {
+			var blocks = segment.blocks().stream().filter(blockFilter).toList();
+
+			if (blocks.isEmpty()) {
+				continue;
+			}
+
+			try (var channel = FileChannel.open(segmentPath(segment.number(), EVENTS_SUFFIX))) {
+				for (var block : blocks) {
+					readBlock(channel, block).stream()
+					                         .filter(eventFilter)
+					                         .forEach(auditEvent -> auditEvents.putIfAbsent(auditEvent.getId(), auditEvent));
+				}
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException("Unable to read audit archive segment %d".formatted(segment.number()), e);
+			}
+		}
+
+		return auditEvents.values()
+		                  .stream()
+		                  .sorted(Comparator.comparing(AuditEvent::getCreatedOn).thenComparing(AuditEvent::getId))
+		                  .toList();
+	}
+
+	private static List<AuditEvent> readBlock(FileChannel channel, Block block) throws IOException {
+		var auditEvents = new ArrayList<AuditEvent>(block.eventCount());
+
+		try (var in = new DataInputStream(new ZstdInputStream(new ByteArrayInputStream(readBytes(channel, block.offset(), block.length()))))) {
+			for (var i = 0; i < block.eventCount(); i++) {
+				var id = in.readLong();
+				var payload = new byte[in.readInt()];
+				in.readFully(payload);
+
+				var auditEvent = AuditEventCodec.decode(payload);
+				auditEvent.setId(id);
+				auditEvents.add(auditEvent);
+			}
+		}
+
+		return auditEvents;
+	}
+
+	private List<ArchivedInteraction> readSummaries(Segment segment, SummaryBlock block) {
+		return readInteractionBlock(segment, SUMMARIES_SUFFIX, block.offset(), block.length(), block.interactionCount(), ArchivedInteraction::readSummaryFrom);
+	}
+
+	private List<Texts> readTexts(Segment segment, SummaryBlock block) {
+		return readInteractionBlock(segment, TEXTS_SUFFIX, block.textsOffset(), block.textsLength(), block.interactionCount(), Texts::readFrom);
+	}
+
+	private <T> List<T> readInteractionBlock(Segment segment, String suffix, long offset, int length, int count, BlockReader<T> reader) {
+		try (var channel = FileChannel.open(segmentPath(segment.number(), suffix));
+		     var in = new DataInputStream(new ZstdInputStream(new ByteArrayInputStream(readBytes(channel, offset, length))))) {
+			var values = new ArrayList<T>(count);
+
+			for (var i = 0; i < count; i++) {
+				values.add(reader.readFrom(in));
+			}
+
+			return values;
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Unable to read audit archive segment %d".formatted(segment.number()), e);
+		}
+	}
+
+	private static byte[] readBytes(FileChannel channel, long offset, int length) throws IOException {
+		var buffer = ByteBuffer.allocate(length);
+
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, offset + buffer.position()) < 0) {
+				throw new IOException("Audit archive block at %d is truncated".formatted(offset));
+			}
+		}
+
+		return buffer.array();
+	}
+
+	private Segment readIndex(Path indexFile) throws IOException {
+		try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+			var version = in.readByte();
+
+			if ((version != FORMAT_VERSION) && (version != 1)) {
+				throw new IOException("Unsupported audit archive index version %d in %s".formatted(version, indexFile));
+			}
+
+			var number = in.readLong();
+			var minInteractionDate = AuditEventCodec.readInstant(in);
+			var maxInteractionDate = AuditEventCodec.readInstant(in);
+			var blockCount = in.readInt();
+			var blocks = new ArrayList<Block>(blockCount);
+
+			for (var i = 0; i < blockCount; i++) {
+				blocks.add(new Block(
+					in.readLong(),
+					in.readInt(),
+					in.readInt(),
+					in.readLong(),
+					in.readLong(),
+					InteractionIdFilter.readFrom(in)
+				));
+			}
+
+			if (version == 1) {
+				return upgrade(number, blocks);
+			}
+
+			var summaryBlockCount = in.readInt();
+			var summaryBlocks = new ArrayList<SummaryBlock>(summaryBlockCount);
+
+			for (var i = 0; i < summaryBlockCount; i++) {
+				summaryBlocks.add(new SummaryBlock(
+					in.readLong(),
+					in.readInt(),
+					in.readLong(),
+					in.readInt(),
+					in.readInt(),
+					AuditEventCodec.readInstant(in),
+					AuditEventCodec.readInstant(in),
+					ArchivedTotals.readFrom(in)
+				));
+			}
+
+			// Left over if the application stopped just after upgrading the segment
+			Files.deleteIfExists(segmentPath(number, VERSION_1_INTERACTIONS_SUFFIX));
+
+			return new Segment(number, minInteractionDate, maxInteractionDate, blocks, summaryBlocks);
+		}
+	}
+
+	/**
+	 * Rewrites the interactions of a segment written by the first version of the archive, which were compressed as a whole
+	 */
+	private Segment upgrade(long number, List<Block> blocks) throws IOException {
+		var interactionsFile = segmentPath(number, VERSION_1_INTERACTIONS_SUFFIX);
+		var interactions = new ArrayList<ArchivedInteraction>();
+
+		try (var in = new DataInputStream(new ZstdInputStream(new BufferedInputStream(Files.newInputStream(interactionsFile))))) {
+			var count = in.readInt();
+
+			for (var i = 0; i < count; i++) {
+				interactions.add(ArchivedInteraction.readVersion1From(in));
+			}
+		}
+
+		var segment = writeSegment(number, blocks, interactions);
+		Files.delete(interactionsFile);
+		Log.infof("Upgraded audit archive segment %d", number);
+
+		return segment;
+	}
+
+	/**
+	 * Writes the summaries, texts and index of a segment whose events have been written, moving them into place.
+	 * The interactions already in the summaries of another segment are left out.
+	 */
+	private Segment writeSegment(long number, List<Block> blocks, Collection<ArchivedInteraction> interactions) throws IOException {
+		var archivedInteractionIds = findArchivedInteractionIds(interactions);
+		var sortedInteractions = interactions.stream()
+		                                     .filter(interaction -> !archivedInteractionIds.contains(interaction.interactionId()))
+		                                     .sorted(ArchivedInteraction.ORDER)
+		                                     .toList();
+		var summariesFile = segmentPath(number, SUMMARIES_SUFFIX + TEMP_SUFFIX);
+		var textsFile = segmentPath(number, TEXTS_SUFFIX + TEMP_SUFFIX);
+		var summaryBlocks = new ArrayList<SummaryBlock>();
+
+		try (var summaries = new BufferedOutputStream(Files.newOutputStream(summariesFile));
+		     var texts = new BufferedOutputStream(Files.newOutputStream(textsFile))) {
+			var offset = 0L;
+			var textsOffset = 0L;
+
+			for (var from = 0; from < sortedInteractions.size(); from += this.config.blockSize()) {
+				var blockInteractions = sortedInteractions.subList(from, Math.min(from + this.config.blockSize(), sortedInteractions.size()));
+				var summaryBytes = compress(out -> {
+					for (var interaction : blockInteractions) {
+						interaction.writeSummaryTo(out);
+					}
+				});
+				var textBytes = compress(out -> {
+					for (var interaction : blockInteractions) {
+						interaction.writeTextsTo(out);
+					}
+				});
+
+				summaries.write(summaryBytes);
+				texts.write(textBytes);
+				summaryBlocks.add(new SummaryBlock(
+					offset,
+					summaryBytes.length,
+					textsOffset,
+					textBytes.length,
+					blockInteractions.size(),
+					blockInteractions.getFirst().interactionDate(),
+					blockInteractions.getLast().interactionDate(),
+					blockInteractions.stream()
+					                 .map(ArchivedTotals::of)
+					                 .reduce(ArchivedTotals.NONE, ArchivedTotals::add)
+				));
+
+				offset += summaryBytes.length;
+				textsOffset += textBytes.length;
+			}
+		}
+
+		var segment = new Segment(
+			number,
+			sortedInteractions.isEmpty() ? Instant.MAX : sortedInteractions.getFirst().interactionDate(),
+			sortedInteractions.isEmpty() ? Instant.MIN : sortedInteractions.getLast().interactionDate(),
+			List.copyOf(blocks),
+			List.copyOf(summaryBlocks)
+		);
+		var indexFile = segmentPath(number, INDEX_SUFFIX + TEMP_SUFFIX);
+
+		try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile)))) {
+			writeIndex(out, segment);
+		}
+
+		moveIntoPlace(summariesFile);
+		moveIntoPlace(textsFile);
+		moveIntoPlace(indexFile);
+
+		return segment;
+	}
+
+	/**
+	 * Which of the interactions are already in the summaries of a segment, because archiving them was retried
+	 */
+	private Set<UUID> findArchivedInteractionIds(Collection<ArchivedInteraction> interactions) {
+		if (interactions.isEmpty()) {
+			return Set.of();
+		}
+
+		var interactionIds = interactions.stream().map(ArchivedInteraction::interactionId).collect(Collectors.toSet());
+		var interactionDates = interactions.stream().map(ArchivedInteraction::interactionDate).toList();
+		var auditDates = new AuditDates(Collections.min(interactionDates), Collections.max(interactionDates));
+		var archivedInteractionIds = new HashSet<UUID>();
+
+		for (var segment : this.segments) {
+			if (!overlaps(segment, auditDates)) {
+				continue;
+			}
+
+			for (var block : segment.summaryBlocks()) {
+				if (overlaps(block, auditDates)) {
+					readSummaries(segment, block).stream()
+					                             .map(ArchivedInteraction::interactionId)
+					                             .filter(interactionIds::contains)
+					                             .forEach(archivedInteractionIds::add);
+				}
+			}
+		}
+
+		return archivedInteractionIds;
+	}
+
+	private byte[] compress(BlockWriter writer) throws IOException {
+		var bytes = new ByteArrayOutputStream();
+
+		try (var out = new DataOutputStream(new ZstdOutputStream(bytes, this.compressionLevel))) {
+			writer.writeTo(out);
+		}
+
+		return bytes.toByteArray();
+	}
+
+	private static void writeIndex(DataOutputStream out, Segment segment) throws IOException {
+		out.writeByte(FORMAT_VERSION);
+		out.writeLong(segment.number());
+		AuditEventCodec.writeInstant(out, segment.minInteractionDate());
+		AuditEventCodec.writeInstant(out, segment.maxInteractionDate());
+		out.writeInt(segment.blocks().size());
+
+		for (var block : segment.blocks()) {
+			out.writeLong(block.offset());
+			out.writeInt(block.length());
+			out.writeInt(block.eventCount());
+			out.writeLong(block.minId());
+			out.writeLong(block.maxId());
+			block.interactionIds().writeTo(out);
+		}
+
+		out.writeInt(segment.summaryBlocks().size());
+
+		for (var block : segment.summaryBlocks()) {
+			out.writeLong(block.offset());
+			out.writeInt(block.length());
+			out.writeLong(block.textsOffset());
+			out.writeInt(block.textsLength());
+			out.writeInt(block.interactionCount());
+			AuditEventCodec.writeInstant(out, block.firstInteractionDate());
+			AuditEventCodec.writeInstant(out, block.lastInteractionDate());
+			block.totals().writeTo(out);
+		}
+	}
+
+	private static boolean overlaps(Segment segment, AuditDates auditDates) {
+		return !segment.minInteractionDate().isAfter(auditDates.end()) && !segment.maxInteractionDate().isBefore(auditDates.start());
+	}
+
+	private static boolean overlaps(SummaryBlock block, AuditDates auditDates) {
+		return !block.firstInteractionDate().isAfter(auditDates.end()) && !block.lastInteractionDate().isBefore(auditDates.start());
+	}
+
+	private static boolean isWithin(ArchivedInteraction interaction, AuditDates auditDates) {
+		return !interaction.interactionDate().isBefore(auditDates.start()) && !interaction.interactionDate().isAfter(auditDates.end());
+	}
+
+	private Path segmentPath(long segment, String suffix) {
+		return this.config.directory().resolve("%s%020d%s".formatted(SEGMENT_PREFIX, segment, suffix));
+	}
+
+	private static String indexNameFor(String name) {
+		var extension = name.lastIndexOf('.');
+
+		return ((extension > 0) ? name.substring(0, extension) : name) + INDEX_SUFFIX;
+	}
+
+	private static void moveIntoPlace(Path temp) throws IOException {
+		var name = temp.getFileName().toString();
+		Files.move(temp, temp.resolveSibling(name.substring(0, name.length() - TEMP_SUFFIX.length())), StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	record Segment(long number, Instant minInteractionDate, Instant maxInteractionDate, List<Block> blocks, List<SummaryBlock> summaryBlocks) {}
+
+	record Block(long offset, int length, int eventCount, long minId, long maxId, InteractionIdFilter interactionIds) {}
+
+	record SummaryBlock(long offset, int length, long textsOffset, int textsLength, int interactionCount, Instant firstInteractionDate, Instant lastInteractionDate, ArchivedTotals totals) {}
+
+	/**
+	 * An interaction read from the summaries, with where to find its texts
+	 */
+	private record Summary(ArchivedInteraction interaction, Segment segment, SummaryBlock block, int position) {}
+
+	@FunctionalInterface
+	private interface BlockReader<T> {
+		T readFrom(DataInputStream in) throws IOException;
+	}
+
+	@FunctionalInterface
+	private interface BlockWriter {
+		void writeTo(DataOutputStream out) throws IOException;
+	}
+
+	/**
+	 * Reads the summaries of a segment in order, a block at a time, starting from the first one after the cursor and within
+	 * the range which matches the filter. The blocks ending before then are skipped without being read.
+	 */
+	private final class SummaryCursor {
+		private final Segment segment;
+		private final AuditDates auditDates;
+		private final AuditEventFilter filter;
+		private final Optional<PageCursor<UUID>> cursor;
+		private int nextBlock;
+		private SummaryBlock block;
+		private List<ArchivedInteraction> blockInteractions = List.of();
+		private int position;
+		private Summary current;
+
+		private SummaryCursor(Segment segment, AuditDates auditDates, AuditEventFilter filter, Optional<PageCursor<UUID>> cursor) {
+			this.segment = segment;
+			this.auditDates = auditDates;
+			this.filter = filter;
+			this.cursor = cursor;
+
+			var from = cursor.map(PageCursor::position)
+			                 .filter(position -> position.isAfter(auditDates.start()))
+			                 .orElse(auditDates.start());
+
+			while ((this.nextBlock < segment.summaryBlocks().size()) && segment.summaryBlocks().get(this.nextBlock).lastInteractionDate().isBefore(from)) {
+				this.nextBlock++;
+			}
+
+			next();
+		}
+
+		/**
+		 * The current summary, or {@code null} once there are no more
+		 */
+		Summary current() {
+			return this.current;
+		}
+
+		/**
+		 * Moves on to the next summary, returning it
+		 */
+		Summary next() {
+			this.current = null;
+
+			while (this.current == null) {
+				if (this.position >= this.blockInteractions.size()) {
+					if ((this.nextBlock >= this.segment.summaryBlocks().size()) || this.segment.summaryBlocks().get(this.nextBlock).firstInteractionDate().isAfter(this.auditDates.end())) {
+						return null;
+					}
+
+					this.block = this.segment.summaryBlocks().get(this.nextBlock++);
+					this.blockInteractions = readSummaries(this.segment, this.block);
+					this.position = 0;
+					continue;
+				}
+
+				var interaction = this.blockInteractions.get(this.position++);
+
+				if (interaction.interactionDate().isAfter(this.auditDates.end())) {
+					this.nextBlock = this.segment.summaryBlocks().size();
+					this.blockInteractions = List.of();
+					return null;
+				}
+
+				if (isWithin(interaction, this.auditDates) && this.cursor.map(interaction::isAfter).orElse(true) && interaction.matches(this.filter)) {
+					this.current = new Summary(interaction, this.segment, this.block, this.position - 1);
+				}
+			}
+
+			return this.current;
+		}
+	}
+
+	/**
+	 * Writes a segment, compressing each block of events as it fills up. Closing the writer without completing it
+	 * throws away everything written.
+	 */
+	public final class SegmentWriter implements AutoCloseable {
+		private final long number;
+		private final Path eventsFile;
+		private final OutputStream events;
+		private final List<Block> blocks = new ArrayList<>();
+		private final ByteArrayOutputStream blockBytes = new ByteArrayOutputStream();
+		private final Set<UUID> blockInteractionIds = new HashSet<>();
+		private DataOutputStream block;
+		private int blockEventCount;
+		private long blockMinId;
+		private long blockMaxId;
+		private long offset;
+		private boolean completed;
+
+		private SegmentWriter(long number) throws IOException {
+			this.number = number;
+			this.eventsFile = segmentPath(number, EVENTS_SUFFIX + TEMP_SUFFIX);
+			this.events = new BufferedOutputStream(Files.newOutputStream(this.eventsFile));
+		}
+
+		/**
+		 * Appends an event, which must already have an id. Events should be appended oldest first.
+		 */
+		public void append(AuditEvent auditEvent) {
+			try {
+				if (this.block == null) {
+					this.blockBytes.reset();
+					this.block = new DataOutputStream(new ZstdOutputStream(this.blockBytes, compressionLevel));
+					this.blockInteractionIds.clear();
+					this.blockEventCount = 0;
+					this.blockMinId = auditEvent.getId();
+					this.blockMaxId = auditEvent.getId();
+				}
+
+				var payload = AuditEventCodec.encode(auditEvent);
+				this.block.writeLong(auditEvent.getId());
+				this.block.writeInt(payload.length);
+				this.block.write(payload);
+
+				this.blockEventCount++;
+				this.blockMinId = Math.min(this.blockMinId, auditEvent.getId());
+				this.blockMaxId = Math.max(this.blockMaxId, auditEvent.getId());
+				Optional.ofNullable(auditEvent.getInvocationContext())
+				        .map(InvocationContext::getInteractionId)
+				        .ifPresent(this.blockInteractionIds::add);
+
+				if (this.blockEventCount >= config.blockSize()) {
+					finishBlock();
+				}
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		/**
+		 * Writes the summaries and texts of the interactions and the index, then adds the segment to the archive
+		 */
+		public void complete(Collection<ArchivedInteraction> interactions) {
+			try {
+				finishBlock();
+				this.events.close();
+				moveIntoPlace(this.eventsFile);
+
+				var segment = writeSegment(this.number, this.blocks, interactions);
+				segments.add(segment);
+				this.completed = true;
+				Log.infof("Wrote audit archive segment %d with %d interactions in %d blocks", this.number, interactions.size(), this.blocks.size());
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException("Unable to write audit archive segment %d".formatted(this.number), e);
+			}
+		}
+
+		@Override
+		public void close() {
+			if (this.completed) {
+				return;
+			}
+
+			try (Stream<Path> files = Files.list(config.directory())) {
+				this.events.close();
+
+				for (var file : files.filter(f -> f.getFileName().toString().startsWith("%s%020d.".formatted(SEGMENT_PREFIX, this.number))).toList()) {
+					Files.deleteIfExists(file);
+				}
+			}
+			catch (IOException e) {
+				Log.warnf(e, "Unable to clean up incomplete audit archive segment %d", this.number);
+			}
+		}
+
+		private void finishBlock() throws IOException {
+			if (this.block == null) {
+				return;
+			}
+
+			this.block.close();
+			var bytes = this.blockBytes.toByteArray();
+			this.events.write(bytes);
+
+			this.blocks.add(new Block(
+				this.offset,
+				bytes.length,
+				this.blockEventCount,
+				this.blockMinId,
+				this.blockMaxId,
+				InteractionIdFilter.of(this.blockInteractionIds)
+			));
+
+			this.offset += bytes.length;
+			this.block = null;
+		}
+	}
+}
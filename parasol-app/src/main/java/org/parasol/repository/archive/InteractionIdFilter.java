@@ -0,0 +1,85 @@
+package org.parasol.repository.archive;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * A Bloom filter of the interaction ids in an archive block, so that looking up an interaction only reads the blocks which
+ * (almost certainly) contain it. Sized at 10 bits per id, which gives around 1% false positives.
+ */
+final class InteractionIdFilter {
+	private static final int BITS_PER_ID = 10;
+	private static final int HASH_COUNT = 7;
+
+	private final long[] bits;
+
+	private InteractionIdFilter(long[] bits) {
+		this.bits = bits;
+	}
+
+	static InteractionIdFilter of(Collection<UUID> interactionIds) {
+		var filter = new InteractionIdFilter(new long[Math.max(1, (interactionIds.size() * BITS_PER_ID + Long.SIZE - 1) / Long.SIZE)]);
+		interactionIds.forEach(filter::add);
+
+		return filter;
+	}
+
+	boolean mightContain(UUID interactionId) {
+		var bitCount = (long) this.bits.length * Long.SIZE;
+		var hash1 = mix(interactionId.getMostSignificantBits());
+		var hash2 = mix(interactionId.getLeastSignificantBits()) | 1;
+
+		for (var i = 0; i < HASH_COUNT; i++) {
+			var bit = Math.floorMod(hash1 + (i * hash2), bitCount);
+
+			if ((this.bits[(int) (bit / Long.SIZE)] & (1L << (bit % Long.SIZE))) == 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	void writeTo(DataOutput out) throws IOException {
+		out.writeInt(this.bits.length);
+
+		for (var word : this.bits) {
+			out.writeLong(word);
+		}
+	}
+
+	static InteractionIdFilter readFrom(DataInput in) throws IOException {
+		var bits = new long[in.readInt()];
+
+		for (var i = 0; i < bits.length; i++) {
+			bits[i] = in.readLong();
+		}
+
+		return new InteractionIdFilter(bits);
+	}
+
+	private void add(UUID interactionId) {
+		var bitCount = (long) this.bits.length * Long.SIZE;
+		var hash1 = mix(interactionId.getMostSignificantBits());
+		var hash2 = mix(interactionId.getLeastSignificantBits()) | 1;
+
+		for (var i = 0; i < HASH_COUNT; i++) {
+			var bit = Math.floorMod(hash1 + (i * hash2), bitCount);
+			this.bits[(int) (bit / Long.SIZE)] |= 1L << (bit % Long.SIZE);
+		}
+	}
+
+	// The finalizer of MurmurHash3, so that ids which aren't random (like time-based UUIDs) still spread over the bits
+	private static long mix(long value) {
+		value ^= value >>> 33;
+		value *= 0xff51afd7ed558ccdL;
+		value ^= value >>> 33;
+		value *= 0xc4ceb9fe1a85ec53L;
+		value ^= value >>> 33;
+
+		return value;
+	}
+}
@@ -0,0 +1,134 @@
+package org.parasol.repository.export;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import org.parasol.config.AuditConfig;
+import org.parasol.model.audit.AuditDates;
+import org.parasol.repository.export.AuditFileExporter.ExportResult;
+
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Runs {@link AuditFileExporter file exports} in the background, one after another, keeping track of how each one is getting on.
+ * <p>
+ * The status of the last {@link AuditConfig.Export#retainedJobs()} finished jobs is kept, along with any which haven't finished.
+ * Jobs aren't persisted, but an export which is cut short (by a restart) resumes from its last checkpoint when it is started again.
+ * </p>
+ */
+@ApplicationScoped
+public class AuditExportJobs {
+	/**
+	 * How far a job has got
+	 */
+	public enum Status {
+		QUEUED,
+		RUNNING,
+		SUCCEEDED,
+		FAILED;
+
+		boolean isFinished() {
+			return (this == SUCCEEDED) || (this == FAILED);
+		}
+	}
+
+	/**
+	 * A file export job. {@code result} is only there once it has succeeded, and {@code error} once it has failed.
+	 */
+	@RegisterForReflection
+	public record ExportJob(UUID id, AuditDates auditDates, Status status, Instant submittedOn, Instant finishedOn, ExportResult result, String error) {
+		private ExportJob with(Status status, Instant finishedOn, ExportResult result, String error) {
+			return new ExportJob(this.id, this.auditDates, status, this.submittedOn, finishedOn, result, error);
+		}
+	}
+
+	private final AuditFileExporter auditFileExporter;
+	private final int retainedJobs;
+	private final Clock clock;
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(
+		Thread.ofPlatform()
+		      .name("audit-export")
+		      .daemon()
+		      .factory()
+	);
+
+	// In the order they were submitted
+	private final Map<UUID, ExportJob> jobs = new LinkedHashMap<>();
+
+	@Inject
+	public AuditExportJobs(AuditConfig auditConfig, AuditFileExporter auditFileExporter) {
+		this(auditFileExporter, auditConfig.export().retainedJobs(), Clock.systemUTC());
+	}
+
+	AuditExportJobs(AuditFileExporter auditFileExporter, int retainedJobs, Clock clock) {
+		this.auditFileExporter = auditFileExporter;
+		this.retainedJobs = retainedJobs;
+		this.clock = clock;
+	}
+
+	@PreDestroy
+	void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+	/**
+	 * Queues an export of the events created within the range, returning the job
+	 */
+	public synchronized ExportJob submit(AuditDates auditDates) {
+		var job = new ExportJob(UUID.randomUUID(), auditDates, Status.QUEUED, this.clock.instant(), null, null, null);
+		this.jobs.put(job.id(), job);
+		this.executor.execute(() -> run(job));
+
+		return job;
+	}
+
+	/**
+	 * The job with the given id, unless it's unknown or finished too long ago to be kept
+	 */
+	public synchronized Optional<ExportJob> get(UUID id) {
+		return Optional.ofNullable(this.jobs.get(id));
+	}
+
+	private void run(ExportJob job) {
+		update(job.with(Status.RUNNING, null, null, null));
+
+		try {
+			update(job.with(Status.SUCCEEDED, this.clock.instant(), this.auditFileExporter.export(job.auditDates()), null));
+		}
+		catch (RuntimeException e) {
+			Log.errorf(e, "Export job %s of audit events from %s to %s failed", job.id(), job.auditDates().start(), job.auditDates().end());
+			update(job.with(Status.FAILED, this.clock.instant(), null, String.valueOf(e.getMessage())));
+		}
+	}
+
+	private synchronized void update(ExportJob job) {
+		this.jobs.put(job.id(), job);
+
+		if (job.status().isFinished()) {
+			var finishedJobs = this.jobs.values().stream()
+			                            .filter(j -> j.status().isFinished())
+			                            .count();
+
+			// Forget the oldest finished jobs
+			var jobs = this.jobs.values().iterator();
+
+			while ((finishedJobs > this.retainedJobs) && jobs.hasNext()) {
+				if (jobs.next().status().isFinished()) {
+					jobs.remove();
+					finishedJobs--;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,371 @@
+package org.parasol.repository.export;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.PersistenceException;
+
+import org.parasol.config.AuditConfig;
+import org.parasol.model.audit.AuditDates;
+
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Exports the audit events in a time range to Parquet files for offline analysis, in constant memory.
+ * <p>
+ * Files are laid out by day and event type ({@code day=2025-01-31/event_type=SERVICE_STARTED/part-<first id>.parquet}),
+ * which tools like DuckDB and Spark read as partition columns. Each file has one flat row per event, with typed columns
+ * (see {@link ParquetPartWriter#SCHEMA}), and the guardrail result of both kinds of guardrail in one column.
+ * Large texts aren't exported, only the metadata which is useful for analysis.
+ * </p>
+ * <p>
+ * Events are read in id order through a server-side cursor. Every {@link AuditConfig.Export#checkpointInterval()} events
+ * the open files are completed and the last exported id is saved as a checkpoint for the range, so exporting the same range
+ * again resumes after it. Completed files (including those completed early, when too many are open) keep their temporary
+ * name until the checkpoint which covers them is saved, along with their names, and only then get their final name. So an
+ * export which is interrupted never leaves behind a file whose events are exported again. When an export starts, the files
+ * of every saved checkpoint are given their final name, and any other files which weren't completed are deleted.
+ * </p>
+ * <p>
+ * Ids are handed out before the events are committed, so an event can become visible after one with a higher id. To never
+ * resume after an event which wasn't committed yet, an export only goes up to the last id handed out when it starts, and first
+ * waits (up to {@link AuditConfig.Export#settleTimeout()}) for every transaction which was open at that point to end. Those are
+ * found in {@code pg_stat_activity}, which only shows them for the same database user, as the application writes with.
+ * </p>
+ */
+@ApplicationScoped
+public class AuditFileExporter {
+	private static final String CHECKPOINTS_DIRECTORY = "_checkpoints";
+
+	private static final String EXPORT_QUERY = """
+		SELECT
+			id,
+			created_on,
+			event_type,
+			interaction_id,
+			interface_name,
+			method_name,
+			model_name,
+			input_token_count,
+			output_token_count,
+			tool_name,
+			guardrail_class,
+			CASE
+				WHEN event_type = 'INPUT_GUARDRAIL_EXECUTED' THEN result
+				ELSE guardrail_result
+			END AS guardrail_result,
+			error_message,
+			cause_error_message
+		FROM audit_events
+		WHERE created_on >= ? AND created_on < ?
+		AND id > ? AND id <= ?
+		ORDER BY id
+		""";
+
+	private static final String LAST_ID_QUERY = "SELECT CASE WHEN is_called THEN last_value ELSE last_value - 1 END FROM audit_events_seq";
+	private static final String OPEN_TRANSACTIONS_QUERY = "SELECT pid, xact_start FROM pg_stat_activity WHERE xact_start IS NOT NULL AND pid <> pg_backend_pid()";
+	private static final Duration SETTLE_POLL_INTERVAL = Duration.ofMillis(100);
+
+	private final AuditConfig auditConfig;
+	private final AuditConfig.Export config;
+	private final DataSource dataSource;
+
+	/**
+	 * The outcome of an export. {@code lastExportedId} is the last id exported to the range over all runs.
+	 */
+	@RegisterForReflection
+	public record ExportResult(AuditDates auditDates, long exportedEvents, long lastExportedId, int filesWritten) {}
+
+	public AuditFileExporter(AuditConfig auditConfig, DataSource dataSource) {
+		this.auditConfig = auditConfig;
+		this.config = auditConfig.export();
+		this.dataSource = dataSource;
+	}
+
+	/**
+	 * Exports the events created within the range, resuming after the last checkpoint of a previous export of the same range
+	 */
+	public synchronized ExportResult export(AuditDates auditDates) {
+		var directory = this.config.directory();
+		var checkpoint = checkpointFile(auditDates);
+
+		try {
+			publishCheckpointedFiles(directory);
+			deleteIncompleteFiles(directory);
+			var lastExportedId = readCheckpoint(checkpoint).lastExportedId();
+
+			try (var connection = this.dataSource.getConnection()) {
+				var committedId = committedId(connection);
+				Log.infof("Exporting audit events from %s to %s into %s, after id %d up to id %d", auditDates.start(), auditDates.end(), directory.toAbsolutePath(), lastExportedId, committedId);
+
+				// Postgres only uses a server-side cursor (rather than reading all the rows up front) outside of auto-commit
+				connection.setAutoCommit(false);
+				connection.setReadOnly(true);
+
+				try (var statement = connection.prepareStatement(EXPORT_QUERY)) {
+					statement.setFetchSize(this.config.fetchSize());
+					statement.setObject(1, OffsetDateTime.ofInstant(auditDates.start(), ZoneOffset.UTC));
+					statement.setObject(2, OffsetDateTime.ofInstant(auditDates.end(), ZoneOffset.UTC));
+					statement.setLong(3, lastExportedId);
+					statement.setLong(4, committedId);
+
+					try (var rows = statement.executeQuery()) {
+						return exportRows(rows, auditDates, directory, checkpoint, lastExportedId);
+					}
+				}
+				finally {
+					connection.rollback();
+				}
+			}
+		}
+		catch (SQLException e) {
+			throw new PersistenceException("Unable to export audit events from %s to %s".formatted(auditDates.start(), auditDates.end()), e);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Unable to export audit events to %s".formatted(directory), e);
+		}
+	}
+
+	private ExportResult exportRows(ResultSet rows, AuditDates auditDates, Path directory, Path checkpoint, long lastExportedId) throws SQLException, IOException {
+		var exportedEvents = 0L;
+		var filesWritten = 0;
+
+		try (var partWriters = new PartWriters(directory, this.config.maxOpenFiles(), this.auditConfig.compression().level(), this.config.rowGroupSize().asLongValue())) {
+			while (rows.next()) {
+				var exportedEvent = ExportedEvent.of(rows);
+				lastExportedId = exportedEvent.id();
+				partWriters.write(new Partition(exportedEvent.createdOn().atOffset(ZoneOffset.UTC).toLocalDate(), exportedEvent.eventType()), exportedEvent);
+
+				if (++exportedEvents % this.config.checkpointInterval() == 0) {
+					filesWritten += checkpoint(partWriters, directory, checkpoint, lastExportedId);
+				}
+			}
+
+			filesWritten += checkpoint(partWriters, directory, checkpoint, lastExportedId);
+		}
+
+		Log.infof("Exported %d audit events into %d files, up to id %d", exportedEvents, filesWritten, lastExportedId);
+		return new ExportResult(auditDates, exportedEvents, lastExportedId, filesWritten);
+	}
+
+	/**
+	 * The last id handed out, once every transaction which could still commit an event with an id up to it has ended
+	 */
+	private long committedId(Connection connection) throws SQLException {
+		connection.setAutoCommit(true);
+		long lastId;
+
+		try (var statement = connection.createStatement(); var resultSet = statement.executeQuery(LAST_ID_QUERY)) {
+			resultSet.next();
+			lastId = resultSet.getLong(1);
+		}
+
+		// Read after the id, so any transaction which was handed an id up to it, and hasn't ended, is one of these
+		var openTransactions = openTransactions(connection);
+		var deadline = Instant.now().plus(this.config.settleTimeout());
+
+		while (!openTransactions.isEmpty()) {
+			if (Instant.now().isAfter(deadline)) {
+				throw new PersistenceException("%d transactions which could still be writing audit events up to id %d haven't ended after %s".formatted(openTransactions.size(), lastId, this.config.settleTimeout()));
+			}
+
+			try {
+				Thread.sleep(SETTLE_POLL_INTERVAL);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new PersistenceException("Interrupted waiting for transactions writing audit events to end", e);
+			}
+
+			openTransactions.retainAll(openTransactions(connection));
+		}
+
+		return lastId;
+	}
+
+	private static Set<OpenTransaction> openTransactions(Connection connection) throws SQLException {
+		try (var statement = connection.createStatement(); var resultSet = statement.executeQuery(OPEN_TRANSACTIONS_QUERY)) {
+			var openTransactions = new HashSet<OpenTransaction>();
+
+			while (resultSet.next()) {
+				openTransactions.add(new OpenTransaction(resultSet.getInt("pid"), resultSet.getObject("xact_start", OffsetDateTime.class).toInstant()));
+			}
+
+			return openTransactions;
+		}
+	}
+
+	/**
+	 * Completes the open files, saves the checkpoint along with them, and only then gives them their final name.
+	 * Returns the number of files completed since the last checkpoint.
+	 */
+	private static int checkpoint(PartWriters partWriters, Path directory, Path checkpoint, long lastExportedId) throws IOException {
+		var completedFiles = partWriters.closeAll();
+		writeCheckpoint(checkpoint, new Checkpoint(lastExportedId, completedFiles), directory);
+
+		for (var file : completedFiles) {
+			ParquetPartWriter.publish(file);
+		}
+
+		return completedFiles.size();
+	}
+
+	private Path checkpointFile(AuditDates auditDates) {
+		return this.config.directory()
+		                  .resolve(CHECKPOINTS_DIRECTORY)
+		                  .resolve("%d-%d".formatted(auditDates.start().toEpochMilli(), auditDates.end().toEpochMilli()));
+	}
+
+	/**
+	 * The last exported id on the first line, then the files completed since the previous checkpoint, relative to the export directory
+	 */
+	private static Checkpoint readCheckpoint(Path checkpoint) throws IOException {
+		if (!Files.exists(checkpoint)) {
+			return new Checkpoint(0, List.of());
+		}
+
+		var lines = Files.readAllLines(checkpoint, StandardCharsets.UTF_8);
+		var directory = checkpoint.getParent().getParent();
+		var files = lines.stream()
+		                 .skip(1)
+		                 .filter(line -> !line.isBlank())
+		                 .map(directory::resolve)
+		                 .toList();
+
+		return new Checkpoint(Long.parseLong(lines.getFirst().strip()), files);
+	}
+
+	private static void writeCheckpoint(Path checkpoint, Checkpoint contents, Path directory) throws IOException {
+		Files.createDirectories(checkpoint.getParent());
+		var lines = new ArrayList<String>();
+		lines.add(Long.toString(contents.lastExportedId()));
+		contents.files().forEach(file -> lines.add(directory.relativize(file).toString()));
+
+		var temp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+		Files.write(temp, lines, StandardCharsets.UTF_8);
+		Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	// Completed by an export which was interrupted after saving its checkpoint, so their events won't be exported again
+	private static void publishCheckpointedFiles(Path directory) throws IOException {
+		var checkpoints = directory.resolve(CHECKPOINTS_DIRECTORY);
+
+		if (!Files.isDirectory(checkpoints)) {
+			return;
+		}
+
+		try (Stream<Path> files = Files.list(checkpoints)) {
+			for (var checkpoint : files.filter(f -> !f.getFileName().toString().endsWith(".tmp")).toList()) {
+				for (var file : readCheckpoint(checkpoint).files()) {
+					ParquetPartWriter.publish(file);
+				}
+			}
+		}
+	}
+
+	// Left over from an export which was interrupted. The events in them are after the last checkpoint, so they are exported again.
+	private static void deleteIncompleteFiles(Path directory) throws IOException {
+		if (!Files.isDirectory(directory)) {
+			return;
+		}
+
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (var file : files.filter(f -> f.getFileName().toString().endsWith(ParquetPartWriter.IN_PROGRESS_SUFFIX)).toList()) {
+				Log.infof("Deleting incomplete export file %s", file);
+				Files.delete(file);
+			}
+		}
+	}
+
+	private record OpenTransaction(int pid, Instant started) {}
+
+	private record Checkpoint(long lastExportedId, List<Path> files) {}
+
+	private record Partition(LocalDate day, String eventType) {
+		Path directory(Path root) {
+			return root.resolve("day=" + this.day).resolve("event_type=" + this.eventType);
+		}
+	}
+
+	/**
+	 * The part files currently open, at most one per partition. When too many are open the least recently written one is completed,
+	 * but keeps its temporary name until the next checkpoint.
+	 */
+	private static final class PartWriters implements AutoCloseable {
+		private final Path directory;
+		private final int maxOpenFiles;
+		private final int compressionLevel;
+		private final long rowGroupSize;
+		private final Map<Partition, ParquetPartWriter> writers = new LinkedHashMap<>(16, 0.75f, true);
+		private List<Path> completedFiles = new ArrayList<>();
+
+		private PartWriters(Path directory, int maxOpenFiles, int compressionLevel, long rowGroupSize) {
+			this.directory = directory;
+			this.maxOpenFiles = maxOpenFiles;
+			this.compressionLevel = compressionLevel;
+			this.rowGroupSize = rowGroupSize;
+		}
+
+		void write(Partition partition, ExportedEvent exportedEvent) throws IOException {
+			var writer = this.writers.get(partition);
+
+			if (writer == null) {
+				if (this.writers.size() >= this.maxOpenFiles) {
+					var eldest = this.writers.entrySet().iterator().next();
+					this.writers.remove(eldest.getKey());
+					eldest.getValue().close();
+					this.completedFiles.add(eldest.getValue().inProgressFile());
+				}
+
+				writer = new ParquetPartWriter(partition.directory(this.directory), exportedEvent.id(), this.compressionLevel, this.rowGroupSize);
+				this.writers.put(partition, writer);
+			}
+
+			writer.write(exportedEvent);
+		}
+
+		/**
+		 * Completes all the open files, returning (the temporary names of) all the files completed since the last time
+		 */
+		List<Path> closeAll() throws IOException {
+			for (var writer : this.writers.values()) {
+				writer.close();
+				this.completedFiles.add(writer.inProgressFile());
+			}
+
+			this.writers.clear();
+			var completedFiles = this.completedFiles;
+			this.completedFiles = new ArrayList<>();
+			return completedFiles;
+		}
+
+		// Only reached on failure, so the files are left incomplete to be deleted by the next export
+		@Override
+		public void close() {
+			this.writers.clear();
+		}
+	}
+}
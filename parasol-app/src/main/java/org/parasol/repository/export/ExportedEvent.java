@@ -0,0 +1,47 @@
+package org.parasol.repository.export;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * One flat row of a file export. Large texts aren't exported, only the metadata which is useful for analysis.
+ * The guardrail result is that of either kind of guardrail.
+ */
+record ExportedEvent(
+	long id,
+	Instant createdOn,
+	String eventType,
+	UUID interactionId,
+	String interfaceName,
+	String methodName,
+	String modelName,
+	Integer inputTokenCount,
+	Integer outputTokenCount,
+	String toolName,
+	String guardrailClass,
+	String guardrailResult,
+	String errorMessage,
+	String causeErrorMessage
+) {
+	static ExportedEvent of(ResultSet rows) throws SQLException {
+		return new ExportedEvent(
+			rows.getLong("id"),
+			rows.getObject("created_on", OffsetDateTime.class).toInstant(),
+			rows.getString("event_type"),
+			rows.getObject("interaction_id", UUID.class),
+			rows.getString("interface_name"),
+			rows.getString("method_name"),
+			rows.getString("model_name"),
+			rows.getObject("input_token_count", Integer.class),
+			rows.getObject("output_token_count", Integer.class),
+			rows.getString("tool_name"),
+			rows.getString("guardrail_class"),
+			rows.getString("guardrail_result"),
+			rows.getString("error_message"),
+			rows.getString("cause_error_message")
+		);
+	}
+}
@@ -0,0 +1,189 @@
+package org.parasol.repository.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.conf.ParquetConfiguration;
+import org.apache.parquet.conf.PlainParquetConfiguration;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.LocalOutputFile;
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.LogicalTypeAnnotation.TimeUnit;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Types;
+
+/**
+ * Writes one zstd-compressed Parquet part file. The file is written under a temporary name, and keeps it once it is complete
+ * until it is {@link #publish published} under its final name. That only happens once the export's checkpoint covers
+ * the file's rows, so readers never see a partial file, and a resumed export never writes the same rows to a second file.
+ * <p>
+ * Columns are typed: ids and token counts are integers, times are UTC timestamps, interaction ids are UUIDs, and the
+ * event type and guardrail result are enums. The rows are buffered in memory until a row group is full (or the file is completed).
+ * Files are written directly to the local file system, without Hadoop.
+ * </p>
+ */
+final class ParquetPartWriter implements AutoCloseable {
+	static final String SUFFIX = ".parquet";
+	static final String IN_PROGRESS_SUFFIX = SUFFIX + ".inprogress";
+
+	static final MessageType SCHEMA = Types.buildMessage()
+		.required(PrimitiveTypeName.INT64).named("id")
+		.required(PrimitiveTypeName.INT64).as(LogicalTypeAnnotation.timestampType(true, TimeUnit.MICROS)).named("created_on")
+		.required(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.enumType()).named("event_type")
+		.optional(PrimitiveTypeName.FIXED_LEN_BYTE_ARRAY).length(16).as(LogicalTypeAnnotation.uuidType()).named("interaction_id")
+		.optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("interface_name")
+		.optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("method_name")
+		.optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("model_name")
+		.optional(PrimitiveTypeName.INT32).named("input_token_count")
+		.optional(PrimitiveTypeName.INT32).named("output_token_count")
+		.optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("tool_name")
+		.optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("guardrail_class")
+		.optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.enumType()).named("guardrail_result")
+		.optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("error_message")
+		.optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("cause_error_message")
+		.named("audit_event");
+
+	private final Path inProgressFile;
+	private final ParquetWriter<ExportedEvent> writer;
+
+	ParquetPartWriter(Path directory, long firstId, int compressionLevel, long rowGroupSize) throws IOException {
+		Files.createDirectories(directory);
+		this.inProgressFile = directory.resolve("part-%020d%s".formatted(firstId, IN_PROGRESS_SUFFIX));
+		this.writer = new Builder(new LocalOutputFile(this.inProgressFile))
+			.withConf(new PlainParquetConfiguration())
+			.withCodecFactory(new ZstdCodecFactory(compressionLevel))
+			.withCompressionCodec(CompressionCodecName.ZSTD)
+			.withRowGroupSize(rowGroupSize)
+			.build();
+	}
+
+	void write(ExportedEvent exportedEvent) throws IOException {
+		this.writer.write(exportedEvent);
+	}
+
+	/**
+	 * The file being written, under its temporary name
+	 */
+	Path inProgressFile() {
+		return this.inProgressFile;
+	}
+
+	/**
+	 * Completes the file, still under its temporary name
+	 */
+	@Override
+	public void close() throws IOException {
+		this.writer.close();
+	}
+
+	/**
+	 * Gives a completed file its final name, if it doesn't already have it
+	 */
+	static void publish(Path inProgressFile) throws IOException {
+		if (Files.exists(inProgressFile)) {
+			var name = inProgressFile.getFileName().toString();
+			var file = inProgressFile.resolveSibling(name.substring(0, name.length() - IN_PROGRESS_SUFFIX.length()) + SUFFIX);
+			Files.move(inProgressFile, file, StandardCopyOption.ATOMIC_MOVE);
+		}
+	}
+
+	private static final class Builder extends ParquetWriter.Builder<ExportedEvent, Builder> {
+		private Builder(OutputFile file) {
+			super(file);
+		}
+
+		@Override
+		protected Builder self() {
+			return this;
+		}
+
+		@Override
+		protected WriteSupport<ExportedEvent> getWriteSupport(ParquetConfiguration configuration) {
+			return new ExportedEventWriteSupport();
+		}
+
+		// Only called when writing through Hadoop, which isn't the case
+		@Override
+		protected WriteSupport<ExportedEvent> getWriteSupport(Configuration configuration) {
+			return new ExportedEventWriteSupport();
+		}
+	}
+
+	private static final class ExportedEventWriteSupport extends WriteSupport<ExportedEvent> {
+		private RecordConsumer recordConsumer;
+
+		@Override
+		public WriteContext init(ParquetConfiguration configuration) {
+			return new WriteContext(SCHEMA, Map.of());
+		}
+
+		@Override
+		public WriteContext init(Configuration configuration) {
+			return new WriteContext(SCHEMA, Map.of());
+		}
+
+		@Override
+		public void prepareForWrite(RecordConsumer recordConsumer) {
+			this.recordConsumer = recordConsumer;
+		}
+
+		@Override
+		public void write(ExportedEvent exportedEvent) {
+			this.recordConsumer.startMessage();
+			writeField("id", exportedEvent.id());
+			writeField("created_on", ChronoUnit.MICROS.between(Instant.EPOCH, exportedEvent.createdOn()));
+			writeField("event_type", exportedEvent.eventType());
+			writeField("interaction_id", exportedEvent.interactionId());
+			writeField("interface_name", exportedEvent.interfaceName());
+			writeField("method_name", exportedEvent.methodName());
+			writeField("model_name", exportedEvent.modelName());
+			writeField("input_token_count", exportedEvent.inputTokenCount());
+			writeField("output_token_count", exportedEvent.outputTokenCount());
+			writeField("tool_name", exportedEvent.toolName());
+			writeField("guardrail_class", exportedEvent.guardrailClass());
+			writeField("guardrail_result", exportedEvent.guardrailResult());
+			writeField("error_message", exportedEvent.errorMessage());
+			writeField("cause_error_message", exportedEvent.causeErrorMessage());
+			this.recordConsumer.endMessage();
+		}
+
+		// Null values are left out, which is how Parquet stores them
+		private void writeField(String name, Object value) {
+			if (value == null) {
+				return;
+			}
+
+			var index = SCHEMA.getFieldIndex(name);
+			this.recordConsumer.startField(name, index);
+
+			switch (value) {
+				case Long l -> this.recordConsumer.addLong(l);
+				case Integer i -> this.recordConsumer.addInteger(i);
+				case String s -> this.recordConsumer.addBinary(Binary.fromString(s));
+				case UUID uuid -> this.recordConsumer.addBinary(Binary.fromConstantByteArray(
+					ByteBuffer.allocate(16)
+					          .putLong(uuid.getMostSignificantBits())
+					          .putLong(uuid.getLeastSignificantBits())
+					          .array()
+				));
+				default -> throw new IllegalArgumentException("Unsupported value type %s for column %s".formatted(value.getClass().getName(), name));
+			}
+
+			this.recordConsumer.endField(name, index);
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package org.parasol.repository.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.parquet.bytes.BytesInput;
+import org.apache.parquet.compression.CompressionCodecFactory;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+
+import com.github.luben.zstd.Zstd;
+
+/**
+ * Compresses Parquet pages with zstd-jni directly. Parquet's own codecs are Hadoop codecs, which need a Hadoop configuration
+ * (and its dependencies) at runtime just to be looked up.
+ */
+final class ZstdCodecFactory implements CompressionCodecFactory {
+	private final int compressionLevel;
+
+	ZstdCodecFactory(int compressionLevel) {
+		this.compressionLevel = compressionLevel;
+	}
+
+	@Override
+	public BytesInputCompressor getCompressor(CompressionCodecName codecName) {
+		checkCodec(codecName);
+
+		return new BytesInputCompressor() {
+			@Override
+			public BytesInput compress(BytesInput bytes) throws IOException {
+				return BytesInput.from(Zstd.compress(bytes.toByteArray(), compressionLevel));
+			}
+
+			@Override
+			public CompressionCodecName getCodecName() {
+				return CompressionCodecName.ZSTD;
+			}
+
+			@Override
+			public void release() {
+			}
+		};
+	}
+
+	@Override
+	public BytesInputDecompressor getDecompressor(CompressionCodecName codecName) {
+		checkCodec(codecName);
+
+		return new BytesInputDecompressor() {
+			@Override
+			public BytesInput decompress(BytesInput bytes, int decompressedSize) throws IOException {
+				return BytesInput.from(Zstd.decompress(bytes.toByteArray(), decompressedSize));
+			}
+
+			@Override
+			public void decompress(ByteBuffer input, int compressedSize, ByteBuffer output, int decompressedSize) throws IOException {
+				var compressed = new byte[compressedSize];
+				input.get(compressed);
+				output.put(Zstd.decompress(compressed, decompressedSize));
+			}
+
+			@Override
+			public void release() {
+			}
+		};
+	}
+
+	@Override
+	public void release() {
+	}
+
+	private static void checkCodec(CompressionCodecName codecName) {
+		if (codecName != CompressionCodecName.ZSTD) {
+			throw new IllegalArgumentException("Only zstd is supported, not %s".formatted(codecName));
+		}
+	}
+}
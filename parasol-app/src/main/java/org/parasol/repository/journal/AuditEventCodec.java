@@ -0,0 +1,206 @@
+package org.parasol.repository.journal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+import org.parasol.model.audit.AuditEvent;
+import org.parasol.model.audit.AuditEventType;
+import org.parasol.model.audit.InputGuardrailExecutedAuditEvent;
+import org.parasol.model.audit.InvocationContext;
+import org.parasol.model.audit.OutputGuardrailExecutedAuditEvent;
+import org.parasol.model.audit.ResponseReceivedAuditEvent;
+import org.parasol.model.audit.ServiceCompleteAuditEvent;
+import org.parasol.model.audit.ServiceErrorAuditEvent;
+import org.parasol.model.audit.ServiceStartedAuditEvent;
+import org.parasol.model.audit.ToolExecutedAuditEvent;
+
+/**
+ * Compact binary encoding of {@link AuditEvent}s for the journal.
+ * <p>
+ * Every record starts with a format version and the {@link AuditEventType}, followed by the fields common to all events
+ * and then the fields specific to the event type. Strings are written as a length-prefixed UTF-8 byte array,
+ * with a length of {@code -1} meaning {@code null}.
+ * </p>
+ */
+public final class AuditEventCodec {
+	private static final byte FORMAT_VERSION = 1;
+	private static final AuditEventType[] EVENT_TYPES = AuditEventType.values();
+
+	private AuditEventCodec() {
+	}
+
+	public static byte[] encode(AuditEvent auditEvent) {
+		var bytes = new ByteArrayOutputStream(256);
+
+		try (var out = new DataOutputStream(bytes)) {
+			out.writeByte(FORMAT_VERSION);
+			out.writeByte(auditEvent.getEventType().ordinal());
+			writeUuid(out, auditEvent.getEventKey());
+			writeInstant(out, auditEvent.getCreatedOn());
+
+			var invocationContext = auditEvent.getInvocationContext();
+			out.writeBoolean(invocationContext != null);
+
+			if (invocationContext != null) {
+				writeString(out, invocationContext.getInterfaceName());
+				writeString(out, invocationContext.getMethodName());
+				writeUuid(out, invocationContext.getInteractionId());
+			}
+
+			switch (auditEvent) {
+				case ServiceStartedAuditEvent e -> {
+					writeString(out, e.getSystemMessage());
+					writeString(out, e.getUserMessage());
+				}
+				case ServiceCompleteAuditEvent e -> writeString(out, e.getResult());
+				case ServiceErrorAuditEvent e -> {
+					writeString(out, e.getErrorMessage());
+					writeString(out, e.getCauseErrorMessage());
+				}
+				case ResponseReceivedAuditEvent e -> {
+					writeString(out, e.getResponse());
+					writeString(out, e.getModelName());
+					out.writeInt(e.getInputTokenCount());
+					out.writeInt(e.getOutputTokenCount());
+				}
+				case ToolExecutedAuditEvent e -> {
+					writeString(out, e.getToolName());
+					writeString(out, e.getToolArgs());
+					writeString(out, e.getToolResult());
+				}
+				case InputGuardrailExecutedAuditEvent e -> {
+					writeString(out, e.getUserMessage());
+					writeString(out, e.getRewrittenUserMessage());
+					writeString(out, e.getResult());
+					writeString(out, e.getGuardrailClass());
+				}
+				case OutputGuardrailExecutedAuditEvent e -> {
+					writeString(out, e.getResponse());
+					writeString(out, e.getGuardrailResult());
+					writeString(out, e.getGuardrailClass());
+				}
+				default -> throw new IllegalArgumentException("Unknown audit event type: %s".formatted(auditEvent.getClass().getName()));
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		return bytes.toByteArray();
+	}
+
+	public static AuditEvent decode(byte[] bytes) {
+		try (var in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+			var version = in.readByte();
+
+			if (version != FORMAT_VERSION) {
+				throw new IllegalArgumentException("Unsupported journal record version: %d".formatted(version));
+			}
+
+			var eventType = EVENT_TYPES[in.readByte()];
+			var eventKey = readUuid(in);
+			var createdOn = readInstant(in);
+			var invocationContext = in.readBoolean() ?
+			                        InvocationContext.builder()
+			                                         .interfaceName(readString(in))
+			                                         .methodName(readString(in))
+			                                         .interactionId(readUuid(in))
+			                                         .build() :
+			                        null;
+
+			AuditEvent.Builder<?, ?> builder = switch (eventType) {
+				case SERVICE_STARTED -> ServiceStartedAuditEvent.builder()
+				                                                .systemMessage(readString(in))
+				                                                .userMessage(readString(in));
+				case SERVICE_COMPLETED -> ServiceCompleteAuditEvent.builder()
+				                                                   .result(readString(in));
+				case SERVICE_ERROR -> ServiceErrorAuditEvent.builder()
+				                                            .errorMessage(readString(in))
+				                                            .causeErrorMessage(readString(in));
+				case RESPONSE_RECEIVED -> ResponseReceivedAuditEvent.builder()
+				                                                    .response(readString(in))
+				                                                    .modelName(readString(in))
+				                                                    .inputTokenCount(in.readInt())
+				                                                    .outputTokenCount(in.readInt());
+				case TOOL_EXECUTED -> ToolExecutedAuditEvent.builder()
+				                                            .toolName(readString(in))
+				                                            .toolArgs(readString(in))
+				                                            .result(readString(in));
+				case INPUT_GUARDRAIL_EXECUTED -> InputGuardrailExecutedAuditEvent.builder()
+				                                                                 .userMessage(readString(in))
+				                                                                 .rewrittenUserMessage(readString(in))
+				                                                                 .result(readString(in))
+				                                                                 .guardrailClass(readString(in));
+				case OUTPUT_GUARDRAIL_EXECUTED -> OutputGuardrailExecutedAuditEvent.builder()
+				                                                                   .response(readString(in))
+				                                                                   .result(readString(in))
+				                                                                   .guardrailClass(readString(in));
+			};
+
+			return builder.eventKey(eventKey)
+			              .createdOn(createdOn)
+			              .invocationContext(invocationContext)
+			              .build();
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// The field encodings are shared with the audit archive, which stores interaction summaries alongside the events
+	public static void writeString(DataOutput out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+		}
+		else {
+			var bytes = value.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	public static String readString(DataInput in) throws IOException {
+		var length = in.readInt();
+
+		if (length < 0) {
+			return null;
+		}
+
+		var bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	public static void writeUuid(DataOutput out, UUID uuid) throws IOException {
+		out.writeBoolean(uuid != null);
+
+		if (uuid != null) {
+			out.writeLong(uuid.getMostSignificantBits());
+			out.writeLong(uuid.getLeastSignificantBits());
+		}
+	}
+
+	public static UUID readUuid(DataInput in) throws IOException {
+		return in.readBoolean() ?
+		       new UUID(in.readLong(), in.readLong()) :
+		       null;
+	}
+
+	public static void writeInstant(DataOutput out, Instant instant) throws IOException {
+		out.writeLong(instant.getEpochSecond());
+		out.writeInt(instant.getNano());
+	}
+
+	public static Instant readInstant(DataInput in) throws IOException {
+		return Instant.ofEpochSecond(in.readLong(), in.readInt());
+	}
+}
@@ -0,0 +1,309 @@
+package org.parasol.repository.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import org.parasol.config.AuditConfig;
+import org.parasol.model.audit.AuditEvent;
+
+import io.quarkus.logging.Log;
+
+/**
+ * Append-only journal of audit events, stored in a directory of fixed-size memory-mapped segment files.
+ * <p>
+ * Each record is laid out as {@code [int length][int crc32c][payload]}, where the payload is an event encoded by
+ * {@link AuditEventCodec}. The length is written last, so a record with a zero length (the file is zero-filled when mapped)
+ * or a checksum that doesn't match marks the end of the data in a segment. When a record doesn't fit in the remainder of a
+ * segment the journal moves on to the next one.
+ * </p>
+ * <p>
+ * Appending only touches memory, so it never waits on the database. Records are read back by the {@link AuditJournalReplayer},
+ * which calls {@link #commit(Position)} once they are in the database. Committing persists a checkpoint and deletes
+ * any segments that have been completely replayed.
+ * </p>
+ */
+@ApplicationScoped
+public class AuditJournal {
+	private static final int HEADER_SIZE = 2 * Integer.BYTES;
+	private static final String SEGMENT_PREFIX = "segment-";
+	private static final String SEGMENT_SUFFIX = ".journal";
+	private static final String CHECKPOINT_FILE = "checkpoint";
+
+	private final AuditConfig.Journal config;
+	private final int segmentSize;
+	private MappedByteBuffer writeBuffer;
+	private long writeSegment;
+	private volatile Position writePosition;
+	private MappedByteBuffer readBuffer;
+	private long readSegment = -1;
+
+	/**
+	 * A position within the journal
+	 */
+	public record Position(long segment, int offset) implements Comparable<Position> {
+		public static final Position START = new Position(0, 0);
+
+		@Override
+		public int compareTo(Position other) {
+			return (this.segment != other.segment) ?
+			       Long.compare(this.segment, other.segment) :
+			       Integer.compare(this.offset, other.offset);
+		}
+	}
+
+	/**
+	 * A record read from the journal, along with the position immediately after it
+	 */
+	public record Record(byte[] payload, Position end) {
+		public AuditEvent toAuditEvent() {
+			return AuditEventCodec.decode(this.payload);
+		}
+	}
+
+	public AuditJournal(AuditConfig auditConfig) {
+		this.config = auditConfig.journal();
+		this.segmentSize = (int) Math.min(this.config.segmentSize().asLongValue(), Integer.MAX_VALUE);
+	}
+
+	@PostConstruct
+	void open() {
+		if (!isEnabled()) {
+			return;
+		}
+
+		try {
+			Files.createDirectories(this.config.directory());
+			var lastSegment = listSegments().reduce((first, second) -> second).orElse(checkpoint().segment());
+			openForWriting(lastSegment, recover(lastSegment));
+			Log.infof("Audit journal opened in %s at %s", this.config.directory().toAbsolutePath(), this.writePosition);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Unable to open audit journal in %s".formatted(this.config.directory()), e);
+		}
+	}
+
+	@PreDestroy
+	synchronized void close() {
+		if (this.writeBuffer != null) {
+			this.writeBuffer.force();
+		}
+	}
+
+	public boolean isEnabled() {
+		return this.config.enabled();
+	}
+
+	/**
+	 * Appends an audit event to the journal
+	 */
+	public void append(AuditEvent auditEvent) {
+		append(AuditEventCodec.encode(auditEvent));
+	}
+
+	synchronized Position append(byte[] payload) {
+		var recordSize = HEADER_SIZE + payload.length;
+
+		if (recordSize > this.segmentSize) {
+			throw new IllegalArgumentException("Journal record of %d bytes is larger than the segment size (%d bytes)".formatted(recordSize, this.segmentSize));
+		}
+
+		var offset = this.writePosition.offset();
+
+		if (offset + recordSize > this.segmentSize) {
+			this.writeBuffer.force();
+			openForWriting(this.writeSegment + 1, 0);
+			offset = 0;
+		}
+
+		var crc = new CRC32C();
+		crc.update(payload);
+
+		this.writeBuffer.put(offset + HEADER_SIZE, payload);
+		this.writeBuffer.putInt(offset + Integer.BYTES, (int) crc.getValue());
+		this.writeBuffer.putInt(offset, payload.length);
+
+		if (this.config.forceOnAppend()) {
+			this.writeBuffer.force(offset, recordSize);
+		}
+
+		// Publishing the new position makes the record visible to the reader
+		this.writePosition = new Position(this.writeSegment, offset + recordSize);
+		return this.writePosition;
+	}
+
+	/**
+	 * Reads up to {@code maxRecords} records, starting at the given position
+	 */
+	public List<Record> read(Position from, int maxRecords) {
+		var records = new ArrayList<Record>(Math.min(maxRecords, 1024));
+		var position = from;
+		var end = this.writePosition;
+
+		while ((records.size() < maxRecords) && (position.compareTo(end) < 0)) {
+			var record = readRecord(position);
+
+			if (record == null) {
+				// Nothing more in this segment
+				position = new Position(position.segment() + 1, 0);
+			}
+			else {
+				records.add(record);
+				position = record.end();
+			}
+		}
+
+		return records;
+	}
+
+	/**
+	 * The position that replay should start from
+	 */
+	public Position checkpoint() {
+		var checkpointFile = this.config.directory().resolve(CHECKPOINT_FILE);
+
+		try {
+			if (Files.exists(checkpointFile)) {
+				var buffer = ByteBuffer.wrap(Files.readAllBytes(checkpointFile));
+				return new Position(buffer.getLong(), buffer.getInt());
+			}
+
+			return listSegments().findFirst()
+			                     .map(segment -> new Position(segment, 0))
+			                     .orElse(Position.START);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Records that everything before the given position has been replayed, deleting segments that are no longer needed
+	 */
+	public void commit(Position position) {
+		var directory = this.config.directory();
+		var buffer = ByteBuffer.allocate(Long.BYTES + Integer.BYTES)
+		                       .putLong(position.segment())
+		                       .putInt(position.offset());
+
+		try {
+			var temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+			Files.write(temp, buffer.array());
+			Files.move(temp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+			var segmentsToDelete = listSegments().filter(segment -> segment < position.segment()).toList();
+
+			for (var segment : segmentsToDelete) {
+				Files.deleteIfExists(segmentPath(segment));
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private Record readRecord(Position position) {
+		if (position.offset() + HEADER_SIZE > this.segmentSize) {
+			return null;
+		}
+
+		var buffer = mapForReading(position.segment());
+		var length = buffer.getInt(position.offset());
+
+		if ((length <= 0) || (position.offset() + HEADER_SIZE + length > this.segmentSize)) {
+			return null;
+		}
+
+		var payload = new byte[length];
+		buffer.get(position.offset() + HEADER_SIZE, payload);
+
+		var crc = new CRC32C();
+		crc.update(payload);
+
+		if ((int) crc.getValue() != buffer.getInt(position.offset() + Integer.BYTES)) {
+			Log.warnf("Corrupt audit journal record found at %s. Skipping the rest of the segment", position);
+			return null;
+		}
+
+		return new Record(payload, new Position(position.segment(), position.offset() + HEADER_SIZE + length));
+	}
+
+	/**
+	 * Finds the end of the data in a segment, so that appending continues after the last complete record
+	 */
+	private int recover(long segment) throws IOException {
+		if (!Files.exists(segmentPath(segment))) {
+			return 0;
+		}
+
+		var offset = 0;
+		Record record;
+
+		while ((record = readRecord(new Position(segment, offset))) != null) {
+			offset = record.end().offset();
+		}
+
+		return offset;
+	}
+
+	private void openForWriting(long segment, int offset) {
+		this.writeBuffer = map(segment);
+		this.writeSegment = segment;
+
+		// Clear anything left over from a partially written record
+		if (offset + HEADER_SIZE <= this.segmentSize) {
+			this.writeBuffer.putInt(offset, 0);
+		}
+
+		this.writePosition = new Position(segment, offset);
+	}
+
+	// The reader has its own mapping so it never races with the writer moving on to a new segment
+	private MappedByteBuffer mapForReading(long segment) {
+		if (segment != this.readSegment) {
+			this.readBuffer = map(segment);
+			this.readSegment = segment;
+		}
+
+		return this.readBuffer;
+	}
+
+	private MappedByteBuffer map(long segment) {
+		try (var channel = FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			return channel.map(MapMode.READ_WRITE, 0, this.segmentSize);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Unable to map audit journal segment %d".formatted(segment), e);
+		}
+	}
+
+	private Stream<Long> listSegments() throws IOException {
+		try (var files = Files.list(this.config.directory())) {
+			return files.map(path -> path.getFileName().toString())
+			            .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+			            .map(name -> Long.parseLong(name, SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length(), 10))
+			            .sorted()
+			            .toList()
+			            .stream();
+		}
+	}
+
+	private Path segmentPath(long segment) {
+		return this.config.directory().resolve("%s%020d%s".formatted(SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+	}
+}
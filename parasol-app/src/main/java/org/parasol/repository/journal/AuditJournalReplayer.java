@@ -0,0 +1,133 @@
+package org.parasol.repository.journal;
+
+import java.util.List;
+import java.util.Objects;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+
+import org.parasol.config.AuditConfig;
+import org.parasol.model.audit.AuditEvent;
+import org.parasol.repository.journal.AuditJournal.Record;
+import org.parasol.repository.sink.AuditSink;
+
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+
+/**
+ * Replays audit events from the {@link AuditJournal} into the database in the background.
+ * <p>
+ * Replay is idempotent: the events are {@link AuditSink#storeIfAbsent(List) stored} by the configured sink, skipping any
+ * whose {@link AuditEvent#getEventKey() event key} has already been stored, so replaying the same records again after a crash
+ * (before the checkpoint was written) doesn't duplicate anything. If the database can't be reached the batch is retried after
+ * {@link AuditConfig.Journal#retryInterval()}. The replay stops when the application shuts down or its thread is interrupted.
+ * </p>
+ */
+@ApplicationScoped
+public class AuditJournalReplayer {
+	private final AuditConfig auditConfig;
+	private final AuditJournal journal;
+	private final AuditSink auditSink;
+	private volatile boolean running;
+	private Thread replayThread;
+
+	public AuditJournalReplayer(AuditConfig auditConfig, AuditJournal journal, AuditSink auditSink) {
+		this.auditConfig = auditConfig;
+		this.journal = journal;
+		this.auditSink = auditSink;
+	}
+
+	void onStart(@Observes StartupEvent startupEvent) {
+		if (this.journal.isEnabled()) {
+			this.running = true;
+			this.replayThread = Thread.ofPlatform()
+			                          .name("audit-journal-replayer")
+			                          .daemon()
+			                          .start(this::replay);
+		}
+	}
+
+	void onStop(@Observes ShutdownEvent shutdownEvent) throws InterruptedException {
+		this.running = false;
+
+		if (this.replayThread != null) {
+			this.replayThread.join(this.auditConfig.writer().shutdownTimeout());
+		}
+	}
+
+	private void replay() {
+		var position = this.journal.checkpoint();
+		var batchSize = this.auditConfig.writer().batchSize();
+
+		while (!Thread.currentThread().isInterrupted()) {
+			var records = this.journal.read(position, batchSize);
+
+			if (records.isEmpty()) {
+				if (!this.running) {
+					return;
+				}
+
+				if (!sleep(this.auditConfig.writer().pollInterval().toMillis())) {
+					return;
+				}
+
+				continue;
+			}
+
+			try {
+				var end = records.getLast().end();
+				writeToDatabase(records);
+				this.journal.commit(end);
+				position = end;
+			}
+			catch (RuntimeException e) {
+				Log.warnf(e, "Unable to replay %d audit events from the journal. Will try again in %s", records.size(), this.auditConfig.journal().retryInterval());
+
+				if (!this.running) {
+					// They will be replayed the next time the application starts
+					return;
+				}
+
+				if (!sleep(this.auditConfig.journal().retryInterval().toMillis())) {
+					return;
+				}
+			}
+		}
+	}
+
+	private void writeToDatabase(List<Record> records) {
+		var events = records.stream()
+		                    .map(AuditJournalReplayer::decode)
+		                    .filter(Objects::nonNull)
+		                    .toList();
+
+		if (events.isEmpty()) {
+			return;
+		}
+
+		this.auditSink.storeIfAbsent(events);
+	}
+
+	private static AuditEvent decode(Record record) {
+		try {
+			return record.toAuditEvent();
+		}
+		catch (RuntimeException e) {
+			Log.errorf(e, "Unable to decode audit journal record ending at %s. Skipping it", record.end());
+			return null;
+		}
+	}
+
+	// False if interrupted, in which case the replay stops (the rest is replayed the next time the application starts)
+	private static boolean sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+			return true;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+}
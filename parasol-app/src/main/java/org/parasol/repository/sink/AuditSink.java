@@ -0,0 +1,47 @@
+package org.parasol.repository.sink;
+
+import java.util.List;
+
+import org.parasol.model.audit.AuditEvent;
+
+/**
+ * Where audit events go once they have been captured.
+ * <p>
+ * The sink that is used is chosen by {@link org.parasol.config.AuditConfig.Sink#type()}.
+ * </p>
+ */
+public interface AuditSink {
+	enum Type {
+		/**
+		 * {@link JpaAuditSink}
+		 */
+		JPA,
+
+		/**
+		 * {@link CopyAuditSink}
+		 */
+		COPY,
+
+		/**
+		 * {@link RingBufferAuditSink}
+		 */
+		RING_BUFFER
+	}
+
+	/**
+	 * Publishes an audit event. The event may not have been stored by the time this returns.
+	 */
+	void publish(AuditEvent auditEvent);
+
+	/**
+	 * Stores the given audit events before returning, throwing an exception if they couldn't all be stored
+	 */
+	void store(List<AuditEvent> auditEvents);
+
+	/**
+	 * Stores the given audit events before returning, skipping any whose {@link AuditEvent#getEventKey() event key} has already
+	 * been stored, so that storing the same events again (such as when replaying the journal) doesn't duplicate them.
+	 * Throws an exception if they couldn't all be stored.
+	 */
+	void storeIfAbsent(List<AuditEvent> auditEvents);
+}
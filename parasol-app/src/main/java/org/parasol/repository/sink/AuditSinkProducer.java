@@ -0,0 +1,29 @@
+package org.parasol.repository.sink;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.enterprise.inject.Produces;
+
+import org.parasol.config.AuditConfig;
+
+import io.quarkus.logging.Log;
+
+/**
+ * Makes the {@link AuditSink} chosen by {@link AuditConfig.Sink#type()} available for injection.
+ * The sinks which aren't chosen are never created.
+ */
+@ApplicationScoped
+public class AuditSinkProducer {
+	@Produces
+	@ApplicationScoped
+	AuditSink auditSink(AuditConfig auditConfig, Instance<JpaAuditSink> jpaSink, Instance<CopyAuditSink> copySink, Instance<RingBufferAuditSink> ringBufferSink) {
+		var type = auditConfig.sink().type();
+		Log.infof("Writing audit events to the %s sink", type);
+
+		return switch (type) {
+			case JPA -> jpaSink.get();
+			case COPY -> copySink.get();
+			case RING_BUFFER -> ringBufferSink.get();
+		};
+	}
+}
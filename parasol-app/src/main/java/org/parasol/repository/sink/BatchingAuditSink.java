@@ -0,0 +1,188 @@
+package org.parasol.repository.sink;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.Reception;
+
+import org.parasol.config.AuditConfig;
+import org.parasol.model.audit.AuditEvent;
+import org.parasol.repository.journal.AuditJournal;
+
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.ShutdownEvent;
+
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+
+/**
+ * Base class for sinks which write audit events to the database off of the thread that is talking to the LLM.
+ * <p>
+ * Events are placed on a bounded queue and a single background thread drains the queue,
+ * {@link #store(List) storing} whatever has accumulated (up to {@link AuditConfig.Writer#batchSize()} events) at once.
+ * If a batch can't be stored, its events are stored one at a time so that one bad event doesn't lose the whole batch.
+ * </p>
+ * <p>
+ * If the queue is full the caller waits up to {@link AuditConfig.Writer#enqueueTimeout()} for space.
+ * If there still isn't any space the event is stored on the caller's thread so that nothing is lost.
+ * </p>
+ * <p>
+ * When the {@link AuditJournal} is enabled, events are appended to the journal instead
+ * and the {@link org.parasol.repository.journal.AuditJournalReplayer} stores them.
+ * </p>
+ */
+public abstract class BatchingAuditSink implements AuditSink {
+	private final AuditConfig.Writer config;
+	private final AuditJournal journal;
+	private final BlockingQueue<AuditEvent> queue;
+	private final DoubleHistogram flushDuration;
+	private final LongCounter failedEvents;
+	private volatile boolean running;
+	private Thread writerThread;
+
+	protected BatchingAuditSink(AuditConfig auditConfig, AuditJournal journal, Meter meter) {
+		this.config = auditConfig.writer();
+		this.journal = journal;
+		this.queue = new ArrayBlockingQueue<>(this.config.queueCapacity());
+
+		meter.gaugeBuilder("parasol.audit.writer.queue.depth")
+		     .ofLongs()
+		     .setDescription("The number of audit events waiting to be written")
+		     .setUnit("events")
+		     .buildWithCallback(measurement -> measurement.record(this.queue.size()));
+
+		this.flushDuration = meter.histogramBuilder("parasol.audit.writer.flush.duration")
+		                          .setDescription("The time taken to write a batch of audit events")
+		                          .setUnit("ms")
+		                          .build();
+
+		this.failedEvents = meter.counterBuilder("parasol.audit.writer.failed")
+		                         .setDescription("A count of audit events which could not be written")
+		                         .setUnit("events")
+		                         .build();
+	}
+
+	@PostConstruct
+	void start() {
+		this.running = true;
+		this.writerThread = Thread.ofPlatform()
+		                          .name("audit-event-writer")
+		                          .daemon()
+		                          .start(this::drainQueue);
+	}
+
+	void onStop(@Observes(notifyObserver = Reception.IF_EXISTS) ShutdownEvent shutdownEvent) throws InterruptedException {
+		this.running = false;
+
+		if (this.writerThread != null) {
+			this.writerThread.join(this.config.shutdownTimeout());
+		}
+
+		if (!this.queue.isEmpty()) {
+			Log.warnf("%d audit events were still queued at shutdown", this.queue.size());
+		}
+	}
+
+	/**
+	 * Queues an audit event to be written
+	 */
+	@Override
+	public void publish(AuditEvent auditEvent) {
+		if (this.journal.isEnabled() && appendToJournal(auditEvent)) {
+			return;
+		}
+
+		if (!this.running) {
+			writeBatch(List.of(auditEvent));
+			return;
+		}
+
+		try {
+			if (!this.queue.offer(auditEvent, this.config.enqueueTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+				Log.warnf("Audit event queue is full (%d events). Writing event on the calling thread", this.queue.size());
+				writeBatch(List.of(auditEvent));
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			writeBatch(List.of(auditEvent));
+		}
+	}
+
+	/**
+	 * The number of audit events waiting to be written
+	 */
+	public int getQueueDepth() {
+		return this.queue.size();
+	}
+
+	private boolean appendToJournal(AuditEvent auditEvent) {
+		try {
+			this.journal.append(auditEvent);
+			return true;
+		}
+		catch (UncheckedIOException | IllegalArgumentException e) {
+			Log.warnf(e, "Unable to append audit event to the journal. Queueing it instead");
+			return false;
+		}
+	}
+
+	private void drainQueue() {
+		var batch = new ArrayList<AuditEvent>(this.config.batchSize());
+
+		while (this.running || !this.queue.isEmpty()) {
+			try {
+				var first = this.queue.poll(this.config.pollInterval().toMillis(), TimeUnit.MILLISECONDS);
+
+				if (first != null) {
+					batch.add(first);
+					this.queue.drainTo(batch, this.config.batchSize() - 1);
+					writeBatch(batch);
+					batch.clear();
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			catch (RuntimeException e) {
+				Log.error("Unexpected error writing audit events", e);
+				batch.clear();
+			}
+		}
+	}
+
+	private void writeBatch(List<AuditEvent> batch) {
+		var start = System.nanoTime();
+
+		try {
+			store(batch);
+		}
+		catch (RuntimeException e) {
+			Log.warnf(e, "Unable to write batch of %d audit events. Writing them individually", batch.size());
+			batch.forEach(this::writeIndividually);
+		}
+		finally {
+			this.flushDuration.record((System.nanoTime() - start) / 1_000_000.0);
+		}
+	}
+
+	private void writeIndividually(AuditEvent auditEvent) {
+		try {
+			// The failed batch may have assigned an id, which would make Hibernate treat this as a detached entity
+			auditEvent.setId(null);
+			store(List.of(auditEvent));
+		}
+		catch (RuntimeException e) {
+			this.failedEvents.add(1);
+			Log.errorf(e, "Unable to write audit event %s", auditEvent);
+		}
+	}
+}
@@ -0,0 +1,279 @@
+package org.parasol.repository.sink;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.sql.DataSource;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.persistence.PersistenceException;
+
+import org.parasol.config.AuditConfig;
+import org.parasol.model.audit.AuditEvent;
+import org.parasol.model.audit.AuditText;
+import org.parasol.model.audit.CompressedTextConverter;
+import org.parasol.model.audit.InputGuardrailExecutedAuditEvent;
+import org.parasol.model.audit.InvocationContext;
+import org.parasol.model.audit.OutputGuardrailExecutedAuditEvent;
+import org.parasol.model.audit.ResponseReceivedAuditEvent;
+import org.parasol.model.audit.ServiceCompleteAuditEvent;
+import org.parasol.model.audit.ServiceErrorAuditEvent;
+import org.parasol.model.audit.ServiceStartedAuditEvent;
+import org.parasol.model.audit.ToolExecutedAuditEvent;
+import org.parasol.repository.journal.AuditJournal;
+import org.postgresql.PGConnection;
+
+import io.opentelemetry.api.metrics.Meter;
+
+/**
+ * Stores audit events using the Postgres {@code COPY} protocol, which is much cheaper than individual inserts for high volumes of events.
+ * <p>
+ * This bypasses Hibernate, so the columns written here need to be kept in line with the mapping of the {@link AuditEvent} entities.
+ * Texts are written to the {@code audit_texts} table first, skipping any that are already there.
+ * </p>
+ * <p>
+ * Events which may already have been stored (when replaying the {@link AuditJournal}) are copied into a temporary staging table
+ * instead, and inserted from there with {@code ON CONFLICT DO NOTHING} against the unique event key index.
+ * </p>
+ */
+@ApplicationScoped
+@Typed(CopyAuditSink.class)
+public class CopyAuditSink extends BatchingAuditSink {
+	private static final List<String> COLUMNS = List.of(
+		"id",
+		"event_type",
+		"event_key",
+		"created_on",
+		"interaction_id",
+		"interface_name",
+		"method_name",
+		"system_message_hash",
+		"user_message_hash",
+		"result_hash",
+		"result",
+		"error_message",
+		"cause_error_message",
+		"response_hash",
+		"model_name",
+		"input_token_count",
+		"output_token_count",
+		"tool_name",
+		"tool_args",
+		"tool_result_hash",
+		"rewritten_user_message_hash",
+		"guardrail_class",
+		"guardrail_result"
+	);
+
+	private static final String COPY_SQL = "COPY %s (%s) FROM STDIN WITH (FORMAT csv)";
+	private static final String STAGING_TABLE_NAME = "audit_events_staging";
+	private static final String CREATE_STAGING_TABLE_SQL = "CREATE TEMPORARY TABLE IF NOT EXISTS %s (LIKE audit_events INCLUDING DEFAULTS) ON COMMIT DELETE ROWS".formatted(STAGING_TABLE_NAME);
+	private static final String INSERT_STAGED_SQL = "INSERT INTO audit_events (%1$s) SELECT %1$s FROM %2$s ON CONFLICT (event_key, created_on) DO NOTHING".formatted(String.join(", ", COLUMNS), STAGING_TABLE_NAME);
+	private static final String NEXT_IDS_SQL = "SELECT nextval('audit_events_seq') FROM generate_series(1, ?)";
+	private static final String INSERT_TEXT_SQL = "INSERT INTO audit_texts (hash, content) VALUES (?, ?) ON CONFLICT (hash) DO NOTHING";
+
+	private final DataSource dataSource;
+	private final CompressedTextConverter textConverter;
+
+	public CopyAuditSink(AuditConfig auditConfig, AuditJournal journal, Meter meter, DataSource dataSource, CompressedTextConverter textConverter) {
+		super(auditConfig, journal, meter);
+		this.dataSource = dataSource;
+		this.textConverter = textConverter;
+	}
+
+	@Override
+	public void store(List<AuditEvent> auditEvents) {
+		write(auditEvents, false);
+	}
+
+	@Override
+	public void storeIfAbsent(List<AuditEvent> auditEvents) {
+		write(auditEvents, true);
+	}
+
+	private void write(List<AuditEvent> auditEvents, boolean skipExisting) {
+		if (auditEvents.isEmpty()) {
+			return;
+		}
+
+		var texts = new HashMap<String, String>();
+		var rows = auditEvents.stream()
+		                      .map(auditEvent -> toRow(auditEvent, texts))
+		                      .toList();
+
+		try (var connection = this.dataSource.getConnection()) {
+			connection.setAutoCommit(false);
+
+			try {
+				var ids = nextIds(connection, auditEvents.size());
+				insertTexts(connection, texts);
+
+				if (skipExisting) {
+					execute(connection, CREATE_STAGING_TABLE_SQL);
+					copy(connection, STAGING_TABLE_NAME, rows, ids);
+					execute(connection, INSERT_STAGED_SQL);
+				}
+				else {
+					copy(connection, "audit_events", rows, ids);
+				}
+
+				connection.commit();
+
+				// Which of the ids were used isn't known when existing events are skipped
+				if (!skipExisting) {
+					for (var i = 0; i < auditEvents.size(); i++) {
+						auditEvents.get(i).setId(ids.get(i));
+					}
+				}
+			}
+			catch (SQLException | IOException | RuntimeException e) {
+				connection.rollback();
+				throw e;
+			}
+		}
+		catch (SQLException | IOException e) {
+			throw new PersistenceException("Unable to copy %d audit events".formatted(auditEvents.size()), e);
+		}
+	}
+
+	private static List<Long> nextIds(Connection connection, int count) throws SQLException {
+		try (var statement = connection.prepareStatement(NEXT_IDS_SQL)) {
+			statement.setInt(1, count);
+
+			try (var resultSet = statement.executeQuery()) {
+				var ids = new ArrayList<Long>(count);
+
+				while (resultSet.next()) {
+					ids.add(resultSet.getLong(1));
+				}
+
+				return ids;
+			}
+		}
+	}
+
+	private void insertTexts(Connection connection, Map<String, String> texts) throws SQLException {
+		if (texts.isEmpty()) {
+			return;
+		}
+
+		try (var statement = connection.prepareStatement(INSERT_TEXT_SQL)) {
+			for (var text : texts.entrySet()) {
+				statement.setString(1, text.getKey());
+				statement.setBytes(2, this.textConverter.convertToDatabaseColumn(text.getValue()));
+				statement.addBatch();
+			}
+
+			statement.executeBatch();
+		}
+	}
+
+	private static void execute(Connection connection, String sql) throws SQLException {
+		try (var statement = connection.createStatement()) {
+			statement.execute(sql);
+		}
+	}
+
+	private static void copy(Connection connection, String tableName, List<Map<String, Object>> rows, List<Long> ids) throws SQLException, IOException {
+		var csv = new StringBuilder();
+
+		for (var i = 0; i < rows.size(); i++) {
+			var row = rows.get(i);
+			row.put("id", ids.get(i));
+
+			for (var column = 0; column < COLUMNS.size(); column++) {
+				if (column > 0) {
+					csv.append(',');
+				}
+
+				appendCsvValue(csv, row.get(COLUMNS.get(column)));
+			}
+
+			csv.append('\n');
+		}
+
+		connection.unwrap(PGConnection.class)
+		          .getCopyAPI()
+		          .copyIn(COPY_SQL.formatted(tableName, String.join(", ", COLUMNS)), new StringReader(csv.toString()));
+	}
+
+	// In CSV format an unquoted empty value is NULL, while a quoted one is an empty string
+	private static void appendCsvValue(StringBuilder csv, Object value) {
+		switch (value) {
+			case null -> {
+			}
+			case Number number -> csv.append(number);
+			default -> csv.append('"')
+			              .append(value.toString().replace("\"", "\"\""))
+			              .append('"');
+		}
+	}
+
+	private static Map<String, Object> toRow(AuditEvent auditEvent, Map<String, String> texts) {
+		var row = new HashMap<String, Object>();
+		var invocationContext = Optional.ofNullable(auditEvent.getInvocationContext());
+
+		row.put("event_type", auditEvent.getEventType().name());
+		row.put("event_key", auditEvent.getEventKey());
+		row.put("created_on", auditEvent.getCreatedOn());
+		row.put("interaction_id", invocationContext.map(InvocationContext::getInteractionId).orElse(null));
+		row.put("interface_name", invocationContext.map(InvocationContext::getInterfaceName).orElse(null));
+		row.put("method_name", invocationContext.map(InvocationContext::getMethodName).orElse(null));
+
+		switch (auditEvent) {
+			case ServiceStartedAuditEvent e -> {
+				row.put("system_message_hash", textHash(e.getSystemMessage(), texts));
+				row.put("user_message_hash", textHash(e.getUserMessage(), texts));
+			}
+			case ServiceCompleteAuditEvent e -> row.put("result_hash", textHash(e.getResult(), texts));
+			case ServiceErrorAuditEvent e -> {
+				row.put("error_message", e.getErrorMessage());
+				row.put("cause_error_message", e.getCauseErrorMessage());
+			}
+			case ResponseReceivedAuditEvent e -> {
+				row.put("response_hash", textHash(e.getResponse(), texts));
+				row.put("model_name", e.getModelName());
+				row.put("input_token_count", e.getInputTokenCount());
+				row.put("output_token_count", e.getOutputTokenCount());
+			}
+			case ToolExecutedAuditEvent e -> {
+				row.put("tool_name", e.getToolName());
+				row.put("tool_args", e.getToolArgs());
+				row.put("tool_result_hash", textHash(e.getToolResult(), texts));
+			}
+			case InputGuardrailExecutedAuditEvent e -> {
+				row.put("user_message_hash", textHash(e.getUserMessage(), texts));
+				row.put("rewritten_user_message_hash", textHash(e.getRewrittenUserMessage(), texts));
+				row.put("result", e.getResult());
+				row.put("guardrail_class", e.getGuardrailClass());
+			}
+			case OutputGuardrailExecutedAuditEvent e -> {
+				row.put("response_hash", textHash(e.getResponse(), texts));
+				row.put("guardrail_result", e.getGuardrailResult());
+				row.put("guardrail_class", e.getGuardrailClass());
+			}
+			default -> throw new IllegalArgumentException("Unknown audit event type: %s".formatted(auditEvent.getClass().getName()));
+		}
+
+		return row;
+	}
+
+	private static String textHash(String text, Map<String, String> texts) {
+		if (text == null) {
+			return null;
+		}
+
+		var hash = AuditText.hashOf(text);
+		texts.putIfAbsent(hash, text);
+
+		return hash;
+	}
+}
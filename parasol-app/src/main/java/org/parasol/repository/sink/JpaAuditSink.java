@@ -0,0 +1,79 @@
+package org.parasol.repository.sink;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.persistence.EntityManager;
+
+import org.parasol.config.AuditConfig;
+import org.parasol.model.audit.AuditEvent;
+import org.parasol.repository.AuditTextStore;
+import org.parasol.repository.journal.AuditJournal;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+
+import io.opentelemetry.api.metrics.Meter;
+
+/**
+ * Stores audit events through Hibernate, each batch in its own transaction, which Hibernate sends to the database as a JDBC batch.
+ * <p>
+ * Events which may already have been stored are looked up by their event key first, and only those which weren't found are persisted.
+ * If the same event is stored by someone else in the meantime, the unique event key index fails the batch, which is then
+ * retried by its caller and finds it.
+ * </p>
+ */
+@ApplicationScoped
+@Typed(JpaAuditSink.class)
+public class JpaAuditSink extends BatchingAuditSink {
+	private final EntityManager entityManager;
+	private final AuditTextStore textStore;
+
+	public JpaAuditSink(AuditConfig auditConfig, AuditJournal journal, Meter meter, EntityManager entityManager, AuditTextStore textStore) {
+		super(auditConfig, journal, meter);
+		this.entityManager = entityManager;
+		this.textStore = textStore;
+	}
+
+	@Override
+	public void store(List<AuditEvent> auditEvents) {
+		QuarkusTransaction.requiringNew().run(() -> auditEvents.forEach(this::persist));
+	}
+
+	@Override
+	public void storeIfAbsent(List<AuditEvent> auditEvents) {
+		if (auditEvents.isEmpty()) {
+			return;
+		}
+
+		QuarkusTransaction.requiringNew().run(() -> {
+			var eventKeys = new HashSet<>(storedEventKeys(auditEvents));
+
+			auditEvents.stream()
+			           .filter(auditEvent -> eventKeys.add(auditEvent.getEventKey()))
+			           .forEach(this::persist);
+		});
+	}
+
+	// Bounded by the events' times as well, so that only the partitions they are in are searched
+	private Set<UUID> storedEventKeys(List<AuditEvent> auditEvents) {
+		var createdOn = Comparator.comparing(AuditEvent::getCreatedOn);
+
+		return Set.copyOf(
+			this.entityManager.createQuery("SELECT e.eventKey FROM AuditEvent e WHERE e.eventKey IN :eventKeys AND e.createdOn BETWEEN :from AND :to", UUID.class)
+			                  .setParameter("eventKeys", auditEvents.stream().map(AuditEvent::getEventKey).toList())
+			                  .setParameter("from", auditEvents.stream().min(createdOn).orElseThrow().getCreatedOn())
+			                  .setParameter("to", auditEvents.stream().max(createdOn).orElseThrow().getCreatedOn())
+			                  .getResultList()
+		);
+	}
+
+	private void persist(AuditEvent auditEvent) {
+		this.textStore.intern(auditEvent);
+		this.entityManager.persist(auditEvent);
+	}
+}
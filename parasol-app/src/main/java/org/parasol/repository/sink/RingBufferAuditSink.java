@@ -0,0 +1,91 @@
+package org.parasol.repository.sink;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+
+import org.parasol.config.AuditConfig;
+import org.parasol.model.audit.AuditEvent;
+
+/**
+ * Keeps the most recent audit events in memory, overwriting the oldest once it is full. Nothing is written to the database.
+ * <p>
+ * Intended for tests and benchmarks, where the cost of storing events shouldn't get in the way.
+ * Publishing is lock-free: each publisher claims a slot with a single atomic increment and then fills it in.
+ * </p>
+ */
+@ApplicationScoped
+@Typed(RingBufferAuditSink.class)
+public class RingBufferAuditSink implements AuditSink {
+	private final AtomicReferenceArray<AuditEvent> buffer;
+	private final AtomicLong sequence = new AtomicLong();
+	private final int mask;
+
+	public RingBufferAuditSink(AuditConfig auditConfig) {
+		var capacity = auditConfig.sink().ringBuffer().capacity();
+
+		if (Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("The ring buffer capacity must be a power of 2, but was %d".formatted(capacity));
+		}
+
+		this.buffer = new AtomicReferenceArray<>(capacity);
+		this.mask = capacity - 1;
+	}
+
+	@Override
+	public void publish(AuditEvent auditEvent) {
+		this.buffer.set((int) (this.sequence.getAndIncrement() & this.mask), auditEvent);
+	}
+
+	@Override
+	public void store(List<AuditEvent> auditEvents) {
+		auditEvents.forEach(this::publish);
+	}
+
+	// Nothing is kept for long enough to be stored twice
+	@Override
+	public void storeIfAbsent(List<AuditEvent> auditEvents) {
+		store(auditEvents);
+	}
+
+	/**
+	 * The number of events ever published, including those which have since been overwritten
+	 */
+	public long getPublishedCount() {
+		return this.sequence.get();
+	}
+
+	/**
+	 * The events currently held, oldest first. Slots which have been claimed but not yet filled in are skipped.
+	 */
+	public List<AuditEvent> getEvents() {
+		var end = this.sequence.get();
+		var start = Math.max(0, end - this.buffer.length());
+		var events = new ArrayList<AuditEvent>((int) (end - start));
+
+		for (var i = start; i < end; i++) {
+			var event = this.buffer.get((int) (i & this.mask));
+
+			if (event != null) {
+				events.add(event);
+			}
+		}
+
+		return events;
+	}
+
+	/**
+	 * Removes all the events
+	 */
+	public void clear() {
+		for (var i = 0; i < this.buffer.length(); i++) {
+			this.buffer.set(i, null);
+		}
+
+		this.sequence.set(0);
+	}
+}
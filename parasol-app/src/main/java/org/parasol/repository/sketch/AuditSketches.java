@@ -0,0 +1,82 @@
+package org.parasol.repository.sketch;
+
+import java.util.UUID;
+
+/**
+ * The sketches of one {@link org.parasol.model.audit.AuditSketch time bucket}, or of several merged together
+ */
+public final class AuditSketches {
+	private final HyperLogLog interactions;
+	private final TDigest inputTokens;
+	private final TDigest outputTokens;
+	private final TDigest outputGuardrailExecutions;
+	private final TDigest outputGuardrailFailures;
+
+	public AuditSketches() {
+		this(new HyperLogLog(), new TDigest(), new TDigest(), new TDigest(), new TDigest());
+	}
+
+	private AuditSketches(HyperLogLog interactions, TDigest inputTokens, TDigest outputTokens, TDigest outputGuardrailExecutions, TDigest outputGuardrailFailures) {
+		this.interactions = interactions;
+		this.inputTokens = inputTokens;
+		this.outputTokens = outputTokens;
+		this.outputGuardrailExecutions = outputGuardrailExecutions;
+		this.outputGuardrailFailures = outputGuardrailFailures;
+	}
+
+	public static AuditSketches fromBytes(byte[] interactions, byte[] inputTokens, byte[] outputTokens, byte[] outputGuardrailExecutions, byte[] outputGuardrailFailures) {
+		return new AuditSketches(
+			HyperLogLog.fromBytes(interactions),
+			TDigest.fromBytes(inputTokens),
+			TDigest.fromBytes(outputTokens),
+			TDigest.fromBytes(outputGuardrailExecutions),
+			TDigest.fromBytes(outputGuardrailFailures)
+		);
+	}
+
+	/**
+	 * Counts an interaction having events within the bucket
+	 */
+	public void addActiveInteraction(UUID interactionId) {
+		this.interactions.add(interactionId);
+	}
+
+	/**
+	 * Adds the totals of an interaction which started within the bucket
+	 */
+	public void addStartedInteraction(long inputTokens, long outputTokens, long outputGuardrailExecutions, long outputGuardrailFailures) {
+		this.inputTokens.add(inputTokens);
+		this.outputTokens.add(outputTokens);
+		this.outputGuardrailExecutions.add(outputGuardrailExecutions);
+		this.outputGuardrailFailures.add(outputGuardrailFailures);
+	}
+
+	public AuditSketches merge(AuditSketches other) {
+		this.interactions.merge(other.interactions);
+		this.inputTokens.merge(other.inputTokens);
+		this.outputTokens.merge(other.outputTokens);
+		this.outputGuardrailExecutions.merge(other.outputGuardrailExecutions);
+		this.outputGuardrailFailures.merge(other.outputGuardrailFailures);
+		return this;
+	}
+
+	public HyperLogLog interactions() {
+		return this.interactions;
+	}
+
+	public TDigest inputTokens() {
+		return this.inputTokens;
+	}
+
+	public TDigest outputTokens() {
+		return this.outputTokens;
+	}
+
+	public TDigest outputGuardrailExecutions() {
+		return this.outputGuardrailExecutions;
+	}
+
+	public TDigest outputGuardrailFailures() {
+		return this.outputGuardrailFailures;
+	}
+}
@@ -0,0 +1,107 @@
+package org.parasol.repository.sketch;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * A HyperLogLog sketch estimating the number of distinct ids added to it, in a fixed {@value #REGISTER_COUNT} bytes.
+ * <p>
+ * Sketches can be merged, and the estimate of the merged sketch is that of the union of the ids added to each,
+ * so sketches kept per time bucket can be combined to count across any range of buckets.
+ * The relative standard error of the estimate is {@value #RELATIVE_STANDARD_ERROR}.
+ * </p>
+ */
+public final class HyperLogLog {
+	private static final int PRECISION = 12;
+	static final int REGISTER_COUNT = 1 << PRECISION;
+	public static final double RELATIVE_STANDARD_ERROR = 1.04 / 64;
+
+	private static final double ALPHA = 0.7213 / (1 + (1.079 / REGISTER_COUNT));
+
+	private final byte[] registers;
+
+	public HyperLogLog() {
+		this(new byte[REGISTER_COUNT]);
+	}
+
+	private HyperLogLog(byte[] registers) {
+		this.registers = registers;
+	}
+
+	public static HyperLogLog fromBytes(byte[] bytes) {
+		if (bytes.length != REGISTER_COUNT) {
+			throw new IllegalArgumentException("A HyperLogLog sketch has %d registers, not %d".formatted(REGISTER_COUNT, bytes.length));
+		}
+
+		return new HyperLogLog(bytes.clone());
+	}
+
+	public byte[] toBytes() {
+		return this.registers.clone();
+	}
+
+	public void add(UUID id) {
+		var hash = mix(id.getMostSignificantBits() ^ mix(id.getLeastSignificantBits()));
+		var register = (int) (hash >>> (Long.SIZE - PRECISION));
+
+		// The position of the first 1 bit in the rest of the hash, with a sentinel bit so it is never all zeros
+		var rank = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+
+		if (rank > this.registers[register]) {
+			this.registers[register] = rank;
+		}
+	}
+
+	public HyperLogLog merge(HyperLogLog other) {
+		for (var i = 0; i < REGISTER_COUNT; i++) {
+			this.registers[i] = (byte) Math.max(this.registers[i], other.registers[i]);
+		}
+
+		return this;
+	}
+
+	/**
+	 * The estimated number of distinct ids, using linear counting when the sketch is sparse enough for it to be more accurate
+	 */
+	public long estimate() {
+		var sum = 0.0;
+		var zeros = 0;
+
+		for (var register : this.registers) {
+			sum += Math.scalb(1.0, -register);
+
+			if (register == 0) {
+				zeros++;
+			}
+		}
+
+		var estimate = ALPHA * REGISTER_COUNT * REGISTER_COUNT / sum;
+
+		if ((estimate <= 2.5 * REGISTER_COUNT) && (zeros > 0)) {
+			estimate = REGISTER_COUNT * Math.log((double) REGISTER_COUNT / zeros);
+		}
+
+		return Math.round(estimate);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return (o instanceof HyperLogLog that) && Arrays.equals(this.registers, that.registers);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(this.registers);
+	}
+
+	// The finalizer of MurmurHash3
+	private static long mix(long value) {
+		value ^= value >>> 33;
+		value *= 0xff51afd7ed558ccdL;
+		value ^= value >>> 33;
+		value *= 0xc4ceb9fe1a85ec53L;
+		value ^= value >>> 33;
+
+		return value;
+	}
+}
@@ -0,0 +1,269 @@
+package org.parasol.repository.sketch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * A merging t-digest, summarizing a distribution of values in a bounded number of centroids so that quantiles can be estimated.
+ * <p>
+ * Centroids are kept small near the tails (using the arcsine scale function) so extreme quantiles are the most accurate.
+ * Digests can be merged, so digests kept per time bucket can be combined to summarize any range of buckets.
+ * The count, sum, min and max are exact.
+ * </p>
+ */
+public final class TDigest {
+	private static final double COMPRESSION = 100;
+	private static final int BUFFER_SIZE = (int) (5 * COMPRESSION);
+
+	private double[] means = new double[0];
+	private long[] weights = new long[0];
+	private final double[] bufferMeans = new double[BUFFER_SIZE];
+	private final long[] bufferWeights = new long[BUFFER_SIZE];
+	private int buffered;
+	private long count;
+	private double sum;
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+
+	public static TDigest fromBytes(byte[] bytes) {
+		var digest = new TDigest();
+
+		try (var in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+			var centroids = in.readInt();
+			digest.means = new double[centroids];
+			digest.weights = new long[centroids];
+
+			for (var i = 0; i < centroids; i++) {
+				digest.means[i] = in.readDouble();
+				digest.weights[i] = in.readLong();
+				digest.count += digest.weights[i];
+			}
+
+			digest.sum = in.readDouble();
+			digest.min = in.readDouble();
+			digest.max = in.readDouble();
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		return digest;
+	}
+
+	public byte[] toBytes() {
+		compress();
+		var bytes = new ByteArrayOutputStream(Integer.BYTES + (this.means.length * (Double.BYTES + Long.BYTES)) + (3 * Double.BYTES));
+
+		try (var out = new DataOutputStream(bytes)) {
+			out.writeInt(this.means.length);
+
+			for (var i = 0; i < this.means.length; i++) {
+				out.writeDouble(this.means[i]);
+				out.writeLong(this.weights[i]);
+			}
+
+			out.writeDouble(this.sum);
+			out.writeDouble(this.min);
+			out.writeDouble(this.max);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		return bytes.toByteArray();
+	}
+
+	public void add(double value) {
+		add(value, 1);
+		this.sum += value;
+	}
+
+	public TDigest merge(TDigest other) {
+		other.compress();
+
+		for (var i = 0; i < other.means.length; i++) {
+			add(other.means[i], other.weights[i]);
+		}
+
+		this.sum += other.sum;
+		this.min = Math.min(this.min, other.min);
+		this.max = Math.max(this.max, other.max);
+		return this;
+	}
+
+	public long count() {
+		return this.count;
+	}
+
+	public double sum() {
+		return this.sum;
+	}
+
+	public double min() {
+		return this.min;
+	}
+
+	public double max() {
+		return this.max;
+	}
+
+	/**
+	 * The estimated value at the given quantile (between 0 and 1), or {@code NaN} if the digest is empty
+	 */
+	public double quantile(double quantile) {
+		compress();
+
+		if (this.count == 0) {
+			return Double.NaN;
+		}
+
+		if (this.means.length == 1) {
+			return this.means[0];
+		}
+
+		var rank = quantile * this.count;
+
+		// Between the min and the middle of the first centroid
+		if (rank < this.weights[0] / 2.0) {
+			return interpolate(this.min, this.means[0], rank / (this.weights[0] / 2.0));
+		}
+
+		var last = this.means.length - 1;
+
+		// Between the middle of the last centroid and the max
+		if (rank > this.count - (this.weights[last] / 2.0)) {
+			return interpolate(this.means[last], this.max, (rank - (this.count - (this.weights[last] / 2.0))) / (this.weights[last] / 2.0));
+		}
+
+		// Otherwise between the middles of two centroids
+		var cumulative = this.weights[0] / 2.0;
+
+		for (var i = 0; i < last; i++) {
+			var gap = (this.weights[i] + this.weights[i + 1]) / 2.0;
+
+			if (cumulative + gap >= rank) {
+				return interpolate(this.means[i], this.means[i + 1], (rank - cumulative) / gap);
+			}
+
+			cumulative += gap;
+		}
+
+		return this.means[last];
+	}
+
+	/**
+	 * The bounds on the value at the given quantile. Values in the same centroid can't be told apart, so the rank of the value
+	 * could be anywhere within the centroid it falls in, and the bounds are the values at either end of that.
+	 */
+	public double[] quantileBounds(double quantile) {
+		compress();
+
+		if (this.count == 0) {
+			return new double[] { Double.NaN, Double.NaN };
+		}
+
+		var rank = quantile * this.count;
+		var cumulative = 0L;
+		var weight = this.weights[this.weights.length - 1];
+
+		for (var i = 0; i < this.weights.length; i++) {
+			if (cumulative + this.weights[i] >= rank) {
+				weight = this.weights[i];
+				break;
+			}
+
+			cumulative += this.weights[i];
+		}
+
+		var halfWidth = weight / (2.0 * this.count);
+
+		return new double[] {
+			quantile(Math.max(0, quantile - halfWidth)),
+			quantile(Math.min(1, quantile + halfWidth))
+		};
+	}
+
+	private void add(double mean, long weight) {
+		if (this.buffered == BUFFER_SIZE) {
+			compress();
+		}
+
+		this.bufferMeans[this.buffered] = mean;
+		this.bufferWeights[this.buffered] = weight;
+		this.buffered++;
+		this.count += weight;
+		this.min = Math.min(this.min, mean);
+		this.max = Math.max(this.max, mean);
+	}
+
+	/**
+	 * Merges the buffered values into the centroids, combining neighbouring centroids for as long as they stay within
+	 * the size the scale function allows at their quantile
+	 */
+	private void compress() {
+		if (this.buffered == 0) {
+			return;
+		}
+
+		var total = this.means.length + this.buffered;
+		var order = new Integer[total];
+		var allMeans = Arrays.copyOf(this.means, total);
+		var allWeights = Arrays.copyOf(this.weights, total);
+		System.arraycopy(this.bufferMeans, 0, allMeans, this.means.length, this.buffered);
+		System.arraycopy(this.bufferWeights, 0, allWeights, this.means.length, this.buffered);
+
+		for (var i = 0; i < total; i++) {
+			order[i] = i;
+		}
+
+		Arrays.sort(order, (a, b) -> Double.compare(allMeans[a], allMeans[b]));
+
+		var means = new double[total];
+		var weights = new long[total];
+		var centroids = 0;
+		var weightSoFar = 0L;
+		var weightLimit = weightLimit(0);
+
+		means[0] = allMeans[order[0]];
+		weights[0] = allWeights[order[0]];
+
+		for (var i = 1; i < total; i++) {
+			var mean = allMeans[order[i]];
+			var weight = allWeights[order[i]];
+
+			if (weightSoFar + weights[centroids] + weight <= weightLimit) {
+				weights[centroids] += weight;
+				means[centroids] += (mean - means[centroids]) * weight / weights[centroids];
+			}
+			else {
+				weightSoFar += weights[centroids];
+				weightLimit = weightLimit(weightSoFar);
+				centroids++;
+				means[centroids] = mean;
+				weights[centroids] = weight;
+			}
+		}
+
+		this.means = Arrays.copyOf(means, centroids + 1);
+		this.weights = Arrays.copyOf(weights, centroids + 1);
+		this.buffered = 0;
+	}
+
+	// The cumulative weight up to which a centroid starting at the given weight can grow
+	private double weightLimit(long weightSoFar) {
+		var quantile = (double) weightSoFar / this.count;
+		var k = (COMPRESSION / (2 * Math.PI)) * Math.asin((2 * quantile) - 1);
+		var limitQuantile = (Math.sin(Math.min(Math.PI / 2, (k + 1) * (2 * Math.PI) / COMPRESSION)) + 1) / 2;
+
+		return limitQuantile * this.count;
+	}
+
+	private static double interpolate(double from, double to, double fraction) {
+		return from + ((to - from) * Math.clamp(fraction, 0.0, 1.0));
+	}
+}
@@ -0,0 +1,77 @@
+package org.parasol.resources;
+
+import java.util.Set;
+
+import org.parasol.model.audit.AuditEvent;
+import org.parasol.model.audit.PayloadSelection;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+/**
+ * Serializes only the fields of audit events included in a {@link PayloadSelection}, cutting the large texts down to previews if asked for.
+ * <p>
+ * Fields which are left out are never read, so their texts are never loaded from the database.
+ * The event's {@code id} and {@code eventType} are always included so that the full event can be fetched afterwards.
+ * </p>
+ */
+final class AuditEventPayloadFilter extends SimpleBeanPropertyFilter {
+	private static final String FILTER_ID = "auditEventPayload";
+	private static final Set<String> ALWAYS_INCLUDED = Set.of("id", "eventType");
+	private static final Set<String> TEXT_FIELDS = Set.of(
+		"systemMessage",
+		"userMessage",
+		"rewrittenUserMessage",
+		"result",
+		"response",
+		"guardrailResult",
+		"toolArgs",
+		"toolResult",
+		"errorMessage",
+		"causeErrorMessage"
+	);
+
+	private final PayloadSelection selection;
+
+	private AuditEventPayloadFilter(PayloadSelection selection) {
+		this.selection = selection;
+	}
+
+	/**
+	 * A copy of the object mapper which applies the filter to audit events
+	 */
+	static ObjectMapper filteringCopyOf(ObjectMapper objectMapper) {
+		return objectMapper.copy()
+		                   .addMixIn(AuditEvent.class, FilteredAuditEvent.class);
+	}
+
+	static FilterProvider forSelection(PayloadSelection selection) {
+		return new SimpleFilterProvider().addFilter(FILTER_ID, new AuditEventPayloadFilter(selection));
+	}
+
+	@Override
+	public void serializeAsField(Object pojo, JsonGenerator generator, SerializerProvider provider, PropertyWriter writer) throws Exception {
+		var name = writer.getName();
+
+		if (!ALWAYS_INCLUDED.contains(name) && !this.selection.includes(name)) {
+			return;
+		}
+
+		if (this.selection.isPreview() && TEXT_FIELDS.contains(name) && (writer instanceof BeanPropertyWriter beanPropertyWriter) && (beanPropertyWriter.get(pojo) instanceof String text) && !text.isEmpty()) {
+			generator.writeStringField(name, this.selection.preview(text));
+			return;
+		}
+
+		writer.serializeAsField(pojo, generator, provider);
+	}
+
+	@JsonFilter(FILTER_ID)
+	private interface FilteredAuditEvent {}
+}
@@ -1,53 +1,343 @@
 package org.parasol.resources;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 
+import org.jboss.resteasy.reactive.RestStreamElementType;
+import org.jboss.resteasy.reactive.common.util.RestMediaType;
+import org.parasol.ai.audit.AuditFlightRecorderStats;
+import org.parasol.ai.audit.LiveAuditStats;
+import org.parasol.config.AuditConfig;
+import org.parasol.model.audit.AuditDates;
 import org.parasol.model.audit.AuditEvent;
-import org.parasol.model.audit.AuditStats;
-import org.parasol.model.audit.Interactions;
+import org.parasol.model.audit.AuditEventFilter;
+import org.parasol.model.audit.AuditEventType;
+import org.parasol.model.audit.AuditEvents;
+import org.parasol.model.audit.AuditLatency;
+import org.parasol.model.audit.AuditTrend;
+import org.parasol.model.audit.AuditTrend.Granularity;
+import org.parasol.model.audit.HotSpots;
+import org.parasol.model.audit.LiveStats;
+import org.parasol.model.audit.PageCursor;
+import org.parasol.model.audit.PayloadSelection;
+import org.parasol.repository.AuditEventFeed;
+import org.parasol.repository.AuditEventFeed.Filter;
 import org.parasol.repository.AuditEventRepository;
+import org.parasol.repository.AuditResponseCache;
+import org.parasol.repository.AuditResponseCache.CachedResponse;
+import org.parasol.repository.export.AuditFileExporter;
+import org.parasol.repository.export.AuditExportJobs;
+import org.parasol.repository.export.AuditExportJobs.ExportJob;
 
-import io.quarkus.panache.common.Sort;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.smallrye.mutiny.Multi;
 
 @Path("/auditEvents")
 @Produces(MediaType.APPLICATION_JSON)
 public class AuditEventResource {
 	private final AuditEventRepository auditEventRepository;
+	private final LiveAuditStats liveAuditStats;
+	private final AuditFlightRecorderStats auditFlightRecorderStats;
+	private final AuditEventFeed auditEventFeed;
+	private final AuditConfig auditConfig;
+	private final AuditResponseCache auditResponseCache;
+	private final AuditExportJobs auditExportJobs;
+	private final ObjectWriter jsonWriter;
+	private final ObjectWriter ndjsonWriter;
+	private final ObjectWriter payloadWriter;
 
-	public AuditEventResource(AuditEventRepository auditEventRepository) {
+	public AuditEventResource(AuditEventRepository auditEventRepository, LiveAuditStats liveAuditStats, AuditFlightRecorderStats auditFlightRecorderStats, AuditEventFeed auditEventFeed, AuditConfig auditConfig, AuditResponseCache auditResponseCache, AuditExportJobs auditExportJobs, ObjectMapper objectMapper) {
 		this.auditEventRepository = auditEventRepository;
+		this.liveAuditStats = liveAuditStats;
+		this.auditFlightRecorderStats = auditFlightRecorderStats;
+		this.auditEventFeed = auditEventFeed;
+		this.auditConfig = auditConfig;
+		this.auditResponseCache = auditResponseCache;
+		this.auditExportJobs = auditExportJobs;
+
+		this.jsonWriter = objectMapper.writer();
+
+		// Let the generator buffer the output rather than flushing after every event
+		this.ndjsonWriter = objectMapper.writer()
+		                                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+		                                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+		this.payloadWriter = AuditEventPayloadFilter.filteringCopyOf(objectMapper)
+		                                            .writer()
+		                                            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+	}
+
+	@GET
+	public AuditEvents getAuditEvents(
+		@QueryParam("eventType") AuditEventType eventType,
+		@QueryParam("interfaceName") String interfaceName,
+		@QueryParam("methodName") String methodName,
+		@QueryParam("modelName") String modelName,
+		@QueryParam("guardrailClass") String guardrailClass,
+		@QueryParam("cursor") Optional<String> cursor,
+		@QueryParam("limit") Optional<Integer> limit) {
+
+		return this.auditEventRepository.getAuditEvents(
+			new AuditEventFilter(eventType, interfaceName, methodName, modelName, guardrailClass),
+			decode(cursor, Long::valueOf),
+			limit
+		);
+	}
+
+	/**
+	 * Exports all the audit events as newline-delimited JSON, writing each one as it is read from the database
+	 */
+	@GET
+	@Produces(RestMediaType.APPLICATION_NDJSON)
+	public StreamingOutput exportAllAuditEvents() {
+		return output -> {
+			try (var generator = this.ndjsonWriter.createGenerator(output)) {
+				QuarkusTransaction.requiringNew()
+				                  .timeout((int) this.auditConfig.export().timeout().toSeconds())
+				                  .run(() -> this.auditEventRepository.exportAll(auditEvent -> writeLine(generator, auditEvent)));
+			}
+		};
+	}
+
+	/**
+	 * Starts exporting the events created within the range to Parquet files (see {@link AuditFileExporter}),
+	 * in the background. Responds with the job, whose status can be followed at its location.
+	 * Exporting the same range again resumes from where the last export of it got to.
+	 */
+	@POST
+	@Path("/exports")
+	public Response exportAuditEvents(@QueryParam("start") Instant start, @QueryParam("end") Instant end) {
+		if ((start == null) || (end == null) || !start.isBefore(end)) {
+			throw new BadRequestException("An export needs a start which is before its end");
+		}
+
+		var job = this.auditExportJobs.submit(new AuditDates(start, end));
+
+		return Response.accepted(job)
+		               .location(URI.create("auditEvents/exports/%s".formatted(job.id())))
+		               .build();
 	}
 
 	@GET
-	public List<AuditEvent> getAllAuditEvents() {
-		return this.auditEventRepository.listAll(Sort.by("createdOn"));
+	@Path("/exports/{jobId}")
+	public ExportJob getExportJob(@PathParam("jobId") UUID jobId) {
+		return this.auditExportJobs.get(jobId)
+		                           .orElseThrow(() -> new NotFoundException("Export job %s not found".formatted(jobId)));
 	}
 
+	@GET
+	@Path("/live")
+	@Produces(MediaType.SERVER_SENT_EVENTS)
+	@RestStreamElementType(MediaType.APPLICATION_JSON)
+	public Multi<AuditEvent> getLiveEvents(@QueryParam("eventType") AuditEventType eventType, @QueryParam("interfaceName") String interfaceName, @QueryParam("interactionId") UUID interactionId) {
+		return this.auditEventFeed.subscribe(new Filter(eventType, interfaceName, interactionId));
+	}
+
+	/**
+	 * The events of the interaction, with only the given (comma-separated) fields and the texts cut down to the first
+	 * {@code preview} characters if given. Full events can then be fetched with {@link #getAuditEvent(Long)}.
+	 */
 	@GET
 	@Path("/{interactionId}")
-	public List<AuditEvent> getEventsForInteraction(@PathParam("interactionId") UUID interactionId) {
-		return this.auditEventRepository.getAllForInteractionId(interactionId);
+	public StreamingOutput getEventsForInteraction(@PathParam("interactionId") UUID interactionId, @QueryParam("fields") String fields, @QueryParam("preview") Integer preview) {
+		var writer = this.payloadWriter.with(AuditEventPayloadFilter.forSelection(selection(fields, preview)));
+		var auditEvents = this.auditEventRepository.getAllForInteractionId(interactionId);
+
+		return output -> writer.writeValue(output, auditEvents);
 	}
 
+	@GET
+	@Path("/events/{eventId}")
+	public AuditEvent getAuditEvent(@PathParam("eventId") Long eventId) {
+		return this.auditEventRepository.getAuditEvent(eventId)
+		                                .orElseThrow(() -> new NotFoundException("Audit event %d not found".formatted(eventId)));
+	}
+
+	/**
+	 * The stats for the window, cached (see {@link AuditResponseCache}) and answering conditional requests with 304 while they are unchanged.
+	 * The window is widened to whole minutes.
+	 * <p>
+	 * With {@code approximate=true}, summary stats for the whole window are estimated from the sketches instead (see
+	 * {@link AuditEventRepository#getApproximateAuditStats}), which can't be filtered or paged.
+	 * </p>
+	 */
 	@GET
 	@Path("/stats")
-	public AuditStats getStats(@QueryParam("start") Optional<Instant> start, @QueryParam("end") Optional<Instant> end) {
-		return this.auditEventRepository.getAuditStats(start, end);
+	public Response getStats(
+		@QueryParam("start") Optional<Instant> start,
+		@QueryParam("end") Optional<Instant> end,
+		@QueryParam("eventType") AuditEventType eventType,
+		@QueryParam("interfaceName") String interfaceName,
+		@QueryParam("methodName") String methodName,
+		@QueryParam("modelName") String modelName,
+		@QueryParam("guardrailClass") String guardrailClass,
+		@QueryParam("cursor") Optional<String> cursor,
+		@QueryParam("limit") Optional<Integer> limit,
+		@QueryParam("approximate") @DefaultValue("false") boolean approximate,
+		@Context Request request) {
+
+		var window = AuditResponseCache.normalize(start, end);
+		var filter = new AuditEventFilter(eventType, interfaceName, methodName, modelName, guardrailClass);
+		var pageCursor = decode(cursor, UUID::fromString);
+
+		if (approximate) {
+			if (!filter.isEmpty() || pageCursor.isPresent() || limit.isPresent()) {
+				throw new BadRequestException("Approximate stats can't be filtered or paged");
+			}
+
+			return conditionally(
+				request,
+				this.auditResponseCache.get(
+					List.of("approximateStats", window),
+					window,
+					() -> json(this.auditEventRepository.getApproximateAuditStats(Optional.of(window.start()), Optional.of(window.end())))
+				)
+			);
+		}
+
+		return conditionally(
+			request,
+			this.auditResponseCache.get(
+				List.of("stats", window, filter, pageCursor, limit),
+				window,
+				() -> json(this.auditEventRepository.getAuditStats(Optional.of(window.start()), Optional.of(window.end()), filter, pageCursor, limit))
+			)
+		);
 	}
 
+	@GET
+	@Path("/stats/trend")
+	public AuditTrend getTrend(@QueryParam("start") Optional<Instant> start, @QueryParam("end") Optional<Instant> end, @QueryParam("granularity") @DefaultValue("DAY") Granularity granularity) {
+		return this.auditEventRepository.getAuditTrend(start, end, granularity);
+	}
+
+	@GET
+	@Path("/stats/latency")
+	public AuditLatency getLatency(@QueryParam("start") Optional<Instant> start, @QueryParam("end") Optional<Instant> end) {
+		return this.auditEventRepository.getAuditLatency(start, end);
+	}
+
+	@GET
+	@Path("/stats/live")
+	public LiveStats getLiveStats() {
+		return this.liveAuditStats.getStats();
+	}
+
+	/**
+	 * Where the time went over the live stats' window, which is empty unless the flight recorder stats are enabled
+	 */
+	@GET
+	@Path("/stats/hotspots")
+	public HotSpots getHotSpots() {
+		return this.auditFlightRecorderStats.getHotSpots();
+	}
+
+	/**
+	 * The interactions for the window, cached and conditional like {@link #getStats}
+	 */
 	@GET
 	@Path("/interactions")
-	public Interactions getLLMInteractions(@QueryParam("start") Optional<Instant> start, @QueryParam("end") Optional<Instant> end) {
-		return this.auditEventRepository.getLLMInteractions(start, end);
+	public Response getLLMInteractions(
+		@QueryParam("start") Optional<Instant> start,
+		@QueryParam("end") Optional<Instant> end,
+		@QueryParam("eventType") AuditEventType eventType,
+		@QueryParam("interfaceName") String interfaceName,
+		@QueryParam("methodName") String methodName,
+		@QueryParam("modelName") String modelName,
+		@QueryParam("guardrailClass") String guardrailClass,
+		@QueryParam("cursor") Optional<String> cursor,
+		@QueryParam("limit") Optional<Integer> limit,
+		@QueryParam("fields") String fields,
+		@QueryParam("preview") Integer preview,
+		@Context Request request) {
+
+		var window = AuditResponseCache.normalize(start, end);
+		var filter = new AuditEventFilter(eventType, interfaceName, methodName, modelName, guardrailClass);
+		var pageCursor = decode(cursor, UUID::fromString);
+		var selection = selection(fields, preview);
+
+		return conditionally(
+			request,
+			this.auditResponseCache.get(
+				List.of("interactions", window, filter, pageCursor, limit, selection),
+				window,
+				() -> json(this.auditEventRepository.getLLMInteractions(Optional.of(window.start()), Optional.of(window.end()), filter, pageCursor, limit, selection))
+			)
+		);
+	}
+
+	// Only by ETag: the version goes up as events are committed, but no time does (a late event can be created long before it is written)
+	private static Response conditionally(Request request, CachedResponse cachedResponse) {
+		var entityTag = new EntityTag(Long.toString(cachedResponse.version()));
+
+		return Optional.ofNullable(request.evaluatePreconditions(entityTag))
+		               .orElseGet(() -> Response.ok(cachedResponse.body(), MediaType.APPLICATION_JSON_TYPE))
+		               .tag(entityTag)
+		               .build();
+	}
+
+	private byte[] json(Object value) {
+		try {
+			return this.jsonWriter.writeValueAsBytes(value);
+		}
+		catch (JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static <T> Optional<PageCursor<T>> decode(Optional<String> cursor, Function<String, T> idParser) {
+		try {
+			return cursor.map(c -> PageCursor.decode(c, idParser));
+		}
+		catch (IllegalArgumentException e) {
+			throw new BadRequestException(e.getMessage(), e);
+		}
+	}
+
+	private static PayloadSelection selection(String fields, Integer preview) {
+		try {
+			return PayloadSelection.of(fields, preview);
+		}
+		catch (IllegalArgumentException e) {
+			throw new BadRequestException(e.getMessage(), e);
+		}
+	}
+
+	private void writeLine(JsonGenerator generator, AuditEvent auditEvent) {
+		try {
+			this.ndjsonWriter.writeValue(generator, auditEvent);
+			generator.writeRaw('\n');
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
 	}
 }
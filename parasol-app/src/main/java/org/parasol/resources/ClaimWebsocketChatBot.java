@@ -1,6 +1,7 @@
 package org.parasol.resources;
 
 import org.parasol.ai.ClaimService;
+import org.parasol.ai.audit.AuditLatencyHistograms;
 import org.parasol.model.claim.ClaimBotQuery;
 import org.parasol.model.claim.ClaimBotQueryResponse;
 
@@ -13,13 +14,17 @@ import io.quarkus.websockets.next.WebSocket;
 import io.quarkus.websockets.next.WebSocketConnection;
 
 import io.opentelemetry.instrumentation.annotations.WithSpan;
+import io.smallrye.common.annotation.Blocking;
+import io.smallrye.mutiny.Multi;
 
 @WebSocket(path = "/ws/query")
 public class ClaimWebsocketChatBot {
     private final ClaimService bot;
+    private final AuditLatencyHistograms auditLatencyHistograms;
 
-    public ClaimWebsocketChatBot(ClaimService bot) {
+    public ClaimWebsocketChatBot(ClaimService bot, AuditLatencyHistograms auditLatencyHistograms) {
         this.bot = bot;
+        this.auditLatencyHistograms = auditLatencyHistograms;
     }
 
     @OnOpen
@@ -40,26 +45,18 @@ public class ClaimWebsocketChatBot {
         return new ClaimBotQueryResponse("token", message, "");
     }
 
+    /**
+     * Streams the answer back a token at a time as the LLM generates it, timing how long the first token takes.
+     * Blocking, so that the AI service (and its blocking tools and audit observers) runs on a worker thread rather than the event loop.
+     */
     @OnTextMessage
     @WithSpan("ChatMessage")
-    public ClaimBotQueryResponse onMessage(ClaimBotQuery query) {
+    @Blocking
+    public Multi<ClaimBotQueryResponse> onMessage(ClaimBotQuery query) {
         Log.infof("Got chat query: %s", query);
-        var response = new ClaimBotQueryResponse("token", this.bot.chat(query), "");
-        Log.debugf("Got chat response: %s", response);
 
-        return response;
+        return this.auditLatencyHistograms.timeFirstToken(ClaimService.class, "chat", () -> this.bot.chat(query))
+            .invoke(token -> Log.debugf("Got chat response token: %s", token))
+            .map(token -> new ClaimBotQueryResponse("token", token, ""));
     }
-
-//    @OnTextMessage
-//  	@WithSpan("ChatMessage")
-//    @Blocking
-//    public Multi<ClaimBotQueryResponse> onMessage(ClaimBotQuery query) {
-//        Log.infof("Got chat query: %s", query);
-//
-//        return bot.chat(query)
-//          .invoke(response -> Log.debugf("Got chat response: %s", response))
-//          .map(resp -> new ClaimBotQueryResponse("token", resp, ""));
-//    }
 }
-
-
@@ -0,0 +1,164 @@
+package org.parasol.ai.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.parasol.config.AuditConfig;
+import org.parasol.model.audit.HotSpots.HotSpot;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.guardrail.OutputGuardrail;
+import dev.langchain4j.invocation.InvocationContext;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+import dev.langchain4j.observability.api.event.AiServiceEvent;
+import dev.langchain4j.observability.api.event.AiServiceResponseReceivedEvent;
+import dev.langchain4j.observability.api.event.AiServiceStartedEvent;
+import dev.langchain4j.observability.api.event.OutputGuardrailExecutedEvent;
+import dev.langchain4j.observability.api.event.ToolExecutedEvent;
+
+class AuditFlightRecorderStatsTests {
+	private final AuditConfig auditConfig = mock(AuditConfig.class, RETURNS_DEEP_STUBS);
+	private AuditFlightRecorderStats stats;
+	private InvocationTimingInterceptor timingInterceptor;
+	private AuditFlightRecordingInterceptor interceptor;
+
+	@BeforeEach
+	void beforeEach() {
+		when(this.auditConfig.live().window()).thenReturn(Duration.ofMinutes(1));
+		when(this.auditConfig.live().resolution()).thenReturn(Duration.ofSeconds(1));
+		when(this.auditConfig.maxInteractionDuration()).thenReturn(Duration.ofHours(1));
+
+		this.stats = new AuditFlightRecorderStats(this.auditConfig);
+		this.timingInterceptor = new InvocationTimingInterceptor(new InvocationTimings(this.auditConfig));
+		this.interceptor = new AuditFlightRecordingInterceptor();
+	}
+
+	@AfterEach
+	void afterEach() {
+		this.stats.stop();
+	}
+
+	@Test
+	void nothingIsStreamedUntilStarted() throws Exception {
+		intercept("started", AiServiceStartedEvent.class, AiServiceStartedEvent.builder().invocationContext(invocationContext()).userMessage(UserMessage.from("Hi")).build());
+
+		assertThat(this.stats.getHotSpots().hotSpots()).isEmpty();
+	}
+
+	@Test
+	void streamsTheEventsIntoHotSpots() throws Exception {
+		this.stats.start();
+
+		var invocationContext = invocationContext();
+		intercept("started", AiServiceStartedEvent.class, AiServiceStartedEvent.builder().invocationContext(invocationContext).userMessage(UserMessage.from("Hi")).build());
+		intercept("responseReceived", AiServiceResponseReceivedEvent.class, AiServiceResponseReceivedEvent.builder()
+			.invocationContext(invocationContext)
+			.response(
+				ChatResponse.builder()
+					.aiMessage(AiMessage.from("Hello"))
+					.modelName("someModel")
+					.tokenUsage(new TokenUsage(20, 40))
+					.build()
+			)
+			.build());
+
+		for (var i = 0; i < 2; i++) {
+			intercept("toolExecuted", ToolExecutedEvent.class, ToolExecutedEvent.builder()
+				.invocationContext(invocationContext)
+				.request(ToolExecutionRequest.builder().name("someTool").arguments("{}").build())
+				.resultText("Some result")
+				.build());
+		}
+
+		await()
+			.atMost(Duration.ofSeconds(30))
+			.untilAsserted(() -> assertThat(this.stats.getHotSpots().hotSpots()).hasSize(3));
+
+		assertThat(this.stats.getHotSpots().hotSpots())
+			.filteredOn(hotSpot -> hotSpot.eventType().equals(AuditFlightEvents.ToolExecuted.NAME))
+			.singleElement()
+			.returns("someTool", HotSpot::subject)
+			.returns("someInterface", HotSpot::interfaceName)
+			.returns("someMethod", HotSpot::methodName)
+			.returns(2L, HotSpot::count)
+			.returns(0L, HotSpot::failures);
+
+		assertThat(this.stats.getHotSpots().hotSpots())
+			.filteredOn(hotSpot -> hotSpot.eventType().equals(AuditFlightEvents.ResponseReceived.NAME))
+			.singleElement()
+			.returns("someModel", HotSpot::subject)
+			.returns(20L, HotSpot::inputTokens)
+			.returns(40L, HotSpot::outputTokens);
+	}
+
+	@Test
+	void anEventWhichCantBeRecordedDoesntFailTheMethod() {
+		this.stats.start();
+
+		// No result, so nothing to say whether to reprompt
+		var withoutResult = mock(OutputGuardrailExecutedEvent.class);
+		when(withoutResult.invocationContext()).thenReturn(invocationContext());
+		doReturn(OutputGuardrail.class).when(withoutResult).guardrailClass();
+
+		// Can't even be told apart from other invocations
+		var withoutInvocationContext = mock(OutputGuardrailExecutedEvent.class);
+		doReturn(OutputGuardrail.class).when(withoutInvocationContext).guardrailClass();
+
+		assertThatNoException().isThrownBy(() -> intercept("outputGuardrailExecuted", OutputGuardrailExecutedEvent.class, withoutResult));
+		assertThatNoException().isThrownBy(() -> intercept("outputGuardrailExecuted", OutputGuardrailExecutedEvent.class, withoutInvocationContext));
+	}
+
+	private <E extends AiServiceEvent> void intercept(String methodName, Class<E> eventClass, E event) throws Exception {
+		// The interceptors run in turn, each proceeding to the next
+		var context = new TestInvocationContext(method(methodName, eventClass), event);
+		this.timingInterceptor.invoke(context);
+		this.interceptor.invoke(context);
+	}
+
+	private static Method method(String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+		return Observed.class.getDeclaredMethod(name, parameterTypes);
+	}
+
+	private static InvocationContext invocationContext() {
+		return InvocationContext.builder()
+			.invocationId(UUID.randomUUID())
+			.interfaceName("someInterface")
+			.methodName("someMethod")
+			.timestamp(Instant.now())
+			.build();
+	}
+
+	static class Observed {
+		@AuditObserved(name = "parasol.test.started", description = "Started", unit = "started")
+		void started(AiServiceStartedEvent e) {
+		}
+
+		@AuditObserved(name = "parasol.test.response", description = "Responses", unit = "responses")
+		void responseReceived(AiServiceResponseReceivedEvent e) {
+		}
+
+		@AuditObserved(name = "parasol.test.tool", description = "Tools", unit = "tools")
+		void toolExecuted(ToolExecutedEvent e) {
+		}
+
+		@AuditObserved(name = "parasol.test.guardrail", description = "Guardrails", unit = "guardrails")
+		void outputGuardrailExecuted(OutputGuardrailExecutedEvent e) {
+		}
+	}
+}
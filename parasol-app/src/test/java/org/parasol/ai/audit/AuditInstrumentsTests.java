@@ -0,0 +1,137 @@
+package org.parasol.ai.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.invocation.InvocationContext;
+import dev.langchain4j.observability.api.event.AiServiceStartedEvent;
+import dev.langchain4j.observability.api.event.ToolExecutedEvent;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.trace.TracerProvider;
+
+class AuditInstrumentsTests {
+	private final Meter meter = mock(Meter.class, RETURNS_DEEP_STUBS);
+	private final AuditInstruments auditInstruments = new AuditInstruments(true, true, this.meter, TracerProvider.noop().get("test"), List.of(Observed.class));
+
+	@Test
+	void resolvesTheObservedMethodsUpFront() throws NoSuchMethodException {
+		verify(this.meter, times(1)).counterBuilder("parasol.test.started");
+
+		var first = this.auditInstruments.forMethod(new TestInvocationContext(method("started", AiServiceStartedEvent.class), startedEvent()));
+		var second = this.auditInstruments.forMethod(new TestInvocationContext(method("started", AiServiceStartedEvent.class), startedEvent()));
+
+		assertThat(first).isPresent();
+		assertThat(second).isSameAs(first);
+		verify(this.meter, times(1)).counterBuilder("parasol.test.started");
+	}
+
+	@Test
+	void skipsUnnamedBindings() throws NoSuchMethodException {
+		assertThat(this.auditInstruments.forMethod(new TestInvocationContext(method("unnamed", AiServiceStartedEvent.class), startedEvent()))).isEmpty();
+	}
+
+	@Test
+	void usesTheBindingOfTheClass() throws NoSuchMethodException {
+		var method = ObservedClass.class.getDeclaredMethod("started", AiServiceStartedEvent.class);
+		var auditInstruments = new AuditInstruments(true, true, this.meter, TracerProvider.noop().get("test"), List.of(ObservedClass.class));
+
+		assertThat(auditInstruments.forMethod(new TestInvocationContext(method, startedEvent())))
+			.hasValueSatisfying(instruments -> assertThat(instruments.name()).isEqualTo("parasol.test.class"));
+	}
+
+	@Test
+	void skipsMethodsOfOtherBeans() throws NoSuchMethodException {
+		var method = ObservedClass.class.getDeclaredMethod("started", AiServiceStartedEvent.class);
+
+		assertThat(this.auditInstruments.forMethod(new TestInvocationContext(method, startedEvent()))).isEmpty();
+	}
+
+	@Test
+	void skipsEverythingWhenOpenTelemetryIsDisabled() throws NoSuchMethodException {
+		var disabled = new AuditInstruments(false, false, this.meter, TracerProvider.noop().get("test"), List.of(Observed.class));
+
+		assertThat(disabled.forMethod(new TestInvocationContext(method("started", AiServiceStartedEvent.class), startedEvent()))).isEmpty();
+	}
+
+	@Test
+	void reusesTheAttributesOfEachServiceMethodAndTool() throws NoSuchMethodException {
+		var instruments = this.auditInstruments.forMethod(new TestInvocationContext(method("toolExecuted", ToolExecutedEvent.class), toolEvent("someTool"))).orElseThrow();
+		var attributes = instruments.attributesFor(toolEvent("someTool"));
+
+		assertThat(instruments.attributesFor(toolEvent("someTool"))).isSameAs(attributes);
+		assertThat(instruments.attributesFor(toolEvent("otherTool"))).isNotSameAs(attributes);
+		assertThat(attributes.metric().get(AttributeKey.stringKey("toolName"))).isEqualTo("someTool");
+		assertThat(attributes.span().get(AttributeKey.stringKey("arg.methodName"))).isEqualTo("someMethod");
+	}
+
+	@Test
+	void findsTheEventAmongTheParameters() throws NoSuchMethodException {
+		var event = startedEvent();
+		var instruments = this.auditInstruments.forMethod(new TestInvocationContext(method("startedLast", Object.class, AiServiceStartedEvent.class), "something", event)).orElseThrow();
+
+		assertThat(instruments.event(new Object[] { "something", event })).isSameAs(event);
+	}
+
+	private static Method method(String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+		return Observed.class.getDeclaredMethod(name, parameterTypes);
+	}
+
+	private static InvocationContext invocationContext() {
+		return InvocationContext.builder()
+			.invocationId(UUID.randomUUID())
+			.interfaceName("someInterface")
+			.methodName("someMethod")
+			.build();
+	}
+
+	private static AiServiceStartedEvent startedEvent() {
+		return AiServiceStartedEvent.builder()
+			.invocationContext(invocationContext())
+			.userMessage(UserMessage.from("Hi"))
+			.build();
+	}
+
+	private static ToolExecutedEvent toolEvent(String toolName) {
+		return ToolExecutedEvent.builder()
+			.invocationContext(invocationContext())
+			.request(ToolExecutionRequest.builder().name(toolName).arguments("{}").build())
+			.resultText("Some result")
+			.build();
+	}
+
+	static class Observed {
+		@AuditObserved(name = "parasol.test.started", description = "Started", unit = "started")
+		void started(AiServiceStartedEvent e) {
+		}
+
+		@AuditObserved(name = "parasol.test.tool", description = "Tools", unit = "tools")
+		void toolExecuted(ToolExecutedEvent e) {
+		}
+
+		@AuditObserved(name = "parasol.test.started.last", description = "Started", unit = "started")
+		void startedLast(Object something, AiServiceStartedEvent e) {
+		}
+
+		@AuditObserved
+		void unnamed(AiServiceStartedEvent e) {
+		}
+	}
+
+	@AuditObserved(name = "parasol.test.class", description = "Started", unit = "started")
+	static class ObservedClass {
+		void started(AiServiceStartedEvent e) {
+		}
+	}
+}
@@ -0,0 +1,214 @@
+package org.parasol.ai.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.parasol.config.AuditConfig;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.invocation.InvocationContext;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.observability.api.event.AiServiceCompletedEvent;
+import dev.langchain4j.observability.api.event.AiServiceEvent;
+import dev.langchain4j.observability.api.event.AiServiceResponseReceivedEvent;
+import dev.langchain4j.observability.api.event.AiServiceStartedEvent;
+import dev.langchain4j.observability.api.event.ToolExecutedEvent;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.export.CollectionRegistration;
+import io.opentelemetry.sdk.metrics.export.MetricReader;
+import io.smallrye.mutiny.Multi;
+
+class AuditLatencyHistogramsTests {
+	private static final Instant START = Instant.parse("2024-03-04T10:00:00Z");
+
+	private final MutableClock clock = new MutableClock(START);
+	private final CollectingMetricReader metricReader = new CollectingMetricReader();
+	private SdkMeterProvider meterProvider;
+	private InvocationTimings invocationTimings;
+	private AuditLatencyHistograms histograms;
+
+	@BeforeEach
+	void beforeEach() {
+		var auditConfig = mock(AuditConfig.class, RETURNS_DEEP_STUBS);
+		when(auditConfig.maxInteractionDuration()).thenReturn(Duration.ofHours(1));
+
+		this.meterProvider = SdkMeterProvider.builder()
+		                                     .registerMetricReader(this.metricReader)
+		                                     .build();
+		this.invocationTimings = new InvocationTimings(auditConfig, this.clock);
+		this.histograms = new AuditLatencyHistograms(this.meterProvider.get("test"));
+	}
+
+	@AfterEach
+	void afterEach() {
+		this.meterProvider.close();
+	}
+
+	@Test
+	void recordsTheLatencyOfEachStep() {
+		var invocationContext = invocationContext();
+
+		record(AiServiceStartedEvent.builder().invocationContext(invocationContext).userMessage(UserMessage.from("Hi")).build());
+		this.clock.advance(Duration.ofSeconds(2));
+		record(responseEvent(invocationContext));
+		this.clock.advance(Duration.ofSeconds(1));
+		record(ToolExecutedEvent.builder()
+			.invocationContext(invocationContext)
+			.request(ToolExecutionRequest.builder().name("someTool").arguments("{}").build())
+			.resultText("Some result")
+			.build());
+		this.clock.advance(Duration.ofSeconds(3));
+		record(responseEvent(invocationContext));
+		record(AiServiceCompletedEvent.builder().invocationContext(invocationContext).build());
+
+		assertThat(point("parasol.llm.response.duration"))
+			.satisfies(point -> assertThat(point.getCount()).isEqualTo(2))
+			.satisfies(point -> assertThat(point.getSum()).isEqualTo(5.0))
+			.satisfies(point -> assertThat(point.getAttributes().get(AttributeKey.stringKey("modelName"))).isEqualTo("someModel"));
+
+		assertThat(point("parasol.llm.response.first.duration"))
+			.satisfies(point -> assertThat(point.getCount()).isEqualTo(1))
+			.satisfies(point -> assertThat(point.getSum()).isEqualTo(2.0));
+
+		assertThat(point("parasol.llm.tool.duration"))
+			.satisfies(point -> assertThat(point.getSum()).isEqualTo(1.0))
+			.satisfies(point -> assertThat(point.getAttributes().get(AttributeKey.stringKey("toolName"))).isEqualTo("someTool"));
+
+		assertThat(point("parasol.llm.interaction.duration"))
+			.satisfies(point -> assertThat(point.getSum()).isEqualTo(6.0))
+			.satisfies(point -> assertThat(point.getAttributes().get(AttributeKey.stringKey("interfaceName"))).isEqualTo("someInterface"))
+			.satisfies(point -> assertThat(point.getAttributes().get(AttributeKey.stringKey("methodName"))).isEqualTo("someMethod"));
+	}
+
+	@Test
+	void forgetsInvocationsWhichNeverEnd() {
+		var invocationContext = invocationContext();
+
+		record(AiServiceStartedEvent.builder().invocationContext(invocationContext).userMessage(UserMessage.from("Hi")).build());
+		this.clock.advance(Duration.ofHours(2));
+		this.invocationTimings.forgetStaleInvocations();
+
+		// Forgotten, so its first response is timed from the invocation's timestamp rather than the start event
+		this.clock.advance(Duration.ofSeconds(1));
+		record(responseEvent(invocationContext));
+
+		assertThat(point("parasol.llm.response.duration").getSum()).isEqualTo(Duration.ofHours(2).plusSeconds(1).toSeconds());
+	}
+
+	@Test
+	void timesTheFirstTokenOfAStream() {
+		var tokens = this.histograms.timeFirstToken(StreamingService.class, "chat", () -> Multi.createFrom().items("Hello", "there"))
+		                            .collect().asList()
+		                            .await().indefinitely();
+
+		assertThat(tokens).containsExactly("Hello", "there");
+		assertThat(point("parasol.llm.response.first.duration"))
+			.satisfies(point -> assertThat(point.getCount()).isEqualTo(1))
+			.satisfies(point -> assertThat(point.getAttributes().get(AttributeKey.stringKey("interfaceName"))).isEqualTo(StreamingService.class.getName()))
+			.satisfies(point -> assertThat(point.getAttributes().get(AttributeKey.stringKey("methodName"))).isEqualTo("chat"));
+	}
+
+	@Test
+	void skipsTheFirstResponseOfAStream() {
+		var invocationContext = InvocationContext.builder()
+			.invocationId(UUID.randomUUID())
+			.interfaceName(StreamingService.class.getName())
+			.methodName("chat")
+			.timestamp(START)
+			.build();
+
+		record(AiServiceStartedEvent.builder().invocationContext(invocationContext).userMessage(UserMessage.from("Hi")).build());
+		this.clock.advance(Duration.ofSeconds(2));
+		record(responseEvent(invocationContext));
+
+		assertThat(point("parasol.llm.response.duration").getCount()).isEqualTo(1);
+		assertThat(this.metricReader.collect())
+			.extracting(MetricData::getName)
+			.doesNotContain("parasol.llm.response.first.duration");
+	}
+
+	private void record(AiServiceEvent event) {
+		this.histograms.record(event, this.invocationTimings.step(event), Context.root());
+	}
+
+	private HistogramPointData point(String name) {
+		return this.metricReader.collect().stream()
+			.filter(metric -> metric.getName().equals(name))
+			.map(MetricData::getHistogramData)
+			.flatMap(data -> data.getPoints().stream())
+			.findFirst()
+			.orElseThrow();
+	}
+
+	private static InvocationContext invocationContext() {
+		return InvocationContext.builder()
+			.invocationId(UUID.randomUUID())
+			.interfaceName("someInterface")
+			.methodName("someMethod")
+			.timestamp(START)
+			.build();
+	}
+
+	private static AiServiceResponseReceivedEvent responseEvent(InvocationContext invocationContext) {
+		return AiServiceResponseReceivedEvent.builder()
+			.invocationContext(invocationContext)
+			.response(
+				ChatResponse.builder()
+					.aiMessage(AiMessage.from("Hello"))
+					.modelName("someModel")
+					.build()
+			)
+			.build();
+	}
+
+	interface StreamingService {
+		Multi<String> chat();
+	}
+
+	private static final class CollectingMetricReader implements MetricReader {
+		private CollectionRegistration registration = CollectionRegistration.noop();
+
+		Collection<MetricData> collect() {
+			return this.registration.collectAllMetrics();
+		}
+
+		@Override
+		public void register(CollectionRegistration registration) {
+			this.registration = registration;
+		}
+
+		@Override
+		public AggregationTemporality getAggregationTemporality(InstrumentType instrumentType) {
+			return AggregationTemporality.CUMULATIVE;
+		}
+
+		@Override
+		public CompletableResultCode forceFlush() {
+			return CompletableResultCode.ofSuccess();
+		}
+
+		@Override
+		public CompletableResultCode shutdown() {
+			return CompletableResultCode.ofSuccess();
+		}
+	}
+}
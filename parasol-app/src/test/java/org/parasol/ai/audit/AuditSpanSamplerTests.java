@@ -0,0 +1,277 @@
+package org.parasol.ai.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.parasol.config.AuditConfig;
+
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.guardrail.OutputGuardrail;
+import dev.langchain4j.invocation.InvocationContext;
+import dev.langchain4j.observability.api.event.AiServiceCompletedEvent;
+import dev.langchain4j.observability.api.event.AiServiceErrorEvent;
+import dev.langchain4j.observability.api.event.AiServiceEvent;
+import dev.langchain4j.observability.api.event.AiServiceStartedEvent;
+import dev.langchain4j.observability.api.event.OutputGuardrailExecutedEvent;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+class AuditSpanSamplerTests {
+	private static final Instant START = Instant.parse("2024-05-06T10:00:00Z");
+
+	private final AuditConfig auditConfig = mock(AuditConfig.class, RETURNS_DEEP_STUBS);
+	private final MutableClock clock = new MutableClock(START);
+	private final CollectingSpanExporter spanExporter = new CollectingSpanExporter();
+	private SdkTracerProvider tracerProvider;
+	private AuditSpanSampler sampler;
+
+	@BeforeEach
+	void beforeEach() {
+		when(this.auditConfig.maxInteractionDuration()).thenReturn(Duration.ofHours(1));
+		when(this.auditConfig.tailSampling().enabled()).thenReturn(true);
+		when(this.auditConfig.tailSampling().sampleRate()).thenReturn(0.0);
+		when(this.auditConfig.tailSampling().latencyThreshold()).thenReturn(Duration.ofSeconds(10));
+		when(this.auditConfig.tailSampling().maxPendingInteractions()).thenReturn(10);
+		when(this.auditConfig.tailSampling().maxSpansPerInteraction()).thenReturn(3);
+
+		this.tracerProvider = SdkTracerProvider.builder()
+		                                       .addSpanProcessor(SimpleSpanProcessor.create(this.spanExporter))
+		                                       .build();
+		this.sampler = new AuditSpanSampler(this.auditConfig, "parentbased_always_on", this.tracerProvider.get("test"), this.clock);
+	}
+
+	@AfterEach
+	void afterEach() {
+		this.tracerProvider.close();
+	}
+
+	@Test
+	void dropsHealthyInteractions() {
+		var invocationContext = invocationContext();
+
+		record(started(invocationContext));
+		this.clock.advance(Duration.ofSeconds(1));
+		record(completed(invocationContext));
+
+		assertThat(this.spanExporter.spans).isEmpty();
+		assertThat(this.sampler.getPendingInteractionCount()).isZero();
+	}
+
+	@Test
+	void keepsFailedInteractionsWithTheirOriginalTimes() {
+		var invocationContext = invocationContext();
+
+		record(started(invocationContext));
+		this.clock.advance(Duration.ofSeconds(1));
+		record(AiServiceErrorEvent.builder().invocationContext(invocationContext).error(new RuntimeException("Boom")).build());
+
+		assertThat(this.spanExporter.spans)
+			.hasSize(2)
+			.allSatisfy(span -> assertThat(span.getAttributes().get(AuditSpanSampler.SAMPLING_REASON)).isEqualTo("failed"))
+			.first()
+			.satisfies(span -> assertThat(span.getName()).isEqualTo("parasol.test.span"))
+			.satisfies(span -> assertThat(span.getStartEpochNanos()).isEqualTo(toNanos(START)));
+	}
+
+	@Test
+	void keepsRepromptedInteractionsTogetherOnceTheyEnd() {
+		var invocationContext = invocationContext();
+		var guardrailExecuted = mock(OutputGuardrailExecutedEvent.class);
+		when(guardrailExecuted.invocationContext()).thenReturn(invocationContext);
+		when(guardrailExecuted.result()).thenReturn(new OutputGuardrail() {}.reprompt("Not polite", "Be polite"));
+
+		record(started(invocationContext));
+		record(guardrailExecuted);
+
+		assertThat(this.spanExporter.spans).isEmpty();
+
+		record(completed(invocationContext));
+
+		assertThat(this.spanExporter.spans)
+			.hasSize(3)
+			.allSatisfy(span -> assertThat(span.getAttributes().get(AuditSpanSampler.SAMPLING_REASON)).isEqualTo("reprompted"));
+	}
+
+	@Test
+	void exportsKeptInteractionsEarlyOnceTheyHoldAsManySpansAsTheyCan() {
+		var invocationContext = invocationContext();
+
+		var guardrailExecuted = mock(OutputGuardrailExecutedEvent.class);
+		when(guardrailExecuted.invocationContext()).thenReturn(invocationContext);
+		when(guardrailExecuted.result()).thenReturn(new OutputGuardrail() {}.reprompt("Not polite", "Be polite"));
+
+		record(started(invocationContext));
+		record(guardrailExecuted);
+
+		assertThat(this.spanExporter.spans).isEmpty();
+
+		record(guardrailExecuted);
+
+		assertThat(this.spanExporter.spans).hasSize(3);
+
+		record(completed(invocationContext));
+
+		assertThat(this.spanExporter.spans).hasSize(4);
+	}
+
+	@Test
+	void exportsKeptInteractionsUnderAnUnsampledParentAsTheirOwnTrace() {
+		var invocationContext = invocationContext();
+		var unsampledParent = SpanContext.create("0af7651916cd43dd8448eb211c80319c", "b7ad6b7169203331", TraceFlags.getDefault(), TraceState.getDefault());
+		var parent = Context.root().with(Span.wrap(unsampledParent));
+
+		this.sampler.record("parasol.test.span", started(invocationContext), Attributes.empty(), parent, this.clock.instant());
+		this.sampler.record("parasol.test.span", AiServiceErrorEvent.builder().invocationContext(invocationContext).error(new RuntimeException("Boom")).build(), Attributes.empty(), parent, this.clock.instant());
+
+		assertThat(this.spanExporter.spans).hasSize(2);
+
+		var root = this.spanExporter.spans.getFirst();
+
+		assertThat(root.getParentSpanContext().isValid()).isFalse();
+		assertThat(root.getLinks())
+			.singleElement()
+			.satisfies(link -> assertThat(link.getSpanContext()).isEqualTo(unsampledParent));
+		assertThat(this.spanExporter.spans.get(1).getParentSpanContext()).isEqualTo(root.getSpanContext());
+	}
+
+	@Test
+	void needsAHeadSamplerWhichKeepsEveryTrace() {
+		new AuditSpanSampler(this.auditConfig, "parentbased_always_on", this.tracerProvider.get("test"), this.clock).checkHeadSampler();
+		new AuditSpanSampler(this.auditConfig, "always_on", this.tracerProvider.get("test"), this.clock).checkHeadSampler();
+
+		assertThatIllegalStateException()
+			.isThrownBy(() -> new AuditSpanSampler(this.auditConfig, "parentbased_traceidratio", this.tracerProvider.get("test"), this.clock).checkHeadSampler());
+	}
+
+	@Test
+	void keepsSlowInteractions() {
+		var invocationContext = invocationContext();
+
+		record(started(invocationContext));
+		this.clock.advance(Duration.ofSeconds(11));
+		record(completed(invocationContext));
+
+		assertThat(this.spanExporter.spans)
+			.hasSize(2)
+			.allSatisfy(span -> assertThat(span.getAttributes().get(AuditSpanSampler.SAMPLING_REASON)).isEqualTo("slow"));
+	}
+
+	@Test
+	void keepsSampledInteractionsStraightAway() {
+		when(this.auditConfig.tailSampling().sampleRate()).thenReturn(1.0);
+		var sampler = new AuditSpanSampler(this.auditConfig, "parentbased_always_on", this.tracerProvider.get("test"), this.clock);
+
+		sampler.record("parasol.test.span", started(invocationContext()), Attributes.empty(), Context.root(), START);
+
+		assertThat(this.spanExporter.spans)
+			.singleElement()
+			.satisfies(span -> assertThat(span.getAttributes().get(AuditSpanSampler.SAMPLING_REASON)).isEqualTo("sampled"));
+		assertThat(sampler.getPendingInteractionCount()).isZero();
+	}
+
+	@Test
+	void boundsWhatIsHeld() {
+		when(this.auditConfig.tailSampling().maxPendingInteractions()).thenReturn(1);
+		var invocationContext = invocationContext();
+
+		for (var i = 0; i < 5; i++) {
+			record(started(invocationContext));
+		}
+
+		// Too many pending interactions, so only a failure of another interaction is kept
+		record(started(invocationContext()));
+		record(AiServiceErrorEvent.builder().invocationContext(invocationContext()).error(new RuntimeException("Boom")).build());
+
+		assertThat(this.sampler.getPendingInteractionCount()).isOne();
+		assertThat(this.spanExporter.spans).hasSize(1);
+
+		record(AiServiceErrorEvent.builder().invocationContext(invocationContext).error(new RuntimeException("Boom")).build());
+
+		// Only the first 3 spans of the interaction were held
+		assertThat(this.spanExporter.spans).hasSize(4);
+	}
+
+	@Test
+	void releasesExpiredInteractionsAsSlow() {
+		record(started(invocationContext()));
+		this.clock.advance(Duration.ofHours(2));
+		this.sampler.releaseExpiredInteractions();
+
+		assertThat(this.sampler.getPendingInteractionCount()).isZero();
+		assertThat(this.spanExporter.spans)
+			.singleElement()
+			.satisfies(span -> assertThat(span.getAttributes().get(AuditSpanSampler.SAMPLING_REASON)).isEqualTo("slow"));
+	}
+
+	private void record(AiServiceEvent event) {
+		this.sampler.record("parasol.test.span", event, Attributes.empty(), Context.root(), this.clock.instant());
+	}
+
+	private static long toNanos(Instant instant) {
+		return (instant.getEpochSecond() * 1_000_000_000L) + instant.getNano();
+	}
+
+	private static InvocationContext invocationContext() {
+		return InvocationContext.builder()
+			.invocationId(UUID.randomUUID())
+			.interfaceName("someInterface")
+			.methodName("someMethod")
+			.timestamp(START)
+			.build();
+	}
+
+	private static AiServiceStartedEvent started(InvocationContext invocationContext) {
+		return AiServiceStartedEvent.builder()
+			.invocationContext(invocationContext)
+			.userMessage(UserMessage.from("Hi"))
+			.build();
+	}
+
+	private static AiServiceCompletedEvent completed(InvocationContext invocationContext) {
+		return AiServiceCompletedEvent.builder()
+			.invocationContext(invocationContext)
+			.build();
+	}
+
+	private static final class CollectingSpanExporter implements SpanExporter {
+		private final List<SpanData> spans = new CopyOnWriteArrayList<>();
+
+		@Override
+		public CompletableResultCode export(Collection<SpanData> spans) {
+			this.spans.addAll(spans);
+			return CompletableResultCode.ofSuccess();
+		}
+
+		@Override
+		public CompletableResultCode flush() {
+			return CompletableResultCode.ofSuccess();
+		}
+
+		@Override
+		public CompletableResultCode shutdown() {
+			return CompletableResultCode.ofSuccess();
+		}
+	}
+}
@@ -0,0 +1,320 @@
+package org.parasol.ai.audit;
+
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.interceptor.InvocationContext;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.parasol.config.AuditConfig;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+import dev.langchain4j.observability.api.event.AiServiceEvent;
+import dev.langchain4j.observability.api.event.AiServiceResponseReceivedEvent;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.export.CollectionRegistration;
+import io.opentelemetry.sdk.metrics.export.MetricReader;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+
+/**
+ * JMH benchmark of the time taken by each intercepted call of an {@link AuditObserved} method, using the OpenTelemetry SDK
+ * (with nothing exported). Compares calls which aren't intercepted, the {@link AuditingObservabilityInterceptor} using
+ * {@link AuditInstruments}, and resolving the binding, the event and the instruments on every call as the interceptor used to.
+ * <p>
+ * Both interceptors do the same work on each call: the step is timed by the {@link InvocationTimingInterceptor}, then a span is
+ * started and ended, the response latencies are recorded to histograms in the span's context, and the call and its tokens are
+ * counted (the tokens both by model and in total). Tail sampling is disabled, so the spans are started as the methods are
+ * called.
+ * </p>
+ * <p>
+ * Not part of the regular test run. Run it with {@code ./mvnw test -Pbenchmark}, which runs JMH (forked, with its own warm up
+ * and measurement iterations) from {@link #benchmark()}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditingObservabilityInterceptorBenchmark {
+	// The latency boundaries of AuditLatencyHistograms
+	private static final List<Double> BOUNDARIES = List.of(0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5, 5.0, 10.0, 30.0, 60.0, 120.0);
+
+	private SdkMeterProvider meterProvider;
+	private SdkTracerProvider tracerProvider;
+	private InvocationContext context;
+	private InvocationTimingInterceptor timingInterceptor;
+	private PerCallInterceptor perCallInterceptor;
+	private AuditingObservabilityInterceptor resolvedOnceInterceptor;
+
+	@Setup
+	public void setup() throws NoSuchMethodException {
+		// Without a reader the SDK hands out no-op instruments, which would hide the cost of recording
+		this.meterProvider = SdkMeterProvider.builder()
+		                                     .registerMetricReader(new DiscardingMetricReader())
+		                                     .build();
+		this.tracerProvider = SdkTracerProvider.builder().build();
+
+		var event = AiServiceResponseReceivedEvent.builder()
+			.invocationContext(
+				dev.langchain4j.invocation.InvocationContext.builder()
+					.invocationId(UUID.randomUUID())
+					.interfaceName("someInterface")
+					.methodName("someMethod")
+					.build()
+			)
+			.response(
+				ChatResponse.builder()
+					.aiMessage(AiMessage.from("Hello"))
+					.modelName("someModel")
+					.tokenUsage(new TokenUsage(20, 40))
+					.build()
+			)
+			.build();
+
+		this.context = new TestInvocationContext(Observed.class.getDeclaredMethod("responseReceived", AiServiceResponseReceivedEvent.class), event);
+
+		var auditConfig = mock(AuditConfig.class, RETURNS_DEEP_STUBS);
+		when(auditConfig.maxInteractionDuration()).thenReturn(Duration.ofHours(1));
+		// Not a mock, as it is read on every call, and mocks record their calls
+		when(auditConfig.tailSampling()).thenReturn(new DisabledTailSampling());
+
+		var meter = this.meterProvider.get("benchmark");
+		var tracer = this.tracerProvider.get("benchmark");
+		this.timingInterceptor = new InvocationTimingInterceptor(new InvocationTimings(auditConfig));
+		this.perCallInterceptor = new PerCallInterceptor(meter, tracer);
+		this.resolvedOnceInterceptor = new AuditingObservabilityInterceptor(
+			new AuditInstruments(true, true, meter, tracer, List.of(Observed.class)),
+			new AuditLatencyHistograms(meter),
+			new AuditSpanSampler(auditConfig, "parentbased_always_on", tracer, Clock.systemUTC())
+		);
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.meterProvider.close();
+		this.tracerProvider.close();
+	}
+
+	@Benchmark
+	public Object none() throws Exception {
+		return this.context.proceed();
+	}
+
+	@Benchmark
+	public Object perCall() throws Exception {
+		this.timingInterceptor.invoke(this.context);
+		return this.perCallInterceptor.invoke(this.context);
+	}
+
+	@Benchmark
+	public Object resolvedOnce() throws Exception {
+		this.timingInterceptor.invoke(this.context);
+		return this.resolvedOnceInterceptor.invoke(this.context);
+	}
+
+	@Test
+	void benchmark() throws RunnerException {
+		new Runner(
+			new OptionsBuilder()
+				.include(AuditingObservabilityInterceptorBenchmark.class.getSimpleName())
+				.build()
+		).run();
+	}
+
+	static class Observed {
+		@AuditObserved(name = "parasol.benchmark.response.received", description = "A count of responses", unit = "responses")
+		void responseReceived(AiServiceResponseReceivedEvent e) {
+		}
+	}
+
+	/**
+	 * What the interceptor did on every call before the instruments were resolved once,
+	 * recording the same span, histograms and counters as the {@link AuditingObservabilityInterceptor}
+	 */
+	private record PerCallInterceptor(Meter meter, Tracer tracer) {
+		Object invoke(InvocationContext context) throws Exception {
+			var auditObserved = context.getInterceptorBindings().stream()
+			                           .filter(annotation -> annotation instanceof AuditObserved)
+			                           .map(AuditObserved.class::cast)
+			                           .filter(observed -> !observed.name().strip().isBlank())
+			                           .findFirst()
+			                           .orElseThrow();
+			var event = Arrays.stream(context.getParameters())
+			                  .filter(param -> param instanceof AiServiceEvent)
+			                  .map(AiServiceEvent.class::cast)
+			                  .findFirst();
+			var invocationContext = event.map(AiServiceEvent::invocationContext).orElseThrow();
+			var spanAttributes = Attributes.builder()
+			                               .put("arg.interfaceName", invocationContext.interfaceName())
+			                               .put("arg.methodName", invocationContext.methodName());
+			var metricAttributes = Attributes.builder()
+			                                 .put("interfaceName", invocationContext.interfaceName())
+			                                 .put("methodName", invocationContext.methodName());
+			var span = this.tracer.spanBuilder(auditObserved.name())
+			                      .setSpanKind(SpanKind.INTERNAL)
+			                      .setAllAttributes(spanAttributes.build())
+			                      .startSpan();
+			var step = InvocationTimings.stepOf(context);
+
+			event.filter(e -> e instanceof AiServiceResponseReceivedEvent)
+			     .map(e -> ((AiServiceResponseReceivedEvent) e).response().metadata())
+			     .filter(metadata -> step != null)
+			     .ifPresent(metadata -> {
+				     var histogramAttributes = Attributes.builder()
+				                                         .put("interfaceName", invocationContext.interfaceName())
+				                                         .put("methodName", invocationContext.methodName())
+				                                         .put("modelName", metadata.modelName())
+				                                         .build();
+				     var spanContext = Context.current().with(span);
+
+				     histogram("parasol.llm.response.duration", "Round-trip latency of LLM requests, by model").record(seconds(step.sincePreviousEvent()), histogramAttributes, spanContext);
+
+				     if (step.firstResponse() && (step.sinceStart() != null)) {
+					     histogram("parasol.llm.response.first.duration", "Latency from an AI service being invoked to the first token of its answer, by model unless the answer is streamed").record(seconds(step.sinceStart()), histogramAttributes, spanContext);
+				     }
+			     });
+
+			try {
+				return context.proceed();
+			}
+			finally {
+				span.end();
+
+				this.meter.counterBuilder(auditObserved.name())
+				          .setDescription(auditObserved.description())
+				          .setUnit(auditObserved.unit())
+				          .build()
+				          .add(1, metricAttributes.build());
+
+				event.filter(e -> e instanceof AiServiceResponseReceivedEvent)
+				     .map(e -> ((AiServiceResponseReceivedEvent) e).response().metadata())
+				     .ifPresent(metadata -> {
+					     var modelNameAttributes = Attributes.of(AttributeKey.stringKey("modelName"), metadata.modelName());
+					     var tokenUsage = metadata.tokenUsage();
+
+					     add(counter("input", "Total input token count"), tokenUsage.inputTokenCount(), modelNameAttributes);
+					     add(counter("output", "Total output token count"), tokenUsage.outputTokenCount(), modelNameAttributes);
+					     add(counter("total", "Total token count"), tokenUsage.totalTokenCount(), modelNameAttributes);
+				     });
+			}
+		}
+
+		// The same descriptions as the resolved instruments, as the SDK warns about each build of a conflicting instrument
+		private DoubleHistogram histogram(String name, String description) {
+			return this.meter.histogramBuilder(name)
+			                 .setDescription(description)
+			                 .setUnit("s")
+			                 .setExplicitBucketBoundariesAdvice(BOUNDARIES)
+			                 .build();
+		}
+
+		private LongCounter counter(String name, String description) {
+			return this.meter.counterBuilder("parasol.llm.token.%s.count".formatted(name))
+			                 .setDescription(description)
+			                 .setUnit("tokens")
+			                 .build();
+		}
+
+		// Both by model and in total, as AuditInstruments counts them
+		private static void add(LongCounter counter, Integer value, Attributes attributes) {
+			if (value != null) {
+				counter.add(value, attributes);
+				counter.add(value);
+			}
+		}
+
+		private static double seconds(Duration duration) {
+			return duration.toNanos() / 1_000_000_000.0;
+		}
+	}
+
+	private static final class DisabledTailSampling implements AuditConfig.TailSampling {
+		@Override
+		public boolean enabled() {
+			return false;
+		}
+
+		@Override
+		public double sampleRate() {
+			return 0;
+		}
+
+		@Override
+		public Duration latencyThreshold() {
+			return Duration.ZERO;
+		}
+
+		@Override
+		public int maxPendingInteractions() {
+			return 0;
+		}
+
+		@Override
+		public int maxSpansPerInteraction() {
+			return 0;
+		}
+
+		@Override
+		public Duration releaseInterval() {
+			return Duration.ZERO;
+		}
+	}
+
+	private static final class DiscardingMetricReader implements MetricReader {
+		@Override
+		public void register(CollectionRegistration registration) {
+		}
+
+		@Override
+		public AggregationTemporality getAggregationTemporality(InstrumentType instrumentType) {
+			return AggregationTemporality.CUMULATIVE;
+		}
+
+		@Override
+		public CompletableResultCode forceFlush() {
+			return CompletableResultCode.ofSuccess();
+		}
+
+		@Override
+		public CompletableResultCode shutdown() {
+			return CompletableResultCode.ofSuccess();
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package org.parasol.ai.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.parasol.config.AuditConfig;
+import org.parasol.model.audit.LiveStats.LatencyHistogram;
+import org.parasol.model.audit.LiveStats.MethodStats;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.invocation.InvocationContext;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+import dev.langchain4j.observability.api.event.AiServiceCompletedEvent;
+import dev.langchain4j.observability.api.event.AiServiceErrorEvent;
+import dev.langchain4j.observability.api.event.AiServiceResponseReceivedEvent;
+import dev.langchain4j.observability.api.event.AiServiceStartedEvent;
+
+class LiveAuditStatsTests {
+	private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+	private LiveAuditStats liveAuditStats;
+
+	@BeforeEach
+	void beforeEach() {
+		var auditConfig = mock(AuditConfig.class, RETURNS_DEEP_STUBS);
+		when(auditConfig.live().window()).thenReturn(Duration.ofSeconds(60));
+		when(auditConfig.live().resolution()).thenReturn(Duration.ofSeconds(1));
+
+		this.liveAuditStats = new LiveAuditStats(auditConfig, this.clock);
+	}
+
+	@Test
+	void tracksEachMethod() {
+		var succeeded = invocationContext("someMethod");
+		var failed = invocationContext("someMethod");
+		var other = invocationContext("otherMethod");
+
+		this.liveAuditStats.serviceStarted(AiServiceStartedEvent.builder().invocationContext(succeeded).userMessage(UserMessage.from("Hi")).build());
+		this.liveAuditStats.serviceStarted(AiServiceStartedEvent.builder().invocationContext(failed).userMessage(UserMessage.from("Hi")).build());
+		this.liveAuditStats.serviceStarted(AiServiceStartedEvent.builder().invocationContext(other).userMessage(UserMessage.from("Hi")).build());
+
+		this.clock.advance(Duration.ofMillis(200));
+		this.liveAuditStats.responseReceived(
+			AiServiceResponseReceivedEvent.builder()
+				.invocationContext(succeeded)
+				.response(
+					ChatResponse.builder()
+						.aiMessage(AiMessage.from("Hello"))
+						.tokenUsage(new TokenUsage(20, 40))
+						.build()
+				)
+				.build()
+		);
+		this.liveAuditStats.serviceCompleted(AiServiceCompletedEvent.builder().invocationContext(succeeded).result("Hello").build());
+
+		this.clock.advance(Duration.ofSeconds(2));
+		this.liveAuditStats.serviceFailed(AiServiceErrorEvent.builder().invocationContext(failed).error(new RuntimeException("Some error")).build());
+
+		var stats = this.liveAuditStats.getStats();
+
+		assertThat(stats.methods())
+			.extracting(MethodStats::methodName)
+			.containsExactly("otherMethod", "someMethod");
+
+		assertThat(stats.methods().getLast())
+			.extracting(
+				MethodStats::interactionsStarted,
+				MethodStats::interactionsCompleted,
+				MethodStats::interactionsFailed,
+				MethodStats::failureRate,
+				MethodStats::inputTokens,
+				MethodStats::outputTokens,
+				MethodStats::tokensPerSecond
+			)
+			.containsExactly(2L, 1L, 1L, 0.5, 20L, 40L, 1.0);
+
+		assertThat(stats.methods().getLast().latency())
+			.extracting(LatencyHistogram::p50Millis, LatencyHistogram::p99Millis)
+			.containsExactly(250L, 2_500L);
+
+		// Everything slides out of the window eventually
+		this.clock.advance(Duration.ofSeconds(60));
+
+		assertThat(this.liveAuditStats.getStats().methods().getLast())
+			.extracting(MethodStats::interactionsStarted, MethodStats::interactionsFailed)
+			.containsExactly(0L, 0L);
+	}
+
+	private InvocationContext invocationContext(String methodName) {
+		return InvocationContext.builder()
+			.invocationId(UUID.randomUUID())
+			.interfaceName("someInterface")
+			.methodName(methodName)
+			.timestamp(this.clock.instant())
+			.build();
+	}
+}
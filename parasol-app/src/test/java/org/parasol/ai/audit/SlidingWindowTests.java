@@ -0,0 +1,62 @@
+package org.parasol.ai.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class SlidingWindowTests {
+	private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+	private final SlidingWindow window = new SlidingWindow(this.clock, Duration.ofSeconds(10), Duration.ofSeconds(1), 2);
+
+	@Test
+	void sumsWithinTheWindow() {
+		this.window.add(0, 1);
+		this.clock.advance(Duration.ofSeconds(5));
+		this.window.add(0, 2);
+		this.window.add(1, 3);
+
+		assertThat(this.window.sum()).containsExactly(3, 3);
+
+		// The first add has now slid out of the window
+		this.clock.advance(Duration.ofSeconds(5));
+		assertThat(this.window.sum()).containsExactly(2, 3);
+
+		this.clock.advance(Duration.ofSeconds(5));
+		assertThat(this.window.sum()).containsExactly(0, 0);
+	}
+
+	@Test
+	void reusesSlotsAfterGoingAroundTheRing() {
+		this.window.add(0, 1);
+		this.clock.advance(Duration.ofSeconds(10));
+		this.window.add(0, 5);
+
+		assertThat(this.window.sum()).containsExactly(5, 0);
+	}
+
+	@Test
+	void countsConcurrentAdds() throws Exception {
+		try (var executor = Executors.newFixedThreadPool(8)) {
+			var adds = IntStream.range(0, 8)
+				.mapToObj(i -> CompletableFuture.runAsync(() -> IntStream.range(0, 10_000).forEach(j -> this.window.add(0, 1)), executor))
+				.toArray(CompletableFuture[]::new);
+
+			CompletableFuture.allOf(adds).get();
+		}
+
+		assertThat(this.window.sum()).containsExactly(80_000, 0);
+	}
+
+	@Test
+	void windowMustCoverTheResolution() {
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> new SlidingWindow(this.clock, Duration.ofMillis(500), Duration.ofSeconds(1), 1));
+	}
+}
@@ -0,0 +1,71 @@
+package org.parasol.ai.audit;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import jakarta.interceptor.InvocationContext;
+
+/**
+ * An intercepted call of a method, whose annotations are its interceptor bindings
+ */
+final class TestInvocationContext implements InvocationContext {
+	private final Method method;
+	private final Set<Annotation> interceptorBindings;
+	private final Map<String, Object> contextData = new HashMap<>();
+	private Object[] parameters;
+
+	TestInvocationContext(Method method, Object... parameters) {
+		this.method = method;
+		this.interceptorBindings = Set.of(method.getAnnotations());
+		this.parameters = parameters;
+	}
+
+	@Override
+	public Object getTarget() {
+		return null;
+	}
+
+	@Override
+	public Object getTimer() {
+		return null;
+	}
+
+	@Override
+	public Method getMethod() {
+		return this.method;
+	}
+
+	@Override
+	public Constructor<?> getConstructor() {
+		return null;
+	}
+
+	@Override
+	public Object[] getParameters() {
+		return this.parameters;
+	}
+
+	@Override
+	public void setParameters(Object[] parameters) {
+		this.parameters = parameters;
+	}
+
+	@Override
+	public Map<String, Object> getContextData() {
+		return this.contextData;
+	}
+
+	@Override
+	public Object proceed() {
+		return null;
+	}
+
+	@Override
+	public Set<Annotation> getInterceptorBindings() {
+		return this.interceptorBindings;
+	}
+}
@@ -0,0 +1,182 @@
+package org.parasol.model.audit;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import javax.sql.DataSource;
+
+import jakarta.inject.Inject;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import io.quarkus.logging.Log;
+import io.quarkus.test.junit.QuarkusTest;
+
+/**
+ * Reports the storage, insert throughput and read latency of each {@link TextCompression} algorithm,
+ * using the texts seeded by {@code import.sql}.
+ * <p>
+ * Not part of the regular test run. Run it with {@code ./mvnw test -Pbenchmark}.
+ * The number of rows can be changed with {@code -Dbenchmark.rows=...}.
+ * </p>
+ */
+@QuarkusTest
+class CompressedTextConverterBenchmark {
+	private static final int ROWS = Integer.getInteger("benchmark.rows", 20_000);
+	private static final int READS = 2_000;
+	private static final int BATCH_SIZE = 100;
+	private static final String TABLE_NAME = "audit_texts_benchmark";
+
+	private static final String SEEDED_TEXTS_QUERY = """
+		SELECT text
+		FROM audit_events,
+		  unnest(ARRAY[system_message, user_message, result, response, tool_result, rewritten_user_message]) AS text
+		WHERE text IS NOT NULL
+		""";
+
+	@Inject
+	DataSource dataSource;
+
+	List<String> texts;
+
+	@BeforeEach
+	void beforeEach() throws SQLException {
+		var seededTexts = new ArrayList<String>();
+
+		try (var connection = this.dataSource.getConnection();
+		     var statement = connection.createStatement();
+		     var resultSet = statement.executeQuery(SEEDED_TEXTS_QUERY)) {
+
+			while (resultSet.next()) {
+				seededTexts.add(resultSet.getString(1));
+			}
+		}
+
+		// Make every row distinct so that only compression, not de-duplication, is being measured
+		this.texts = IntStream.range(0, ROWS)
+		                      .mapToObj(i -> "%s [%d]".formatted(seededTexts.get(i % seededTexts.size()), i))
+		                      .toList();
+	}
+
+	@ParameterizedTest
+	@EnumSource(TextCompression.class)
+	void benchmark(TextCompression algorithm) throws SQLException {
+		var converter = CompressedTextConverterTests.converter(algorithm);
+
+		try (var connection = this.dataSource.getConnection()) {
+			connection.setAutoCommit(false);
+			execute(connection, "DROP TABLE IF EXISTS " + TABLE_NAME);
+			execute(connection, "CREATE TABLE %s (id int PRIMARY KEY, content bytea NOT NULL)".formatted(TABLE_NAME));
+			connection.commit();
+
+			var walStart = currentWalLsn(connection);
+			var insertStart = System.nanoTime();
+			insert(connection, converter);
+			var insertSeconds = (System.nanoTime() - insertStart) / 1_000_000_000.0;
+			var walBytes = walBytesSince(connection, walStart);
+
+			var tableBytes = tableSize(connection);
+			var readLatencies = read(connection, converter);
+
+			execute(connection, "DROP TABLE " + TABLE_NAME);
+			connection.commit();
+
+			Log.infof(
+				"%-8s rows=%d table=%,d bytes wal=%,d bytes insert=%,.0f rows/s read p50=%,.1fµs p99=%,.1fµs",
+				algorithm,
+				ROWS,
+				tableBytes,
+				walBytes,
+				ROWS / insertSeconds,
+				percentile(readLatencies, 0.5),
+				percentile(readLatencies, 0.99)
+			);
+		}
+	}
+
+	private void insert(Connection connection, CompressedTextConverter converter) throws SQLException {
+		try (var statement = connection.prepareStatement("INSERT INTO %s (id, content) VALUES (?, ?)".formatted(TABLE_NAME))) {
+			for (var i = 0; i < this.texts.size(); i++) {
+				statement.setInt(1, i);
+				statement.setBytes(2, converter.convertToDatabaseColumn(this.texts.get(i)));
+				statement.addBatch();
+
+				if ((i + 1) % BATCH_SIZE == 0) {
+					statement.executeBatch();
+					connection.commit();
+				}
+			}
+
+			statement.executeBatch();
+			connection.commit();
+		}
+	}
+
+	private static double[] read(Connection connection, CompressedTextConverter converter) throws SQLException {
+		var random = new Random(42);
+		var latencies = new double[READS];
+
+		try (var statement = connection.prepareStatement("SELECT content FROM %s WHERE id = ?".formatted(TABLE_NAME))) {
+			for (var i = 0; i < READS; i++) {
+				var start = System.nanoTime();
+				statement.setInt(1, random.nextInt(ROWS));
+
+				try (var resultSet = statement.executeQuery()) {
+					resultSet.next();
+					converter.convertToEntityAttribute(resultSet.getBytes(1));
+				}
+
+				latencies[i] = (System.nanoTime() - start) / 1_000.0;
+			}
+		}
+
+		return latencies;
+	}
+
+	private static long tableSize(Connection connection) throws SQLException {
+		execute(connection, "ANALYZE " + TABLE_NAME);
+		return queryForLong(connection, "SELECT pg_total_relation_size('%s')".formatted(TABLE_NAME));
+	}
+
+	private static String currentWalLsn(Connection connection) throws SQLException {
+		try (var statement = connection.createStatement();
+		     var resultSet = statement.executeQuery("SELECT pg_current_wal_lsn()::text")) {
+
+			resultSet.next();
+			return resultSet.getString(1);
+		}
+	}
+
+	private static long walBytesSince(Connection connection, String lsn) throws SQLException {
+		return queryForLong(connection, "SELECT pg_wal_lsn_diff(pg_current_wal_lsn(), '%s')::bigint".formatted(lsn));
+	}
+
+	private static long queryForLong(Connection connection, String sql) throws SQLException {
+		try (var statement = connection.createStatement();
+		     var resultSet = statement.executeQuery(sql)) {
+
+			resultSet.next();
+			return resultSet.getLong(1);
+		}
+	}
+
+	private static void execute(Connection connection, String sql) throws SQLException {
+		try (var statement = connection.createStatement()) {
+			statement.execute(sql);
+		}
+	}
+
+	private static double percentile(double[] values, double percentile) {
+		var sorted = values.clone();
+		Arrays.sort(sorted);
+
+		return sorted[(int) Math.ceil(percentile * sorted.length) - 1];
+	}
+}
@@ -0,0 +1,70 @@
+package org.parasol.model.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.parasol.config.AuditConfig;
+
+import io.quarkus.runtime.configuration.MemorySize;
+
+class CompressedTextConverterTests {
+	private static final int THRESHOLD = 512;
+	private static final String LARGE_TEXT = "You are a helpful, respectful and honest assistant named \"Parasol Assistant\". 🚗 ".repeat(50);
+	private static final String SMALL_TEXT = "Some user message";
+
+	@ParameterizedTest
+	@EnumSource(TextCompression.class)
+	void roundTrips(TextCompression algorithm) {
+		var converter = converter(algorithm);
+
+		assertThat(converter.convertToEntityAttribute(converter.convertToDatabaseColumn(LARGE_TEXT))).isEqualTo(LARGE_TEXT);
+		assertThat(converter.convertToEntityAttribute(converter.convertToDatabaseColumn(SMALL_TEXT))).isEqualTo(SMALL_TEXT);
+		assertThat(converter.convertToEntityAttribute(converter.convertToDatabaseColumn(""))).isEmpty();
+		assertThat(converter.convertToDatabaseColumn(null)).isNull();
+		assertThat(converter.convertToEntityAttribute(null)).isNull();
+	}
+
+	@ParameterizedTest
+	@EnumSource(value = TextCompression.class, names = "NONE", mode = EnumSource.Mode.EXCLUDE)
+	void compressesTextOverThreshold(TextCompression algorithm) {
+		var stored = converter(algorithm).convertToDatabaseColumn(LARGE_TEXT);
+
+		assertThat(stored[0]).isEqualTo(algorithm.id());
+		assertThat(stored.length).isLessThan(LARGE_TEXT.getBytes(StandardCharsets.UTF_8).length / 4);
+	}
+
+	@ParameterizedTest
+	@EnumSource(TextCompression.class)
+	void storesTextUnderThresholdUncompressed(TextCompression algorithm) {
+		var stored = converter(algorithm).convertToDatabaseColumn(SMALL_TEXT);
+
+		assertThat(stored[0]).isEqualTo(TextCompression.NONE.id());
+		assertThat(stored).hasSize(SMALL_TEXT.length() + 1);
+	}
+
+	@Test
+	void readsTextWrittenWithAnotherAlgorithm() {
+		var stored = converter(TextCompression.DEFLATE).convertToDatabaseColumn(LARGE_TEXT);
+
+		assertThat(converter(TextCompression.ZSTD).convertToEntityAttribute(stored)).isEqualTo(LARGE_TEXT);
+	}
+
+	static CompressedTextConverter converter(TextCompression algorithm) {
+		var compressionConfig = mock(AuditConfig.Compression.class);
+		when(compressionConfig.algorithm()).thenReturn(algorithm);
+		when(compressionConfig.threshold()).thenReturn(new MemorySize(BigInteger.valueOf(THRESHOLD)));
+		when(compressionConfig.level()).thenReturn(3);
+
+		var auditConfig = mock(AuditConfig.class);
+		when(auditConfig.compression()).thenReturn(compressionConfig);
+
+		return new CompressedTextConverter(auditConfig);
+	}
+}
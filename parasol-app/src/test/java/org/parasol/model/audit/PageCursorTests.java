@@ -0,0 +1,34 @@
+package org.parasol.model.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class PageCursorTests {
+	private static final Instant POSITION = Instant.parse("2025-01-02T03:04:05.123456Z");
+
+	@Test
+	void roundTrips() {
+		var eventCursor = new PageCursor<>(POSITION, 42L);
+		var interactionCursor = new PageCursor<>(POSITION, UUID.randomUUID());
+
+		assertThat(PageCursor.decode(eventCursor.encode(), Long::valueOf)).isEqualTo(eventCursor);
+		assertThat(PageCursor.decode(interactionCursor.encode(), UUID::fromString)).isEqualTo(interactionCursor);
+	}
+
+	@Test
+	void isUrlSafe() {
+		assertThat(new PageCursor<>(POSITION, UUID.randomUUID()).encode()).matches("[A-Za-z0-9_-]+");
+	}
+
+	@Test
+	void rejectsInvalidCursors() {
+		assertThatIllegalArgumentException().isThrownBy(() -> PageCursor.decode("not a cursor", Long::valueOf));
+		assertThatIllegalArgumentException().isThrownBy(() -> PageCursor.decode(new PageCursor<>(POSITION, "abc").encode(), Long::valueOf));
+		assertThatIllegalArgumentException().isThrownBy(() -> PageCursor.decode(new PageCursor<>(POSITION, 42L).encode(), UUID::fromString));
+	}
+}
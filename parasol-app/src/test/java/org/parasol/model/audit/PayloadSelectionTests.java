@@ -0,0 +1,40 @@
+package org.parasol.model.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import org.junit.jupiter.api.Test;
+
+class PayloadSelectionTests {
+	@Test
+	void includesEverythingByDefault() {
+		assertThat(PayloadSelection.ALL.includes("systemMessage")).isTrue();
+		assertThat(PayloadSelection.of(null, null).includes("systemMessage")).isTrue();
+		assertThat(PayloadSelection.of(" ", null).includes("systemMessage")).isTrue();
+		assertThat(PayloadSelection.ALL.preview("Some text")).isEqualTo("Some text");
+	}
+
+	@Test
+	void includesOnlySelectedFields() {
+		var selection = PayloadSelection.of("interactionId, result,", null);
+
+		assertThat(selection.fields()).containsExactlyInAnyOrder("interactionId", "result");
+		assertThat(selection.includes("result")).isTrue();
+		assertThat(selection.includes("systemMessage")).isFalse();
+	}
+
+	@Test
+	void previewsTexts() {
+		var selection = PayloadSelection.of(null, 4);
+
+		assertThat(selection.preview("Some text")).isEqualTo("Some");
+		assertThat(selection.preview("Text")).isEqualTo("Text");
+		assertThat(selection.preview("🚗🚗🚗🚗🚗")).isEqualTo("🚗🚗🚗🚗");
+		assertThat(selection.preview(null)).isNull();
+	}
+
+	@Test
+	void rejectsNegativePreviews() {
+		assertThatIllegalArgumentException().isThrownBy(() -> PayloadSelection.of(null, -1));
+	}
+}
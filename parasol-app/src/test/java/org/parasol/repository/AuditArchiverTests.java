@@ -0,0 +1,104 @@
+package org.parasol.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+
+import org.junit.jupiter.api.Test;
+import org.parasol.model.audit.AuditEvent;
+import org.parasol.model.audit.AuditEventFilter;
+import org.parasol.model.audit.AuditStats.InteractionStats;
+import org.parasol.model.audit.InteractionRollup;
+import org.parasol.model.audit.Interactions.Interaction;
+import org.parasol.model.audit.InvocationContext;
+import org.parasol.model.audit.OutputGuardrailExecutedAuditEvent;
+import org.parasol.model.audit.PayloadSelection;
+import org.parasol.model.audit.ServiceCompleteAuditEvent;
+import org.parasol.model.audit.ServiceStartedAuditEvent;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+class AuditArchiverTests {
+	// Older than anything else the tests commit, so only these events are archived
+	private static final Instant CREATED_ON = Instant.parse("2018-01-01T10:00:00Z");
+
+	@Inject
+	AuditArchiver archiver;
+
+	@Inject
+	AuditEventRepository repository;
+
+	@Inject
+	EntityManager entityManager;
+
+	@Test
+	void archivedInteractionsAreStillQueried() {
+		var invocationContext = InvocationContext.builder()
+			.interactionId(UUID.randomUUID())
+			.interfaceName("someInterface-%s".formatted(UUID.randomUUID()))
+			.methodName("someMethod")
+			.build();
+
+		List<AuditEvent> auditEvents = List.of(
+			ServiceStartedAuditEvent.builder()
+				.invocationContext(invocationContext)
+				.createdOn(CREATED_ON)
+				.systemMessage("System message")
+				.userMessage("User message")
+				.build(),
+			OutputGuardrailExecutedAuditEvent.builder()
+				.invocationContext(invocationContext)
+				.createdOn(CREATED_ON.plusSeconds(1))
+				.response("Some response")
+				.result("FAILURE")
+				.guardrailClass("some.Guardrail")
+				.build(),
+			ServiceCompleteAuditEvent.builder()
+				.invocationContext(invocationContext)
+				.createdOn(CREATED_ON.plusSeconds(2))
+				.result("Some result")
+				.build()
+		);
+
+		QuarkusTransaction.requiringNew().run(() -> auditEvents.forEach(this.repository::persist));
+
+		assertThat(this.archiver.archiveBefore(CREATED_ON.plusSeconds(60))).isOne();
+
+		// Gone from the database
+		assertThat(QuarkusTransaction.requiringNew().call(() -> this.repository.count("invocationContext.interactionId", invocationContext.getInteractionId()))).isZero();
+		assertThat(QuarkusTransaction.requiringNew().call(() -> this.entityManager.find(InteractionRollup.class, invocationContext.getInteractionId()))).isNull();
+
+		// But still found
+		QuarkusTransaction.requiringNew().run(() -> {
+			assertThat(this.repository.getAllForInteractionId(invocationContext.getInteractionId()))
+				.usingRecursiveFieldByFieldElementComparator()
+				.containsExactlyElementsOf(auditEvents);
+
+			assertThat(this.repository.getAuditEvent(auditEvents.get(1).getId()))
+				.get()
+				.extracting(AuditEvent::getEventKey)
+				.isEqualTo(auditEvents.get(1).getEventKey());
+
+			var filter = new AuditEventFilter(null, invocationContext.getInterfaceName(), null, null, null);
+			var start = Optional.of(CREATED_ON.minusSeconds(60));
+			var end = Optional.of(CREATED_ON.plusSeconds(60));
+
+			assertThat(this.repository.getLLMInteractions(start, end, filter, Optional.empty(), Optional.empty(), PayloadSelection.ALL).interactions())
+				.extracting(Interaction::interactionId, Interaction::systemMessage, Interaction::userMessage, Interaction::result)
+				.containsExactly(tuple(invocationContext.getInteractionId(), "System message", "User message", "Some result"));
+
+			assertThat(this.repository.getAuditStats(start, end, filter, Optional.empty(), Optional.empty()).stats())
+				.extracting(InteractionStats::interactionId, InteractionStats::totalOutputGuardrailExecutions, InteractionStats::totalOutputGuardrailFailures)
+				.containsExactly(tuple(invocationContext.getInteractionId(), 1L, 1L));
+		});
+	}
+}
@@ -0,0 +1,189 @@
+package org.parasol.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.parasol.config.AuditConfig;
+import org.parasol.mapping.AuditEventMapper;
+import org.parasol.model.audit.AuditEvent;
+import org.parasol.model.audit.InvocationContext;
+import org.parasol.model.audit.OutputGuardrailExecutedAuditEvent;
+import org.parasol.model.audit.ResponseReceivedAuditEvent;
+import org.parasol.model.audit.ServiceCompleteAuditEvent;
+import org.parasol.model.audit.ServiceErrorAuditEvent;
+import org.parasol.model.audit.ServiceStartedAuditEvent;
+import org.parasol.repository.sink.RingBufferAuditSink;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.metrics.Meter;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+
+class AuditCapturePolicyTests {
+	AuditConfig auditConfig;
+	RingBufferAuditSink sink;
+	AuditEventFeed feed;
+	AuditCapturePolicy policy;
+
+	@BeforeEach
+	void beforeEach() {
+		this.auditConfig = mock(AuditConfig.class, RETURNS_DEEP_STUBS);
+		when(this.auditConfig.capture().mode()).thenReturn(AuditCapturePolicy.Mode.TIERED);
+		when(this.auditConfig.capture().sampleRate()).thenReturn(0.0);
+		when(this.auditConfig.capture().maxPendingInteractions()).thenReturn(100);
+		when(this.auditConfig.maxInteractionDuration()).thenReturn(Duration.ofHours(1));
+		when(this.auditConfig.sink().ringBuffer().capacity()).thenReturn(64);
+		when(this.auditConfig.feed().bufferSize()).thenReturn(64);
+
+		this.sink = new RingBufferAuditSink(this.auditConfig);
+		this.feed = new AuditEventFeed(this.auditConfig, mock(Meter.class, RETURNS_DEEP_STUBS), Runnable::run);
+		this.policy = new AuditCapturePolicy(this.auditConfig, this.sink, new AuditEventMapper(new ObjectMapper()), this.feed);
+	}
+
+	@Test
+	void keepsEverythingInFullMode() {
+		when(this.auditConfig.capture().mode()).thenReturn(AuditCapturePolicy.Mode.FULL);
+		var feedSubscriber = this.feed.subscribe(new AuditEventFeed.Filter(null, null, null))
+			.subscribe().withSubscriber(AssertSubscriber.create(10));
+		var started = serviceStarted(UUID.randomUUID());
+		this.policy.capture(started);
+
+		assertThat(this.sink.getEvents()).containsExactly(started);
+		assertThat(feedSubscriber.getItems()).containsExactly(started);
+	}
+
+	@Test
+	void dropsPayloadsOfSuccessfulInteractions() {
+		var interactionId = UUID.randomUUID();
+		this.policy.capture(serviceStarted(interactionId));
+		this.policy.capture(responseReceived(interactionId));
+
+		// Held until the interaction ends
+		assertThat(this.sink.getEvents()).isEmpty();
+		assertThat(this.policy.getPendingInteractionCount()).isOne();
+
+		this.policy.capture(serviceComplete(interactionId));
+
+		assertThat(this.policy.getPendingInteractionCount()).isZero();
+		assertThat(this.sink.getEvents())
+			.hasSize(3)
+			.satisfiesExactly(
+				started -> assertThat(started)
+					.isInstanceOfSatisfying(ServiceStartedAuditEvent.class, e -> {
+						assertThat(e.getSystemMessage()).isNull();
+						assertThat(e.getUserMessage()).isNull();
+					}),
+				response -> assertThat(response)
+					.isInstanceOfSatisfying(ResponseReceivedAuditEvent.class, e -> {
+						assertThat(e.getResponse()).isNull();
+						assertThat(e.getModelName()).isEqualTo("someModel");
+						assertThat(e.getTokenCount()).isEqualTo(7);
+					}),
+				complete -> assertThat(complete)
+					.isInstanceOfSatisfying(ServiceCompleteAuditEvent.class, e -> assertThat(e.getResult()).isNull())
+			);
+	}
+
+	@Test
+	void keepsPayloadsOfFailedInteractions() {
+		var interactionId = UUID.randomUUID();
+		var started = serviceStarted(interactionId);
+		var failed = ServiceErrorAuditEvent.builder()
+			.invocationContext(invocationContext(interactionId))
+			.errorMessage("Some error")
+			.build();
+
+		this.policy.capture(started);
+		this.policy.capture(failed);
+
+		assertThat(this.sink.getEvents()).containsExactly(started, failed);
+	}
+
+	@Test
+	void keepsPayloadsOfInteractionsWithGuardrailFailures() {
+		var interactionId = UUID.randomUUID();
+		var started = serviceStarted(interactionId);
+		var guardrail = OutputGuardrailExecutedAuditEvent.builder()
+			.invocationContext(invocationContext(interactionId))
+			.response("Some response")
+			.result("FAILURE")
+			.guardrailClass("some.Guardrail")
+			.build();
+		var response = responseReceived(interactionId);
+
+		this.policy.capture(started);
+		this.policy.capture(guardrail);
+		this.policy.capture(response);
+
+		assertThat(this.sink.getEvents()).containsExactly(started, guardrail, response);
+	}
+
+	@Test
+	void keepsPayloadsOfSampledInteractions() {
+		when(this.auditConfig.capture().sampleRate()).thenReturn(1.0);
+		var started = serviceStarted(UUID.randomUUID());
+		this.policy.capture(started);
+
+		assertThat(this.sink.getEvents()).containsExactly(started);
+	}
+
+	@Test
+	void samplesByInteractionId() {
+		when(this.auditConfig.capture().sampleRate()).thenReturn(0.5);
+		var interactionId = UUID.randomUUID();
+		var sampled = this.policy.isSampled(interactionId);
+
+		assertThat(this.policy.isSampled(interactionId)).isEqualTo(sampled);
+	}
+
+	@Test
+	void releasesExpiredInteractions() {
+		this.policy.capture(serviceStarted(UUID.randomUUID()));
+		when(this.auditConfig.maxInteractionDuration()).thenReturn(Duration.ofSeconds(-1));
+		this.policy.releaseExpiredInteractions();
+
+		assertThat(this.policy.getPendingInteractionCount()).isZero();
+		assertThat(this.sink.getEvents())
+			.singleElement()
+			.isInstanceOfSatisfying(ServiceStartedAuditEvent.class, e -> assertThat(e.getUserMessage()).isNull());
+	}
+
+	private static AuditEvent serviceStarted(UUID interactionId) {
+		return ServiceStartedAuditEvent.builder()
+			.invocationContext(invocationContext(interactionId))
+			.systemMessage("System message")
+			.userMessage("User message")
+			.build();
+	}
+
+	private static AuditEvent responseReceived(UUID interactionId) {
+		return ResponseReceivedAuditEvent.builder()
+			.invocationContext(invocationContext(interactionId))
+			.response("Some response")
+			.modelName("someModel")
+			.inputTokenCount(2)
+			.outputTokenCount(5)
+			.build();
+	}
+
+	private static AuditEvent serviceComplete(UUID interactionId) {
+		return ServiceCompleteAuditEvent.builder()
+			.invocationContext(invocationContext(interactionId))
+			.result("Some result")
+			.build();
+	}
+
+	private static InvocationContext invocationContext(UUID interactionId) {
+		return InvocationContext.builder()
+			.interactionId(interactionId)
+			.interfaceName("someInterface")
+			.methodName("someMethod")
+			.build();
+	}
+}
@@ -0,0 +1,105 @@
+package org.parasol.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.parasol.config.AuditConfig;
+import org.parasol.model.audit.AuditEvent;
+import org.parasol.model.audit.AuditEventType;
+import org.parasol.model.audit.InvocationContext;
+import org.parasol.model.audit.ServiceCompleteAuditEvent;
+import org.parasol.model.audit.ServiceStartedAuditEvent;
+import org.parasol.repository.AuditEventFeed.Filter;
+
+import io.opentelemetry.api.metrics.Meter;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+
+class AuditEventFeedTests {
+	private static final Filter EVERYTHING = new Filter(null, null, null);
+
+	AuditEventFeed feed;
+
+	@BeforeEach
+	void beforeEach() {
+		var auditConfig = mock(AuditConfig.class, RETURNS_DEEP_STUBS);
+		when(auditConfig.feed().bufferSize()).thenReturn(3);
+
+		// Deliver on the publishing thread so the tests don't need to wait
+		this.feed = new AuditEventFeed(auditConfig, mock(Meter.class, RETURNS_DEEP_STUBS), Runnable::run);
+	}
+
+	@Test
+	void filtersEvents() {
+		var interactionId = UUID.randomUUID();
+		var byType = subscribe(new Filter(AuditEventType.SERVICE_COMPLETED, null, null), 10);
+		var byInterface = subscribe(new Filter(null, "otherInterface", null), 10);
+		var byInteraction = subscribe(new Filter(null, null, interactionId), 10);
+
+		var started = serviceStarted(interactionId, "someInterface");
+		var complete = ServiceCompleteAuditEvent.builder()
+			.invocationContext(invocationContext(UUID.randomUUID(), "otherInterface"))
+			.result("Some result")
+			.build();
+
+		this.feed.publish(started);
+		this.feed.publish(complete);
+
+		assertThat(byType.getItems()).containsExactly(complete);
+		assertThat(byInterface.getItems()).containsExactly(complete);
+		assertThat(byInteraction.getItems()).containsExactly(started);
+	}
+
+	@Test
+	void dropsOldestEventsForSlowSubscribers() {
+		var slow = subscribe(EVERYTHING, 0);
+		var fast = subscribe(EVERYTHING, Long.MAX_VALUE);
+		var events = IntStream.range(0, 5)
+			.mapToObj(i -> serviceStarted(UUID.randomUUID(), "someInterface"))
+			.toList();
+
+		events.forEach(this.feed::publish);
+
+		assertThat(fast.getItems()).containsExactlyElementsOf(events);
+		assertThat(slow.getItems()).isEmpty();
+
+		// Only the latest events fit in the buffer
+		slow.request(10);
+		assertThat(slow.getItems()).containsExactlyElementsOf(events.subList(2, 5));
+	}
+
+	@Test
+	void removesCancelledSubscribers() {
+		var subscriber = subscribe(EVERYTHING, 1);
+		assertThat(this.feed.getSubscriberCount()).isOne();
+
+		subscriber.cancel();
+		assertThat(this.feed.getSubscriberCount()).isZero();
+	}
+
+	private AssertSubscriber<AuditEvent> subscribe(Filter filter, long requested) {
+		return this.feed.subscribe(filter)
+			.subscribe().withSubscriber(AssertSubscriber.create(requested));
+	}
+
+	private static AuditEvent serviceStarted(UUID interactionId, String interfaceName) {
+		return ServiceStartedAuditEvent.builder()
+			.invocationContext(invocationContext(interactionId, interfaceName))
+			.userMessage("User message")
+			.build();
+	}
+
+	private static InvocationContext invocationContext(UUID interactionId, String interfaceName) {
+		return InvocationContext.builder()
+			.interactionId(interactionId)
+			.interfaceName(interfaceName)
+			.methodName("someMethod")
+			.build();
+	}
+}
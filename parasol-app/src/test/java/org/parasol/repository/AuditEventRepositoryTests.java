@@ -2,6 +2,7 @@ package org.parasol.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -11,8 +12,13 @@ import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
+import org.parasol.model.audit.AuditEvent;
+import org.parasol.model.audit.AuditEventFilter;
+import org.parasol.model.audit.AuditEventType;
 import org.parasol.model.audit.Interactions.Interaction;
 import org.parasol.model.audit.InvocationContext;
+import org.parasol.model.audit.PageCursor;
+import org.parasol.model.audit.PayloadSelection;
 import org.parasol.model.audit.ServiceCompleteAuditEvent;
 import org.parasol.model.audit.ServiceErrorAuditEvent;
 import org.parasol.model.audit.ServiceStartedAuditEvent;
@@ -49,7 +55,7 @@ class AuditEventRepositoryTests {
     this.repository.flush();
 
     // Get the interactions
-    var interactions = this.repository.getLLMInteractions(Optional.empty(), Optional.empty());
+    var interactions = this.repository.getLLMInteractions(Optional.empty(), Optional.empty(), AuditEventFilter.NONE, Optional.empty(), Optional.empty(), PayloadSelection.ALL);
 
     assertThat(interactions).isNotNull();
 
@@ -93,6 +99,86 @@ class AuditEventRepositoryTests {
     interactionFailed(serviceStarted());
   }
 
+  @Test
+  @TestTransaction
+  @Order(1)
+  void exportsAllInOrder() {
+    var first = serviceStarted();
+    var second = serviceStarted();
+    var third = serviceStarted();
+    this.repository.flush();
+
+    var exported = new ArrayList<Long>();
+    this.repository.exportAll(auditEvent -> exported.add(auditEvent.getId()));
+
+    assertThat(exported)
+      .containsSubsequence(first.getId(), second.getId(), third.getId());
+  }
+
+  @Test
+  @TestTransaction
+  @Order(1)
+  void pagesThroughFilteredEvents() {
+    var first = serviceStarted();
+    var second = serviceStarted();
+    var third = serviceStarted();
+    interactionFailed(second);
+    this.repository.flush();
+
+    var filter = new AuditEventFilter(AuditEventType.SERVICE_STARTED, "someInterface", "someMethod", null, null);
+    var firstPage = this.repository.getAuditEvents(filter, Optional.of(new PageCursor<>(first.getCreatedOn(), first.getId() - 1)), Optional.of(2));
+
+    assertThat(firstPage.auditEvents())
+      .extracting(AuditEvent::getId)
+      .containsExactly(first.getId(), second.getId());
+
+    assertThat(firstPage.nextCursor()).isNotNull();
+
+    var secondPage = this.repository.getAuditEvents(filter, Optional.of(PageCursor.decode(firstPage.nextCursor(), Long::valueOf)), Optional.of(2));
+
+    assertThat(secondPage.auditEvents())
+      .extracting(AuditEvent::getId)
+      .containsExactly(third.getId());
+
+    assertThat(secondPage.nextCursor()).isNull();
+  }
+
+  @Test
+  @TestTransaction
+  @Order(1)
+  void pagesThroughInteractions() {
+    var first = serviceStarted();
+    var second = serviceStarted();
+    this.repository.flush();
+
+    var firstPage = this.repository.getLLMInteractions(Optional.of(first.getCreatedOn()), Optional.empty(), AuditEventFilter.NONE, Optional.empty(), Optional.of(1), PayloadSelection.ALL);
+
+    assertThat(firstPage.interactions())
+      .extracting(Interaction::interactionId)
+      .containsExactly(first.getInvocationContext().getInteractionId());
+
+    var secondPage = this.repository.getLLMInteractions(Optional.of(first.getCreatedOn()), Optional.empty(), AuditEventFilter.NONE, Optional.of(PageCursor.decode(firstPage.nextCursor(), UUID::fromString)), Optional.of(1), PayloadSelection.ALL);
+
+    assertThat(secondPage.interactions())
+      .extracting(Interaction::interactionId)
+      .containsExactly(second.getInvocationContext().getInteractionId());
+  }
+
+  @Test
+  @TestTransaction
+  @Order(1)
+  void interactionsWithSelectedTexts() {
+    var started = serviceStarted();
+    this.repository.flush();
+
+    var interactions = this.repository.getLLMInteractions(Optional.of(started.getCreatedOn()), Optional.empty(), AuditEventFilter.NONE, Optional.empty(), Optional.empty(), PayloadSelection.of("userMessage", 4));
+
+    assertThat(interactions.interactions())
+      .singleElement()
+      .extracting(Interaction::systemMessage, Interaction::userMessage)
+      .containsExactly(null, "User");
+  }
+
   private ServiceErrorAuditEvent interactionFailed(ServiceStartedAuditEvent serviceStartedEvent) {
     var interactionFailedEvent = ServiceErrorAuditEvent.builder()
                                                        .errorMessage("Some error message")
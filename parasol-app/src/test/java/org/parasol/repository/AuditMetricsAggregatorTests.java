@@ -0,0 +1,162 @@
+package org.parasol.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import jakarta.inject.Inject;
+
+import org.junit.jupiter.api.Test;
+import org.parasol.model.audit.ApproximateAuditStats.Distribution;
+import org.parasol.model.audit.ApproximateAuditStats.Quantile;
+import org.parasol.model.audit.AuditDates;
+import org.parasol.model.audit.AuditTrend.Granularity;
+import org.parasol.model.audit.AuditTrend.TrendPoint;
+import org.parasol.model.audit.InvocationContext;
+import org.parasol.model.audit.OutputGuardrailExecutedAuditEvent;
+import org.parasol.model.audit.ResponseReceivedAuditEvent;
+import org.parasol.model.audit.ServiceStartedAuditEvent;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.TestTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+class AuditMetricsAggregatorTests {
+	private static final Instant DAY = Instant.parse("2021-03-04T00:00:00Z");
+
+	@Inject
+	AuditMetricsAggregator aggregator;
+
+	@Inject
+	AuditEventRepository repository;
+
+	@Test
+	@TestTransaction
+	void aggregatesByHourAndDay() {
+		var invocationContext = InvocationContext.builder()
+			.interactionId(UUID.randomUUID())
+			.interfaceName("someInterface-%s".formatted(UUID.randomUUID()))
+			.methodName("someMethod")
+			.build();
+
+		this.repository.persist(serviceStarted(invocationContext, "2021-03-04T05:06:07Z"));
+		this.repository.persist(serviceStarted(invocationContext, "2021-03-04T05:40:00Z"));
+		this.repository.persist(
+			ResponseReceivedAuditEvent.builder()
+				.invocationContext(invocationContext)
+				.createdOn(Instant.parse("2021-03-04T05:41:00Z"))
+				.response("Some response")
+				.modelName("someModel")
+				.inputTokenCount(3)
+				.outputTokenCount(4)
+				.build()
+		);
+		this.repository.persist(
+			OutputGuardrailExecutedAuditEvent.builder()
+				.invocationContext(invocationContext)
+				.createdOn(Instant.parse("2021-03-04T07:10:00Z"))
+				.response("Some response")
+				.result("FAILURE")
+				.guardrailClass("some.Guardrail")
+				.build()
+		);
+		this.repository.flush();
+
+		this.aggregator.refreshFrom(DAY);
+
+		var hourly = this.repository.getAuditTrend(Optional.of(DAY), Optional.of(DAY.plusSeconds(86_400)), Granularity.HOUR);
+
+		assertThat(hourly.points())
+			.filteredOn(point -> invocationContext.getInterfaceName().equals(point.interfaceName()))
+			.extracting(
+				TrendPoint::bucketStart,
+				TrendPoint::eventType,
+				TrendPoint::modelName,
+				TrendPoint::guardrailClass,
+				TrendPoint::eventCount,
+				TrendPoint::failureCount,
+				TrendPoint::inputTokenCount,
+				TrendPoint::outputTokenCount
+			)
+			.containsExactlyInAnyOrder(
+				tuple(Instant.parse("2021-03-04T05:00:00Z"), "SERVICE_STARTED", null, null, 2L, 0L, 0L, 0L),
+				tuple(Instant.parse("2021-03-04T05:00:00Z"), "RESPONSE_RECEIVED", "someModel", null, 1L, 0L, 3L, 4L),
+				tuple(Instant.parse("2021-03-04T07:00:00Z"), "OUTPUT_GUARDRAIL_EXECUTED", null, "some.Guardrail", 1L, 1L, 0L, 0L)
+			);
+
+		var daily = this.repository.getAuditTrend(Optional.of(DAY.plusSeconds(3_600)), Optional.of(DAY.plusSeconds(86_400)), Granularity.DAY);
+
+		assertThat(daily.points())
+			.filteredOn(point -> invocationContext.getInterfaceName().equals(point.interfaceName()))
+			.extracting(TrendPoint::bucketStart, TrendPoint::eventType, TrendPoint::eventCount)
+			.containsExactlyInAnyOrder(
+				tuple(DAY, "SERVICE_STARTED", 2L),
+				tuple(DAY, "RESPONSE_RECEIVED", 1L),
+				tuple(DAY, "OUTPUT_GUARDRAIL_EXECUTED", 1L)
+			);
+
+		// Reads the hours before 2021-03-05 and the whole of that day
+		var approximate = this.repository.getApproximateAuditStats(Optional.of(DAY.plusSeconds(3_600)), Optional.of(DAY.plusSeconds(2 * 86_400)));
+
+		assertThat(approximate.distinctInteractions().value()).isEqualTo(1L);
+		assertThat(approximate.inputTokens())
+			.extracting(Distribution::count, Distribution::min, Distribution::max)
+			.containsExactly(1L, 3.0, 3.0);
+		assertThat(approximate.outputGuardrailFailures())
+			.extracting(Distribution::count, Distribution::mean)
+			.containsExactly(1L, 1.0);
+		assertThat(approximate.outputTokens().quantiles())
+			.extracting(Quantile::value)
+			.containsOnly(4.0);
+	}
+
+	@Test
+	void reaggregatesClosedHoursWhichEventsWereCommittedLateIn() {
+		var invocationContext = InvocationContext.builder()
+			.interactionId(UUID.randomUUID())
+			.interfaceName("someInterface-%s".formatted(UUID.randomUUID()))
+			.methodName("someMethod")
+			.build();
+
+		// Long closed by the time it's committed, like an event replayed from the journal
+		var lateHour = Instant.parse("2020-07-08T09:00:00Z");
+		QuarkusTransaction.requiringNew().run(() -> this.repository.persist(serviceStarted(invocationContext, "2020-07-08T09:10:11Z")));
+
+		this.aggregator.refresh();
+
+		assertThat(this.repository.getAuditTrend(Optional.of(lateHour), Optional.of(lateHour.plusSeconds(3_600)), Granularity.HOUR).points())
+			.filteredOn(point -> invocationContext.getInterfaceName().equals(point.interfaceName()))
+			.extracting(TrendPoint::bucketStart, TrendPoint::eventType, TrendPoint::eventCount)
+			.containsExactly(tuple(lateHour, "SERVICE_STARTED", 1L));
+	}
+
+	@Test
+	void groupsClosedHoursIntoRuns() {
+		var hours = List.of(
+			Instant.parse("2021-03-04T01:00:00Z"),
+			Instant.parse("2021-03-04T02:00:00Z"),
+			Instant.parse("2021-03-04T05:00:00Z"),
+			Instant.parse("2021-03-04T09:00:00Z")
+		);
+
+		assertThat(AuditMetricsAggregator.closedHours(hours, Instant.parse("2021-03-04T09:00:00Z")))
+			.containsExactly(
+				new AuditDates(Instant.parse("2021-03-04T01:00:00Z"), Instant.parse("2021-03-04T03:00:00Z")),
+				new AuditDates(Instant.parse("2021-03-04T05:00:00Z"), Instant.parse("2021-03-04T06:00:00Z"))
+			);
+	}
+
+	private static ServiceStartedAuditEvent serviceStarted(InvocationContext invocationContext, String createdOn) {
+		return ServiceStartedAuditEvent.builder()
+			.invocationContext(invocationContext)
+			.createdOn(Instant.parse(createdOn))
+			.systemMessage("System message")
+			.userMessage("User message")
+			.build();
+	}
+}
@@ -0,0 +1,75 @@
+package org.parasol.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.TestTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+class AuditPartitionManagerTests {
+	@Inject
+	AuditPartitionManager partitionManager;
+
+	@Inject
+	EntityManager entityManager;
+
+	@Test
+	void partitionNames() {
+		var month = YearMonth.of(2025, 8);
+
+		assertThat(AuditPartitionManager.partitionName(month))
+			.isEqualTo("audit_events_p2025_08");
+
+		assertThat(AuditPartitionManager.partitionMonth("audit_events_p2025_08"))
+			.hasValue(month);
+
+		assertThat(AuditPartitionManager.partitionMonth(AuditPartitionManager.DEFAULT_PARTITION_NAME))
+			.isEmpty();
+
+		assertThat(AuditPartitionManager.beforePartitionName(month))
+			.isEqualTo("audit_events_before_p2025_08");
+
+		assertThat(AuditPartitionManager.beforePartitionEnd("audit_events_before_p2025_08"))
+			.hasValue(month);
+
+		assertThat(AuditPartitionManager.beforePartitionEnd("audit_events_p2025_08"))
+			.isEmpty();
+
+		assertThat(AuditPartitionManager.partitionMonth("audit_events_before_p2025_08"))
+			.isEmpty();
+	}
+
+	@Test
+	@TestTransaction
+	void tableIsPartitionedByMonth() {
+		// Running maintenance again should be a no-op
+		this.partitionManager.maintainPartitions();
+
+		List<String> partitions = this.entityManager.createNativeQuery("""
+				SELECT c.relname
+				FROM pg_inherits i
+				JOIN pg_class c ON c.oid = i.inhrelid
+				JOIN pg_class p ON p.oid = i.inhparent
+				WHERE p.relname = 'audit_events'
+				""", String.class)
+			.getResultList();
+
+		var currentMonth = YearMonth.now(ZoneOffset.UTC);
+
+		assertThat(partitions)
+			.contains(
+				AuditPartitionManager.DEFAULT_PARTITION_NAME,
+				AuditPartitionManager.partitionName(currentMonth),
+				AuditPartitionManager.partitionName(currentMonth.plusMonths(3))
+			);
+	}
+}
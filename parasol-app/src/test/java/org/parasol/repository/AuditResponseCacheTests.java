@@ -0,0 +1,138 @@
+package org.parasol.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigInteger;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.parasol.config.AuditConfig;
+import org.parasol.model.audit.AuditDates;
+
+import io.quarkus.runtime.configuration.MemorySize;
+
+class AuditResponseCacheTests {
+	private static final Instant NOW = Instant.parse("2025-06-01T12:00:00Z");
+	private static final AuditDates LIVE_WINDOW = new AuditDates(NOW.minus(Duration.ofHours(1)), NOW.plus(Duration.ofMinutes(1)));
+	private static final AuditDates SEALED_WINDOW = new AuditDates(NOW.minus(Duration.ofDays(2)), NOW.minus(Duration.ofDays(1)));
+
+	private final AtomicLong latestId = new AtomicLong(10);
+	private final AtomicInteger loads = new AtomicInteger();
+	private AuditResponseCache cache;
+
+	@BeforeEach
+	void beforeEach() {
+		var auditConfig = mock(AuditConfig.class, RETURNS_DEEP_STUBS);
+		when(auditConfig.responseCache().enabled()).thenReturn(true);
+		when(auditConfig.responseCache().maxEntries()).thenReturn(2);
+		when(auditConfig.responseCache().maxSize()).thenReturn(new MemorySize(BigInteger.valueOf(100)));
+		when(auditConfig.responseCache().sealAfter()).thenReturn(Duration.ofHours(2));
+
+		this.cache = new AuditResponseCache(auditConfig, Clock.fixed(NOW, ZoneOffset.UTC), this.latestId::get);
+	}
+
+	@Test
+	void normalizesWindowsToWholeMinutes() {
+		assertThat(AuditResponseCache.normalize(Optional.of(Instant.parse("2025-06-01T10:15:30Z")), Optional.of(Instant.parse("2025-06-01T11:45:10Z"))))
+			.isEqualTo(new AuditDates(Instant.parse("2025-06-01T10:15:00Z"), Instant.parse("2025-06-01T11:46:00Z")));
+
+		assertThat(AuditResponseCache.normalize(Optional.of(Instant.parse("2025-06-01T10:15:00Z")), Optional.of(Instant.parse("2025-06-01T11:45:00Z"))))
+			.isEqualTo(new AuditDates(Instant.parse("2025-06-01T10:15:00Z"), Instant.parse("2025-06-01T11:45:00Z")));
+	}
+
+	@Test
+	void servesLiveWindowsUntilNewEventsArrive() {
+		var first = get("live", LIVE_WINDOW);
+
+		assertThat(get("live", LIVE_WINDOW)).isSameAs(first);
+		assertThat(this.loads).hasValue(1);
+		assertThat(first.version()).isEqualTo(10);
+
+		this.latestId.set(11);
+		var second = get("live", LIVE_WINDOW);
+
+		assertThat(second).isNotSameAs(first);
+		assertThat(second.version()).isEqualTo(11);
+		assertThat(this.loads).hasValue(2);
+	}
+
+	@Test
+	void servesSealedWindowsIndefinitely() {
+		var first = get("sealed", SEALED_WINDOW);
+		this.latestId.set(11);
+
+		assertThat(get("sealed", SEALED_WINDOW)).isSameAs(first);
+		assertThat(this.loads).hasValue(1);
+	}
+
+	@Test
+	void evictsLeastRecentlyUsed() {
+		get("first", SEALED_WINDOW);
+		get("second", SEALED_WINDOW);
+		get("first", SEALED_WINDOW);
+		get("third", SEALED_WINDOW);
+		assertThat(this.loads).hasValue(3);
+
+		get("first", SEALED_WINDOW);
+		assertThat(this.loads).hasValue(3);
+
+		get("second", SEALED_WINDOW);
+		assertThat(this.loads).hasValue(4);
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedOnceTooBig() {
+		get("first", SEALED_WINDOW, 40);
+		get("second", SEALED_WINDOW, 40);
+		get("first", SEALED_WINDOW, 40);
+		assertThat(this.loads).hasValue(2);
+
+		// Only fits alongside the most recently used
+		get("third", SEALED_WINDOW, 50);
+		assertThat(this.loads).hasValue(3);
+
+		get("first", SEALED_WINDOW, 40);
+		assertThat(this.loads).hasValue(3);
+
+		get("second", SEALED_WINDOW, 40);
+		assertThat(this.loads).hasValue(4);
+	}
+
+	@Test
+	void doesntCacheResponsesBiggerThanTheWholeCache() {
+		get("huge", SEALED_WINDOW, 101);
+		get("huge", SEALED_WINDOW, 101);
+
+		assertThat(this.loads).hasValue(2);
+	}
+
+	@Test
+	void invalidatesAll() {
+		get("sealed", SEALED_WINDOW);
+		this.cache.invalidateAll();
+		get("sealed", SEALED_WINDOW);
+
+		assertThat(this.loads).hasValue(2);
+	}
+
+	private AuditResponseCache.CachedResponse get(String key, AuditDates window) {
+		return get(key, window, 1);
+	}
+
+	private AuditResponseCache.CachedResponse get(String key, AuditDates window, int size) {
+		return this.cache.get(key, window, () -> {
+			this.loads.incrementAndGet();
+			return new byte[size];
+		});
+	}
+}
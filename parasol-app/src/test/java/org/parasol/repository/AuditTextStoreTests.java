@@ -0,0 +1,83 @@
+package org.parasol.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.UUID;
+
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+
+import org.junit.jupiter.api.Test;
+import org.parasol.model.audit.AuditText;
+import org.parasol.model.audit.InvocationContext;
+import org.parasol.model.audit.ServiceStartedAuditEvent;
+
+import io.quarkus.test.TestTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+class AuditTextStoreTests {
+	private static final String SYSTEM_MESSAGE = "A system message which is the same for every interaction " + UUID.randomUUID();
+
+	@Inject
+	AuditEventRepository repository;
+
+	@Inject
+	AuditTextStore textStore;
+
+	@Inject
+	EntityManager entityManager;
+
+	@Test
+	@TestTransaction
+	void storesEachTextOnce() {
+		var interactionId = UUID.randomUUID();
+		this.repository.persist(serviceStarted(interactionId, "First user message"));
+		this.repository.persist(serviceStarted(interactionId, "Second user message"));
+		this.repository.flush();
+		this.entityManager.clear();
+
+		var count = this.entityManager.createQuery("SELECT COUNT(t) FROM AuditText t WHERE t.hash = :hash", Long.class)
+		                              .setParameter("hash", AuditText.hashOf(SYSTEM_MESSAGE))
+		                              .getSingleResult();
+
+		assertThat(count).isOne();
+
+		assertThat(this.repository.getAllForInteractionId(interactionId))
+			.hasSize(2)
+			.allSatisfy(event ->
+				assertThat(event)
+					.isInstanceOf(ServiceStartedAuditEvent.class)
+					.extracting(e -> ((ServiceStartedAuditEvent) e).getSystemMessage())
+					.isEqualTo(SYSTEM_MESSAGE)
+			)
+			.extracting(event -> ((ServiceStartedAuditEvent) event).getUserMessage())
+			.containsExactlyInAnyOrder("First user message", "Second user message");
+	}
+
+	@Test
+	@TestTransaction
+	void findsTextsByHash() {
+		this.repository.persist(serviceStarted(UUID.randomUUID(), "Some user message"));
+		this.repository.flush();
+
+		assertThat(this.textStore.findAll(List.of(AuditText.hashOf(SYSTEM_MESSAGE), AuditText.hashOf("Not stored"))))
+			.containsOnlyKeys(AuditText.hashOf(SYSTEM_MESSAGE))
+			.containsEntry(AuditText.hashOf(SYSTEM_MESSAGE), SYSTEM_MESSAGE);
+	}
+
+	private static ServiceStartedAuditEvent serviceStarted(UUID interactionId, String userMessage) {
+		return ServiceStartedAuditEvent.builder()
+			.systemMessage(SYSTEM_MESSAGE)
+			.userMessage(userMessage)
+			.invocationContext(
+				InvocationContext.builder()
+					.interactionId(interactionId)
+					.interfaceName("someInterface")
+					.methodName("someMethod")
+					.build()
+			)
+			.build();
+	}
+}
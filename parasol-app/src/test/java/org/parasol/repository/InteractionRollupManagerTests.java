@@ -0,0 +1,237 @@
+package org.parasol.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+
+import org.junit.jupiter.api.Test;
+import org.parasol.model.audit.AuditEventFilter;
+import org.parasol.model.audit.AuditLatency.MethodLatency;
+import org.parasol.model.audit.AuditLatency.Percentiles;
+import org.parasol.model.audit.AuditStats.InteractionStats;
+import org.parasol.model.audit.InteractionRollup;
+import org.parasol.model.audit.Interactions.Interaction.InteractionStatus;
+import org.parasol.model.audit.InvocationContext;
+import org.parasol.model.audit.OutputGuardrailExecutedAuditEvent;
+import org.parasol.model.audit.ResponseReceivedAuditEvent;
+import org.parasol.model.audit.ServiceCompleteAuditEvent;
+import org.parasol.model.audit.ServiceStartedAuditEvent;
+import org.parasol.model.audit.ToolExecutedAuditEvent;
+
+import io.quarkus.test.TestTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+class InteractionRollupManagerTests {
+	@Inject
+	InteractionRollupManager rollupManager;
+
+	@Inject
+	AuditEventRepository repository;
+
+	@Inject
+	EntityManager entityManager;
+
+	@Test
+	@TestTransaction
+	void rollsUpEventsAsTheyArrive() {
+		// Installing again should be a no-op
+		this.rollupManager.installTrigger();
+
+		var invocationContext = InvocationContext.builder()
+			.interactionId(UUID.randomUUID())
+			.interfaceName("someInterface-%s".formatted(UUID.randomUUID()))
+			.methodName("someMethod")
+			.build();
+
+		var started = ServiceStartedAuditEvent.builder()
+			.invocationContext(invocationContext)
+			.systemMessage("System message")
+			.userMessage("User message")
+			.build();
+
+		this.repository.persist(started);
+		this.repository.flush();
+
+		assertThat(rollup(invocationContext))
+			.extracting(InteractionRollup::getInteractionDate, InteractionRollup::getStatus)
+			.containsExactly(started.getCreatedOn(), InteractionStatus.UNKNOWN);
+
+		this.repository.persist(responseReceived(invocationContext, 10, 20));
+		this.repository.persist(outputGuardrail(invocationContext, "FAILURE"));
+		this.repository.persist(responseReceived(invocationContext, 30, 40));
+		this.repository.persist(outputGuardrail(invocationContext, "SUCCESS"));
+		this.repository.persist(
+			ServiceCompleteAuditEvent.builder()
+				.invocationContext(invocationContext)
+				.result("Some result")
+				.build()
+		);
+		this.repository.flush();
+
+		assertThat(rollup(invocationContext))
+			.extracting(
+				InteractionRollup::getInteractionDate,
+				InteractionRollup::getNumLlmFailures,
+				InteractionRollup::getTotalOutputGuardrailExecutions,
+				InteractionRollup::getTotalOutputGuardrailFailures,
+				InteractionRollup::getInputTokenCount,
+				InteractionRollup::getOutputTokenCount,
+				InteractionRollup::getStatus
+			)
+			.containsExactly(started.getCreatedOn(), 0L, 2L, 1L, 40L, 60L, InteractionStatus.SUCCESS);
+
+		assertThat(this.repository.getAuditStats(Optional.empty(), Optional.empty(), new AuditEventFilter(null, invocationContext.getInterfaceName(), null, null, null), Optional.empty(), Optional.empty()).stats())
+			.singleElement()
+			.extracting(
+				InteractionStats::numberLlmFailures,
+				InteractionStats::totalOutputGuardrailExecutions,
+				InteractionStats::totalOutputGuardrailFailures
+			)
+			.containsExactly(0L, 2L, 1L);
+	}
+
+	@Test
+	@TestTransaction
+	void derivesLatenciesFromTheEventTimes() {
+		var invocationContext = InvocationContext.builder()
+			.interactionId(UUID.randomUUID())
+			.interfaceName("someInterface-%s".formatted(UUID.randomUUID()))
+			.methodName("someMethod")
+			.build();
+
+		this.repository.persist(
+			ServiceStartedAuditEvent.builder()
+				.invocationContext(invocationContext)
+				.createdOn(Instant.parse("2017-05-06T10:00:00Z"))
+				.userMessage("User message")
+				.build()
+		);
+		this.repository.persist(responseReceived(invocationContext, "2017-05-06T10:00:02Z"));
+		this.repository.persist(
+			ToolExecutedAuditEvent.builder()
+				.invocationContext(invocationContext)
+				.createdOn(Instant.parse("2017-05-06T10:00:03Z"))
+				.toolName("someTool")
+				.result("Some result")
+				.build()
+		);
+		this.repository.flush();
+
+		this.repository.persist(responseReceived(invocationContext, "2017-05-06T10:00:05Z"));
+		this.repository.persist(
+			OutputGuardrailExecutedAuditEvent.builder()
+				.invocationContext(invocationContext)
+				.createdOn(Instant.parse("2017-05-06T10:00:05.500Z"))
+				.response("Some response")
+				.result("SUCCESS")
+				.guardrailClass("some.Guardrail")
+				.build()
+		);
+		this.repository.persist(
+			ServiceCompleteAuditEvent.builder()
+				.invocationContext(invocationContext)
+				.createdOn(Instant.parse("2017-05-06T10:00:06Z"))
+				.result("Some result")
+				.build()
+		);
+		this.repository.flush();
+
+		assertThat(rollup(invocationContext))
+			.extracting(
+				InteractionRollup::getInterfaceName,
+				InteractionRollup::getStartedOn,
+				InteractionRollup::getFirstResponseOn,
+				InteractionRollup::getEndedOn,
+				InteractionRollup::getToolExecutionMillis,
+				InteractionRollup::getGuardrailExecutionMillis
+			)
+			.containsExactly(
+				invocationContext.getInterfaceName(),
+				Instant.parse("2017-05-06T10:00:00Z"),
+				Instant.parse("2017-05-06T10:00:02Z"),
+				Instant.parse("2017-05-06T10:00:06Z"),
+				1_000L,
+				500L
+			);
+
+		var latency = this.repository.getAuditLatency(Optional.of(Instant.parse("2017-05-06T00:00:00Z")), Optional.of(Instant.parse("2017-05-07T00:00:00Z")));
+
+		assertThat(latency.methods())
+			.filteredOn(method -> invocationContext.getInterfaceName().equals(method.interfaceName()))
+			.singleElement()
+			.extracting(MethodLatency::interactions, MethodLatency::timeToFirstResponse, MethodLatency::toolExecution, MethodLatency::guardrailExecution, MethodLatency::total)
+			.containsExactly(
+				1L,
+				new Percentiles(2_000.0, 2_000.0, 2_000.0),
+				new Percentiles(1_000.0, 1_000.0, 1_000.0),
+				new Percentiles(500.0, 500.0, 500.0),
+				new Percentiles(6_000.0, 6_000.0, 6_000.0)
+			);
+	}
+
+	@Test
+	@TestTransaction
+	void onlyLooksForThePreviousEventWithinTheMaxInteractionDuration() {
+		var invocationContext = InvocationContext.builder()
+			.interactionId(UUID.randomUUID())
+			.interfaceName("someInterface-%s".formatted(UUID.randomUUID()))
+			.methodName("someMethod")
+			.build();
+
+		this.repository.persist(responseReceived(invocationContext, "2017-05-06T10:00:00Z"));
+		this.repository.flush();
+
+		// More than the max interaction duration (1h) after the response
+		this.repository.persist(
+			ToolExecutedAuditEvent.builder()
+				.invocationContext(invocationContext)
+				.createdOn(Instant.parse("2017-05-06T12:00:00Z"))
+				.toolName("someTool")
+				.result("Some result")
+				.build()
+		);
+		this.repository.flush();
+
+		assertThat(rollup(invocationContext).getToolExecutionMillis()).isNull();
+	}
+
+	private InteractionRollup rollup(InvocationContext invocationContext) {
+		// Make sure the row is re-read after the trigger has updated it
+		this.entityManager.clear();
+		return this.entityManager.find(InteractionRollup.class, invocationContext.getInteractionId());
+	}
+
+	private static ResponseReceivedAuditEvent responseReceived(InvocationContext invocationContext, int inputTokenCount, int outputTokenCount) {
+		return ResponseReceivedAuditEvent.builder()
+			.invocationContext(invocationContext)
+			.response("Some response")
+			.modelName("someModel")
+			.inputTokenCount(inputTokenCount)
+			.outputTokenCount(outputTokenCount)
+			.build();
+	}
+
+	private static ResponseReceivedAuditEvent responseReceived(InvocationContext invocationContext, String createdOn) {
+		return ResponseReceivedAuditEvent.builder()
+			.invocationContext(invocationContext)
+			.createdOn(Instant.parse(createdOn))
+			.response("Some response")
+			.modelName("someModel")
+			.build();
+	}
+
+	private static OutputGuardrailExecutedAuditEvent outputGuardrail(InvocationContext invocationContext, String result) {
+		return OutputGuardrailExecutedAuditEvent.builder()
+			.invocationContext(invocationContext)
+			.response("Some response")
+			.result(result)
+			.guardrailClass("some.Guardrail")
+			.build();
+	}
+}
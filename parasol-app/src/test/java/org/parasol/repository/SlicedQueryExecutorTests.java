@@ -0,0 +1,52 @@
+package org.parasol.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.parasol.model.audit.AuditDates;
+
+class SlicedQueryExecutorTests {
+	private static final Instant START = Instant.parse("2024-01-01T00:00:00.123456789Z");
+
+	@Test
+	void shortRangesArentSplit() {
+		var auditDates = new AuditDates(START, START.plus(Duration.ofMinutes(90)));
+
+		assertThat(SlicedQueryExecutor.slices(auditDates, 8, Duration.ofHours(1)))
+			.containsExactly(auditDates);
+	}
+
+	@Test
+	void slicesCoverTheRangeWithoutOverlapping() {
+		var auditDates = new AuditDates(START, START.plus(Duration.ofDays(1)));
+		var slices = SlicedQueryExecutor.slices(auditDates, 4, Duration.ofHours(1));
+
+		assertThat(slices).hasSize(4);
+		assertThat(slices.getFirst().start()).isEqualTo(auditDates.start());
+		assertThat(slices.getLast().end()).isEqualTo(auditDates.end());
+
+		for (var i = 1; i < slices.size(); i++) {
+			assertThat(slices.get(i).start())
+				.isEqualTo(slices.get(i - 1).end().plusNanos(1_000))
+				.isEqualTo(START.plus(Duration.ofHours(6 * i)).minusNanos(789));
+		}
+	}
+
+	@Test
+	void sliceCountIsLimitedByTheMinSliceDuration() {
+		var auditDates = new AuditDates(START, START.plus(Duration.ofHours(3)));
+
+		assertThat(SlicedQueryExecutor.slices(auditDates, 8, Duration.ofHours(1))).hasSize(3);
+		assertThat(SlicedQueryExecutor.slices(auditDates, 0, Duration.ofHours(1))).hasSize(1);
+	}
+
+	@Test
+	void concurrentSlicesDefaultToHalfThePool() {
+		assertThat(SlicedQueryExecutor.maxConcurrentSlices(Optional.empty(), 20)).isEqualTo(10);
+		assertThat(SlicedQueryExecutor.maxConcurrentSlices(Optional.of(4), 20)).isEqualTo(4);
+	}
+}
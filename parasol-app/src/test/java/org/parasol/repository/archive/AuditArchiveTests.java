@@ -0,0 +1,337 @@
+package org.parasol.repository.archive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.parasol.config.AuditConfig;
+import org.parasol.model.audit.AuditDates;
+import org.parasol.model.audit.AuditEvent;
+import org.parasol.model.audit.AuditEventFilter;
+import org.parasol.model.audit.AuditEventType;
+import org.parasol.model.audit.Interactions.Interaction.InteractionStatus;
+import org.parasol.model.audit.InvocationContext;
+import org.parasol.model.audit.PageCursor;
+import org.parasol.model.audit.ResponseReceivedAuditEvent;
+import org.parasol.model.audit.ServiceStartedAuditEvent;
+import org.parasol.repository.archive.ArchivedInteraction.Facet;
+import org.parasol.repository.journal.AuditEventCodec;
+
+import com.github.luben.zstd.ZstdOutputStream;
+
+class AuditArchiveTests {
+	private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+	@TempDir
+	Path directory;
+
+	AuditConfig auditConfig;
+
+	@BeforeEach
+	void beforeEach() {
+		var archiveConfig = mock(AuditConfig.Archive.class);
+		when(archiveConfig.directory()).thenReturn(this.directory);
+		when(archiveConfig.blockSize()).thenReturn(4);
+
+		var compressionConfig = mock(AuditConfig.Compression.class);
+		when(compressionConfig.level()).thenReturn(3);
+
+		this.auditConfig = mock(AuditConfig.class);
+		when(this.auditConfig.archive()).thenReturn(archiveConfig);
+		when(this.auditConfig.compression()).thenReturn(compressionConfig);
+	}
+
+	@Test
+	void findsEventsAndInteractionsAcrossBlocksAndReopens() {
+		var archive = openArchive();
+		var interactionIds = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+		var auditEvents = new ArrayList<AuditEvent>();
+		var id = 100L;
+
+		// Three events per interaction, so the interactions straddle the blocks of four events
+		for (var i = 0; i < interactionIds.size(); i++) {
+			var invocationContext = invocationContext(interactionIds.get(i));
+			var createdOn = START.plusSeconds(i * 3_600L);
+
+			auditEvents.add(ServiceStartedAuditEvent.builder().id(id++).invocationContext(invocationContext).createdOn(createdOn).systemMessage("System").userMessage("User %d".formatted(i)).build());
+			auditEvents.add(ResponseReceivedAuditEvent.builder().id(id++).invocationContext(invocationContext).createdOn(createdOn.plusSeconds(1)).response("Response").modelName("model-%d".formatted(i)).inputTokenCount(1).outputTokenCount(2).build());
+			auditEvents.add(ServiceStartedAuditEvent.builder().id(id++).invocationContext(invocationContext).createdOn(createdOn.plusSeconds(2)).systemMessage("System").userMessage("Again").build());
+		}
+
+		try (var segment = archive.startSegment()) {
+			auditEvents.forEach(segment::append);
+			segment.complete(interactionIds.stream().map(interactionId -> interaction(interactionId, auditEvents)).toList());
+		}
+
+		for (var reopened : List.of(archive, openArchive())) {
+			assertThat(reopened.findEvents(interactionIds.get(1)))
+				.usingRecursiveFieldByFieldElementComparator()
+				.containsExactlyElementsOf(auditEvents.subList(3, 6));
+
+			assertThat(reopened.findEvents(UUID.randomUUID())).isEmpty();
+
+			assertThat(reopened.findEvent(107))
+				.get()
+				.usingRecursiveComparison()
+				.isEqualTo(auditEvents.get(7));
+
+			assertThat(reopened.findInteractions(new AuditDates(START.plusSeconds(1), START.plusSeconds(86_400)), AuditEventFilter.NONE, Optional.empty(), 10, false))
+				.extracting(ArchivedInteraction::interactionId, ArchivedInteraction::systemMessage)
+				.containsExactly(tuple(interactionIds.get(1), null), tuple(interactionIds.get(2), null));
+
+			assertThat(reopened.findInteractions(new AuditDates(START, START.plusSeconds(86_400)), new AuditEventFilter(AuditEventType.RESPONSE_RECEIVED, null, null, "model-2", null), Optional.empty(), 10, true))
+				.extracting(ArchivedInteraction::interactionId, ArchivedInteraction::systemMessage)
+				.containsExactly(tuple(interactionIds.get(2), "System"));
+
+			assertThat(reopened.findInteractions(new AuditDates(START.plusSeconds(86_400), START.plusSeconds(2 * 86_400)), AuditEventFilter.NONE, Optional.empty(), 10, true)).isEmpty();
+		}
+	}
+
+	@Test
+	void discardsIncompleteSegments() throws IOException {
+		var archive = openArchive();
+		var interactionId = UUID.randomUUID();
+
+		try (var segment = archive.startSegment()) {
+			segment.append(ServiceStartedAuditEvent.builder().id(1L).invocationContext(invocationContext(interactionId)).createdOn(START).systemMessage("System").userMessage("User").build());
+		}
+
+		assertThat(archive.isEmpty()).isTrue();
+
+		// As if the application stopped part way through writing a segment
+		Files.writeString(this.directory.resolve("segment-00000000000000000005.events"), "partial");
+
+		var reopened = openArchive();
+
+		assertThat(reopened.isEmpty()).isTrue();
+		assertThat(reopened.findEvents(interactionId)).isEmpty();
+
+		try (var files = Files.list(this.directory)) {
+			assertThat(files).isEmpty();
+		}
+	}
+
+	@Test
+	void pagesThroughInteractionsInOrderAcrossSegments() {
+		var archive = openArchive();
+		var interactions = new ArrayList<ArchivedInteraction>();
+
+		// Two segments whose interactions are interleaved, each spanning several blocks of summaries
+		for (var segmentNumber = 0; segmentNumber < 2; segmentNumber++) {
+			var segmentInteractions = new ArrayList<ArchivedInteraction>();
+
+			for (var i = segmentNumber; i < 20; i += 2) {
+				segmentInteractions.add(interaction(UUID.randomUUID(), START.plusSeconds(i * 60L), i));
+			}
+
+			try (var segment = archive.startSegment()) {
+				// Out of order, as they are sorted when written
+				segment.complete(segmentInteractions.reversed());
+			}
+
+			interactions.addAll(segmentInteractions);
+		}
+
+		interactions.sort(ArchivedInteraction.ORDER);
+		var auditDates = new AuditDates(START.plusSeconds(60), START.plusSeconds(18 * 60));
+
+		for (var reopened : List.of(archive, openArchive())) {
+			var pages = new ArrayList<ArchivedInteraction>();
+			Optional<PageCursor<UUID>> cursor = Optional.empty();
+			List<ArchivedInteraction> page;
+
+			do {
+				page = reopened.findInteractions(auditDates, AuditEventFilter.NONE, cursor, 5, true);
+				pages.addAll(page);
+				cursor = page.isEmpty() ?
+				         Optional.empty() :
+				         Optional.of(new PageCursor<>(page.getLast().interactionDate(), page.getLast().interactionId()));
+			} while (page.size() == 5);
+
+			assertThat(pages)
+				.extracting(ArchivedInteraction::interactionId, ArchivedInteraction::userMessage)
+				.containsExactlyElementsOf(
+					interactions.subList(1, 19)
+					            .stream()
+					            .map(interaction -> tuple(interaction.interactionId(), interaction.userMessage()))
+					            .toList()
+				);
+		}
+	}
+
+	@Test
+	void addsUpTotalsOfInteractionsWithOutputGuardrailFailures() {
+		var archive = openArchive();
+		var interactions = new ArrayList<ArchivedInteraction>();
+
+		for (var i = 0; i < 10; i++) {
+			interactions.add(interaction(UUID.randomUUID(), START.plusSeconds(i * 60L), i % 3));
+		}
+
+		try (var segment = archive.startSegment()) {
+			segment.complete(interactions);
+		}
+
+		for (var reopened : List.of(archive, openArchive())) {
+			// Whole blocks come from the index, the blocks straddling the range are read
+			assertThat(reopened.findTotals(new AuditDates(START, START.plusSeconds(3_600)), AuditEventFilter.NONE))
+				.isEqualTo(totalsOf(interactions));
+
+			assertThat(reopened.findTotals(new AuditDates(START.plusSeconds(60), START.plusSeconds(8 * 60)), AuditEventFilter.NONE))
+				.isEqualTo(totalsOf(interactions.subList(1, 9)));
+
+			assertThat(reopened.findTotals(new AuditDates(START, START.plusSeconds(3_600)), new AuditEventFilter(AuditEventType.RESPONSE_RECEIVED, null, null, null, null)))
+				.isEqualTo(ArchivedTotals.NONE);
+		}
+	}
+
+	@Test
+	void onlyKeepsTheFirstSummaryOfInteractionsArchivedAgain() {
+		var archive = openArchive();
+		var interactions = List.of(
+			interaction(UUID.randomUUID(), START, 1),
+			interaction(UUID.randomUUID(), START.plusSeconds(60), 2)
+		);
+
+		// As if deleting the interactions from the database failed after the first segment was written, so they were archived again
+		try (var segment = archive.startSegment()) {
+			segment.complete(interactions.subList(0, 1));
+		}
+
+		try (var segment = archive.startSegment()) {
+			segment.complete(interactions);
+		}
+
+		var auditDates = new AuditDates(START, START.plusSeconds(3_600));
+
+		assertThat(archive.findInteractions(auditDates, AuditEventFilter.NONE, Optional.empty(), 10, false))
+			.extracting(ArchivedInteraction::interactionId)
+			.containsExactly(interactions.get(0).interactionId(), interactions.get(1).interactionId());
+
+		assertThat(archive.findTotals(auditDates, AuditEventFilter.NONE)).isEqualTo(totalsOf(interactions));
+	}
+
+	@Test
+	void upgradesSegmentsOfTheFirstVersion() throws IOException {
+		var interaction = interaction(UUID.randomUUID(), START, 1);
+
+		// A segment without events, with its interactions written as a whole after their count
+		try (var out = new DataOutputStream(new ZstdOutputStream(Files.newOutputStream(this.directory.resolve("segment-00000000000000000000.interactions"))))) {
+			out.writeInt(1);
+			AuditEventCodec.writeUuid(out, interaction.interactionId());
+			AuditEventCodec.writeInstant(out, interaction.interactionDate());
+			AuditEventCodec.writeInstant(out, interaction.lastEventOn());
+			out.writeLong(interaction.numLlmFailures());
+			out.writeLong(interaction.totalOutputGuardrailExecutions());
+			out.writeLong(interaction.totalOutputGuardrailFailures());
+			out.writeLong(interaction.inputTokenCount());
+			out.writeLong(interaction.outputTokenCount());
+			out.writeByte(interaction.status().ordinal());
+			AuditEventCodec.writeString(out, interaction.systemMessage());
+			AuditEventCodec.writeString(out, interaction.userMessage());
+			AuditEventCodec.writeString(out, interaction.result());
+			AuditEventCodec.writeString(out, interaction.errorMessage());
+			AuditEventCodec.writeString(out, interaction.causeErrorMessage());
+			out.writeInt(0);
+		}
+
+		try (var out = new DataOutputStream(Files.newOutputStream(this.directory.resolve("segment-00000000000000000000.index")))) {
+			out.writeByte(1);
+			out.writeLong(0);
+			AuditEventCodec.writeInstant(out, interaction.interactionDate());
+			AuditEventCodec.writeInstant(out, interaction.interactionDate());
+			out.writeInt(0);
+		}
+
+		for (var reopened : List.of(openArchive(), openArchive())) {
+			assertThat(reopened.findInteractions(new AuditDates(START, START.plusSeconds(60)), AuditEventFilter.NONE, Optional.empty(), 10, true))
+				.usingRecursiveFieldByFieldElementComparatorIgnoringFields("facets")
+				.containsExactly(interaction);
+
+			assertThat(reopened.findTotals(new AuditDates(START, START.plusSeconds(60)), AuditEventFilter.NONE))
+				.isEqualTo(ArchivedTotals.of(interaction));
+		}
+
+		assertThat(this.directory.resolve("segment-00000000000000000000.interactions")).doesNotExist();
+	}
+
+	private AuditArchive openArchive() {
+		var archive = new AuditArchive(this.auditConfig);
+		archive.open();
+
+		return archive;
+	}
+
+	private static InvocationContext invocationContext(UUID interactionId) {
+		return InvocationContext.builder()
+			.interactionId(interactionId)
+			.interfaceName("someInterface")
+			.methodName("someMethod")
+			.build();
+	}
+
+	private static ArchivedInteraction interaction(UUID interactionId, Instant interactionDate, long outputGuardrailFailures) {
+		return new ArchivedInteraction(
+			interactionId,
+			interactionDate,
+			interactionDate.plusSeconds(1),
+			0,
+			outputGuardrailFailures * 2,
+			outputGuardrailFailures,
+			1,
+			2,
+			InteractionStatus.UNKNOWN,
+			"System",
+			"User %s".formatted(interactionId),
+			"Result",
+			null,
+			null,
+			Set.of(new Facet(AuditEventType.SERVICE_STARTED, "someInterface", "someMethod", null, null))
+		);
+	}
+
+	private static ArchivedTotals totalsOf(List<ArchivedInteraction> interactions) {
+		return interactions.stream()
+			.map(ArchivedTotals::of)
+			.reduce(ArchivedTotals.NONE, ArchivedTotals::add);
+	}
+
+	private static ArchivedInteraction interaction(UUID interactionId, List<AuditEvent> auditEvents) {
+		var interactionEvents = auditEvents.stream()
+			.filter(auditEvent -> interactionId.equals(auditEvent.getInvocationContext().getInteractionId()))
+			.toList();
+
+		return new ArchivedInteraction(
+			interactionId,
+			interactionEvents.getFirst().getCreatedOn(),
+			interactionEvents.getLast().getCreatedOn(),
+			0,
+			0,
+			0,
+			1,
+			2,
+			InteractionStatus.UNKNOWN,
+			"System",
+			"User",
+			null,
+			null,
+			null,
+			Set.copyOf(interactionEvents.stream().map(Facet::of).toList())
+		);
+	}
+}
@@ -0,0 +1,92 @@
+package org.parasol.repository.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.parasol.model.audit.AuditDates;
+import org.parasol.repository.export.AuditExportJobs.ExportJob;
+import org.parasol.repository.export.AuditExportJobs.Status;
+import org.parasol.repository.export.AuditFileExporter.ExportResult;
+
+class AuditExportJobsTests {
+	private static final Instant NOW = Instant.parse("2025-01-31T10:00:00Z");
+	private static final AuditDates AUDIT_DATES = new AuditDates(NOW.minus(Duration.ofDays(1)), NOW);
+	private static final Duration WAIT_DURATION = Duration.ofSeconds(10);
+
+	private final AuditFileExporter exporter = mock(AuditFileExporter.class);
+	private final AuditExportJobs jobs = new AuditExportJobs(this.exporter, 2, Clock.fixed(NOW, ZoneOffset.UTC));
+
+	@AfterEach
+	void shutdown() {
+		this.jobs.shutdown();
+	}
+
+	@Test
+	void runsExportsInTheBackground() {
+		var result = new ExportResult(AUDIT_DATES, 5, 42, 2);
+		when(this.exporter.export(AUDIT_DATES)).thenReturn(result);
+
+		var job = this.jobs.submit(AUDIT_DATES);
+
+		assertThat(job)
+			.extracting(ExportJob::auditDates, ExportJob::submittedOn)
+			.containsExactly(AUDIT_DATES, NOW);
+
+		await()
+			.atMost(WAIT_DURATION)
+			.until(() -> status(job) == Status.SUCCEEDED);
+
+		assertThat(this.jobs.get(job.id()))
+			.get()
+			.extracting(ExportJob::result, ExportJob::finishedOn, ExportJob::error)
+			.containsExactly(result, NOW, null);
+	}
+
+	@Test
+	void recordsWhyExportsFailed() {
+		when(this.exporter.export(any())).thenThrow(new IllegalStateException("Something went wrong"));
+
+		var job = this.jobs.submit(AUDIT_DATES);
+
+		await()
+			.atMost(WAIT_DURATION)
+			.until(() -> status(job) == Status.FAILED);
+
+		assertThat(this.jobs.get(job.id()))
+			.get()
+			.extracting(ExportJob::result, ExportJob::error)
+			.containsExactly(null, "Something went wrong");
+	}
+
+	@Test
+	void onlyKeepsTheLastFinishedJobs() {
+		when(this.exporter.export(AUDIT_DATES)).thenReturn(new ExportResult(AUDIT_DATES, 0, 0, 0));
+
+		var first = this.jobs.submit(AUDIT_DATES);
+		var second = this.jobs.submit(AUDIT_DATES);
+		var third = this.jobs.submit(AUDIT_DATES);
+
+		await()
+			.atMost(WAIT_DURATION)
+			.until(() -> status(third) == Status.SUCCEEDED);
+
+		assertThat(this.jobs.get(first.id())).isEmpty();
+		assertThat(status(second)).isEqualTo(Status.SUCCEEDED);
+	}
+
+	private Status status(ExportJob job) {
+		return this.jobs.get(job.id())
+		                .map(ExportJob::status)
+		                .orElse(null);
+	}
+}
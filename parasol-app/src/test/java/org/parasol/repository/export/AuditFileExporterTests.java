@@ -0,0 +1,110 @@
+package org.parasol.repository.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.UUID;
+
+import jakarta.inject.Inject;
+
+import org.junit.jupiter.api.Test;
+import org.parasol.config.AuditConfig;
+import org.parasol.model.audit.AuditDates;
+import org.parasol.model.audit.InvocationContext;
+import org.parasol.model.audit.OutputGuardrailExecutedAuditEvent;
+import org.parasol.model.audit.ResponseReceivedAuditEvent;
+import org.parasol.repository.AuditEventRepository;
+import org.parasol.repository.export.AuditFileExporter.ExportResult;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+class AuditFileExporterTests {
+	// Outside of the default date range of the stats, since these events are committed
+	private static final Instant CREATED_ON = Instant.parse("2019-06-01T10:00:00Z");
+
+	@Inject
+	AuditFileExporter exporter;
+
+	@Inject
+	AuditEventRepository repository;
+
+	@Inject
+	AuditConfig auditConfig;
+
+	@Test
+	void exportsByDayAndEventTypeAndResumes() throws IOException {
+		var invocationContext = InvocationContext.builder()
+			.interactionId(UUID.randomUUID())
+			.interfaceName("someInterface-%s".formatted(UUID.randomUUID()))
+			.methodName("someMethod")
+			.build();
+
+		var response = ResponseReceivedAuditEvent.builder()
+			.invocationContext(invocationContext)
+			.createdOn(CREATED_ON)
+			.response("Some response")
+			.modelName("someModel")
+			.inputTokenCount(3)
+			.outputTokenCount(4)
+			.build();
+
+		var guardrail = OutputGuardrailExecutedAuditEvent.builder()
+			.invocationContext(invocationContext)
+			.createdOn(CREATED_ON.plusSeconds(86_400))
+			.response("Some response")
+			.result("FAILURE")
+			.guardrailClass("some.Guardrail")
+			.build();
+
+		QuarkusTransaction.requiringNew().run(() -> {
+			this.repository.persist(response);
+			this.repository.persist(guardrail);
+		});
+
+		// A unique range, so that there's no checkpoint from a previous run
+		var auditDates = new AuditDates(CREATED_ON.minusMillis(invocationContext.getInteractionId().hashCode() & 0xffff), CREATED_ON.plusSeconds(2 * 86_400));
+
+		assertThat(this.exporter.export(auditDates))
+			.extracting(ExportResult::exportedEvents, ExportResult::lastExportedId)
+			.containsExactly(2L, guardrail.getId());
+
+		var responseFile = this.auditConfig.export().directory()
+			.resolve("day=2019-06-01")
+			.resolve("event_type=RESPONSE_RECEIVED")
+			.resolve("part-%020d.parquet".formatted(response.getId()));
+
+		var guardrailFile = this.auditConfig.export().directory()
+			.resolve("day=2019-06-02")
+			.resolve("event_type=OUTPUT_GUARDRAIL_EXECUTED")
+			.resolve("part-%020d.parquet".formatted(guardrail.getId()));
+
+		assertThat(ParquetPartWriterTests.read(responseFile))
+			.singleElement()
+			.satisfies(row -> {
+				assertThat(row.getLong("id", 0)).isEqualTo(response.getId());
+				assertThat(row.getString("interface_name", 0)).isEqualTo(invocationContext.getInterfaceName());
+				assertThat(row.getString("model_name", 0)).isEqualTo("someModel");
+				assertThat(row.getInteger("input_token_count", 0)).isEqualTo(3);
+				assertThat(row.getInteger("output_token_count", 0)).isEqualTo(4);
+				assertThat(row.getFieldRepetitionCount("guardrail_result")).isZero();
+			});
+
+		assertThat(ParquetPartWriterTests.read(guardrailFile))
+			.singleElement()
+			.satisfies(row -> {
+				assertThat(row.getLong("id", 0)).isEqualTo(guardrail.getId());
+				assertThat(row.getString("event_type", 0)).isEqualTo("OUTPUT_GUARDRAIL_EXECUTED");
+				assertThat(row.getString("guardrail_class", 0)).isEqualTo("some.Guardrail");
+				assertThat(row.getString("guardrail_result", 0)).isEqualTo("FAILURE");
+				assertThat(row.getFieldRepetitionCount("input_token_count")).isZero();
+			});
+
+		// Everything in the range has already been exported
+		assertThat(this.exporter.export(auditDates))
+			.extracting(ExportResult::exportedEvents, ExportResult::lastExportedId, ExportResult::filesWritten)
+			.containsExactly(0L, guardrail.getId(), 0);
+	}
+}
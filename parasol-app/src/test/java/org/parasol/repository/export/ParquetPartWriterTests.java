@@ -0,0 +1,93 @@
+package org.parasol.repository.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.parquet.ParquetReadOptions;
+import org.apache.parquet.conf.PlainParquetConfiguration;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.convert.GroupRecordConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.io.ColumnIOFactory;
+import org.apache.parquet.io.LocalInputFile;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ParquetPartWriterTests {
+	@TempDir
+	Path directory;
+
+	@Test
+	void writesTypedColumns() throws IOException {
+		var partDirectory = this.directory.resolve("day=2020-01-01").resolve("event_type=RESPONSE_RECEIVED");
+		var interactionId = UUID.randomUUID();
+		var writer = new ParquetPartWriter(partDirectory, 42, 3, 1024 * 1024);
+		writer.write(new ExportedEvent(42, Instant.parse("2020-01-01T10:00:00.123456Z"), "RESPONSE_RECEIVED", interactionId, "someInterface", "someMethod", "someModel", 3, 4, null, null, null, null, null));
+		writer.write(new ExportedEvent(43, Instant.parse("2020-01-01T11:00:00Z"), "RESPONSE_RECEIVED", null, null, null, null, null, null, null, null, "FAILURE", "Some error", null));
+
+		assertThat(partDirectory.resolve("part-00000000000000000042.parquet.inprogress")).exists();
+		assertThat(partDirectory.resolve("part-00000000000000000042.parquet")).doesNotExist();
+
+		writer.close();
+
+		// Complete, but not published until the export's checkpoint covers it
+		assertThat(partDirectory.resolve("part-00000000000000000042.parquet.inprogress")).exists();
+		assertThat(partDirectory.resolve("part-00000000000000000042.parquet")).doesNotExist();
+
+		ParquetPartWriter.publish(writer.inProgressFile());
+
+		var file = partDirectory.resolve("part-00000000000000000042.parquet");
+		assertThat(partDirectory.resolve("part-00000000000000000042.parquet.inprogress")).doesNotExist();
+
+		var schema = ParquetPartWriter.SCHEMA;
+		assertThat(schema.getType("input_token_count").asPrimitiveType().getPrimitiveTypeName()).isEqualTo(PrimitiveTypeName.INT32);
+		assertThat(schema.getType("created_on").getLogicalTypeAnnotation()).isEqualTo(LogicalTypeAnnotation.timestampType(true, LogicalTypeAnnotation.TimeUnit.MICROS));
+		assertThat(schema.getType("guardrail_result").getLogicalTypeAnnotation()).isEqualTo(LogicalTypeAnnotation.enumType());
+
+		var rows = read(file);
+
+		assertThat(rows).hasSize(2);
+		assertThat(rows.getFirst().getLong("id", 0)).isEqualTo(42);
+		assertThat(rows.getFirst().getLong("created_on", 0)).isEqualTo(1_577_872_800_123_456L);
+		assertThat(rows.getFirst().getBinary("interaction_id", 0).getBytes()).hasSize(16);
+		assertThat(rows.getFirst().getString("model_name", 0)).isEqualTo("someModel");
+		assertThat(rows.getFirst().getInteger("input_token_count", 0)).isEqualTo(3);
+		assertThat(rows.getFirst().getInteger("output_token_count", 0)).isEqualTo(4);
+		assertThat(rows.getFirst().getFieldRepetitionCount("guardrail_result")).isZero();
+		assertThat(rows.getLast().getFieldRepetitionCount("model_name")).isZero();
+		assertThat(rows.getLast().getString("guardrail_result", 0)).isEqualTo("FAILURE");
+		assertThat(rows.getLast().getString("error_message", 0)).isEqualTo("Some error");
+	}
+
+	/**
+	 * All the rows of a part file
+	 */
+	static List<Group> read(Path file) throws IOException {
+		var options = ParquetReadOptions.builder(new PlainParquetConfiguration())
+			.withCodecFactory(new ZstdCodecFactory(3))
+			.build();
+
+		try (var reader = ParquetFileReader.open(new LocalInputFile(file), options)) {
+			var schema = reader.getFooter().getFileMetaData().getSchema();
+			var rows = new ArrayList<Group>();
+
+			for (var rowGroup = reader.readNextRowGroup(); rowGroup != null; rowGroup = reader.readNextRowGroup()) {
+				var records = new ColumnIOFactory().getColumnIO(schema).getRecordReader(rowGroup, new GroupRecordConverter(schema));
+
+				for (var i = 0L; i < rowGroup.getRowCount(); i++) {
+					rows.add(records.read());
+				}
+			}
+
+			return rows;
+		}
+	}
+}
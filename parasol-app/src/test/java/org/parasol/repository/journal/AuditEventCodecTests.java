@@ -0,0 +1,80 @@
+package org.parasol.repository.journal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.parasol.model.audit.AuditEvent;
+import org.parasol.model.audit.InputGuardrailExecutedAuditEvent;
+import org.parasol.model.audit.InvocationContext;
+import org.parasol.model.audit.OutputGuardrailExecutedAuditEvent;
+import org.parasol.model.audit.ResponseReceivedAuditEvent;
+import org.parasol.model.audit.ServiceCompleteAuditEvent;
+import org.parasol.model.audit.ServiceErrorAuditEvent;
+import org.parasol.model.audit.ServiceStartedAuditEvent;
+import org.parasol.model.audit.ToolExecutedAuditEvent;
+
+class AuditEventCodecTests {
+	private static final InvocationContext INVOCATION_CONTEXT = InvocationContext.builder()
+		.interactionId(UUID.randomUUID())
+		.interfaceName("someInterface")
+		.methodName("someMethod")
+		.build();
+
+	static Stream<AuditEvent> auditEvents() {
+		return Stream.of(
+			ServiceStartedAuditEvent.builder()
+				.invocationContext(INVOCATION_CONTEXT)
+				.systemMessage("System message")
+				.userMessage("User message with unicode: éè 🚗")
+				.build(),
+			ServiceCompleteAuditEvent.builder()
+				.invocationContext(INVOCATION_CONTEXT)
+				.result("{\"field1\":\"value\"}")
+				.build(),
+			ServiceErrorAuditEvent.builder()
+				.invocationContext(INVOCATION_CONTEXT)
+				.errorMessage("Some error")
+				.build(),
+			ResponseReceivedAuditEvent.builder()
+				.invocationContext(INVOCATION_CONTEXT)
+				.response("Some response")
+				.modelName("someModel")
+				.inputTokenCount(2)
+				.outputTokenCount(5)
+				.build(),
+			ToolExecutedAuditEvent.builder()
+				.invocationContext(INVOCATION_CONTEXT)
+				.toolName("doSomething")
+				.toolArgs("{\"claimId\":1}")
+				.result("result")
+				.build(),
+			InputGuardrailExecutedAuditEvent.builder()
+				.invocationContext(INVOCATION_CONTEXT)
+				.userMessage("do something")
+				.rewrittenUserMessage("new text")
+				.result("SUCCESS")
+				.guardrailClass("some.Guardrail")
+				.build(),
+			OutputGuardrailExecutedAuditEvent.builder()
+				.response("Some response")
+				.result("FAILURE")
+				.guardrailClass("some.Guardrail")
+				.build()
+		);
+	}
+
+	@ParameterizedTest
+	@MethodSource("auditEvents")
+	void roundTrips(AuditEvent auditEvent) {
+		var decoded = AuditEventCodec.decode(AuditEventCodec.encode(auditEvent));
+
+		assertThat(decoded)
+			.isInstanceOf(auditEvent.getClass())
+			.usingRecursiveComparison()
+			.isEqualTo(auditEvent);
+	}
+}
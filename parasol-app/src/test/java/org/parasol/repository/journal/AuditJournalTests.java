@@ -0,0 +1,118 @@
+package org.parasol.repository.journal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.parasol.config.AuditConfig;
+import org.parasol.repository.journal.AuditJournal.Position;
+import org.parasol.repository.journal.AuditJournal.Record;
+
+import io.quarkus.runtime.configuration.MemorySize;
+
+class AuditJournalTests {
+	private static final int SEGMENT_SIZE = 1024;
+
+	@TempDir
+	Path directory;
+
+	AuditConfig auditConfig;
+
+	@BeforeEach
+	void beforeEach() {
+		var journalConfig = mock(AuditConfig.Journal.class);
+		when(journalConfig.enabled()).thenReturn(true);
+		when(journalConfig.directory()).thenReturn(this.directory);
+		when(journalConfig.segmentSize()).thenReturn(new MemorySize(BigInteger.valueOf(SEGMENT_SIZE)));
+
+		this.auditConfig = mock(AuditConfig.class);
+		when(this.auditConfig.journal()).thenReturn(journalConfig);
+	}
+
+	@Test
+	void appendsAndReadsAcrossSegments() {
+		var journal = openJournal();
+		var payloads = payloads(100);
+		payloads.forEach(payload -> append(journal, payload));
+
+		assertThat(readAll(journal, journal.checkpoint()))
+			.containsExactlyElementsOf(payloads);
+
+		assertThat(segmentCount()).isGreaterThan(1);
+	}
+
+	@Test
+	void resumesFromCheckpointAfterRestart() {
+		var journal = openJournal();
+		var payloads = payloads(100);
+		payloads.subList(0, 60).forEach(payload -> append(journal, payload));
+
+		var records = journal.read(journal.checkpoint(), 40);
+		journal.commit(records.getLast().end());
+		journal.close();
+
+		// Reopen, as if after a crash, and carry on appending
+		var reopened = openJournal();
+		payloads.subList(60, 100).forEach(payload -> append(reopened, payload));
+
+		assertThat(readAll(reopened, reopened.checkpoint()))
+			.containsExactlyElementsOf(payloads.subList(40, 100));
+	}
+
+	@Test
+	void deletesReplayedSegments() {
+		var journal = openJournal();
+		payloads(100).forEach(payload -> append(journal, payload));
+		var segmentsBefore = segmentCount();
+
+		var records = journal.read(journal.checkpoint(), 100);
+		journal.commit(records.getLast().end());
+
+		assertThat(segmentCount())
+			.isEqualTo(1)
+			.isLessThan(segmentsBefore);
+	}
+
+	private AuditJournal openJournal() {
+		var journal = new AuditJournal(this.auditConfig);
+		journal.open();
+
+		return journal;
+	}
+
+	private static List<String> readAll(AuditJournal journal, Position from) {
+		return journal.read(from, Integer.MAX_VALUE).stream()
+			.map(Record::payload)
+			.map(payload -> new String(payload, StandardCharsets.UTF_8))
+			.toList();
+	}
+
+	private static List<String> payloads(int count) {
+		return IntStream.range(0, count)
+			.mapToObj("Audit event payload %d"::formatted)
+			.toList();
+	}
+
+	private static void append(AuditJournal journal, String payload) {
+		journal.append(payload.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private long segmentCount() {
+		try (var files = Files.list(this.directory)) {
+			return files.filter(path -> path.getFileName().toString().endsWith(".journal")).count();
+		}
+		catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package org.parasol.repository.sink;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+
+import org.junit.jupiter.api.Test;
+import org.parasol.model.audit.AuditEvent;
+import org.parasol.model.audit.InputGuardrailExecutedAuditEvent;
+import org.parasol.model.audit.InteractionRollup;
+import org.parasol.model.audit.Interactions.Interaction.InteractionStatus;
+import org.parasol.model.audit.InvocationContext;
+import org.parasol.model.audit.OutputGuardrailExecutedAuditEvent;
+import org.parasol.model.audit.ResponseReceivedAuditEvent;
+import org.parasol.model.audit.ServiceCompleteAuditEvent;
+import org.parasol.model.audit.ServiceErrorAuditEvent;
+import org.parasol.model.audit.ServiceStartedAuditEvent;
+import org.parasol.model.audit.ToolExecutedAuditEvent;
+import org.parasol.repository.AuditEventRepository;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+class CopyAuditSinkTests {
+	@Inject
+	CopyAuditSink sink;
+
+	// Outside of the default date range of the stats, since these events are committed
+	private static final Instant CREATED_ON = Instant.parse("2020-01-01T00:00:00Z");
+
+	@Inject
+	AuditEventRepository repository;
+
+	@Inject
+	EntityManager entityManager;
+
+	@Test
+	void copiesEvents() {
+		var invocationContext = InvocationContext.builder()
+			.interactionId(UUID.randomUUID())
+			.interfaceName("someInterface")
+			.methodName("someMethod")
+			.build();
+
+		List<AuditEvent> events = List.of(
+			ServiceStartedAuditEvent.builder()
+				.invocationContext(invocationContext)
+				.createdOn(CREATED_ON)
+				.systemMessage("System message with \"quotes\", commas and\nnew lines")
+				.userMessage("User message with unicode: éè 🚗")
+				.build(),
+			ToolExecutedAuditEvent.builder()
+				.invocationContext(invocationContext)
+				.createdOn(CREATED_ON)
+				.toolName("doSomething")
+				.toolArgs("{\"claimId\":1}")
+				.result("")
+				.build(),
+			ResponseReceivedAuditEvent.builder()
+				.invocationContext(invocationContext)
+				.createdOn(CREATED_ON)
+				.response("Some response")
+				.modelName("someModel")
+				.inputTokenCount(2)
+				.outputTokenCount(5)
+				.build(),
+			InputGuardrailExecutedAuditEvent.builder()
+				.invocationContext(invocationContext)
+				.createdOn(CREATED_ON)
+				.userMessage("User message with unicode: éè 🚗")
+				.rewrittenUserMessage("new text")
+				.result("SUCCESS")
+				.guardrailClass("some.Guardrail")
+				.build(),
+			OutputGuardrailExecutedAuditEvent.builder()
+				.invocationContext(invocationContext)
+				.createdOn(CREATED_ON)
+				.response("Some response")
+				.result("FAILURE")
+				.guardrailClass("some.Guardrail")
+				.build(),
+			ServiceErrorAuditEvent.builder()
+				.invocationContext(invocationContext)
+				.createdOn(CREATED_ON)
+				.errorMessage("Some error")
+				.build(),
+			ServiceCompleteAuditEvent.builder()
+				.invocationContext(invocationContext)
+				.createdOn(CREATED_ON)
+				.result("{\"field1\":\"value\"}")
+				.build()
+		);
+
+		this.sink.store(events);
+
+		assertThat(events)
+			.extracting(AuditEvent::getId)
+			.doesNotContainNull();
+
+		// The texts are loaded lazily, so compare within the transaction
+		QuarkusTransaction.requiringNew().run(() ->
+			assertThat(this.repository.getAllForInteractionId(invocationContext.getInteractionId()))
+				.usingRecursiveFieldByFieldElementComparator()
+				.containsExactlyInAnyOrderElementsOf(events)
+		);
+
+		var rollup = QuarkusTransaction.requiringNew().call(() -> this.entityManager.find(InteractionRollup.class, invocationContext.getInteractionId()));
+
+		assertThat(rollup)
+			.isNotNull()
+			.extracting(
+				InteractionRollup::getInteractionDate,
+				InteractionRollup::getNumLlmFailures,
+				InteractionRollup::getTotalOutputGuardrailExecutions,
+				InteractionRollup::getTotalOutputGuardrailFailures,
+				InteractionRollup::getInputTokenCount,
+				InteractionRollup::getOutputTokenCount,
+				InteractionRollup::getStatus
+			)
+			.containsExactly(CREATED_ON, 1L, 1L, 1L, 2L, 5L, InteractionStatus.FAILURE);
+	}
+
+	@Test
+	void storesEventsOnlyIfAbsent() {
+		var invocationContext = InvocationContext.builder()
+			.interactionId(UUID.randomUUID())
+			.interfaceName("someInterface")
+			.methodName("someMethod")
+			.build();
+
+		var started = ServiceStartedAuditEvent.builder()
+			.invocationContext(invocationContext)
+			.createdOn(CREATED_ON)
+			.systemMessage("System message")
+			.userMessage("User message")
+			.build();
+
+		var completed = ServiceCompleteAuditEvent.builder()
+			.invocationContext(invocationContext)
+			.createdOn(CREATED_ON)
+			.result("Some result")
+			.build();
+
+		this.sink.storeIfAbsent(List.of(started));
+		this.sink.storeIfAbsent(List.of(started, completed));
+
+		QuarkusTransaction.requiringNew().run(() ->
+			assertThat(this.repository.getAllForInteractionId(invocationContext.getInteractionId()))
+				.extracting(AuditEvent::getEventKey)
+				.containsExactlyInAnyOrder(started.getEventKey(), completed.getEventKey())
+		);
+	}
+}
@@ -0,0 +1,79 @@
+package org.parasol.repository.sink;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import jakarta.inject.Inject;
+
+import org.junit.jupiter.api.Test;
+import org.parasol.model.audit.AuditEvent;
+import org.parasol.model.audit.InvocationContext;
+import org.parasol.model.audit.ServiceStartedAuditEvent;
+import org.parasol.repository.AuditEventRepository;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+class JpaAuditSinkTests {
+	// Outside of the default date range of the stats, since these events are committed
+	private static final Instant CREATED_ON = Instant.parse("2020-01-01T00:00:00Z");
+
+	@Inject
+	JpaAuditSink sink;
+
+	@Inject
+	AuditEventRepository repository;
+
+	@Test
+	void writesEventsInBackground() {
+		var interactionId = UUID.randomUUID();
+
+		IntStream.range(0, 250)
+			.mapToObj(i -> serviceStarted(interactionId, "User message %d".formatted(i)))
+			.forEach(this.sink::publish);
+
+		await()
+			.atMost(Duration.ofSeconds(30))
+			.until(() -> QuarkusTransaction.requiringNew().call(() -> this.repository.getAllForInteractionId(interactionId).size()) == 250);
+
+		assertThat(this.sink.getQueueDepth()).isZero();
+	}
+
+	@Test
+	void skipsEventsWhichAreAlreadyStored() {
+		var interactionId = UUID.randomUUID();
+		var first = serviceStarted(interactionId, "First message");
+		var second = serviceStarted(interactionId, "Second message");
+
+		this.sink.storeIfAbsent(List.of(first));
+		this.sink.storeIfAbsent(List.of(first, second));
+
+		QuarkusTransaction.requiringNew().run(() ->
+			assertThat(this.repository.getAllForInteractionId(interactionId))
+				.extracting(AuditEvent::getEventKey)
+				.containsExactlyInAnyOrder(first.getEventKey(), second.getEventKey())
+		);
+	}
+
+	private static ServiceStartedAuditEvent serviceStarted(UUID interactionId, String userMessage) {
+		return ServiceStartedAuditEvent.builder()
+			.systemMessage("System message")
+			.userMessage(userMessage)
+			.createdOn(CREATED_ON)
+			.invocationContext(
+				InvocationContext.builder()
+					.interactionId(interactionId)
+					.interfaceName("someInterface")
+					.methodName("someMethod")
+					.build()
+			)
+			.build();
+	}
+}
@@ -0,0 +1,66 @@
+package org.parasol.repository.sink;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.parasol.config.AuditConfig;
+import org.parasol.model.audit.AuditEvent;
+import org.parasol.model.audit.ServiceStartedAuditEvent;
+
+class RingBufferAuditSinkTests {
+	@Test
+	void keepsMostRecentEvents() {
+		var sink = ringBuffer(8);
+		var events = events(10);
+		sink.store(events);
+
+		assertThat(sink.getPublishedCount()).isEqualTo(10);
+		assertThat(sink.getEvents()).containsExactlyElementsOf(events.subList(2, 10));
+
+		sink.clear();
+
+		assertThat(sink.getPublishedCount()).isZero();
+		assertThat(sink.getEvents()).isEmpty();
+	}
+
+	@Test
+	void publishesConcurrently() throws Exception {
+		var sink = ringBuffer(1024);
+
+		try (var executor = Executors.newFixedThreadPool(4)) {
+			IntStream.range(0, 4)
+				.forEach(i -> executor.submit(() -> events(10_000).forEach(sink::publish)));
+		}
+
+		assertThat(sink.getPublishedCount()).isEqualTo(40_000);
+		assertThat(sink.getEvents()).hasSize(1024);
+	}
+
+	@Test
+	void capacityMustBePowerOfTwo() {
+		assertThatIllegalArgumentException().isThrownBy(() -> ringBuffer(1000));
+	}
+
+	private static RingBufferAuditSink ringBuffer(int capacity) {
+		var auditConfig = mock(AuditConfig.class, RETURNS_DEEP_STUBS);
+		when(auditConfig.sink().ringBuffer().capacity()).thenReturn(capacity);
+
+		return new RingBufferAuditSink(auditConfig);
+	}
+
+	private static List<AuditEvent> events(int count) {
+		return IntStream.range(0, count)
+			.<AuditEvent>mapToObj(i -> ServiceStartedAuditEvent.builder()
+				.userMessage("User message %d".formatted(i))
+				.build())
+			.toList();
+	}
+}
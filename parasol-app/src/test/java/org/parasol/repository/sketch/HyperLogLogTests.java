@@ -0,0 +1,53 @@
+package org.parasol.repository.sketch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class HyperLogLogTests {
+	@Test
+	void estimatesDistinctIds() {
+		for (var distinct : new int[] { 0, 10, 1_000, 100_000 }) {
+			var sketch = new HyperLogLog();
+			var ids = new ArrayList<UUID>();
+
+			for (var i = 0; i < distinct; i++) {
+				ids.add(UUID.randomUUID());
+			}
+
+			// Adding the same ids again doesn't change the estimate
+			ids.forEach(sketch::add);
+			ids.forEach(sketch::add);
+
+			assertThat((double) sketch.estimate()).isCloseTo(distinct, within(distinct * 4 * HyperLogLog.RELATIVE_STANDARD_ERROR + 1));
+		}
+	}
+
+	@Test
+	void mergingCountsTheUnion() {
+		var shared = UUID.randomUUID();
+		var first = new HyperLogLog();
+		var second = new HyperLogLog();
+		first.add(shared);
+		second.add(shared);
+
+		for (var i = 0; i < 500; i++) {
+			first.add(UUID.randomUUID());
+			second.add(UUID.randomUUID());
+		}
+
+		var merged = HyperLogLog.fromBytes(first.toBytes()).merge(HyperLogLog.fromBytes(second.toBytes()));
+
+		assertThat((double) merged.estimate()).isCloseTo(1_001, within(1_001 * 4 * HyperLogLog.RELATIVE_STANDARD_ERROR));
+	}
+
+	@Test
+	void rejectsSketchesOfTheWrongSize() {
+		assertThatIllegalArgumentException().isThrownBy(() -> HyperLogLog.fromBytes(new byte[10]));
+	}
+}
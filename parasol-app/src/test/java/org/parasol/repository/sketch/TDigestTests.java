@@ -0,0 +1,77 @@
+package org.parasol.repository.sketch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TDigestTests {
+	@Test
+	void estimatesQuantilesWithinBounds() {
+		var random = new Random(42);
+		var values = new double[100_000];
+		var digest = new TDigest();
+
+		for (var i = 0; i < values.length; i++) {
+			// Skewed, like token counts
+			values[i] = Math.floor(Math.exp(random.nextGaussian() + 6));
+			digest.add(values[i]);
+		}
+
+		Arrays.sort(values);
+
+		// A bounded number of centroids, no matter how many values
+		assertThat(digest.toBytes()).hasSizeLessThan(200 * (Double.BYTES + Long.BYTES));
+
+		assertThat(digest.count()).isEqualTo(values.length);
+		assertThat(digest.min()).isEqualTo(values[0]);
+		assertThat(digest.max()).isEqualTo(values[values.length - 1]);
+		assertThat(digest.sum()).isCloseTo(Arrays.stream(values).sum(), within(1e-3));
+
+		for (var quantile : new double[] { 0.01, 0.5, 0.9, 0.95, 0.99, 0.999 }) {
+			var exact = values[(int) Math.ceil(quantile * values.length) - 1];
+			var bounds = digest.quantileBounds(quantile);
+
+			assertThat(digest.quantile(quantile)).isCloseTo(exact, within(exact * 0.02 + 1));
+			assertThat(exact).isBetween(bounds[0] - 1, bounds[1] + 1);
+		}
+	}
+
+	@Test
+	void mergedDigestsMatchASingleDigest() {
+		var random = new Random(7);
+		var whole = new TDigest();
+		var merged = new TDigest();
+
+		for (var part = 0; part < 24; part++) {
+			var digest = new TDigest();
+
+			for (var i = 0; i < 1_000; i++) {
+				var value = random.nextInt(1_000);
+				digest.add(value);
+				whole.add(value);
+			}
+
+			// As if each part had been stored and read back
+			merged.merge(TDigest.fromBytes(digest.toBytes()));
+		}
+
+		assertThat(merged.count()).isEqualTo(whole.count());
+		assertThat(merged.sum()).isEqualTo(whole.sum());
+
+		for (var quantile : new double[] { 0.1, 0.5, 0.9, 0.99 }) {
+			assertThat(merged.quantile(quantile)).isCloseTo(whole.quantile(quantile), within(15.0));
+		}
+	}
+
+	@Test
+	void emptyDigest() {
+		var digest = TDigest.fromBytes(new TDigest().toBytes());
+
+		assertThat(digest.count()).isZero();
+		assertThat(digest.quantile(0.5)).isNaN();
+	}
+}
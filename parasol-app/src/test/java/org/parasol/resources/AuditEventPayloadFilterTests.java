@@ -0,0 +1,62 @@
+package org.parasol.resources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.parasol.model.audit.InvocationContext;
+import org.parasol.model.audit.PayloadSelection;
+import org.parasol.model.audit.ServiceStartedAuditEvent;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+class AuditEventPayloadFilterTests {
+	private final ObjectMapper objectMapper = AuditEventPayloadFilter.filteringCopyOf(new ObjectMapper().registerModule(new JavaTimeModule()));
+
+	private final ServiceStartedAuditEvent auditEvent = ServiceStartedAuditEvent.builder()
+		.id(1L)
+		.invocationContext(
+			InvocationContext.builder()
+				.interactionId(UUID.randomUUID())
+				.interfaceName("someInterface")
+				.methodName("someMethod")
+				.build()
+		)
+		.systemMessage("Some system message")
+		.userMessage("Some user message")
+		.build();
+
+	@Test
+	void writesEverythingByDefault() throws Exception {
+		var json = write(PayloadSelection.ALL);
+
+		assertThat(json.get("systemMessage").asText()).isEqualTo("Some system message");
+		assertThat(json.get("userMessage").asText()).isEqualTo("Some user message");
+		assertThat(json.has("invocationContext")).isTrue();
+	}
+
+	@Test
+	void writesOnlySelectedFields() throws Exception {
+		var json = write(PayloadSelection.of("createdOn,userMessage", null));
+
+		assertThat(json.properties())
+			.extracting(entry -> entry.getKey())
+			.containsExactlyInAnyOrder("id", "eventType", "createdOn", "userMessage");
+	}
+
+	@Test
+	void writesPreviews() throws Exception {
+		var json = write(PayloadSelection.of("systemMessage", 4));
+
+		assertThat(json.get("systemMessage").asText()).isEqualTo("Some");
+		assertThat(json.get("eventType").asText()).isEqualTo("SERVICE_STARTED");
+	}
+
+	private JsonNode write(PayloadSelection selection) throws Exception {
+		var json = this.objectMapper.writer(AuditEventPayloadFilter.forSelection(selection)).writeValueAsString(this.auditEvent);
+		return this.objectMapper.readTree(json);
+	}
+}
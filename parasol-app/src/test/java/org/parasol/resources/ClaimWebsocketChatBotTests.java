@@ -14,7 +14,6 @@ import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingDeque;
-import java.util.stream.Collectors;
 
 import jakarta.inject.Inject;
 
@@ -74,10 +73,8 @@ class ClaimWebsocketChatBotTests {
 			.onItem().call(() -> Uni.createFrom().nullItem().onItem().delayIt().by(Duration.ofMillis(500)));
 
 		// Set up our AI mock
-		var reply = RESPONSE.stream().collect(Collectors.joining(" "));
 		when(this.claimService.chat(argThat(CHAT_SERVICE_MATCHER)))
-			.thenReturn(reply);
-//			.thenReturn(delayedMulti);
+			.thenReturn(delayedMulti);
 
 		// Create a WebSocket connection and wait for the connection to establish
 		var connection = connectClient();
@@ -88,14 +85,11 @@ class ClaimWebsocketChatBotTests {
 		// Wait for the server to respond with what we expect
 		await()
 			.atMost(Duration.ofMinutes(5))
-			.until(() -> ClientEndpoint.MESSAGES.size() == 1);
-//			.until(() -> ClientEndpoint.MESSAGES.size() == RESPONSE.size());
+			.until(() -> ClientEndpoint.MESSAGES.size() == RESPONSE.size());
 
-		// Verify the messages are what we expected
+		// Verify each token was sent in its own message, in order
 		assertThat(ClientEndpoint.MESSAGES)
-			.singleElement()
-			.isEqualTo(reply);
-//			.hasSameElementsAs(RESPONSE);
+			.containsExactlyElementsOf(RESPONSE);
 
 		// Close the connection
 		connection.closeAndAwait();
@@ -111,8 +105,7 @@ class ClaimWebsocketChatBotTests {
 
 		// Set up mock to throw an error
 		when(this.claimService.chat(argThat(CHAT_SERVICE_MATCHER)))
-			.thenThrow(error);
-//			.thenReturn(Multi.createFrom().failure(error));
+			.thenReturn(Multi.createFrom().failure(error));
 
 		// Create a WebSocket connection and wait for the connection to establish
 		var connection = connectClient();